@@ -0,0 +1,35 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.karboncard.assignment.notificationservice.util.FingerprintProcessedNotificationStore;
+import com.karboncard.assignment.notificationservice.util.HeapProcessedNotificationStore;
+import com.karboncard.assignment.notificationservice.util.ProcessedNotificationStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Value("${notification.idempotency.processed-cache.storage:heap}")
+    private ProcessedNotificationStore.Storage storage = ProcessedNotificationStore.Storage.HEAP;
+
+    @Value("${notification.idempotency.processed-cache.max-size:1000000}")
+    private int maxSize = 1000000;
+
+    @Value("${notification.idempotency.processed-cache.ttl-minutes:60}")
+    private long ttlMinutes = 60;
+
+    @Value("${notification.idempotency.processed-cache.stripes:16}")
+    private int stripes = 16;
+
+    @Bean
+    public ProcessedNotificationStore processedNotificationStore() {
+        Duration ttl = Duration.ofMinutes(ttlMinutes);
+        return switch (storage) {
+            case HEAP -> new HeapProcessedNotificationStore(maxSize, ttl, stripes);
+            case FINGERPRINT -> new FingerprintProcessedNotificationStore(maxSize, ttl, stripes);
+        };
+    }
+}
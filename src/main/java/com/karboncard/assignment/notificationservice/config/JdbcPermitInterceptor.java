@@ -0,0 +1,77 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.karboncard.assignment.notificationservice.exception.ServiceOverloadedException;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of requests working against the database at the JDBC pool size.
+ * With virtual threads there is no worker pool to bound concurrency, so thousands of requests
+ * would otherwise queue inside Hikari and fail with connection timeouts; here they wait on a
+ * fair semaphore instead and are rejected with 503 if no permit frees up in time.
+ */
+public class JdbcPermitInterceptor implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcPermitInterceptor.class);
+
+    private static final String PERMIT_ATTRIBUTE = JdbcPermitInterceptor.class.getName() + ".permit";
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long acquireTimeoutMs;
+    private final MetricsUtil metricsUtil;
+
+    public JdbcPermitInterceptor(int maxPermits, long acquireTimeoutMs, MetricsUtil metricsUtil) {
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.metricsUtil = metricsUtil;
+        metricsUtil.registerGauge("notification.jdbc.permits.in_use", Map.of(),
+                () -> maxPermits - permits.availablePermits());
+        metricsUtil.registerGauge("notification.jdbc.permits.waiting", Map.of(), permits::getQueueLength);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.warn("No database permit available after {} ms for {} {}", acquireTimeoutMs,
+                    request.getMethod(), request.getRequestURI());
+            metricsUtil.incrementCounter("notification.jdbc.permits.rejected", Map.of());
+            throw new ServiceOverloadedException("Service is overloaded, please retry later",
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(acquireTimeoutMs)));
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+}
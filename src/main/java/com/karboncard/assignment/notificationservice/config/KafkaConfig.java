@@ -11,14 +11,20 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 @Getter
+@Slf4j
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
@@ -42,6 +48,39 @@ public class KafkaConfig {
     @Value("${spring.kafka.topics.replication-factor:1}")
     private short replicationFactor;
 
+    @Value("${notification.kafka.producer.linger-ms:5}")
+    private int producerLingerMs;
+
+    @Value("${notification.kafka.producer.batch-size:65536}")
+    private int producerBatchSize;
+
+    @Value("${notification.kafka.producer.compression-type:lz4}")
+    private String producerCompressionType;
+
+    @Value("${notification.kafka.producer.max-in-flight:10000}")
+    private int producerMaxInFlight;
+
+    @Value("${notification.kafka.producer.backpressure-timeout-ms:1000}")
+    private long producerBackpressureTimeoutMs;
+
+    @Value("${notification.worker.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    @Value("${notification.worker.batch.retry-max-attempts:5}")
+    private int batchRetryMaxAttempts = 5;
+
+    @Value("${notification.worker.batch.retry-initial-interval-ms:1000}")
+    private long batchRetryInitialIntervalMs = 1000;
+
+    @Value("${notification.worker.batch.retry-max-interval-ms:30000}")
+    private long batchRetryMaxIntervalMs = 30000;
+
+    @Value("${notification.dlq.consumer.retry-initial-interval-ms:500}")
+    private long deadLetterRetryInitialIntervalMs = 500;
+
+    @Value("${notification.dlq.consumer.retry-max-interval-ms:30000}")
+    private long deadLetterRetryMaxIntervalMs = 30000;
+
     // Producer configuration
     @Bean
     public ProducerFactory<String, String> producerFactory() {
@@ -52,6 +91,10 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // Sends no longer block per record, so let the producer accumulate batches
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producerCompressionType);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
@@ -84,6 +127,65 @@ public class KafkaConfig {
         return factory;
     }
 
+    // Batch listener: one poll is delivered as a List and acknowledged once after processing
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = newBatchListenerContainerFactory();
+        factory.setCommonErrorHandler(batchErrorHandler());
+        return factory;
+    }
+
+    // DLQ listener: batches like the one above, but a poll that cannot be stored is never skipped
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> deadLetterKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = newBatchListenerContainerFactory();
+        factory.setCommonErrorHandler(deadLetterErrorHandler());
+        return factory;
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, String> newBatchListenerContainerFactory() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxPollRecords);
+        DefaultKafkaConsumerFactory<String, String> batchConsumerFactory =
+                new DefaultKafkaConsumerFactory<>(consumerFactory().getConfigurationProperties());
+        batchConsumerFactory.updateConfigs(overrides);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(
+                org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * A failed delivery poll is retried with a growing pause. Once the attempts are used up it is
+     * logged and sought back instead of committed, so the round starts over: its notifications are
+     * not final yet, and nothing else would deliver them.
+     */
+    DefaultErrorHandler batchErrorHandler() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(batchRetryMaxAttempts);
+        backOff.setInitialInterval(batchRetryInitialIntervalMs);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(batchRetryMaxIntervalMs);
+        return new DefaultErrorHandler((record, e) -> {
+            log.error("Batch delivery of {}-{}@{} still failing after {} retries, redelivering the poll",
+                    record.topic(), record.partition(), record.offset(), batchRetryMaxAttempts, e);
+            throw new IllegalStateException("Batch delivery poll not recovered", e);
+        }, backOff);
+    }
+
+    /**
+     * dead_letters is the store of last resort, so a poll whose insert fails is retried, paused
+     * between attempts, with a backoff capped at the max interval and no limit on the number of attempts
+     */
+    DefaultErrorHandler deadLetterErrorHandler() {
+        ExponentialBackOff backOff = new ExponentialBackOff(deadLetterRetryInitialIntervalMs, 2.0);
+        backOff.setMaxInterval(deadLetterRetryMaxIntervalMs);
+        return new DefaultErrorHandler(backOff);
+    }
+
     // Topic configurations
     @Bean
     public NewTopic emailTopic() {
@@ -106,4 +208,24 @@ public class KafkaConfig {
         configs.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         return new KafkaAdmin(configs);
     }
-}
\ No newline at end of file
+
+    /**
+     * Resolves the channel topic for a notification type
+     * @return the topic, or null for an unknown type
+     */
+    public String topicFor(NotificationType type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case EMAIL:
+                return emailTopic;
+            case SMS:
+                return smsTopic;
+            case PUSH:
+                return pushTopic;
+            default:
+                return null;
+        }
+    }
+}
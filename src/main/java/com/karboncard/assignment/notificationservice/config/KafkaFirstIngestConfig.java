@@ -0,0 +1,79 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Topic and listener container for Kafka-first ingestion (notification.ingest.kafka-first.enabled)
+ */
+@Configuration
+@ConditionalOnProperty(name = "notification.ingest.kafka-first.enabled", havingValue = "true")
+public class KafkaFirstIngestConfig {
+
+    @Value("${notification.ingest.kafka-first.topic:notification-ingest-topic}")
+    private String ingestTopic;
+
+    @Value("${notification.ingest.kafka-first.persister.max-poll-records:2000}")
+    private int persisterMaxPollRecords;
+
+    @Value("${notification.ingest.kafka-first.persister.fetch-min-bytes:65536}")
+    private int persisterFetchMinBytes;
+
+    @Value("${notification.ingest.kafka-first.persister.fetch-max-wait-ms:100}")
+    private int persisterFetchMaxWaitMs;
+
+    @Value("${notification.ingest.kafka-first.persister.retry-initial-interval-ms:500}")
+    private long persisterRetryInitialIntervalMs = 500;
+
+    @Value("${notification.ingest.kafka-first.persister.retry-max-interval-ms:30000}")
+    private long persisterRetryMaxIntervalMs = 30000;
+
+    @Bean
+    public NewTopic ingestTopic(KafkaConfig kafkaConfig) {
+        return new NewTopic(ingestTopic, kafkaConfig.getPartitionCount(), kafkaConfig.getReplicationFactor());
+    }
+
+    // Large polls become large INSERTs; under light load a fetch waits briefly for more records
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> persisterKafkaListenerContainerFactory(
+            KafkaConfig kafkaConfig) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, persisterMaxPollRecords);
+        overrides.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, persisterFetchMinBytes);
+        overrides.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, persisterFetchMaxWaitMs);
+        DefaultKafkaConsumerFactory<String, String> persisterConsumerFactory =
+                new DefaultKafkaConsumerFactory<>(kafkaConfig.consumerFactory().getConfigurationProperties());
+        persisterConsumerFactory.updateConfigs(overrides);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(persisterConsumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(persisterErrorHandler());
+        return factory;
+    }
+
+    /**
+     * The records of a poll are already acknowledged to their API callers, so a failed poll is never
+     * skipped: it is retried, paused between attempts, with a backoff capped at the max interval
+     * and no limit on the number of attempts.
+     */
+    DefaultErrorHandler persisterErrorHandler() {
+        ExponentialBackOff backOff = new ExponentialBackOff(persisterRetryInitialIntervalMs, 2.0);
+        backOff.setMaxInterval(persisterRetryMaxIntervalMs);
+        return new DefaultErrorHandler(backOff);
+    }
+}
@@ -0,0 +1,52 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.karboncard.assignment.notificationservice.exception.NotificationNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+
+import java.util.List;
+
+/**
+ * Non-blocking retries for the single-record listener. A failed record is republished to
+ * &lt;topic&gt;-retry-0, -retry-1, ... and consumed again once its delay has passed; the retry
+ * containers pause the partition until then instead of sleeping. After the last attempt the
+ * record goes to &lt;topic&gt;-dlt, whose handler forwards it to the dead letter queue topic.
+ * Batch listener modes are not supported by retry topics and are left out.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notification.worker.listener-mode", havingValue = "single", matchIfMissing = true)
+public class KafkaRetryTopicConfig {
+
+    @Value("${notification.worker.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${notification.worker.retry.initial-delay-ms:5000}")
+    private long initialDelayMs;
+
+    @Value("${notification.worker.retry.multiplier:12}")
+    private double multiplier;
+
+    @Value("${notification.worker.retry.max-delay-ms:600000}")
+    private long maxDelayMs;
+
+    @Bean
+    public RetryTopicConfiguration notificationRetryTopics(KafkaTemplate<String, String> kafkaTemplate,
+                                                           KafkaConfig kafkaConfig) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .maxAttempts(maxAttempts)
+                .exponentialBackoff(initialDelayMs, multiplier, maxDelayMs)
+                .suffixTopicsWithIndexValues()
+                .includeTopics(List.of(kafkaConfig.getEmailTopic(), kafkaConfig.getSmsTopic(), kafkaConfig.getPushTopic()))
+                // Malformed payloads and missing notifications will not succeed on a later attempt
+                .notRetryOn(List.of(JsonProcessingException.class, NotificationNotFoundException.class))
+                .autoCreateTopicsWith(kafkaConfig.getPartitionCount(), kafkaConfig.getReplicationFactor())
+                .dltHandlerMethod("notificationDltHandler", "handleDlt")
+                .create(kafkaTemplate);
+    }
+}
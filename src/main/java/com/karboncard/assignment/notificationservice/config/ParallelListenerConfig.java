@@ -0,0 +1,52 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.karboncard.assignment.notificationservice.worker.listener.KafkaParallelNotificationListener;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Container factory for the parallel listener mode. The listener commits offsets itself
+ * through the consumer, so the container never commits (MANUAL ack mode without acks).
+ */
+@Configuration
+@ConditionalOnProperty(name = "notification.worker.listener-mode", havingValue = "parallel")
+public class ParallelListenerConfig {
+
+    @Value("${notification.worker.parallel.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${notification.worker.parallel.idle-commit-interval-ms:1000}")
+    private long idleCommitIntervalMs;
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> parallelKafkaListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory,
+            KafkaParallelNotificationListener parallelListener) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        DefaultKafkaConsumerFactory<String, String> parallelConsumerFactory =
+                new DefaultKafkaConsumerFactory<>(consumerFactory.getConfigurationProperties());
+        parallelConsumerFactory.updateConfigs(overrides);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(parallelConsumerFactory);
+        factory.setBatchListener(true);
+        ContainerProperties properties = factory.getContainerProperties();
+        properties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        properties.setConsumerRebalanceListener(parallelListener);
+        // Idle events let the listener commit offsets of records that finish after the last poll
+        properties.setIdleEventInterval(idleCommitIntervalMs);
+        return factory;
+    }
+}
@@ -1,5 +1,7 @@
 package com.karboncard.assignment.notificationservice.config;
 
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitAlgorithm;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -27,6 +29,21 @@ public class RateLimitConfig {
      */
     private int templateTimeWindowMinutes = 5;
 
+    /**
+     * How rate limits are evaluated against Redis
+     */
+    private RateLimitMode mode = RateLimitMode.SCRIPT;
+
+    /**
+     * Algorithm for the user-level limit; anything but FIXED_WINDOW is evaluated by the Redis script
+     */
+    private RateLimitAlgorithm userAlgorithm = RateLimitAlgorithm.FIXED_WINDOW;
+
+    /**
+     * Algorithm for the template-level limit; anything but FIXED_WINDOW is evaluated by the Redis script
+     */
+    private RateLimitAlgorithm templateAlgorithm = RateLimitAlgorithm.FIXED_WINDOW;
+
     public int getUserMaxRequests() {
         return userMaxRequests;
     }
@@ -58,4 +75,28 @@ public class RateLimitConfig {
     public void setTemplateTimeWindowMinutes(int templateTimeWindowMinutes) {
         this.templateTimeWindowMinutes = templateTimeWindowMinutes;
     }
-}
\ No newline at end of file
+
+    public RateLimitMode getMode() {
+        return mode;
+    }
+
+    public void setMode(RateLimitMode mode) {
+        this.mode = mode;
+    }
+
+    public RateLimitAlgorithm getUserAlgorithm() {
+        return userAlgorithm;
+    }
+
+    public void setUserAlgorithm(RateLimitAlgorithm userAlgorithm) {
+        this.userAlgorithm = userAlgorithm;
+    }
+
+    public RateLimitAlgorithm getTemplateAlgorithm() {
+        return templateAlgorithm;
+    }
+
+    public void setTemplateAlgorithm(RateLimitAlgorithm templateAlgorithm) {
+        this.templateAlgorithm = templateAlgorithm;
+    }
+}
@@ -0,0 +1,64 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.service.impl.FailoverRateLimitingService;
+import com.karboncard.assignment.notificationservice.service.impl.LeasingRateLimitingService;
+import com.karboncard.assignment.notificationservice.service.impl.LocalRateLimitingService;
+import com.karboncard.assignment.notificationservice.service.impl.RateLimitNodeRegistry;
+import com.karboncard.assignment.notificationservice.service.impl.RedisRateLimitingService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Degraded-mode rate limiting: a circuit breaker around the Redis limiter (and the leasing
+ * pre-limiter when enabled) that falls back to per-node in-memory limits while Redis is down.
+ * The breaker is configured under resilience4j.circuitbreaker.instances.redisRateLimit.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notification.rate-limit.failover.enabled", havingValue = "true")
+public class RateLimitFailoverConfig {
+
+    @Value("${notification.rate-limit.failover.call-timeout-ms:200}")
+    private long callTimeoutMs = 200;
+
+    @Value("${notification.rate-limit.failover.node-ttl-ms:15000}")
+    private long nodeTtlMs = 15000;
+
+    @Value("${notification.rate-limit.failover.max-keys:100000}")
+    private int maxKeys = 100000;
+
+    @Value("${notification.rate-limit.failover.stripes:16}")
+    private int stripes = 16;
+
+    @Bean
+    public CircuitBreaker redisRateLimitCircuitBreaker(ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistry) {
+        return circuitBreakerRegistry.getIfAvailable(CircuitBreakerRegistry::ofDefaults).circuitBreaker("redisRateLimit");
+    }
+
+    @Bean(destroyMethod = "deregister")
+    public RateLimitNodeRegistry rateLimitNodeRegistry(StringRedisTemplate stringRedisTemplate,
+                                                       CircuitBreaker redisRateLimitCircuitBreaker) {
+        return new RateLimitNodeRegistry(stringRedisTemplate, redisRateLimitCircuitBreaker, nodeTtlMs);
+    }
+
+    @Bean(destroyMethod = "close")
+    public FailoverRateLimitingService failoverRateLimitingService(RedisRateLimitingService redisRateLimitingService,
+                                                                   ObjectProvider<LeasingRateLimitingService> leasingRateLimitingService,
+                                                                   RateLimitConfig rateLimitConfig,
+                                                                   CircuitBreaker redisRateLimitCircuitBreaker,
+                                                                   RateLimitNodeRegistry rateLimitNodeRegistry,
+                                                                   MetricsUtil metricsUtil) {
+        LeasingRateLimitingService leasing = leasingRateLimitingService.getIfAvailable();
+        RateLimitingService delegate = leasing != null ? leasing : redisRateLimitingService;
+        LocalRateLimitingService local = new LocalRateLimitingService(rateLimitConfig,
+                rateLimitNodeRegistry::getNodeCount, maxKeys, stripes);
+        return new FailoverRateLimitingService(delegate, local, redisRateLimitCircuitBreaker, metricsUtil, callTimeoutMs);
+    }
+}
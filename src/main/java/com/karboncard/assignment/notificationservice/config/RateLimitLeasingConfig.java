@@ -0,0 +1,43 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.karboncard.assignment.notificationservice.service.impl.LeasingRateLimitingService;
+import com.karboncard.assignment.notificationservice.service.impl.RedisRateLimitingService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Puts the local token-leasing pre-limiter in front of the Redis rate limiter.
+ * RateLimitingServiceConfig exposes it as the primary RateLimitingService unless failover wraps it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notification.rate-limit.leasing.enabled", havingValue = "true")
+public class RateLimitLeasingConfig {
+
+    @Value("${notification.rate-limit.leasing.max-error-ratio:0.1}")
+    private double maxErrorRatio = 0.1;
+
+    @Value("${notification.rate-limit.leasing.max-lease-size:100}")
+    private int maxLeaseSize = 100;
+
+    @Value("${notification.rate-limit.leasing.hot-key-threshold:3}")
+    private int hotKeyThreshold = 3;
+
+    @Value("${notification.rate-limit.leasing.max-keys:10000}")
+    private int maxKeys = 10000;
+
+    @Value("${notification.rate-limit.leasing.stripes:16}")
+    private int stripes = 16;
+
+    @Bean(destroyMethod = "shutdown")
+    public LeasingRateLimitingService leasingRateLimitingService(RedisRateLimitingService redisRateLimitingService,
+                                                                 RedisTemplate<String, Integer> redisTemplate,
+                                                                 RateLimitConfig rateLimitConfig,
+                                                                 MetricsUtil metricsUtil) {
+        return new LeasingRateLimitingService(redisRateLimitingService, redisTemplate, rateLimitConfig, metricsUtil,
+                maxErrorRatio, maxLeaseSize, hotKeyThreshold, maxKeys, stripes);
+    }
+}
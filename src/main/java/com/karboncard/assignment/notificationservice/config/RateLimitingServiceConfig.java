@@ -0,0 +1,31 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.service.impl.FailoverRateLimitingService;
+import com.karboncard.assignment.notificationservice.service.impl.LeasingRateLimitingService;
+import com.karboncard.assignment.notificationservice.service.impl.RedisRateLimitingService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Exposes the outermost enabled rate limiter as the primary RateLimitingService:
+ * failover, then leasing, then plain Redis. Each layer is its own bean and owns its lifecycle.
+ */
+@Configuration
+public class RateLimitingServiceConfig {
+
+    @Bean(destroyMethod = "")
+    @Primary
+    public RateLimitingService rateLimitingService(RedisRateLimitingService redisRateLimitingService,
+                                                   ObjectProvider<LeasingRateLimitingService> leasingRateLimitingService,
+                                                   ObjectProvider<FailoverRateLimitingService> failoverRateLimitingService) {
+        FailoverRateLimitingService failover = failoverRateLimitingService.getIfAvailable();
+        if (failover != null) {
+            return failover;
+        }
+        LeasingRateLimitingService leasing = leasingRateLimitingService.getIfAvailable();
+        return leasing != null ? leasing : redisRateLimitingService;
+    }
+}
@@ -0,0 +1,60 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.VirtualThreadPinningMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Extra wiring for the virtual-thread execution mode (spring.threads.virtual.enabled).
+ * Spring Boot already runs Tomcat requests on virtual threads in that mode; this adds
+ * the JDBC permit gate in front of the ingestion API and pinned-carrier instrumentation.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int jdbcPoolSize;
+
+    @Value("${notification.virtual-threads.jdbc-permit-timeout-ms:5000}")
+    private long jdbcPermitTimeoutMs;
+
+    @Value("${notification.virtual-threads.pinned-threshold-ms:20}")
+    private long pinnedThresholdMs;
+
+    @Value("${notification.ingest.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    private final MetricsUtil metricsUtil;
+
+    public VirtualThreadConfig(MetricsUtil metricsUtil) {
+        this.metricsUtil = metricsUtil;
+    }
+
+    @Bean
+    public JdbcPermitInterceptor jdbcPermitInterceptor() {
+        return new JdbcPermitInterceptor(jdbcPoolSize, jdbcPermitTimeoutMs, metricsUtil);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor() {
+        return new VirtualThreadPinningMonitor(metricsUtil, Duration.ofMillis(pinnedThresholdMs));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        var registration = registry.addInterceptor(jdbcPermitInterceptor()).addPathPatterns("/api/v1/notifications/**");
+        if (groupCommitEnabled) {
+            // Single inserts wait for the group commit without holding a connection, and the gate
+            // would cap each group at the pool size
+            registration.excludePathPatterns("/api/v1/notifications");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.karboncard.assignment.notificationservice.controller;
+
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetter;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterQuery;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterReplayJob;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterReplayRequest;
+import com.karboncard.assignment.notificationservice.model.entity.UuidStringJavaType;
+import com.karboncard.assignment.notificationservice.service.dlq.DeadLetterReplayService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/dead-letters")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Dead Letter API", description = "Admin endpoints for querying and replaying dead letters")
+public class DeadLetterController {
+
+    private final DeadLetterReplayService replayService;
+
+    @GetMapping
+    @Operation(summary = "Query dead letters",
+            description = "Dead letters matching every given filter, oldest first; pass the last id as 'after' for the next page")
+    public ResponseEntity<List<DeadLetter>> findDeadLetters(
+            @RequestParam(required = false) String topic,
+            @RequestParam(required = false) String errorReason,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "true") boolean includeReplayed,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (after != null && !UuidStringJavaType.isUuid(after)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(replayService.find(DeadLetterQuery.builder()
+                .topic(topic)
+                .errorReason(errorReason)
+                .from(from)
+                .to(to)
+                .includeReplayed(includeReplayed)
+                .after(after)
+                .limit(limit)
+                .build()));
+    }
+
+    @PostMapping("/replay")
+    @Operation(summary = "Replay dead letters",
+            description = "Queues a throttled replay of the selected dead letters to their original topics")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Replay queued"),
+            @ApiResponse(responseCode = "400", description = "No selection or invalid ids")
+    })
+    public ResponseEntity<?> replay(@RequestBody DeadLetterReplayRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(replayService.submit(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/replay/{jobId}")
+    @Operation(summary = "Get replay progress")
+    public ResponseEntity<DeadLetterReplayJob> getReplay(@PathVariable String jobId) {
+        return replayService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
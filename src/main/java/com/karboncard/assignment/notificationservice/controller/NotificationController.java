@@ -1,12 +1,16 @@
 package com.karboncard.assignment.notificationservice.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
 import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.dto.response.BatchNotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.dto.response.NotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
-import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
 import com.karboncard.assignment.notificationservice.service.NotificationService;
 import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.util.NotificationRequestValidator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -16,11 +20,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -31,8 +38,12 @@ import java.util.UUID;
 @Tag(name = "Notification API", description = "Endpoints for managing notifications")
 public class NotificationController {
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private final NotificationService notificationService;
     private final RateLimitingService rateLimitingService;
+    private final NotificationRequestValidator requestValidator;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @Operation(summary = "Send a notification", description = "Queues a notification for asynchronous delivery")
@@ -50,73 +61,13 @@ public class NotificationController {
                 requestDTO.getUserId(), requestDTO.getType(), requestDTO.getTemplateId());
 
         // ==== EARLY VALIDATION OF REQUIRED FIELDS ====
-        if (requestDTO.getType() == null) {
+        Optional<String> validationError = requestValidator.validateFields(requestDTO);
+        if (validationError.isPresent()) {
             return ResponseEntity.badRequest().body(NotificationResponseDTO.builder()
                     .success(false)
-                    .message("Missing 'type' in request.")
+                    .message(validationError.get())
                     .build());
         }
-        Map<String, Object> templateParams = requestDTO.getTemplateParams();
-        if (templateParams == null) {
-            return ResponseEntity.badRequest().body(NotificationResponseDTO.builder()
-                    .success(false)
-                    .message("Missing 'templateParams' in request.")
-                    .build());
-        }
-        NotificationType type = requestDTO.getType();
-        switch (type) {
-            case EMAIL:
-                if (!templateParams.containsKey("email") ||
-                        templateParams.get("email") == null ||
-                        templateParams.get("email").toString().isBlank()) {
-                    return ResponseEntity.badRequest().body(NotificationResponseDTO.builder()
-                            .success(false)
-                            .message("Missing required field 'email' for EMAIL notification in template_params.")
-                            .build());
-                }
-                String email = templateParams.get("email").toString();
-                String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
-                if (!java.util.regex.Pattern.matches(EMAIL_REGEX, email)) {
-                    return ResponseEntity.badRequest().body(NotificationResponseDTO.builder()
-                            .success(false)
-                            .message("Invalid email format for EMAIL notification.")
-                            .build());
-                }
-                break;
-            case SMS:
-                if (!templateParams.containsKey("phoneNumber") ||
-                        templateParams.get("phoneNumber") == null ||
-                        templateParams.get("phoneNumber").toString().isBlank()) {
-                    return ResponseEntity.badRequest().body(NotificationResponseDTO.builder()
-                            .success(false)
-                            .message("Missing required field 'phoneNumber' for SMS notification in template_params.")
-                            .build());
-                }
-                String phoneNumber = templateParams.get("phoneNumber").toString();
-                String PHONE_NUMBER_REGEX = "^\\+?[1-9]\\d{1,14}$";
-                if (!java.util.regex.Pattern.matches(PHONE_NUMBER_REGEX, phoneNumber)) {
-                    return ResponseEntity.badRequest().body(NotificationResponseDTO.builder()
-                            .success(false)
-                            .message("Invalid phone number format for SMS notification. Must be E.164 format.")
-                            .build());
-                }
-                break;
-            case PUSH:
-                if (!templateParams.containsKey("deviceToken") ||
-                        templateParams.get("deviceToken") == null ||
-                        templateParams.get("deviceToken").toString().isBlank()) {
-                    return ResponseEntity.badRequest().body(NotificationResponseDTO.builder()
-                            .success(false)
-                            .message("Missing required field 'deviceToken' for PUSH notification in template_params.")
-                            .build());
-                }
-                break;
-            default:
-                return ResponseEntity.badRequest().body(NotificationResponseDTO.builder()
-                        .success(false)
-                        .message("Unknown notification type.")
-                        .build());
-        }
         // ==== END EARLY VALIDATION ====
 
         NotificationResponseDTO responseDTO;
@@ -136,6 +87,25 @@ public class NotificationController {
             return ResponseEntity
                     .status(HttpStatus.TOO_MANY_REQUESTS)
                     .body(rateLimitDTO);
+        } catch (DataIntegrityViolationException e) {
+            // The idempotency index let a concurrent or old duplicate through; the unique constraint caught it
+            Optional<Notification> existing =
+                    notificationService.getNotificationByIdempotencyKey(requestDTO.getIdempotencyKey());
+            if (existing.isEmpty()) {
+                throw e;
+            }
+            log.info("Duplicate request with idempotency key {} rejected by the database",
+                    requestDTO.getIdempotencyKey());
+            Notification notification = existing.get();
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(NotificationResponseDTO.builder()
+                    .id(notification.getId())
+                    .userId(notification.getUserId())
+                    .type(notification.getType())
+                    .status(notification.getStatus())
+                    .createdAt(notification.getCreatedAt())
+                    .success(true)
+                    .message("Duplicate request")
+                    .build());
         }
 
         // Duplicate detection (robust: prefer flag in DTO, but fallback to message check)
@@ -147,6 +117,46 @@ public class NotificationController {
         return ResponseEntity.accepted().body(responseDTO);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Send a batch of notifications",
+            description = "Queues a JSON array of notifications for asynchronous delivery and reports status per item")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Batch processed, see per-item status",
+                    content = @Content(schema = @Schema(implementation = BatchNotificationResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch")
+    })
+    public ResponseEntity<BatchNotificationResponseDTO> sendNotificationBatch(
+            @RequestBody List<NotificationRequestDTO> requestDTOs) {
+
+        log.info("Received notification batch with {} items", requestDTOs.size());
+        return ResponseEntity.accepted().body(notificationService.processNotificationBatch(requestDTOs));
+    }
+
+    @PostMapping(value = "/batch", consumes = NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Send a batch of notifications as NDJSON",
+            description = "Queues one notification per line for asynchronous delivery and reports status per item")
+    public ResponseEntity<BatchNotificationResponseDTO> sendNotificationBatchNdjson(@RequestBody String body) {
+        List<NotificationRequestDTO> requestDTOs = new ArrayList<>();
+        body.lines()
+                .filter(line -> !line.isBlank())
+                .forEach(line -> requestDTOs.add(parseNdjsonLine(line)));
+
+        log.info("Received NDJSON notification batch with {} items", requestDTOs.size());
+        return ResponseEntity.accepted().body(notificationService.processNotificationBatch(requestDTOs));
+    }
+
+    /**
+     * Malformed lines are kept as null entries so they are reported as INVALID at their position
+     */
+    private NotificationRequestDTO parseNdjsonLine(String line) {
+        try {
+            return objectMapper.readValue(line, NotificationRequestDTO.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping malformed NDJSON line: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
     @GetMapping("/{notificationId}")
     @Operation(summary = "Get notification status", description = "Retrieve status of a notification by ID")
     public ResponseEntity<NotificationResponseDTO> getNotificationStatus(
@@ -172,4 +182,14 @@ public class NotificationController {
             return ResponseEntity.notFound().build();
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{notificationId}/attempts")
+    @Operation(summary = "Get delivery attempts",
+            description = "Retrieve every recorded delivery attempt of a notification, oldest first")
+    public ResponseEntity<List<DeliveryAttempt>> getDeliveryAttempts(@PathVariable String notificationId) {
+        if (notificationService.getNotificationById(notificationId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(notificationService.getDeliveryAttempts(notificationId));
+    }
+}
@@ -0,0 +1,12 @@
+package com.karboncard.assignment.notificationservice.exception;
+
+/**
+ * Thrown by a delivery worker when the provider rejects a notification,
+ * so the record moves on to the next retry topic.
+ */
+public class NotificationDeliveryException extends RuntimeException {
+
+    public NotificationDeliveryException(String message) {
+        super(message);
+    }
+}
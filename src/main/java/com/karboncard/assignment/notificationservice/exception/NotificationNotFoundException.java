@@ -0,0 +1,13 @@
+package com.karboncard.assignment.notificationservice.exception;
+
+/**
+ * Thrown by a delivery worker when the notification a record refers to no longer exists,
+ * e.g. its partition was dropped by retention. A later attempt cannot find it either,
+ * so the record skips the retry topics.
+ */
+public class NotificationNotFoundException extends RuntimeException {
+
+    public NotificationNotFoundException(String notificationId) {
+        super("Notification not found: " + notificationId);
+    }
+}
@@ -0,0 +1,22 @@
+package com.karboncard.assignment.notificationservice.exception;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+
+/**
+ * Thrown instead of calling a provider whose circuit breaker is open or whose bulkhead is full.
+ * The notification was not attempted, so it is parked for the retry sweeper rather than counted
+ * as a failed attempt.
+ */
+public class ProviderUnavailableException extends RuntimeException {
+
+    private final NotificationType type;
+
+    public ProviderUnavailableException(NotificationType type, String message) {
+        super(message);
+        this.type = type;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+}
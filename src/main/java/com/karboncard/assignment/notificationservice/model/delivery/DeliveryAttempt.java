@@ -0,0 +1,39 @@
+package com.karboncard.assignment.notificationservice.model.delivery;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the append-only notification_attempts history
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryAttempt {
+
+    // Error code of an attempt the provider answered with a failure rather than an exception
+    public static final String PROVIDER_REJECTED = "PROVIDER_REJECTED";
+
+    private String notificationId;
+    private int attemptNumber;
+    private LocalDateTime attemptedAt;
+    // SENT, FAILED or PERMANENT_FAILURE
+    private NotificationStatus outcome;
+    private String errorCode;
+    private String errorMessage;
+    // The provider's id for an accepted message, if it returned one
+    private String providerMessageId;
+
+    /**
+     * @return the error code recorded for an attempt that threw
+     */
+    public static String errorCode(Throwable error) {
+        return error.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,43 @@
+package com.karboncard.assignment.notificationservice.model.delivery;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of one delivery attempt, written back to the notification row and appended to
+ * notification_attempts
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryOutcome {
+    private String notificationId;
+    // Lets the status update go straight to the notification's partition
+    private LocalDateTime createdAt;
+    private NotificationStatus status;
+    private int attemptNumber;
+    private String errorCode;
+    private String errorMessage;
+    private String providerMessageId;
+    private LocalDateTime attemptedAt;
+    // When the retry sweeper should pick a FAILED notification up; null for final outcomes
+    private LocalDateTime nextAttemptAt;
+
+    public DeliveryAttempt toAttempt() {
+        return DeliveryAttempt.builder()
+                .notificationId(notificationId)
+                .attemptNumber(attemptNumber)
+                .attemptedAt(attemptedAt)
+                .outcome(status)
+                .errorCode(errorCode)
+                .errorMessage(errorMessage)
+                .providerMessageId(providerMessageId)
+                .build();
+    }
+}
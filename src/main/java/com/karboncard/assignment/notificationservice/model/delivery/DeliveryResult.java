@@ -0,0 +1,53 @@
+package com.karboncard.assignment.notificationservice.model.delivery;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A provider's answer to one send request
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryResult {
+
+    public enum Status {
+        // The provider took the message; delivery to the device is up to the provider now
+        ACCEPTED,
+        // Worth retrying, e.g. a provider error
+        TRANSIENT_FAILURE,
+        // The provider refused the call because of our send rate (HTTP 429); retried like a transient failure
+        THROTTLED,
+        // Retrying cannot help, e.g. an invalid recipient
+        PERMANENT_FAILURE
+    }
+
+    private Status status;
+    // The provider's id for the message, used to match delivery receipts; null if the provider has none
+    private String providerMessageId;
+    private String errorCode;
+    private String errorMessage;
+
+    public static DeliveryResult accepted(String providerMessageId) {
+        return new DeliveryResult(Status.ACCEPTED, providerMessageId, null, null);
+    }
+
+    public static DeliveryResult transientFailure(String errorCode, String errorMessage) {
+        return new DeliveryResult(Status.TRANSIENT_FAILURE, null, errorCode, errorMessage);
+    }
+
+    public static DeliveryResult throttled(String errorCode, String errorMessage) {
+        return new DeliveryResult(Status.THROTTLED, null, errorCode, errorMessage);
+    }
+
+    public static DeliveryResult permanentFailure(String errorCode, String errorMessage) {
+        return new DeliveryResult(Status.PERMANENT_FAILURE, null, errorCode, errorMessage);
+    }
+
+    public boolean isAccepted() {
+        return status == Status.ACCEPTED;
+    }
+}
@@ -0,0 +1,29 @@
+package com.karboncard.assignment.notificationservice.model.dlq;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A {@link DeadLetterPayload} as stored in the dead_letters table
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetter {
+    private String id;
+    // Partition and offset of the record on the DLQ topic
+    private int sourcePartition;
+    private long sourceOffset;
+    private String originalTopic;
+    private String originalKey;
+    private String originalPayload;
+    private String errorReason;
+    private LocalDateTime failedAt;
+    private int replayCount;
+    private LocalDateTime lastReplayedAt;
+}
@@ -0,0 +1,27 @@
+package com.karboncard.assignment.notificationservice.model.dlq;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filter over stored dead letters; null fields match everything.
+ * Results come oldest first, and the next page starts after the last id of the previous one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterQuery {
+    private String topic;
+    // Case-insensitive substring of the error reason
+    private String errorReason;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private boolean includeReplayed;
+    private String after;
+    private int limit;
+}
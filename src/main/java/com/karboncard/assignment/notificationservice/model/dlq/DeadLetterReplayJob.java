@@ -0,0 +1,59 @@
+package com.karboncard.assignment.notificationservice.model.dlq;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one replay, updated by the replay thread and read by the admin API
+ */
+@Getter
+public class DeadLetterReplayJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final DeadLetterReplayRequest request;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private final AtomicInteger selected = new AtomicInteger();
+    private final AtomicInteger replayed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public DeadLetterReplayJob(String id, DeadLetterReplayRequest request) {
+        this.id = id;
+        this.request = request;
+    }
+
+    public void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public int getSelected() { return selected.get(); }
+    public int getReplayed() { return replayed.get(); }
+    public int getFailed() { return failed.get(); }
+
+    public void addSelected(int count) { selected.addAndGet(count); }
+    public void addReplayed(int count) { replayed.addAndGet(count); }
+    public void addFailed(int count) { failed.addAndGet(count); }
+}
@@ -0,0 +1,28 @@
+package com.karboncard.assignment.notificationservice.model.dlq;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Selects the dead letters to replay: either explicit ids, or every dead letter matching the
+ * filter fields, up to maxLetters. Dead letters that were replayed before are skipped unless
+ * includeReplayed is set.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayRequest {
+    private List<String> ids;
+    private String topic;
+    private String errorReason;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private boolean includeReplayed;
+    private Integer maxLetters;
+}
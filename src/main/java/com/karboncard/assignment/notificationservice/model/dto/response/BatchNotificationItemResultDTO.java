@@ -0,0 +1,19 @@
+package com.karboncard.assignment.notificationservice.model.dto.response;
+
+import com.karboncard.assignment.notificationservice.model.enums.BatchItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchNotificationItemResultDTO {
+    private int index;
+    private String id;
+    private String idempotencyKey;
+    private BatchItemStatus status;
+    private String message;
+}
@@ -0,0 +1,20 @@
+package com.karboncard.assignment.notificationservice.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchNotificationResponseDTO {
+    private int total;
+    private int accepted;
+    private int duplicates;
+    private int rejected;
+    private List<BatchNotificationItemResultDTO> results;
+}
@@ -4,24 +4,34 @@ import com.karboncard.assignment.notificationservice.model.enums.NotificationPri
 import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
 
+import com.karboncard.assignment.notificationservice.util.UuidV7Generator;
 import jakarta.persistence.*;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.JavaType;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.Map;
 
+/**
+ * Stored in the day-partitioned notifications table (see db/migration); the database key is
+ * (id, createdAt), and idempotency keys are kept unique in notification_idempotency_keys.
+ * Ids are time-ordered UUIDv7 values in a native uuid column, exposed as Strings.
+ */
 @Entity
 @Table(name = "notifications", indexes = {
-        @Index(name = "idx_user_id", columnList = "userId"),
-        @Index(name = "idx_correlation_id", columnList = "correlationId"),
-        @Index(name = "idx_status", columnList = "status")
+        @Index(name = "idx_notifications_user_created", columnList = "userId, createdAt"),
+        @Index(name = "idx_notifications_correlation_created", columnList = "correlationId, createdAt"),
+        @Index(name = "idx_notifications_status_attempted", columnList = "status, lastAttemptedAt"),
+        @Index(name = "idx_notifications_next_attempt", columnList = "nextAttemptAt")
 })
 public class Notification {
     @Id
-    @GeneratedValue(generator = "uuid")
-    @GenericGenerator(name = "uuid", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    @JavaType(UuidStringJavaType.class)
     private String id;
 
     private String userId;
@@ -43,6 +53,8 @@ public class Notification {
     @Enumerated(EnumType.STRING)
     private NotificationStatus status;
 
+    // Partition key: it must never change once the row is written
+    @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -51,9 +63,15 @@ public class Notification {
 
     private int deliveryAttempts;
 
+    // When the retry sweeper should pick the notification up again; null once it is final
+    private LocalDateTime nextAttemptAt;
+
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
     private String errorMessage;
 
-    @Column(unique = true)
     private String idempotencyKey;
 
     @Version
@@ -104,6 +122,15 @@ public class Notification {
     public int getDeliveryAttempts() { return deliveryAttempts; }
     public void setDeliveryAttempts(int deliveryAttempts) { this.deliveryAttempts = deliveryAttempts; }
 
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLeaseOwner() { return leaseOwner; }
+    public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+
     public String getErrorMessage() { return errorMessage; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
 
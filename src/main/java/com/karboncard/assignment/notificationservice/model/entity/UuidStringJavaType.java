@@ -0,0 +1,42 @@
+package com.karboncard.assignment.notificationservice.model.entity;
+
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.StringJavaType;
+
+import java.util.UUID;
+
+/**
+ * Keeps ids as Strings in Java while binding them to a native uuid column.
+ * Use with {@code @JdbcTypeCode(SqlTypes.UUID)}; a value that is not a UUID cannot be bound,
+ * so callers holding untrusted ids should check {@link #isUuid(String)} first.
+ */
+public class UuidStringJavaType extends StringJavaType {
+
+    @Override
+    public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+        if (value != null && UUID.class.isAssignableFrom(type)) {
+            return type.cast(UUID.fromString(value));
+        }
+        return super.unwrap(value, type, options);
+    }
+
+    @Override
+    public <X> String wrap(X value, WrapperOptions options) {
+        if (value instanceof UUID uuid) {
+            return uuid.toString();
+        }
+        return super.wrap(value, options);
+    }
+
+    public static boolean isUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return false;
+        }
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.karboncard.assignment.notificationservice.model.enums;
+
+public enum BatchItemStatus {
+    ACCEPTED, DUPLICATE, RATE_LIMITED, INVALID
+}
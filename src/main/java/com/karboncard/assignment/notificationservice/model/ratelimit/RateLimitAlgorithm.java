@@ -0,0 +1,13 @@
+package com.karboncard.assignment.notificationservice.model.ratelimit;
+
+/**
+ * Rate-limit algorithm applied to one limit. The names are passed to the Redis script as is.
+ */
+public enum RateLimitAlgorithm {
+    /** Counter per window; allows up to 2x the limit across a window boundary */
+    FIXED_WINDOW,
+    /** Current and previous window counters, weighted by overlap with the sliding window */
+    SLIDING_WINDOW,
+    /** Generic cell rate algorithm; one timestamp per key and evenly spaced requests */
+    GCRA
+}
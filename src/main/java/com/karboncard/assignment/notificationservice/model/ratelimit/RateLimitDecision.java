@@ -0,0 +1,49 @@
+package com.karboncard.assignment.notificationservice.model.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a combined user + template rate-limit check for a single request
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitDecision {
+    private String userId;
+    private String templateId;
+    private boolean allowed;
+    private long userCount;
+    private long templateCount;
+    private String message;
+    // Limit that rejected the request, null when allowed
+    private RateLimitScope rejectedBy;
+    // Limit value of the binding counter
+    private long maxAllowed;
+    // Requests left before the binding limit rejects
+    private long remaining;
+    // When the binding counter's window resets
+    private Instant resetAt;
+
+    public static RateLimitDecision allowed(String userId, String templateId) {
+        return RateLimitDecision.builder()
+                .userId(userId)
+                .templateId(templateId)
+                .allowed(true)
+                .build();
+    }
+
+    public static RateLimitDecision rejected(String userId, String templateId, String message) {
+        return RateLimitDecision.builder()
+                .userId(userId)
+                .templateId(templateId)
+                .allowed(false)
+                .message(message)
+                .build();
+    }
+}
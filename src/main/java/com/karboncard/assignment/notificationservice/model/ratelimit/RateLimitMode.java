@@ -0,0 +1,11 @@
+package com.karboncard.assignment.notificationservice.model.ratelimit;
+
+/**
+ * How the Redis rate limiter talks to Redis
+ */
+public enum RateLimitMode {
+    /** Separate INCR and EXPIRE commands per counter */
+    COMMANDS,
+    /** One Lua script that checks and increments both counters atomically */
+    SCRIPT
+}
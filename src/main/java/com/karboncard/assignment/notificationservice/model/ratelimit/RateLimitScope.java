@@ -0,0 +1,8 @@
+package com.karboncard.assignment.notificationservice.model.ratelimit;
+
+/**
+ * The limit that rejected a request
+ */
+public enum RateLimitScope {
+    USER, TEMPLATE
+}
@@ -0,0 +1,163 @@
+package com.karboncard.assignment.notificationservice.repository;
+
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetter;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores dead letters with multi-row INSERTs and reads them back by filter or id.
+ * Records already stored (same DLQ partition and offset) are skipped, so a redelivered poll is harmless.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeadLetterRepository {
+
+    // 8 parameters per row stays far below the 65535 bind parameters Postgres accepts
+    static final int MAX_ROWS_PER_INSERT = 1000;
+    private static final int MAX_ERROR_REASON_LENGTH = 1000;
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String INSERT_PREFIX = "INSERT INTO dead_letters (id, source_partition, source_offset, " +
+            "original_topic, original_key, original_payload, error_reason, failed_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SUFFIX = " ON CONFLICT (source_partition, source_offset) DO NOTHING";
+    private static final String FULL_CHUNK_SQL = insertSql(MAX_ROWS_PER_INSERT);
+
+    private static final String SELECT_COLUMNS = "SELECT id, source_partition, source_offset, original_topic, " +
+            "original_key, original_payload, error_reason, failed_at, replay_count, last_replayed_at FROM dead_letters";
+
+    private static final String MARK_REPLAYED_PREFIX = "UPDATE dead_letters SET replay_count = replay_count + 1, " +
+            "last_replayed_at = ? WHERE id IN ";
+
+    private static final RowMapper<DeadLetter> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp lastReplayedAt = rs.getTimestamp("last_replayed_at");
+        return DeadLetter.builder()
+                .id(rs.getString("id"))
+                .sourcePartition(rs.getInt("source_partition"))
+                .sourceOffset(rs.getLong("source_offset"))
+                .originalTopic(rs.getString("original_topic"))
+                .originalKey(rs.getString("original_key"))
+                .originalPayload(rs.getString("original_payload"))
+                .errorReason(rs.getString("error_reason"))
+                .failedAt(rs.getTimestamp("failed_at").toLocalDateTime())
+                .replayCount(rs.getInt("replay_count"))
+                .lastReplayedAt(lastReplayedAt == null ? null : lastReplayedAt.toLocalDateTime())
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the dead letters in chunks of up to MAX_ROWS_PER_INSERT rows; joins the caller's
+     * transaction if there is one.
+     * @return the number of rows inserted, without the ones already stored
+     */
+    public int insertAll(List<DeadLetter> deadLetters) {
+        int inserted = 0;
+        for (int from = 0; from < deadLetters.size(); from += MAX_ROWS_PER_INSERT) {
+            List<DeadLetter> chunk = deadLetters.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, deadLetters.size()));
+            String sql = chunk.size() == MAX_ROWS_PER_INSERT ? FULL_CHUNK_SQL : insertSql(chunk.size());
+            inserted += jdbcTemplate.update(sql, ps -> bindRows(ps, chunk));
+        }
+        return inserted;
+    }
+
+    /**
+     * @return up to query.limit dead letters matching the query, oldest first
+     */
+    public List<DeadLetter> find(DeadLetterQuery query) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS).append(" WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        if (query.getTopic() != null) {
+            sql.append(" AND original_topic = ?");
+            args.add(query.getTopic());
+        }
+        if (query.getErrorReason() != null) {
+            sql.append(" AND error_reason ILIKE ?");
+            args.add("%" + escapeLike(query.getErrorReason()) + "%");
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND failed_at >= ?");
+            args.add(Timestamp.valueOf(query.getFrom()));
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND failed_at < ?");
+            args.add(Timestamp.valueOf(query.getTo()));
+        }
+        if (!query.isIncludeReplayed()) {
+            sql.append(" AND replay_count = 0");
+        }
+        if (query.getAfter() != null) {
+            sql.append(" AND id > ?");
+            args.add(UUID.fromString(query.getAfter()));
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(query.getLimit());
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    public List<DeadLetter> findByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(SELECT_COLUMNS + " WHERE id IN " + placeholders(ids.size()) + " ORDER BY id",
+                ROW_MAPPER, ids.stream().map(UUID::fromString).toArray());
+    }
+
+    /**
+     * Counts one more replay of the dead letters
+     * @return the number of rows updated
+     */
+    public int markReplayed(Collection<String> ids, LocalDateTime replayedAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(Timestamp.valueOf(replayedAt));
+        ids.forEach(id -> args.add(UUID.fromString(id)));
+        return jdbcTemplate.update(MARK_REPLAYED_PREFIX + placeholders(ids.size()), args.toArray());
+    }
+
+    private static void bindRows(PreparedStatement ps, List<DeadLetter> chunk) throws SQLException {
+        int index = 1;
+        for (DeadLetter deadLetter : chunk) {
+            ps.setObject(index++, UUID.fromString(deadLetter.getId()));
+            ps.setInt(index++, deadLetter.getSourcePartition());
+            ps.setLong(index++, deadLetter.getSourceOffset());
+            ps.setString(index++, truncate(deadLetter.getOriginalTopic(), MAX_KEY_LENGTH));
+            ps.setString(index++, truncate(deadLetter.getOriginalKey(), MAX_KEY_LENGTH));
+            ps.setString(index++, deadLetter.getOriginalPayload());
+            ps.setString(index++, truncate(deadLetter.getErrorReason(), MAX_ERROR_REASON_LENGTH));
+            ps.setTimestamp(index++, Timestamp.valueOf(deadLetter.getFailedAt()));
+        }
+    }
+
+    static String insertSql(int rows) {
+        return INSERT_PREFIX + String.join(", ", Collections.nCopies(rows, ROW_PLACEHOLDERS)) + INSERT_SUFFIX;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,91 @@
+package com.karboncard.assignment.notificationservice.repository;
+
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends delivery attempts with multi-row INSERTs: one statement and one round trip per
+ * chunk of rows, instead of one statement per attempt.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationAttemptRepository {
+
+    // 7 parameters per row stays far below the 65535 bind parameters Postgres accepts
+    static final int MAX_ROWS_PER_INSERT = 1000;
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+    private static final int MAX_ERROR_CODE_LENGTH = 64;
+    private static final int MAX_PROVIDER_MESSAGE_ID_LENGTH = 255;
+
+    private static final String INSERT_PREFIX = "INSERT INTO notification_attempts " +
+            "(notification_id, attempt_number, attempted_at, outcome, error_code, error_message, provider_message_id) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?)";
+    private static final String FULL_CHUNK_SQL = insertSql(MAX_ROWS_PER_INSERT);
+
+    private static final String FIND_BY_NOTIFICATION_SQL = "SELECT attempt_number, attempted_at, outcome, " +
+            "error_code, error_message, provider_message_id FROM notification_attempts WHERE notification_id = ? " +
+            "ORDER BY attempt_number, attempted_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the attempts in chunks of up to MAX_ROWS_PER_INSERT rows; joins the caller's
+     * transaction if there is one.
+     * @return the number of rows inserted
+     */
+    public int insertAll(List<DeliveryAttempt> attempts) {
+        int inserted = 0;
+        for (int from = 0; from < attempts.size(); from += MAX_ROWS_PER_INSERT) {
+            List<DeliveryAttempt> chunk = attempts.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, attempts.size()));
+            String sql = chunk.size() == MAX_ROWS_PER_INSERT ? FULL_CHUNK_SQL : insertSql(chunk.size());
+            inserted += jdbcTemplate.update(sql, ps -> bindRows(ps, chunk));
+        }
+        return inserted;
+    }
+
+    /**
+     * @return every recorded attempt of the notification, oldest first
+     */
+    public List<DeliveryAttempt> findByNotificationId(String notificationId) {
+        return jdbcTemplate.query(FIND_BY_NOTIFICATION_SQL, (rs, rowNum) -> DeliveryAttempt.builder()
+                .notificationId(notificationId)
+                .attemptNumber(rs.getInt("attempt_number"))
+                .attemptedAt(rs.getTimestamp("attempted_at").toLocalDateTime())
+                .outcome(NotificationStatus.valueOf(rs.getString("outcome")))
+                .errorCode(rs.getString("error_code"))
+                .errorMessage(rs.getString("error_message"))
+                .providerMessageId(rs.getString("provider_message_id"))
+                .build(), UUID.fromString(notificationId));
+    }
+
+    private static void bindRows(PreparedStatement ps, List<DeliveryAttempt> chunk) throws SQLException {
+        int index = 1;
+        for (DeliveryAttempt attempt : chunk) {
+            ps.setObject(index++, UUID.fromString(attempt.getNotificationId()));
+            ps.setInt(index++, attempt.getAttemptNumber());
+            ps.setTimestamp(index++, Timestamp.valueOf(attempt.getAttemptedAt()));
+            ps.setString(index++, attempt.getOutcome().name());
+            ps.setString(index++, truncate(attempt.getErrorCode(), MAX_ERROR_CODE_LENGTH));
+            ps.setString(index++, truncate(attempt.getErrorMessage(), MAX_ERROR_MESSAGE_LENGTH));
+            ps.setString(index++, truncate(attempt.getProviderMessageId(), MAX_PROVIDER_MESSAGE_ID_LENGTH));
+        }
+    }
+
+    static String insertSql(int rows) {
+        return INSERT_PREFIX + String.join(", ", Collections.nCopies(rows, ROW_PLACEHOLDERS));
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,111 @@
+package com.karboncard.assignment.notificationservice.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Inserts notifications that already carry their id with multi-row INSERTs, for the Kafka-first
+ * ingest persister. Rows that already exist, or whose idempotency key belongs to another
+ * notification, are skipped instead of failing the statement, so a redelivered batch is harmless.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationBulkInsertRepository {
+
+    // 11 parameters per row stays far below the 65535 bind parameters Postgres accepts
+    static final int MAX_ROWS_PER_INSERT = 1000;
+
+    private static final String ROW_VALUES = "(?::uuid, ?, ?, ?, ?::jsonb, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PREFIX = "INSERT INTO notifications (id, user_id, type, template_id, " +
+            "template_params, priority, correlation_id, status, created_at, updated_at, delivery_attempts, " +
+            "idempotency_key, version) " +
+            "SELECT v.id, v.user_id, v.type, v.template_id, v.template_params, v.priority, v.correlation_id, " +
+            "v.status, v.created_at, v.updated_at, 0, v.idempotency_key, 0 FROM (VALUES ";
+    private static final String INSERT_SUFFIX = ") AS v(id, user_id, type, template_id, template_params, priority, " +
+            "correlation_id, status, created_at, updated_at, idempotency_key) " +
+            "WHERE v.idempotency_key IS NULL OR NOT EXISTS (SELECT 1 FROM notification_idempotency_keys k " +
+            "WHERE k.idempotency_key = v.idempotency_key) " +
+            "ON CONFLICT (id, created_at) DO NOTHING RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Inserts the notifications, which must have distinct idempotency keys; joins the caller's transaction.
+     * @return the ids of the rows actually inserted
+     */
+    public List<String> insertIgnoringDuplicates(List<Notification> notifications) {
+        List<String> inserted = new ArrayList<>(notifications.size());
+        for (int from = 0; from < notifications.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Notification> chunk = notifications.subList(from,
+                    Math.min(from + MAX_ROWS_PER_INSERT, notifications.size()));
+            inserted.addAll(jdbcTemplate.query(insertSql(chunk.size()), ps -> bindRows(ps, chunk),
+                    (rs, rowNum) -> rs.getString(1)));
+        }
+        return inserted;
+    }
+
+    /**
+     * @return idempotency key -> id of the notification that owns it, for the keys that are taken
+     */
+    public Map<String, String> findNotificationIdsByIdempotencyKeys(Collection<String> idempotencyKeys) {
+        Map<String, String> owners = new HashMap<>();
+        if (idempotencyKeys.isEmpty()) {
+            return owners;
+        }
+        String sql = "SELECT idempotency_key, notification_id FROM notification_idempotency_keys " +
+                "WHERE idempotency_key IN (" + String.join(", ", Collections.nCopies(idempotencyKeys.size(), "?")) + ")";
+        jdbcTemplate.query(sql, rs -> {
+            owners.put(rs.getString("idempotency_key"), rs.getString("notification_id"));
+        }, idempotencyKeys.toArray());
+        return owners;
+    }
+
+    static String insertSql(int rows) {
+        return INSERT_PREFIX + String.join(", ", Collections.nCopies(rows, ROW_VALUES)) + INSERT_SUFFIX;
+    }
+
+    private void bindRows(PreparedStatement ps, List<Notification> chunk) throws SQLException {
+        int index = 1;
+        for (Notification notification : chunk) {
+            ps.setObject(index++, UUID.fromString(notification.getId()));
+            ps.setString(index++, notification.getUserId());
+            ps.setString(index++, notification.getType() != null ? notification.getType().name() : null);
+            ps.setString(index++, notification.getTemplateId());
+            ps.setString(index++, toJson(notification.getTemplateParams()));
+            ps.setString(index++, notification.getPriority() != null ? notification.getPriority().name() : null);
+            ps.setString(index++, notification.getCorrelationId());
+            ps.setString(index++, notification.getStatus() != null ? notification.getStatus().name() : null);
+            ps.setTimestamp(index++, Timestamp.valueOf(notification.getCreatedAt()));
+            ps.setTimestamp(index++, notification.getUpdatedAt() != null
+                    ? Timestamp.valueOf(notification.getUpdatedAt()) : null);
+            ps.setString(index++, notification.getIdempotencyKey());
+        }
+    }
+
+    private String toJson(Map<String, Object> templateParams) throws SQLException {
+        if (templateParams == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(templateParams);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Could not serialize template params", e);
+        }
+    }
+}
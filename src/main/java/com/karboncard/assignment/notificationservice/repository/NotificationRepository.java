@@ -4,105 +4,262 @@ import com.karboncard.assignment.notificationservice.model.entity.Notification;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationPriority;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * The notifications table is range-partitioned by day on created_at, so every query over many rows
+ * carries a created_at bound that lets Postgres skip partitions outside the window.
+ * Statements by id take the window from CreatedAtRange, which reads it off the UUIDv7 ids.
+ * Idempotency keys live in notification_idempotency_keys, the only place they are unique.
+ */
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, String> {
 
     /**
-     * Find notifications by user ID (for service layer use)
+     * Find a notification by id within a created_at window (see CreatedAtRange), probing only its partitions
      */
-    List<Notification> findByUserId(String userId);
+    Optional<Notification> findByIdAndCreatedAtBetween(String id, LocalDateTime createdFrom, LocalDateTime createdTo);
 
     /**
-     * Find notifications by user ID with pagination (for API endpoints)
+     * Find notifications by id within a created_at window (see CreatedAtRange), probing only its partitions
      */
-    Page<Notification> findByUserId(String userId, Pageable pageable);
+    List<Notification> findByIdInAndCreatedAtBetween(Collection<String> ids, LocalDateTime createdFrom,
+                                                     LocalDateTime createdTo);
 
     /**
-     * Find notifications by correlation ID
+     * Find notifications created by a user since the given time (for service layer use)
      */
-    List<Notification> findByCorrelationId(String correlationId);
+    List<Notification> findByUserIdAndCreatedAtAfter(String userId, LocalDateTime since);
 
     /**
-     * Find notification by idempotency key for exactly-once delivery guarantees
+     * Find notifications created by a user since the given time, with pagination (for API endpoints)
      */
-    Optional<Notification> findByIdempotencyKey(String idempotencyKey);
+    Page<Notification> findByUserIdAndCreatedAtAfter(String userId, LocalDateTime since, Pageable pageable);
 
     /**
-     * Find notifications by user ID and status with pagination
+     * Find notifications by correlation ID created since the given time
      */
-    Page<Notification> findByUserIdAndStatus(String userId, NotificationStatus status, Pageable pageable);
+    List<Notification> findByCorrelationIdAndCreatedAtAfter(String correlationId, LocalDateTime since);
 
     /**
-     * Find notifications eligible for retry based on status, last attempt time, and max attempts
+     * Find notification by idempotency key for exactly-once delivery guarantees.
+     * The key table gives the row's created_at, so only one partition is probed.
      */
-    @Query("SELECT n FROM Notification n WHERE n.status = :status AND n.lastAttemptedAt < :cutoffTime AND n.deliveryAttempts < :maxAttempts")
+    @Query(value = "SELECT n.* FROM notification_idempotency_keys k " +
+            "JOIN notifications n ON n.id = k.notification_id AND n.created_at = k.created_at " +
+            "WHERE k.idempotency_key = :idempotencyKey", nativeQuery = true)
+    Optional<Notification> findByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
+
+    /**
+     * Find notifications for a set of idempotency keys in a single query (for batch ingestion)
+     */
+    @Query(value = "SELECT n.* FROM notification_idempotency_keys k " +
+            "JOIN notifications n ON n.id = k.notification_id AND n.created_at = k.created_at " +
+            "WHERE k.idempotency_key IN (:idempotencyKeys)", nativeQuery = true)
+    List<Notification> findByIdempotencyKeyIn(@Param("idempotencyKeys") Collection<String> idempotencyKeys);
+
+    /**
+     * Stream the idempotency keys of recent notifications (to rebuild the in-memory idempotency index).
+     * Must be consumed inside a transaction.
+     */
+    @Query(value = "SELECT idempotency_key FROM notification_idempotency_keys WHERE created_at > :since",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    Stream<String> streamIdempotencyKeysCreatedAfter(@Param("since") LocalDateTime since);
+
+    /**
+     * Find notifications by user ID and status created since the given time, with pagination
+     */
+    Page<Notification> findByUserIdAndStatusAndCreatedAtAfter(String userId, NotificationStatus status,
+                                                               LocalDateTime since, Pageable pageable);
+
+    /**
+     * Claim FAILED or RETRYING notifications whose next_attempt_at is due and that have attempts left,
+     * oldest due first. Rows locked by another sweeper are skipped, so several nodes can sweep at once.
+     * Must be called inside a transaction; the locks are held until it ends.
+     * Only notifications created after createdAfter are considered.
+     */
+    @Query(value = "SELECT * FROM notifications WHERE next_attempt_at <= :now AND status IN ('FAILED', 'RETRYING') " +
+            "AND delivery_attempts < :maxAttempts AND created_at > :createdAfter " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
     List<Notification> findRetryableNotifications(
-            @Param("status") NotificationStatus status,
-            @Param("cutoffTime") LocalDateTime cutoffTime,
+            @Param("now") LocalDateTime now,
             @Param("maxAttempts") int maxAttempts,
-            Pageable pageable);
+            @Param("createdAfter") LocalDateTime createdAfter,
+            @Param("limit") int limit);
 
     /**
-     * Update notification status
+     * Lease claimed notifications to one sweeper node. next_attempt_at moves to the lease expiry,
+     * so no other node picks them up before then.
+     * createdAfter is the bound the notifications were claimed with, so only those partitions are probed.
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.status = :newStatus, n.updatedAt = :now WHERE n.id = :id")
-    int updateNotificationStatus(@Param("id") String id, @Param("newStatus") NotificationStatus newStatus, @Param("now") LocalDateTime now);
+    @Query("UPDATE Notification n SET n.leaseOwner = :owner, n.leaseExpiresAt = :leaseExpiresAt, " +
+            "n.nextAttemptAt = :leaseExpiresAt WHERE n.id IN :ids AND n.createdAt > :createdAfter")
+    int leaseNotifications(
+            @Param("ids") Collection<String> ids,
+            @Param("createdAfter") LocalDateTime createdAfter,
+            @Param("owner") String owner,
+            @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
 
     /**
-     * Update notification after a delivery attempt
+     * Compare-and-set start of a delivery attempt: moves the notifications whose status is one of
+     * fromStatuses to toStatus and counts the attempt. Rows in any other status are left alone.
+     * Any sweeper lease ends, and the sweeper picks the notification up at nextAttemptAt unless
+     * the attempt finishes first.
+     *
+     * @return the number of notifications that made the transition
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.status = :status, n.lastAttemptedAt = :attemptTime, " +
-            "n.deliveryAttempts = n.deliveryAttempts + 1, n.updatedAt = :attemptTime, " +
-            "n.errorMessage = :errorMessage WHERE n.id = :id")
-    int updateAfterDeliveryAttempt(
-            @Param("id") String id,
-            @Param("status") NotificationStatus status,
-            @Param("attemptTime") LocalDateTime attemptTime,
-            @Param("errorMessage") String errorMessage);
+    @Query("UPDATE Notification n SET n.status = :toStatus, n.lastAttemptedAt = :now, " +
+            "n.deliveryAttempts = n.deliveryAttempts + 1, n.updatedAt = :now, n.version = COALESCE(n.version, 0) + 1, " +
+            "n.nextAttemptAt = :nextAttemptAt, n.leaseOwner = NULL, n.leaseExpiresAt = NULL " +
+            "WHERE n.id IN :ids AND n.createdAt BETWEEN :createdFrom AND :createdTo AND n.status IN :fromStatuses")
+    int startDeliveryAttempts(
+            @Param("ids") Collection<String> ids,
+            @Param("createdFrom") LocalDateTime createdFrom,
+            @Param("createdTo") LocalDateTime createdTo,
+            @Param("fromStatuses") Collection<NotificationStatus> fromStatuses,
+            @Param("toStatus") NotificationStatus toStatus,
+            @Param("now") LocalDateTime now,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    /**
+     * Compare-and-set change to a final status for notifications whose status is one of fromStatuses.
+     * The notifications leave the retry sweeper.
+     *
+     * @return the number of notifications that made the transition
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :toStatus, n.updatedAt = :now, n.version = COALESCE(n.version, 0) + 1, " +
+            "n.nextAttemptAt = NULL, n.leaseOwner = NULL, n.leaseExpiresAt = NULL " +
+            "WHERE n.id IN :ids AND n.createdAt BETWEEN :createdFrom AND :createdTo AND n.status IN :fromStatuses")
+    int transitionStatus(
+            @Param("ids") Collection<String> ids,
+            @Param("createdFrom") LocalDateTime createdFrom,
+            @Param("createdTo") LocalDateTime createdTo,
+            @Param("fromStatuses") Collection<NotificationStatus> fromStatuses,
+            @Param("toStatus") NotificationStatus toStatus,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Compare-and-set reset of failed notifications for a replay: back to toStatus with no attempts counted
+     *
+     * @return the number of notifications that made the transition
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :toStatus, n.deliveryAttempts = 0, n.errorMessage = NULL, " +
+            "n.updatedAt = :now, n.version = COALESCE(n.version, 0) + 1, " +
+            "n.nextAttemptAt = NULL, n.leaseOwner = NULL, n.leaseExpiresAt = NULL " +
+            "WHERE n.id IN :ids AND n.createdAt BETWEEN :createdFrom AND :createdTo AND n.status IN :fromStatuses")
+    int resetDeliveryAttempts(
+            @Param("ids") Collection<String> ids,
+            @Param("createdFrom") LocalDateTime createdFrom,
+            @Param("createdTo") LocalDateTime createdTo,
+            @Param("fromStatuses") Collection<NotificationStatus> fromStatuses,
+            @Param("toStatus") NotificationStatus toStatus,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Compare-and-set parking of notifications whose provider is unavailable: back to toStatus and
+     * due for the sweeper at retryAt. refundedAttempts gives back attempts counted for calls the
+     * provider never received.
+     *
+     * @return the number of notifications that made the transition
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :toStatus, n.deliveryAttempts = n.deliveryAttempts - :refundedAttempts, " +
+            "n.errorMessage = :errorMessage, n.updatedAt = :now, n.version = COALESCE(n.version, 0) + 1, " +
+            "n.nextAttemptAt = :retryAt, n.leaseOwner = NULL, n.leaseExpiresAt = NULL " +
+            "WHERE n.id IN :ids AND n.createdAt BETWEEN :createdFrom AND :createdTo AND n.status IN :fromStatuses")
+    int parkDeliveryAttempts(
+            @Param("ids") Collection<String> ids,
+            @Param("createdFrom") LocalDateTime createdFrom,
+            @Param("createdTo") LocalDateTime createdTo,
+            @Param("fromStatuses") Collection<NotificationStatus> fromStatuses,
+            @Param("toStatus") NotificationStatus toStatus,
+            @Param("refundedAttempts") int refundedAttempts,
+            @Param("errorMessage") String errorMessage,
+            @Param("now") LocalDateTime now,
+            @Param("retryAt") LocalDateTime retryAt);
+
+    /**
+     * Compare-and-set failure of a delivery attempt: FAILED while attempts remain, PERMANENT_FAILURE after
+     * maxAttempts, decided on the row's own attempt count. FAILED rows are due for the sweeper at retryAt.
+     *
+     * @return the number of notifications that made the transition
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = CASE WHEN n.deliveryAttempts >= :maxAttempts " +
+            "THEN com.karboncard.assignment.notificationservice.model.enums.NotificationStatus.PERMANENT_FAILURE " +
+            "ELSE com.karboncard.assignment.notificationservice.model.enums.NotificationStatus.FAILED END, " +
+            "n.errorMessage = :errorMessage, n.lastAttemptedAt = :now, n.updatedAt = :now, " +
+            "n.version = COALESCE(n.version, 0) + 1, " +
+            "n.nextAttemptAt = CASE WHEN n.deliveryAttempts >= :maxAttempts THEN NULL ELSE :retryAt END, " +
+            "n.leaseOwner = NULL, n.leaseExpiresAt = NULL " +
+            "WHERE n.id IN :ids AND n.createdAt BETWEEN :createdFrom AND :createdTo AND n.status IN :fromStatuses")
+    int failDeliveryAttempts(
+            @Param("ids") Collection<String> ids,
+            @Param("createdFrom") LocalDateTime createdFrom,
+            @Param("createdTo") LocalDateTime createdTo,
+            @Param("fromStatuses") Collection<NotificationStatus> fromStatuses,
+            @Param("maxAttempts") int maxAttempts,
+            @Param("errorMessage") String errorMessage,
+            @Param("now") LocalDateTime now,
+            @Param("retryAt") LocalDateTime retryAt);
 
     /**
-     * Find notifications by status and priority (for worker processing)
+     * Find notifications by status and priority created since the given time (for worker processing)
      */
-    List<Notification> findByStatusAndPriorityOrderByCreatedAtAsc(NotificationStatus status, NotificationPriority priority, Pageable pageable);
+    List<Notification> findByStatusAndPriorityAndCreatedAtAfterOrderByCreatedAtAsc(
+            NotificationStatus status, NotificationPriority priority, LocalDateTime since, Pageable pageable);
 
     /**
-     * Count notifications by user ID and status (for rate limiting and metrics)
+     * Count notifications by user ID and status created since the given time (for rate limiting and metrics)
      */
-    @Query("SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.status = :status")
-    long countByUserIdAndStatus(@Param("userId") String userId, @Param("status") NotificationStatus status);
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.status = :status AND n.createdAt > :since")
+    long countByUserIdAndStatus(@Param("userId") String userId, @Param("status") NotificationStatus status,
+                                @Param("since") LocalDateTime since);
 
     /**
-     * Find notifications by user ID and type (for filtering in APIs)
+     * Find notifications by user ID and type created since the given time (for filtering in APIs)
      */
-    Page<Notification> findByUserIdAndType(String userId, NotificationType type, Pageable pageable);
+    Page<Notification> findByUserIdAndTypeAndCreatedAtAfter(String userId, NotificationType type,
+                                                            LocalDateTime since, Pageable pageable);
 
     /**
-     * Find notifications by type for specific notification type consumers
+     * Find notifications by type and status created since the given time
      */
-    List<Notification> findByTypeAndStatus(NotificationType type, NotificationStatus status, Pageable pageable);
+    List<Notification> findByTypeAndStatusAndCreatedAtAfter(NotificationType type, NotificationStatus status,
+                                                            LocalDateTime since, Pageable pageable);
 
     /**
-     * Find notifications for dead letter queue after max retries
+     * Claim due FAILED or RETRYING notifications that used up their attempts, for the dead letter queue.
+     * Locking as in findRetryableNotifications. Only notifications created after the given time are considered.
      */
-    @Query("SELECT n FROM Notification n WHERE n.status = :status AND n.deliveryAttempts >= :maxAttempts")
+    @Query(value = "SELECT * FROM notifications WHERE next_attempt_at <= :now AND status IN ('FAILED', 'RETRYING') " +
+            "AND delivery_attempts >= :maxAttempts AND created_at > :since " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
     List<Notification> findFailedNotificationsForDLQ(
-            @Param("status") NotificationStatus status,
+            @Param("now") LocalDateTime now,
             @Param("maxAttempts") int maxAttempts,
-            Pageable pageable);
+            @Param("since") LocalDateTime since,
+            @Param("limit") int limit);
 
     /**
      * Count recent notifications by user ID within a time window (for rate limiting)
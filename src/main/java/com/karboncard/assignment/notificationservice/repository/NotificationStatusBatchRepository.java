@@ -0,0 +1,58 @@
+package com.karboncard.assignment.notificationservice.repository;
+
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryOutcome;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes delivery outcomes for a whole batch of notifications with one JDBC batch,
+ * instead of a read-modify-write through JPA per notification. Like the transitions of
+ * NotificationStateMachine, an outcome never overwrites a notification that is already final.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationStatusBatchRepository {
+
+    private static final String APPLY_OUTCOME_SQL =
+            "UPDATE notifications SET status = ?, error_message = ?, last_attempted_at = ?, updated_at = ?, " +
+            "delivery_attempts = delivery_attempts + 1, version = COALESCE(version, 0) + 1, " +
+            "next_attempt_at = ?, lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE id = ? AND created_at = ? AND status IN ('PENDING', 'FAILED', 'RETRYING')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies the outcomes in a single batched UPDATE; the caller owns the transaction.
+     * Outcomes must carry the notification's createdAt, which selects its partition.
+     * @return the number of rows updated
+     */
+    public int applyOutcomes(List<DeliveryOutcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(APPLY_OUTCOME_SQL, outcomes, outcomes.size(), (ps, outcome) -> {
+            Timestamp attemptedAt = Timestamp.valueOf(outcome.getAttemptedAt());
+            ps.setString(1, outcome.getStatus().name());
+            ps.setString(2, outcome.getErrorMessage());
+            ps.setTimestamp(3, attemptedAt);
+            ps.setTimestamp(4, attemptedAt);
+            ps.setTimestamp(5, outcome.getNextAttemptAt() == null ? null : Timestamp.valueOf(outcome.getNextAttemptAt()));
+            ps.setObject(6, UUID.fromString(outcome.getNotificationId()));
+            ps.setTimestamp(7, Timestamp.valueOf(outcome.getCreatedAt()));
+        });
+        int updated = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // SUCCESS_NO_INFO (-2) still means the row was written
+                updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,58 @@
+package com.karboncard.assignment.notificationservice.repository;
+
+import com.karboncard.assignment.notificationservice.model.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, String> {
+
+    /**
+     * Claim the oldest undispatched events that no relay holds a lease on. Rows locked by another
+     * relay are skipped, so several nodes can drain the outbox concurrently without publishing the same row.
+     * Events that already failed maxAttempts times are left for inspection.
+     * Must be called inside a transaction, followed by leaseBatch before it ends.
+     */
+    @Query(value = "SELECT * FROM notification_outbox WHERE dispatched_at IS NULL AND attempts < :maxAttempts " +
+            "AND (lease_expires_at IS NULL OR lease_expires_at <= :now) " +
+            "ORDER BY created_at LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("batchSize") int batchSize, @Param("maxAttempts") int maxAttempts,
+                                 @Param("now") LocalDateTime now);
+
+    /**
+     * Lease claimed events to this relay, so others skip them after the claiming transaction commits
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.leaseExpiresAt = :leaseExpiresAt WHERE o.id IN :ids")
+    int leaseBatch(@Param("ids") Collection<String> ids, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    /**
+     * Mark published events as dispatched in bulk
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.dispatchedAt = :now, o.attempts = o.attempts + 1, o.leaseExpiresAt = NULL " +
+            "WHERE o.id IN :ids")
+    int markDispatched(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Record a failed publish attempt in bulk; the lease ends and the events are claimable again
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.attempts = o.attempts + 1, o.lastError = :error, o.leaseExpiresAt = NULL " +
+            "WHERE o.id IN :ids")
+    int markFailed(@Param("ids") Collection<String> ids, @Param("error") String error);
+
+    /**
+     * Purge dispatched events older than the retention cutoff
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent o WHERE o.dispatchedAt < :cutoff")
+    int deleteDispatchedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
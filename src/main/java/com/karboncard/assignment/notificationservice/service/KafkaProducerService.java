@@ -2,29 +2,61 @@ package com.karboncard.assignment.notificationservice.service;
 
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous Kafka producer. No method waits for the broker; every send returns a future
+ * that completes with true once the record is acknowledged and false if it was rejected,
+ * failed or could not enter the bounded in-flight window.
+ */
 public interface KafkaProducerService {
     /**
      * Sends a notification to the email topic
      * @param notification The notification to send
-     * @return true if successfully sent to Kafka, false otherwise
+     * @return future completing with true if the record was accepted by Kafka, false otherwise
      */
-    boolean sendToEmailTopic(Notification notification);
+    CompletableFuture<Boolean> sendToEmailTopic(Notification notification);
 
     /**
      * Sends a notification to the SMS topic
      * @param notification The notification to send
-     * @return true if successfully sent to Kafka, false otherwise
+     * @return future completing with true if the record was accepted by Kafka, false otherwise
      */
-    boolean sendToSmsTopic(Notification notification);
+    CompletableFuture<Boolean> sendToSmsTopic(Notification notification);
 
     /**
      * Sends a notification to the push notification topic
      * @param notification The notification to send
-     * @return true if successfully sent to Kafka, false otherwise
+     * @return future completing with true if the record was accepted by Kafka, false otherwise
+     */
+    CompletableFuture<Boolean> sendToPushTopic(Notification notification);
+
+    CompletableFuture<Boolean> sendWithPriority(Notification notification, String topic);
+
+    /**
+     * Sends a notification to the topic for its type
+     * @param notification The notification to send
+     * @return future completing with true if the record was accepted by Kafka, false otherwise
      */
-    boolean sendToPushTopic(Notification notification);
+    CompletableFuture<Boolean> sendNotification(Notification notification);
 
-    boolean sendWithPriority(Notification notification, String topic);
+    /**
+     * Sends a batch of notifications to their channel topics. All records are handed to the
+     * producer without waiting, so the producer can batch them.
+     * @param notifications The notifications to send
+     * @return one future per notification, in the same order
+     */
+    List<CompletableFuture<Boolean>> sendNotifications(List<Notification> notifications);
 
-    void sendNotification(Notification notification);
-}
\ No newline at end of file
+    /**
+     * Sends a pre-serialized record, outside of any transaction synchronization
+     * @param topic The destination topic
+     * @param key The record key
+     * @param payload The serialized record value
+     * @param headers Optional record headers, may be null
+     * @return future completing with true if the record was accepted by Kafka, false otherwise
+     */
+    CompletableFuture<Boolean> send(String topic, String key, String payload, Map<String, String> headers);
+}
@@ -1,7 +1,9 @@
 package com.karboncard.assignment.notificationservice.service;
 
 import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
 import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.dto.response.BatchNotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.dto.response.NotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
 
@@ -20,6 +22,15 @@ public interface NotificationService {
     NotificationResponseDTO processNotification(NotificationRequestDTO requestDTO)
             throws RateLimitExceededException;
 
+    /**
+     * Processes a batch of notification requests in bulk: one idempotency lookup,
+     * pipelined rate-limit checks, batched inserts and a single Kafka dispatch
+     *
+     * @param requestDTOs The notification requests; null entries are reported as invalid
+     * @return Per-item status for every request in the batch, in input order
+     */
+    BatchNotificationResponseDTO processNotificationBatch(List<NotificationRequestDTO> requestDTOs);
+
     /**
      * Retrieves a notification by ID
      *
@@ -29,7 +40,23 @@ public interface NotificationService {
     Optional<Notification> getNotificationById(String id);
 
     /**
-     * Retrieves notifications for a specific user
+     * Retrieves the delivery attempts recorded for a notification
+     *
+     * @param id The notification ID
+     * @return The attempts, oldest first; empty if there are none or the ID is not a notification ID
+     */
+    List<DeliveryAttempt> getDeliveryAttempts(String id);
+
+    /**
+     * Retrieves a notification by its idempotency key
+     *
+     * @param idempotencyKey The idempotency key
+     * @return The notification if found
+     */
+    Optional<Notification> getNotificationByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Retrieves notifications for a specific user created within the query window
      *
      * @param userId The user ID
      * @return List of notifications for the user
@@ -37,7 +64,7 @@ public interface NotificationService {
     List<Notification> getNotificationsByUserId(String userId);
 
     /**
-     * Retrieves notifications by correlation ID
+     * Retrieves notifications by correlation ID created within the query window
      *
      * @param correlationId The correlation ID
      * @return List of notifications with the given correlation ID
@@ -1,6 +1,12 @@
 package com.karboncard.assignment.notificationservice.service;
 
 import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitScope;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public interface RateLimitingService {
 
@@ -36,4 +42,50 @@ public interface RateLimitingService {
      */
     void recordTemplateNotificationAttempt(String userId, String templateId);
 
-}
\ No newline at end of file
+    /**
+     * Check the user and template rate limits of one request.
+     * Implementations should override this to check both limits in one round trip.
+     *
+     * @param userId The user ID to check
+     * @param templateId The template ID to check
+     * @return The decision, with the counts and the limit that rejected the request
+     */
+    default RateLimitDecision checkRateLimits(String userId, String templateId) {
+        try {
+            checkUserRateLimit(userId);
+            checkTemplateRateLimit(userId, templateId);
+            return RateLimitDecision.allowed(userId, templateId);
+        } catch (RateLimitExceededException e) {
+            RateLimitDecision decision = RateLimitDecision.rejected(userId, templateId, e.getMessage());
+            decision.setRejectedBy(e.getTemplateId() == null ? RateLimitScope.USER : RateLimitScope.TEMPLATE);
+            decision.setMaxAllowed(e.getMaxAllowed());
+            if (decision.getRejectedBy() == RateLimitScope.USER) {
+                decision.setUserCount(e.getCurrentCount());
+            } else {
+                decision.setTemplateCount(e.getCurrentCount());
+            }
+            return decision;
+        }
+    }
+
+    /**
+     * Check user and template rate limits for a batch of requests.
+     * Implementations should override this to avoid one round trip per request.
+     *
+     * @param requests The requests to check, in order
+     * @return One decision per request, in the same order
+     */
+    default List<RateLimitDecision> checkRateLimits(List<NotificationRequestDTO> requests) {
+        List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+        for (NotificationRequestDTO request : requests) {
+            try {
+                checkUserRateLimit(request.getUserId());
+                checkTemplateRateLimit(request.getUserId(), request.getTemplateId());
+                decisions.add(RateLimitDecision.allowed(request.getUserId(), request.getTemplateId()));
+            } catch (RateLimitExceededException e) {
+                decisions.add(RateLimitDecision.rejected(request.getUserId(), request.getTemplateId(), e.getMessage()));
+            }
+        }
+        return decisions;
+    }
+}
@@ -0,0 +1,125 @@
+package com.karboncard.assignment.notificationservice.service.attempt;
+
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.repository.NotificationAttemptRepository;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers delivery attempts recorded by the single-record consumers and writes them to
+ * notification_attempts with multi-row INSERTs, on a short interval or as soon as a batch is full.
+ * The history is best effort: the notification row stays the source of truth for the status, and
+ * attempts still buffered when a node dies, or whose insert fails, are lost and counted as dropped.
+ */
+@Component
+public class DeliveryAttemptLog {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryAttemptLog.class);
+
+    private final NotificationAttemptRepository attemptRepository;
+    private final MetricsUtil metricsUtil;
+    private final LinkedBlockingQueue<DeliveryAttempt> buffer;
+    private final int batchSize;
+    // Only one thread writes at a time; the others keep buffering
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public DeliveryAttemptLog(NotificationAttemptRepository attemptRepository,
+                              MetricsUtil metricsUtil,
+                              @Value("${notification.attempts.buffer-capacity:10000}") int bufferCapacity,
+                              @Value("${notification.attempts.batch-size:500}") int batchSize) {
+        this.attemptRepository = attemptRepository;
+        this.metricsUtil = metricsUtil;
+        this.buffer = new LinkedBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        metricsUtil.registerGauge("notification.attempts.buffered", Map.of(), buffer::size);
+    }
+
+    public void recordSent(String notificationId, int attemptNumber) {
+        recordSent(notificationId, attemptNumber, null);
+    }
+
+    public void recordSent(String notificationId, int attemptNumber, String providerMessageId) {
+        record(DeliveryAttempt.builder()
+                .notificationId(notificationId)
+                .attemptNumber(attemptNumber)
+                .attemptedAt(LocalDateTime.now())
+                .outcome(NotificationStatus.SENT)
+                .providerMessageId(providerMessageId)
+                .build());
+    }
+
+    public void recordFailure(String notificationId, int attemptNumber, NotificationStatus outcome,
+                              String errorCode, String errorMessage) {
+        record(DeliveryAttempt.builder()
+                .notificationId(notificationId)
+                .attemptNumber(attemptNumber)
+                .attemptedAt(LocalDateTime.now())
+                .outcome(outcome)
+                .errorCode(errorCode)
+                .errorMessage(errorMessage)
+                .build());
+    }
+
+    public void record(DeliveryAttempt attempt) {
+        if (!buffer.offer(attempt)) {
+            // Buffer full: the database is slower than the consumers, so write on the caller's thread
+            flush();
+            if (!buffer.offer(attempt)) {
+                write(List.of(attempt));
+                return;
+            }
+        }
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes everything buffered so far, in batches. Returns at once if another thread is writing.
+     */
+    @Scheduled(fixedDelayString = "${notification.attempts.flush-interval-ms:200}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            List<DeliveryAttempt> batch = new ArrayList<>(batchSize);
+            while (buffer.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(List<DeliveryAttempt> attempts) {
+        try {
+            attemptRepository.insertAll(attempts);
+            metricsUtil.incrementCounter("notification.attempts.written", Map.of("result", "success"),
+                    attempts.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} delivery attempts; they are dropped", attempts.size(), e);
+            metricsUtil.incrementCounter("notification.attempts.written", Map.of("result", "dropped"),
+                    attempts.size());
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.karboncard.assignment.notificationservice.service.dlq;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetter;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterQuery;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterReplayJob;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterReplayRequest;
+import com.karboncard.assignment.notificationservice.model.entity.UuidStringJavaType;
+import com.karboncard.assignment.notificationservice.repository.DeadLetterRepository;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.service.status.NotificationStateMachine;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.UuidV7Generator;
+import com.karboncard.assignment.notificationservice.worker.dedup.NotificationDeduplicator;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Queries stored dead letters and replays them to their original topics.
+ * Replays run one job at a time on a background thread, reading pages of dead letters and sending
+ * them no faster than rate-per-second with at most max-in-flight unacknowledged sends, so a large
+ * replay neither floods the providers nor starves the live pipeline. Before a page is sent, the
+ * notifications it carries get a fresh set of attempts and their dedup markers are dropped;
+ * dead letters the broker acknowledged are counted as replayed.
+ */
+@Service
+public class DeadLetterReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayService.class);
+
+    static final String REPLAY_HEADER = "dlq-replay-id";
+
+    private final DeadLetterRepository deadLetterRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final NotificationStateMachine stateMachine;
+    private final NotificationDeduplicator deduplicator;
+    private final ObjectMapper objectMapper;
+    private final MetricsUtil metricsUtil;
+    private final RateLimiter rateLimiter;
+    private final Semaphore inFlightPermits;
+    private final int pageSize;
+    private final int maxLetters;
+    private final long sendTimeoutMs;
+    private final int retainedJobs;
+    private final Map<String, DeadLetterReplayJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService replayExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "dlq-replay"));
+
+    public DeadLetterReplayService(DeadLetterRepository deadLetterRepository,
+                                   KafkaProducerService kafkaProducerService,
+                                   NotificationStateMachine stateMachine,
+                                   NotificationDeduplicator deduplicator,
+                                   ObjectMapper objectMapper,
+                                   MetricsUtil metricsUtil,
+                                   @Value("${notification.dlq.replay.rate-per-second:100}") int ratePerSecond,
+                                   @Value("${notification.dlq.replay.max-in-flight:50}") int maxInFlight,
+                                   @Value("${notification.dlq.replay.page-size:500}") int pageSize,
+                                   @Value("${notification.dlq.replay.max-letters:100000}") int maxLetters,
+                                   @Value("${notification.dlq.replay.send-timeout-ms:30000}") long sendTimeoutMs,
+                                   @Value("${notification.dlq.replay.retained-jobs:100}") int retainedJobs) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.stateMachine = stateMachine;
+        this.deduplicator = deduplicator;
+        this.objectMapper = objectMapper;
+        this.metricsUtil = metricsUtil;
+        this.rateLimiter = RateLimiter.of("dlq-replay", RateLimiterConfig.custom()
+                .limitForPeriod(ratePerSecond)
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .timeoutDuration(Duration.ofSeconds(1))
+                .build());
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.pageSize = pageSize;
+        this.maxLetters = maxLetters;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.retainedJobs = retainedJobs;
+        metricsUtil.registerGauge("notification.dlq.replay.inflight", Map.of(),
+                () -> maxInFlight - inFlightPermits.availablePermits());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        replayExecutor.shutdownNow();
+    }
+
+    /**
+     * @return up to pageSize dead letters matching the query, oldest first
+     */
+    public List<DeadLetter> find(DeadLetterQuery query) {
+        query.setLimit(Math.max(1, Math.min(query.getLimit(), pageSize)));
+        return deadLetterRepository.find(query);
+    }
+
+    /**
+     * Queues a replay
+     *
+     * @throws IllegalArgumentException if the request selects neither ids nor any filter, which would
+     *                                  replay the whole store
+     */
+    public DeadLetterReplayJob submit(DeadLetterReplayRequest request) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (!hasIds && request.getTopic() == null && request.getErrorReason() == null
+                && request.getFrom() == null && request.getTo() == null) {
+            throw new IllegalArgumentException("A replay needs ids or at least one of topic, errorReason, from and to");
+        }
+        if (hasIds && !request.getIds().stream().allMatch(UuidStringJavaType::isUuid)) {
+            throw new IllegalArgumentException("Dead letter ids must be UUIDs");
+        }
+
+        DeadLetterReplayJob job = new DeadLetterReplayJob(UuidV7Generator.generate().toString(), request);
+        pruneFinishedJobs();
+        jobs.put(job.getId(), job);
+        replayExecutor.execute(() -> run(job));
+        logger.info("Queued dead letter replay {}: {}", job.getId(), request);
+        return job;
+    }
+
+    public Optional<DeadLetterReplayJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    void run(DeadLetterReplayJob job) {
+        job.start();
+        try {
+            DeadLetterReplayRequest request = job.getRequest();
+            if (request.getIds() != null && !request.getIds().isEmpty()) {
+                List<String> ids = request.getIds();
+                for (int from = 0; from < ids.size(); from += pageSize) {
+                    replayPage(job, deadLetterRepository.findByIds(ids.subList(from, Math.min(from + pageSize, ids.size()))));
+                }
+            } else {
+                int remaining = request.getMaxLetters() != null ? Math.min(request.getMaxLetters(), maxLetters) : maxLetters;
+                DeadLetterQuery query = DeadLetterQuery.builder()
+                        .topic(request.getTopic())
+                        .errorReason(request.getErrorReason())
+                        .from(request.getFrom())
+                        .to(request.getTo())
+                        .includeReplayed(request.isIncludeReplayed())
+                        .build();
+                while (remaining > 0) {
+                    query.setLimit(Math.min(pageSize, remaining));
+                    List<DeadLetter> page = deadLetterRepository.find(query);
+                    if (page.isEmpty()) {
+                        break;
+                    }
+                    replayPage(job, page);
+                    remaining -= page.size();
+                    query.setAfter(page.get(page.size() - 1).getId());
+                }
+            }
+            job.complete();
+            logger.info("Dead letter replay {} finished: {} replayed, {} failed of {}", job.getId(),
+                    job.getReplayed(), job.getFailed(), job.getSelected());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Interrupted");
+        } catch (RuntimeException e) {
+            logger.error("Dead letter replay {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private void replayPage(DeadLetterReplayJob job, List<DeadLetter> deadLetters) throws InterruptedException {
+        if (deadLetters.isEmpty()) {
+            return;
+        }
+        job.addSelected(deadLetters.size());
+
+        // Final notifications would be skipped by the workers, so they get their attempts back first
+        List<String> notificationIds = deadLetters.stream().map(this::notificationId)
+                .filter(UuidStringJavaType::isUuid).distinct().toList();
+        stateMachine.reopen(notificationIds);
+        deduplicator.forgetAll(notificationIds);
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(deadLetters.size());
+        for (DeadLetter deadLetter : deadLetters) {
+            if (deadLetter.getOriginalTopic() == null) {
+                futures.add(CompletableFuture.completedFuture(false));
+                continue;
+            }
+            while (!rateLimiter.acquirePermission()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            inFlightPermits.acquire();
+            CompletableFuture<Boolean> future;
+            try {
+                future = kafkaProducerService.send(deadLetter.getOriginalTopic(), deadLetter.getOriginalKey(),
+                        deadLetter.getOriginalPayload(), Map.of(REPLAY_HEADER, deadLetter.getId()));
+            } catch (RuntimeException e) {
+                inFlightPermits.release();
+                throw e;
+            }
+            futures.add(future.whenComplete((accepted, ex) -> inFlightPermits.release()));
+        }
+        awaitAll(futures);
+
+        List<String> replayedIds = new ArrayList<>(deadLetters.size());
+        for (int i = 0; i < deadLetters.size(); i++) {
+            CompletableFuture<Boolean> future = futures.get(i);
+            if (future.isDone() && !future.isCompletedExceptionally() && Boolean.TRUE.equals(future.join())) {
+                replayedIds.add(deadLetters.get(i).getId());
+            }
+        }
+        deadLetterRepository.markReplayed(replayedIds, LocalDateTime.now());
+
+        int failed = deadLetters.size() - replayedIds.size();
+        job.addReplayed(replayedIds.size());
+        job.addFailed(failed);
+        metricsUtil.incrementCounter("notification.dlq.replayed", Map.of("result", "success"), replayedIds.size());
+        metricsUtil.incrementCounter("notification.dlq.replayed", Map.of("result", "failure"), failed);
+    }
+
+    private String notificationId(DeadLetter deadLetter) {
+        try {
+            JsonNode id = objectMapper.readTree(deadLetter.getOriginalPayload()).get("id");
+            return id == null ? null : id.asText();
+        } catch (Exception e) {
+            // Not a notification record; it is still replayed as it is
+            return null;
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<Boolean>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Timed out after {} ms waiting for Kafka acknowledgements of replayed dead letters", sendTimeoutMs);
+        } catch (ExecutionException e) {
+            logger.error("Kafka send failed while replaying dead letters", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        if (jobs.size() < retainedJobs) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(DeadLetterReplayJob::isFinished)
+                .sorted(Comparator.comparing(DeadLetterReplayJob::getCreatedAt))
+                .limit(jobs.size() - retainedJobs + 1L)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+}
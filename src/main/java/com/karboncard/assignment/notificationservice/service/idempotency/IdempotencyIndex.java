@@ -0,0 +1,184 @@
+package com.karboncard.assignment.notificationservice.service.idempotency;
+
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.util.BoundedTtlCache;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.ScalableBloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of idempotency keys in front of the notifications table.
+ * A Bloom filter answers "definitely new" for most keys, so the ingest path can skip the
+ * SELECT; a bounded TTL cache maps recently accepted keys to their notification id for fast
+ * duplicate replies. The index is only a shortcut: keys older than the rebuild window are not
+ * in the filter, and the unique constraint on idempotency_key remains the final arbiter.
+ * The filter is kept in two generations that rotate every rebuild window, so its size follows
+ * the keys of the last one to two windows instead of growing with the node's uptime.
+ */
+@Component
+public class IdempotencyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyIndex.class);
+
+    private final NotificationRepository notificationRepository;
+    private final MetricsUtil metricsUtil;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+    // New keys go into the current generation; the previous one holds the window before it
+    private volatile ScalableBloomFilter currentKeys;
+    private volatile ScalableBloomFilter previousKeys;
+    private final BoundedTtlCache<String, String> recentKeys;
+    private final boolean enabled;
+    private final Duration rebuildWindow;
+    // Until the stored keys are loaded a filter miss proves nothing
+    private volatile boolean ready;
+    private final AtomicLong skippedLookups = new AtomicLong();
+
+    public IdempotencyIndex(NotificationRepository notificationRepository,
+                            MetricsUtil metricsUtil,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${notification.idempotency.index.enabled:true}") boolean enabled,
+                            @Value("${notification.idempotency.index.expected-keys:1000000}") long expectedKeys,
+                            @Value("${notification.idempotency.index.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${notification.idempotency.index.rebuild-window-hours:24}") long rebuildWindowHours,
+                            @Value("${notification.idempotency.index.cache-size:100000}") int cacheSize,
+                            @Value("${notification.idempotency.index.cache-ttl-minutes:10}") long cacheTtlMinutes) {
+        this.notificationRepository = notificationRepository;
+        this.metricsUtil = metricsUtil;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.rebuildWindow = Duration.ofHours(rebuildWindowHours);
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.currentKeys = new ScalableBloomFilter(expectedKeys, falsePositiveRate);
+        this.previousKeys = new ScalableBloomFilter(1, falsePositiveRate);
+        this.recentKeys = new BoundedTtlCache<>(cacheSize, 16, Duration.ofMinutes(cacheTtlMinutes));
+        metricsUtil.registerGauge("notification.idempotency.index.keys", Map.of(),
+                () -> currentKeys.approximateSize() + previousKeys.approximateSize());
+        metricsUtil.registerGauge("notification.idempotency.index.lookups.skipped", Map.of(), skippedLookups::get);
+    }
+
+    /**
+     * Loads the keys created within the rebuild window into the Bloom filter
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minus(rebuildWindow);
+        try {
+            Long loaded = readOnlyTransaction.execute(status -> {
+                try (Stream<String> keys = notificationRepository.streamIdempotencyKeysCreatedAfter(since)) {
+                    // Not peek(): count() may skip it when the stream knows its size
+                    ScalableBloomFilter filter = currentKeys;
+                    return keys.mapToLong(key -> {
+                        filter.put(key);
+                        return 1;
+                    }).sum();
+                }
+            });
+            ready = true;
+            log.info("Idempotency index rebuilt with {} keys since {} in {} ms",
+                    loaded, since, System.currentTimeMillis() - startTime);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild idempotency index, every key will be looked up in the database", e);
+        }
+    }
+
+    /**
+     * Starts a new generation and drops the oldest. Every key accepted within the last window is
+     * still in the current or the previous generation.
+     */
+    @Scheduled(initialDelayString = "${notification.idempotency.index.rebuild-window-hours:24}",
+            fixedRateString = "${notification.idempotency.index.rebuild-window-hours:24}", timeUnit = TimeUnit.HOURS)
+    public void rotate() {
+        if (!enabled) {
+            return;
+        }
+        long dropped = previousKeys.approximateSize();
+        previousKeys = currentKeys;
+        currentKeys = new ScalableBloomFilter(expectedKeys, falsePositiveRate);
+        log.info("Idempotency index rotated, dropped {} keys older than {}", dropped, rebuildWindow);
+    }
+
+    /**
+     * @return the notification id of a recently accepted key, if it is still cached
+     */
+    public Optional<String> findRecentNotificationId(String idempotencyKey) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String notificationId = recentKeys.get(idempotencyKey);
+        metricsUtil.incrementCounter("notification.idempotency.index.cache",
+                Map.of("result", notificationId != null ? "hit" : "miss"));
+        return Optional.ofNullable(notificationId);
+    }
+
+    /**
+     * @return false only when the key has definitely not been accepted within the rebuild window
+     */
+    public boolean mightExist(String idempotencyKey) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        // Current first: rotate() publishes the previous generation before replacing the current one
+        boolean mightExist = currentKeys.mightContain(idempotencyKey) || previousKeys.mightContain(idempotencyKey);
+        if (!mightExist) {
+            skippedLookups.incrementAndGet();
+        }
+        return mightExist;
+    }
+
+    /**
+     * Adds a key once the current transaction commits, so a rolled-back insert is never reported as a duplicate
+     */
+    public void recordAfterCommit(String idempotencyKey, String notificationId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(idempotencyKey, notificationId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(idempotencyKey, notificationId);
+            }
+        });
+    }
+
+    public void record(String idempotencyKey, String notificationId) {
+        if (!enabled) {
+            return;
+        }
+        currentKeys.put(idempotencyKey);
+        if (notificationId != null) {
+            recentKeys.put(idempotencyKey, notificationId);
+        }
+    }
+}
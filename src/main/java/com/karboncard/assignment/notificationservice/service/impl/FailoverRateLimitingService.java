@@ -0,0 +1,170 @@
+package com.karboncard.assignment.notificationservice.service.impl;
+
+import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs Redis rate-limit checks behind a circuit breaker and switches to the local limiter
+ * while the breaker is open. Every Redis call gets its own time budget, far below the Redis
+ * client timeout, so requests never wait for a stalled Redis; timeouts count as failures and
+ * open the breaker. The breaker's half-open probes fail back to Redis on their own.
+ */
+public class FailoverRateLimitingService implements RateLimitingService {
+
+    private static final Logger log = LoggerFactory.getLogger(FailoverRateLimitingService.class);
+
+    private final RateLimitingService delegate;
+    private final LocalRateLimitingService localRateLimitingService;
+    private final CircuitBreaker circuitBreaker;
+    private final MetricsUtil metricsUtil;
+    private final long callTimeoutMs;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public FailoverRateLimitingService(RateLimitingService delegate,
+                                       LocalRateLimitingService localRateLimitingService,
+                                       CircuitBreaker circuitBreaker,
+                                       MetricsUtil metricsUtil,
+                                       long callTimeoutMs) {
+        this.delegate = delegate;
+        this.localRateLimitingService = localRateLimitingService;
+        this.circuitBreaker = circuitBreaker;
+        this.metricsUtil = metricsUtil;
+        this.callTimeoutMs = callTimeoutMs;
+
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            log.warn("Rate limiting circuit breaker moved from {} to {}",
+                    transition.getFromState(), transition.getToState());
+            metricsUtil.incrementCounter("notification.ratelimit.mode.switch", Map.of(
+                    "from", transition.getFromState().name(),
+                    "to", transition.getToState().name()));
+        });
+        metricsUtil.registerGauge("notification.ratelimit.degraded", Map.of(), () -> isDegraded() ? 1 : 0);
+    }
+
+    @Override
+    public RateLimitDecision checkRateLimits(String userId, String templateId) {
+        try {
+            return call(() -> delegate.checkRateLimits(userId, templateId),
+                    () -> localRateLimitingService.checkRateLimits(userId, templateId));
+        } catch (RateLimitExceededException e) {
+            // Neither side throws for the combined check
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public List<RateLimitDecision> checkRateLimits(List<NotificationRequestDTO> requests) {
+        try {
+            return call(() -> delegate.checkRateLimits(requests), () -> {
+                List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+                for (NotificationRequestDTO request : requests) {
+                    decisions.add(localRateLimitingService.checkRateLimits(request.getUserId(), request.getTemplateId()));
+                }
+                return decisions;
+            });
+        } catch (RateLimitExceededException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void checkUserRateLimit(String userId) throws RateLimitExceededException {
+        call(() -> {
+            delegate.checkUserRateLimit(userId);
+            return null;
+        }, () -> {
+            localRateLimitingService.checkUserRateLimit(userId);
+            return null;
+        });
+    }
+
+    @Override
+    public void checkTemplateRateLimit(String userId, String templateId) throws RateLimitExceededException {
+        call(() -> {
+            delegate.checkTemplateRateLimit(userId, templateId);
+            return null;
+        }, () -> {
+            localRateLimitingService.checkTemplateRateLimit(userId, templateId);
+            return null;
+        });
+    }
+
+    @Override
+    public void recordUserNotificationAttempt(String userId) {
+        delegate.recordUserNotificationAttempt(userId);
+    }
+
+    @Override
+    public void recordTemplateNotificationAttempt(String userId, String templateId) {
+        delegate.recordTemplateNotificationAttempt(userId, templateId);
+    }
+
+    public boolean isDegraded() {
+        CircuitBreaker.State state = circuitBreaker.getState();
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T call(Callable<T> redisCall, LocalCall<T> localCall) throws RateLimitExceededException {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            metricsUtil.incrementCounter("notification.ratelimit.checks", Map.of("source", "local"));
+            return localCall.call();
+        }
+
+        long start = System.nanoTime();
+        Future<T> future = executor.submit(redisCall);
+        Throwable failure;
+        try {
+            T result = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RateLimitExceededException rateLimitExceeded) {
+                // A rejection is a healthy answer from Redis
+                circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw rateLimitExceeded;
+            }
+            failure = e.getCause();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.releasePermission();
+            failure = e;
+        }
+
+        if (!(failure instanceof InterruptedException)) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, failure);
+        }
+        log.warn("Redis rate limit check failed, using local limits: {}", failure.toString());
+        metricsUtil.incrementCounter("notification.ratelimit.checks", Map.of("source", "local"));
+        return localCall.call();
+    }
+
+    @FunctionalInterface
+    private interface LocalCall<T> {
+        T call() throws RateLimitExceededException;
+    }
+}
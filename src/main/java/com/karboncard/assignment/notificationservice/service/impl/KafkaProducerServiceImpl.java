@@ -3,26 +3,26 @@ package com.karboncard.assignment.notificationservice.service.impl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.karboncard.assignment.notificationservice.config.KafkaConfig;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
 import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
 import com.karboncard.assignment.notificationservice.util.MetricsUtil;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class KafkaProducerServiceImpl implements KafkaProducerService {
 
@@ -31,104 +31,213 @@ public class KafkaProducerServiceImpl implements KafkaProducerService {
     private final KafkaConfig kafkaConfig;
     private final MetricsUtil metricsUtil;
 
+    // Bounded window of records handed to the producer but not yet acknowledged by the broker
+    private final Semaphore inFlightPermits;
+
+    public KafkaProducerServiceImpl(KafkaTemplate<String, String> kafkaTemplate,
+                                    ObjectMapper objectMapper,
+                                    KafkaConfig kafkaConfig,
+                                    MetricsUtil metricsUtil) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.kafkaConfig = kafkaConfig;
+        this.metricsUtil = metricsUtil;
+        this.inFlightPermits = new Semaphore(kafkaConfig.getProducerMaxInFlight());
+        metricsUtil.registerGauge("notification.kafka.inflight", Map.of(),
+                () -> kafkaConfig.getProducerMaxInFlight() - inFlightPermits.availablePermits());
+    }
+
     @Override
-    public boolean sendToEmailTopic(Notification notification) {
+    public CompletableFuture<Boolean> sendToEmailTopic(Notification notification) {
         return sendToKafka(notification, kafkaConfig.getEmailTopic());
     }
 
     @Override
-    public boolean sendToSmsTopic(Notification notification) {
+    public CompletableFuture<Boolean> sendToSmsTopic(Notification notification) {
         return sendToKafka(notification, kafkaConfig.getSmsTopic());
     }
 
     @Override
-    public boolean sendToPushTopic(Notification notification) {
+    public CompletableFuture<Boolean> sendToPushTopic(Notification notification) {
         return sendToKafka(notification, kafkaConfig.getPushTopic());
     }
 
     @Override
-    public boolean sendWithPriority(Notification notification, String topic) {
+    public CompletableFuture<Boolean> sendWithPriority(Notification notification, String topic) {
         return sendToKafkaWithHeaders(notification, topic,
                 Map.of("priority", notification.getPriority().toString()));
     }
 
-    private boolean sendToKafka(Notification notification, String topic) {
+    private CompletableFuture<Boolean> sendToKafka(Notification notification, String topic) {
         return sendToKafkaWithHeaders(notification, topic, null);
     }
 
-    private boolean sendToKafkaWithHeaders(Notification notification, String topic,
-                                           Map<String, String> headers) {
+    private CompletableFuture<Boolean> sendToKafkaWithHeaders(Notification notification, String topic,
+                                                              Map<String, String> headers) {
         if (TransactionSynchronizationManager.isActualTransactionActive()) {
             // If in a transaction, register synchronization to send after commit
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
             try {
-                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
                     @Override
                     public void afterCommit() {
-                        performKafkaSend(notification, topic, headers);
+                        performKafkaSend(notification, topic, headers)
+                                .whenComplete((accepted, ex) -> result.complete(ex == null && accepted));
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            result.complete(false);
+                        }
                     }
                 });
-                return true;
             } catch (Exception e) {
                 logAndRecordError(notification, topic, "tx_sync_error", e);
-                return false;
+                result.complete(false);
             }
+            return result;
         } else {
             // If not in transaction, send immediately
             return performKafkaSend(notification, topic, headers);
         }
     }
 
-    private boolean performKafkaSend(Notification notification, String topic,
-                                     Map<String, String> headers) {
-        long startTime = System.currentTimeMillis();
-
+    private CompletableFuture<Boolean> performKafkaSend(Notification notification, String topic,
+                                                        Map<String, String> headers) {
+        String payload;
         try {
-            String payload = objectMapper.writeValueAsString(notification);
-            String key = notification.getIdempotencyKey() != null ?
-                    notification.getIdempotencyKey() :
-                    notification.getUserId() + "-" + notification.getId();
+            payload = objectMapper.writeValueAsString(notification);
+        } catch (Exception e) {
+            logAndRecordError(notification, topic, "serialization", e);
+            return CompletableFuture.completedFuture(false);
+        }
+        log.debug("Sending to Kafka topic [{}]: {}", topic, payload);
 
-            log.debug("Sending to Kafka topic [{}]: {}", topic, payload);
+        return send(topic, buildKey(notification), payload, headers)
+                .whenComplete((accepted, ex) -> {
+                    if (Boolean.TRUE.equals(accepted)) {
+                        log.info("Successfully sent notification {} to topic {}", notification.getId(), topic);
+                    }
+                });
+    }
 
-            CompletableFuture<SendResult<String, String>> future;
-            if (headers != null && !headers.isEmpty()) {
-                ProducerRecord<String, String> record = new ProducerRecord<>(topic, null, key, payload);
+    @Override
+    public CompletableFuture<Boolean> send(String topic, String key, String payload, Map<String, String> headers) {
+        if (!acquirePermit()) {
+            log.warn("Kafka in-flight window full, rejecting record for topic {} with key {}", topic, key);
+            metricsUtil.incrementCounter("notification.kafka.sent",
+                    Map.of("topic", topic, "status", "failure", "error_type", "backpressure"));
+            return CompletableFuture.completedFuture(false);
+        }
+
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<SendResult<String, String>> future;
+        try {
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic, null, key, payload);
+            if (headers != null) {
                 headers.forEach((name, value) ->
                         record.headers().add(name, value.getBytes(StandardCharsets.UTF_8)));
-                future = kafkaTemplate.send(record);
-            } else {
-                future = kafkaTemplate.send(topic, key, payload);
             }
+            future = kafkaTemplate.send(record);
+        } catch (Exception e) {
+            inFlightPermits.release();
+            log.error("Failed to hand record with key {} to the producer for topic {}", key, topic, e);
+            metricsUtil.incrementCounter("notification.kafka.sent",
+                    Map.of("topic", topic, "status", "failure", "error_type", "error"));
+            return CompletableFuture.completedFuture(false);
+        }
 
-            SendResult<String, String> result = future.get(5, TimeUnit.SECONDS);
-
+        // Metrics are recorded on the producer callback, no thread waits for the broker
+        return future.handle((result, ex) -> {
+            inFlightPermits.release();
+            if (ex != null) {
+                log.error("Failed to send record with key {} to topic {}", key, topic, ex);
+                metricsUtil.incrementCounter("notification.kafka.sent",
+                        Map.of("topic", topic, "status", "failure", "error_type", "execution_failed"));
+                return false;
+            }
             metricsUtil.incrementCounter("notification.kafka.sent",
                     Map.of("topic", topic, "status", "success"));
-            metricsUtil.recordLatency("notification.kafka.latency",
-                    System.currentTimeMillis() - startTime);
-
-            log.info("Successfully sent notification {} to topic {} (partition={}, offset={})",
-                    notification.getId(), topic,
-                    result.getRecordMetadata().partition(),
-                    result.getRecordMetadata().offset());
+            metricsUtil.recordLatency("notification.kafka.latency", System.currentTimeMillis() - startTime);
+            log.debug("Record with key {} acknowledged on topic {} (partition={}, offset={})", key, topic,
+                    result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
             return true;
+        });
+    }
 
+    /**
+     * Blocks the caller for at most the configured backpressure timeout when the in-flight window is full
+     */
+    private boolean acquirePermit() {
+        try {
+            return inFlightPermits.tryAcquire(kafkaConfig.getProducerBackpressureTimeoutMs(), TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            logAndRecordError(notification, topic, "interrupted", e);
-            return false;
-        } catch (ExecutionException e) {
-            logAndRecordError(notification, topic, "execution_failed", e);
-            return false;
-        } catch (TimeoutException e) {
-            logAndRecordError(notification, topic, "timeout", e);
-            return false;
-        } catch (Exception e) {
-            logAndRecordError(notification, topic, "error", e);
             return false;
         }
     }
 
+    @Override
+    public List<CompletableFuture<Boolean>> sendNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return List.of();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            List<CompletableFuture<Boolean>> results = new ArrayList<>(notifications.size());
+            notifications.forEach(notification -> results.add(new CompletableFuture<>()));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    List<CompletableFuture<Boolean>> sends = performKafkaBatchSend(notifications);
+                    for (int i = 0; i < sends.size(); i++) {
+                        CompletableFuture<Boolean> result = results.get(i);
+                        sends.get(i).whenComplete((accepted, ex) -> result.complete(ex == null && accepted));
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        results.forEach(result -> result.complete(false));
+                    }
+                }
+            });
+            return results;
+        }
+        return performKafkaBatchSend(notifications);
+    }
+
+    private List<CompletableFuture<Boolean>> performKafkaBatchSend(List<Notification> notifications) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            String topic = resolveTopic(notification.getType());
+            if (topic == null) {
+                log.error("Unknown notification type: {}", notification.getType());
+                metricsUtil.incrementCounter("notification.kafka.failed",
+                        Map.of("type", String.valueOf(notification.getType())));
+                futures.add(CompletableFuture.completedFuture(false));
+                continue;
+            }
+            futures.add(performKafkaSend(notification, topic, null));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenRun(() -> log.info("Sent batch of {} notifications to Kafka ({} failed)", notifications.size(),
+                        futures.stream().filter(future -> !future.join()).count()));
+        return futures;
+    }
+
+    private String resolveTopic(NotificationType type) {
+        return kafkaConfig.topicFor(type);
+    }
+
+    private String buildKey(Notification notification) {
+        return notification.getIdempotencyKey() != null ?
+                notification.getIdempotencyKey() :
+                notification.getUserId() + "-" + notification.getId();
+    }
+
     private void logAndRecordError(Notification notification, String topic,
                                    String errorType, Exception e) {
         log.error("Failed to send notification {} to topic {}: {} error",
@@ -139,40 +248,41 @@ public class KafkaProducerServiceImpl implements KafkaProducerService {
     }
 
     @Override
-    public void sendNotification(Notification notification) {
-        boolean success = false;
-
+    public CompletableFuture<Boolean> sendNotification(Notification notification) {
         if (notification.getType() == null) {
             log.error("Notification type is null for notification {}", notification.getId());
             metricsUtil.incrementCounter("notification.kafka.failed",
                     Map.of("type", "NULL"));
-            return;
+            return CompletableFuture.completedFuture(false);
         }
 
+        CompletableFuture<Boolean> future;
         switch (notification.getType()) {
             case EMAIL:
-                success = sendToEmailTopic(notification);
+                future = sendToEmailTopic(notification);
                 break;
             case SMS:
-                success = sendToSmsTopic(notification);
+                future = sendToSmsTopic(notification);
                 break;
             case PUSH:
-                success = sendToPushTopic(notification);
+                future = sendToPushTopic(notification);
                 break;
             default:
                 log.error("Unknown notification type: {}", notification.getType());
                 metricsUtil.incrementCounter("notification.kafka.failed",
                         Map.of("type", notification.getType() != null ? notification.getType().toString() : "UNKNOWN"));
-                return;
+                return CompletableFuture.completedFuture(false);
         }
 
-        if (!success) {
-            log.error("Failed to send notification {} to Kafka", notification.getId());
-            metricsUtil.incrementCounter("notification.kafka.failed",
-                    Map.of("type", notification.getType().toString()));
-        } else {
-            metricsUtil.incrementCounter("notification.kafka.success",
-                    Map.of("type", notification.getType().toString()));
-        }
+        return future.whenComplete((success, ex) -> {
+            if (ex != null || !success) {
+                log.error("Failed to send notification {} to Kafka", notification.getId());
+                metricsUtil.incrementCounter("notification.kafka.failed",
+                        Map.of("type", notification.getType().toString()));
+            } else {
+                metricsUtil.incrementCounter("notification.kafka.success",
+                        Map.of("type", notification.getType().toString()));
+            }
+        });
     }
-}
\ No newline at end of file
+}
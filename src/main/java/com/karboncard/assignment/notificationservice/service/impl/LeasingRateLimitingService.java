@@ -0,0 +1,308 @@
+package com.karboncard.assignment.notificationservice.service.impl;
+
+import com.karboncard.assignment.notificationservice.config.RateLimitConfig;
+import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitAlgorithm;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitScope;
+import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.StripedLruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process pre-limiter in front of {@link RedisRateLimitingService}.
+ * Keys that are seen often (hot keys) lease a block of quota from their Redis counter
+ * and spend it locally, so a heavy sender costs one Redis round trip per block instead of
+ * one per request. Leased tokens are already counted in Redis, so a key is never admitted
+ * beyond its limit; the error is under-admission of at most one unspent block per node,
+ * and a block is at most max-error-ratio of the limit.
+ * Unspent tokens are returned asynchronously when a key is evicted and on shutdown.
+ * Only fixed-window limits can be leased; other algorithms go straight to the delegate.
+ */
+public class LeasingRateLimitingService implements RateLimitingService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeasingRateLimitingService.class);
+    // Same counters as the fixed-window checks in RedisRateLimitingService
+    private static final String USER_RATE_KEY_PREFIX = "rate:user:";
+    private static final String TEMPLATE_RATE_KEY_PREFIX = "rate:template:";
+
+    private final RateLimitingService delegate;
+    private final RedisTemplate<String, Integer> redisTemplate;
+    private final RateLimitConfig rateLimitConfig;
+    private final MetricsUtil metricsUtil;
+    private final int hotKeyThreshold;
+    private final int userLeaseSize;
+    private final int templateLeaseSize;
+    private final boolean leasingApplies;
+    private final StripedLruCache<String, TokenLease> leases;
+    private final ExecutorService returnExecutor;
+    private final RedisScript<List> leaseScript;
+    private final RedisScript<Long> returnScript;
+
+    public LeasingRateLimitingService(RateLimitingService delegate,
+                                      RedisTemplate<String, Integer> redisTemplate,
+                                      RateLimitConfig rateLimitConfig,
+                                      MetricsUtil metricsUtil,
+                                      double maxErrorRatio,
+                                      int maxLeaseSize,
+                                      int hotKeyThreshold,
+                                      int maxKeys,
+                                      int stripes) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.rateLimitConfig = rateLimitConfig;
+        this.metricsUtil = metricsUtil;
+        this.hotKeyThreshold = hotKeyThreshold;
+        this.userLeaseSize = leaseSize(rateLimitConfig.getUserMaxRequests(), maxErrorRatio, maxLeaseSize);
+        this.templateLeaseSize = leaseSize(rateLimitConfig.getTemplateMaxRequests(), maxErrorRatio, maxLeaseSize);
+        this.leasingApplies = isFixedWindow(rateLimitConfig.getUserAlgorithm())
+                && isFixedWindow(rateLimitConfig.getTemplateAlgorithm());
+        this.leases = new StripedLruCache<>(maxKeys, stripes, this::onEvicted);
+        this.returnExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-lease-return");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        DefaultRedisScript<List> lease = new DefaultRedisScript<>();
+        lease.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/rate_limit_lease.lua")));
+        lease.setResultType(List.class);
+        this.leaseScript = lease;
+        DefaultRedisScript<Long> giveBack = new DefaultRedisScript<>();
+        giveBack.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/rate_limit_lease_return.lua")));
+        giveBack.setResultType(Long.class);
+        this.returnScript = giveBack;
+
+        if (!leasingApplies) {
+            log.info("Rate-limit leasing disabled: only fixed-window limits can be leased");
+        } else {
+            log.info("Rate-limit leasing enabled with blocks of {} (user) and {} (template) tokens",
+                    userLeaseSize, templateLeaseSize);
+        }
+    }
+
+    @Override
+    public RateLimitDecision checkRateLimits(String userId, String templateId) {
+        if (!leasingApplies) {
+            return delegate.checkRateLimits(userId, templateId);
+        }
+        long now = System.currentTimeMillis();
+        String userKey = USER_RATE_KEY_PREFIX + userId;
+        String templateKey = TEMPLATE_RATE_KEY_PREFIX + userId + ":" + templateId;
+        TokenLease userLease = leases.computeIfAbsent(userKey, key -> new TokenLease());
+        TokenLease templateLease = leases.computeIfAbsent(templateKey, key -> new TokenLease());
+
+        boolean userLocal = userLease.tryAcquire(now);
+        boolean templateLocal = templateLease.tryAcquire(now);
+        if (userLocal && templateLocal) {
+            metricsUtil.incrementCounter("notification.ratelimit.checks", Map.of("source", "lease"));
+            return RateLimitDecision.allowed(userId, templateId);
+        }
+
+        // Cold keys take exactly the token they need, hot keys take a whole block
+        int userWanted = userLocal ? 0 : userLease.hits() >= hotKeyThreshold ? userLeaseSize : 1;
+        int templateWanted = templateLocal ? 0 : templateLease.hits() >= hotKeyThreshold ? templateLeaseSize : 1;
+        List<?> result = redisTemplate.execute(leaseScript, List.of(userKey, templateKey),
+                rateLimitConfig.getUserMaxRequests(), userWindowMillis(), userWanted,
+                rateLimitConfig.getTemplateMaxRequests(), templateWindowMillis(), templateWanted);
+        metricsUtil.incrementCounter("notification.ratelimit.checks", Map.of("source", "redis"));
+
+        boolean allowed = ((Number) result.get(0)).longValue() == 1L;
+        int userGranted = ((Number) result.get(1)).intValue();
+        int templateGranted = ((Number) result.get(2)).intValue();
+        long userCount = ((Number) result.get(3)).longValue();
+        long templateCount = ((Number) result.get(4)).longValue();
+        long userTtl = ((Number) result.get(5)).longValue();
+        long templateTtl = ((Number) result.get(6)).longValue();
+
+        if (!allowed) {
+            // The request is rejected, so the local token taken for the other limit is not spent
+            if (userLocal) {
+                userLease.release();
+            }
+            if (templateLocal) {
+                templateLease.release();
+            }
+            boolean userBinding = userWanted > 0 && userGranted == 0;
+            return rejected(userId, templateId, userBinding, userCount, templateCount,
+                    Instant.ofEpochMilli(now + (userBinding ? userTtl : templateTtl)));
+        }
+
+        // One granted token pays for this request, the rest is kept until the counter's window ends
+        if (userGranted > 1) {
+            userLease.refill(userGranted - 1, now + userTtl);
+        }
+        if (templateGranted > 1) {
+            templateLease.refill(templateGranted - 1, now + templateTtl);
+        }
+        RateLimitDecision decision = RateLimitDecision.allowed(userId, templateId);
+        decision.setUserCount(userCount);
+        decision.setTemplateCount(templateCount);
+        return decision;
+    }
+
+    // Batches already share one pipelined round trip, so they are not worth leasing for
+    @Override
+    public List<RateLimitDecision> checkRateLimits(List<NotificationRequestDTO> requests) {
+        return delegate.checkRateLimits(requests);
+    }
+
+    @Override
+    public void checkUserRateLimit(String userId) throws RateLimitExceededException {
+        delegate.checkUserRateLimit(userId);
+    }
+
+    @Override
+    public void checkTemplateRateLimit(String userId, String templateId) throws RateLimitExceededException {
+        delegate.checkTemplateRateLimit(userId, templateId);
+    }
+
+    @Override
+    public void recordUserNotificationAttempt(String userId) {
+        delegate.recordUserNotificationAttempt(userId);
+    }
+
+    @Override
+    public void recordTemplateNotificationAttempt(String userId, String templateId) {
+        delegate.recordTemplateNotificationAttempt(userId, templateId);
+    }
+
+    /**
+     * Returns every unspent lease to Redis before the node goes away
+     */
+    public void shutdown() {
+        returnExecutor.shutdown();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, TokenLease> entry : leases.drain()) {
+            returnTokens(entry.getKey(), entry.getValue().drain(now));
+        }
+    }
+
+    private void onEvicted(String key, TokenLease lease) {
+        int tokens = lease.drain(System.currentTimeMillis());
+        if (tokens > 0) {
+            returnExecutor.execute(() -> returnTokens(key, tokens));
+        }
+    }
+
+    private void returnTokens(String key, int tokens) {
+        if (tokens <= 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute(returnScript, List.of(key), tokens);
+            metricsUtil.incrementCounter("notification.ratelimit.lease.returned", Map.of(), tokens);
+        } catch (RuntimeException e) {
+            // The counter expires with its window, so a failed return only costs quota until then
+            log.warn("Failed to return {} leased tokens for {}: {}", tokens, key, e.getMessage());
+        }
+    }
+
+    private RateLimitDecision rejected(String userId, String templateId, boolean userBinding,
+                                       long userCount, long templateCount, Instant resetAt) {
+        RateLimitDecision decision;
+        if (userBinding) {
+            decision = RateLimitDecision.rejected(userId, templateId,
+                    String.format("User rate limit exceeded. Maximum %d notifications allowed per %d minutes",
+                            rateLimitConfig.getUserMaxRequests(),
+                            rateLimitConfig.getUserTimeWindowMinutes()));
+            decision.setRejectedBy(RateLimitScope.USER);
+            decision.setMaxAllowed(rateLimitConfig.getUserMaxRequests());
+        } else {
+            decision = RateLimitDecision.rejected(userId, templateId,
+                    String.format("Template rate limit exceeded. Maximum %d '%s' notifications allowed per %d minutes",
+                            rateLimitConfig.getTemplateMaxRequests(),
+                            templateId,
+                            rateLimitConfig.getTemplateTimeWindowMinutes()));
+            decision.setRejectedBy(RateLimitScope.TEMPLATE);
+            decision.setMaxAllowed(rateLimitConfig.getTemplateMaxRequests());
+        }
+        decision.setUserCount(userCount);
+        decision.setTemplateCount(templateCount);
+        decision.setResetAt(resetAt);
+        log.warn("Rate limit exceeded for user: {}, template: {}, user count: {}, template count: {}",
+                userId, templateId, userCount, templateCount);
+        return decision;
+    }
+
+    private int userWindowMillis() {
+        return (int) Duration.ofMinutes(rateLimitConfig.getUserTimeWindowMinutes()).toMillis();
+    }
+
+    private int templateWindowMillis() {
+        return (int) Duration.ofMinutes(rateLimitConfig.getTemplateTimeWindowMinutes()).toMillis();
+    }
+
+    private static int leaseSize(int limit, double maxErrorRatio, int maxLeaseSize) {
+        return Math.max(1, Math.min(maxLeaseSize, (int) Math.floor(limit * maxErrorRatio)));
+    }
+
+    private static boolean isFixedWindow(RateLimitAlgorithm algorithm) {
+        return algorithm == null || algorithm == RateLimitAlgorithm.FIXED_WINDOW;
+    }
+
+    /**
+     * Locally held tokens of one Redis counter, valid until that counter's window ends.
+     * Spending is a CAS loop; only refills and drains take the lease's lock.
+     */
+    static final class TokenLease {
+
+        private final AtomicInteger tokens = new AtomicInteger();
+        private final AtomicInteger hits = new AtomicInteger();
+        private volatile long expiresAt;
+
+        boolean tryAcquire(long now) {
+            hits.updateAndGet(count -> count == Integer.MAX_VALUE ? count : count + 1);
+            if (now >= expiresAt) {
+                return false;
+            }
+            int current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        void release() {
+            tokens.incrementAndGet();
+        }
+
+        int hits() {
+            return hits.get();
+        }
+
+        synchronized void refill(int granted, long windowEnd) {
+            if (System.currentTimeMillis() >= expiresAt) {
+                // Tokens left from an ended window belong to a counter that no longer exists
+                tokens.set(granted);
+            } else {
+                tokens.addAndGet(granted);
+            }
+            expiresAt = Math.max(expiresAt, windowEnd);
+        }
+
+        synchronized int drain(long now) {
+            int remaining = tokens.getAndSet(0);
+            return now < expiresAt ? remaining : 0;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.karboncard.assignment.notificationservice.service.impl;
+
+import com.karboncard.assignment.notificationservice.config.RateLimitConfig;
+import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitScope;
+import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.util.StripedLruCache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.IntSupplier;
+
+/**
+ * In-memory rate limiter used while Redis is unavailable.
+ * Each node enforces its share of every limit (the limit divided by the number of live nodes,
+ * rounded up) with sliding-window counters, so the cluster as a whole stays close to the
+ * configured limit without any shared state. Counters are bounded by an LRU and start empty,
+ * so quota already spent in Redis during the current window is not carried over.
+ */
+public class LocalRateLimitingService implements RateLimitingService {
+
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final String TEMPLATE_KEY_PREFIX = "template:";
+
+    private final RateLimitConfig rateLimitConfig;
+    private final IntSupplier nodeCount;
+    private final StripedLruCache<String, SlidingWindow> windows;
+
+    public LocalRateLimitingService(RateLimitConfig rateLimitConfig, IntSupplier nodeCount, int maxKeys, int stripes) {
+        this.rateLimitConfig = rateLimitConfig;
+        this.nodeCount = nodeCount;
+        this.windows = new StripedLruCache<>(maxKeys, stripes, null);
+    }
+
+    @Override
+    public void checkUserRateLimit(String userId) throws RateLimitExceededException {
+        RateLimitDecision decision = checkRateLimits(userId, null);
+        if (!decision.isAllowed()) {
+            throw new RateLimitExceededException(decision.getMessage(), userId, null,
+                    (int) decision.getUserCount(), (int) decision.getMaxAllowed());
+        }
+    }
+
+    @Override
+    public void checkTemplateRateLimit(String userId, String templateId) throws RateLimitExceededException {
+        long now = System.currentTimeMillis();
+        int limit = localShare(rateLimitConfig.getTemplateMaxRequests());
+        SlidingWindow window = windows.computeIfAbsent(TEMPLATE_KEY_PREFIX + userId + ":" + templateId,
+                key -> new SlidingWindow(templateWindowMillis()));
+        if (!window.tryAcquire(limit, now)) {
+            throw new RateLimitExceededException(templateMessage(templateId), userId, templateId,
+                    (int) window.estimate(now), limit);
+        }
+    }
+
+    /**
+     * Checks the user limit and, when a template is given, the template limit.
+     * A request rejected by the template limit gives its user token back.
+     */
+    @Override
+    public RateLimitDecision checkRateLimits(String userId, String templateId) {
+        long now = System.currentTimeMillis();
+        int userLimit = localShare(rateLimitConfig.getUserMaxRequests());
+        SlidingWindow userWindow = windows.computeIfAbsent(USER_KEY_PREFIX + userId,
+                key -> new SlidingWindow(userWindowMillis()));
+        if (!userWindow.tryAcquire(userLimit, now)) {
+            RateLimitDecision decision = RateLimitDecision.rejected(userId, templateId,
+                    String.format("User rate limit exceeded. Maximum %d notifications allowed per %d minutes",
+                            rateLimitConfig.getUserMaxRequests(),
+                            rateLimitConfig.getUserTimeWindowMinutes()));
+            decision.setRejectedBy(RateLimitScope.USER);
+            decision.setUserCount(userWindow.estimate(now));
+            decision.setMaxAllowed(userLimit);
+            decision.setResetAt(Instant.ofEpochMilli(userWindow.windowEnd(now)));
+            return decision;
+        }
+        if (templateId == null) {
+            return RateLimitDecision.allowed(userId, null);
+        }
+
+        int templateLimit = localShare(rateLimitConfig.getTemplateMaxRequests());
+        SlidingWindow templateWindow = windows.computeIfAbsent(TEMPLATE_KEY_PREFIX + userId + ":" + templateId,
+                key -> new SlidingWindow(templateWindowMillis()));
+        if (!templateWindow.tryAcquire(templateLimit, now)) {
+            userWindow.release(now);
+            RateLimitDecision decision = RateLimitDecision.rejected(userId, templateId, templateMessage(templateId));
+            decision.setRejectedBy(RateLimitScope.TEMPLATE);
+            decision.setTemplateCount(templateWindow.estimate(now));
+            decision.setMaxAllowed(templateLimit);
+            decision.setResetAt(Instant.ofEpochMilli(templateWindow.windowEnd(now)));
+            return decision;
+        }
+        RateLimitDecision decision = RateLimitDecision.allowed(userId, templateId);
+        decision.setUserCount(userWindow.estimate(now));
+        decision.setTemplateCount(templateWindow.estimate(now));
+        return decision;
+    }
+
+    @Override
+    public void recordUserNotificationAttempt(String userId) {
+        // Counted by the checks
+    }
+
+    @Override
+    public void recordTemplateNotificationAttempt(String userId, String templateId) {
+        // Counted by the checks
+    }
+
+    int localShare(int limit) {
+        int nodes = Math.max(1, nodeCount.getAsInt());
+        return Math.max(1, (limit + nodes - 1) / nodes);
+    }
+
+    private String templateMessage(String templateId) {
+        return String.format("Template rate limit exceeded. Maximum %d '%s' notifications allowed per %d minutes",
+                rateLimitConfig.getTemplateMaxRequests(),
+                templateId,
+                rateLimitConfig.getTemplateTimeWindowMinutes());
+    }
+
+    private long userWindowMillis() {
+        return Duration.ofMinutes(rateLimitConfig.getUserTimeWindowMinutes()).toMillis();
+    }
+
+    private long templateWindowMillis() {
+        return Duration.ofMinutes(rateLimitConfig.getTemplateTimeWindowMinutes()).toMillis();
+    }
+
+    /**
+     * Current and previous fixed-window counts; the previous one is weighted by how much of it
+     * still overlaps the sliding window, as in the SLIDING_WINDOW Redis algorithm
+     */
+    static final class SlidingWindow {
+
+        private final long windowMillis;
+        private long index = -1;
+        private long current;
+        private long previous;
+
+        SlidingWindow(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        synchronized boolean tryAcquire(int limit, long now) {
+            roll(now);
+            if (weighted(now) + 1 > limit) {
+                return false;
+            }
+            current++;
+            return true;
+        }
+
+        synchronized void release(long now) {
+            roll(now);
+            if (current > 0) {
+                current--;
+            }
+        }
+
+        synchronized long estimate(long now) {
+            roll(now);
+            return (long) Math.ceil(weighted(now));
+        }
+
+        long windowEnd(long now) {
+            return (now / windowMillis + 1) * windowMillis;
+        }
+
+        private double weighted(long now) {
+            long elapsed = now - index * windowMillis;
+            return previous * (double) (windowMillis - elapsed) / windowMillis + current;
+        }
+
+        private void roll(long now) {
+            long nowIndex = now / windowMillis;
+            if (nowIndex == index) {
+                return;
+            }
+            previous = nowIndex == index + 1 ? current : 0;
+            current = 0;
+            index = nowIndex;
+        }
+    }
+}
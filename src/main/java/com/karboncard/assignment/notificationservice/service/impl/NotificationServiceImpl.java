@@ -1,26 +1,59 @@
 package com.karboncard.assignment.notificationservice.service.impl;
 
 import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.exception.ServiceOverloadedException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
 import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.dto.response.BatchNotificationItemResultDTO;
+import com.karboncard.assignment.notificationservice.model.dto.response.BatchNotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.dto.response.NotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.entity.UuidStringJavaType;
+import com.karboncard.assignment.notificationservice.model.enums.BatchItemStatus;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitScope;
+import com.karboncard.assignment.notificationservice.repository.NotificationAttemptRepository;
 import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
 import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
 import com.karboncard.assignment.notificationservice.service.NotificationService;
 import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.service.idempotency.IdempotencyIndex;
+import com.karboncard.assignment.notificationservice.service.ingest.GroupCommitter;
+import com.karboncard.assignment.notificationservice.service.ingest.KafkaFirstIngestService;
+import com.karboncard.assignment.notificationservice.service.outbox.OutboxService;
+import com.karboncard.assignment.notificationservice.util.CreatedAtRange;
 import com.karboncard.assignment.notificationservice.util.IdempotencyUtil;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.NotificationRequestValidator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Transactional
@@ -31,18 +64,98 @@ public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
     private final KafkaProducerService kafkaProducerService;
     private final RateLimitingService rateLimitingService;
+    private final NotificationRequestValidator requestValidator;
+    private final OutboxService outboxService;
+    private final IdempotencyIndex idempotencyIndex;
+    private final NotificationAttemptRepository attemptRepository;
+    private final KafkaFirstIngestService kafkaFirstIngest;
+    private final MetricsUtil metricsUtil;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.batch.max-size:10000}")
+    private int maxBatchSize = 10000;
+
+    @Value("${notification.batch.lookup-chunk-size:1000}")
+    private int lookupChunkSize = 1000;
+
+    // When enabled, Kafka records are written to the outbox in the same transaction and relayed later
+    @Value("${notification.outbox.enabled:false}")
+    private boolean outboxEnabled;
+
+    // Lookups by user or correlation id only read partitions created within this many days
+    @Value("${notification.storage.query-window-days:30}")
+    private long queryWindowDays = 30;
+
+    // When enabled, concurrent single requests are inserted together, one transaction per group
+    @Value("${notification.ingest.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    @Value("${notification.ingest.group-commit.max-batch-size:256}")
+    private int groupCommitMaxBatchSize = 256;
+
+    @Value("${notification.ingest.group-commit.max-wait-micros:500}")
+    private long groupCommitMaxWaitMicros = 500;
+
+    @Value("${notification.ingest.group-commit.queue-capacity:10000}")
+    private int groupCommitQueueCapacity = 10000;
+
+    @Value("${notification.ingest.group-commit.timeout-ms:5000}")
+    private long groupCommitTimeoutMs = 5000;
+
+    private GroupCommitter<NotificationRequestDTO, Notification> groupCommitter;
 
     @Autowired
     public NotificationServiceImpl(NotificationRepository notificationRepository,
                                    KafkaProducerService kafkaProducerService,
-                                   RateLimitingService rateLimitingService) {
+                                   RateLimitingService rateLimitingService,
+                                   NotificationRequestValidator requestValidator,
+                                   OutboxService outboxService,
+                                   IdempotencyIndex idempotencyIndex,
+                                   NotificationAttemptRepository attemptRepository,
+                                   KafkaFirstIngestService kafkaFirstIngest,
+                                   MetricsUtil metricsUtil,
+                                   PlatformTransactionManager transactionManager) {
         this.notificationRepository = notificationRepository;
         this.kafkaProducerService = kafkaProducerService;
         this.rateLimitingService = rateLimitingService;
+        this.requestValidator = requestValidator;
+        this.outboxService = outboxService;
+        this.idempotencyIndex = idempotencyIndex;
+        this.attemptRepository = attemptRepository;
+        this.kafkaFirstIngest = kafkaFirstIngest;
+        this.metricsUtil = metricsUtil;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void startGroupCommit() {
+        if (!groupCommitEnabled) {
+            return;
+        }
+        // Entities are created inside the write, so items retried one by one after a failed group start clean
+        groupCommitter = new GroupCommitter<>("notifications", groupCommitMaxBatchSize, groupCommitMaxWaitMicros,
+                groupCommitQueueCapacity,
+                requestDTOs -> transactionTemplate.execute(status ->
+                        persistAll(requestDTOs.stream().map(this::convertToEntity).toList())),
+                metricsUtil);
+        groupCommitter.start();
+        log.info("Group commit enabled for single notification inserts (batches of up to {}, waiting up to {} us)",
+                groupCommitMaxBatchSize, groupCommitMaxWaitMicros);
+    }
+
+    @PreDestroy
+    public void stopGroupCommit() {
+        if (groupCommitter != null) {
+            groupCommitter.close();
+        }
     }
 
+    /**
+     * Runs without a surrounding transaction so that requests waiting for a group commit hold no
+     * connection; the insert opens its own.
+     */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public NotificationResponseDTO processNotification(NotificationRequestDTO requestDTO) throws RateLimitExceededException {
         log.info("Processing notification request for user: {}, type: {}",
                 requestDTO.getUserId(), requestDTO.getType());
@@ -54,12 +167,27 @@ public class NotificationServiceImpl implements NotificationService {
             requestDTO.setIdempotencyKey(generatedKey);
         }
 
-        // Check idempotency key
-        Optional<Notification> existingNotification =
-                notificationRepository.findByIdempotencyKey(requestDTO.getIdempotencyKey());
-        if (existingNotification.isPresent()) {
+        // Check idempotency key: recently accepted keys are answered from memory, and the database
+        // is only queried when the Bloom filter cannot rule the key out
+        Optional<String> recentNotificationId = idempotencyIndex.findRecentNotificationId(requestDTO.getIdempotencyKey());
+        if (recentNotificationId.isPresent()) {
             log.info("Duplicate request with idempotency key: {}", requestDTO.getIdempotencyKey());
-            return buildResponseDTO(existingNotification.get(), "Duplicate request");
+            return NotificationResponseDTO.builder()
+                    .id(recentNotificationId.get())
+                    .userId(requestDTO.getUserId())
+                    .type(requestDTO.getType())
+                    .success(true)
+                    .message("Duplicate request")
+                    .build();
+        }
+        if (idempotencyIndex.mightExist(requestDTO.getIdempotencyKey())) {
+            Optional<Notification> existingNotification =
+                    notificationRepository.findByIdempotencyKey(requestDTO.getIdempotencyKey());
+            if (existingNotification.isPresent()) {
+                log.info("Duplicate request with idempotency key: {}", requestDTO.getIdempotencyKey());
+                idempotencyIndex.record(requestDTO.getIdempotencyKey(), existingNotification.get().getId());
+                return buildResponseDTO(existingNotification.get(), "Duplicate request");
+            }
         }
 
         // Apply rate limits
@@ -77,27 +205,278 @@ public class NotificationServiceImpl implements NotificationService {
 //                    .build();
 //        }
 
-        // Apply rate limits
-        rateLimitingService.checkUserRateLimit(requestDTO.getUserId());
-        rateLimitingService.checkTemplateRateLimit(requestDTO.getUserId(), requestDTO.getTemplateId());
+        // Apply user and template rate limits in one check
+        RateLimitDecision rateLimitDecision =
+                rateLimitingService.checkRateLimits(requestDTO.getUserId(), requestDTO.getTemplateId());
+        if (!rateLimitDecision.isAllowed()) {
+            boolean templateLimited = rateLimitDecision.getRejectedBy() == RateLimitScope.TEMPLATE;
+            throw new RateLimitExceededException(rateLimitDecision.getMessage(), requestDTO.getUserId(),
+                    templateLimited ? requestDTO.getTemplateId() : null,
+                    (int) (templateLimited ? rateLimitDecision.getTemplateCount() : rateLimitDecision.getUserCount()),
+                    (int) rateLimitDecision.getMaxAllowed());
+        }
 
         // Record rate limiting attempts for user and template
 //        rateLimitingService.recordUserNotificationAttempt(requestDTO.getUserId());
 //        rateLimitingService.recordTemplateNotificationAttempt(requestDTO.getUserId(), requestDTO.getTemplateId());
 
+        if (kafkaFirstIngest.handles(requestDTO)) {
+            // Durable once Kafka acknowledges it; the ingest persister writes the row later
+            Notification notification = kafkaFirstIngest.accept(convertToEntity(requestDTO));
+            log.info("Notification {} accepted Kafka-first", notification.getId());
+            idempotencyIndex.record(notification.getIdempotencyKey(), notification.getId());
+            return buildResponseDTO(notification, "Notification queued successfully");
+        }
+
+        Notification notification = groupCommitter != null
+                ? insertWithGroupCommit(requestDTO)
+                : transactionTemplate.execute(status -> insert(requestDTO));
+
+        // Return response
+        return buildResponseDTO(notification, "Notification queued successfully");
+    }
+
+    private Notification insert(NotificationRequestDTO requestDTO) {
         // Convert DTO to entity
         Notification notification = convertToEntity(requestDTO);
 
         // Save to database
         notification = notificationRepository.save(notification);
         log.info("Notification saved with ID: {}", notification.getId());
+        idempotencyIndex.recordAfterCommit(notification.getIdempotencyKey(), notification.getId());
 
-        // Send to Kafka for asynchronous processing
-        kafkaProducerService.sendNotification(notification);
-        log.info("Notification sent to Kafka for processing");
+        if (outboxEnabled) {
+            // Commits atomically with the notification; the outbox relay publishes it
+            outboxService.enqueue(notification);
+            log.info("Notification written to outbox");
+        } else {
+            // Hand to Kafka for asynchronous processing; the send completes after commit without blocking this thread
+            kafkaProducerService.sendNotification(notification);
+            log.info("Notification handed to Kafka for processing");
+        }
+        return notification;
+    }
 
-        // Return response
-        return buildResponseDTO(notification, "Notification queued successfully");
+    private Notification insertWithGroupCommit(NotificationRequestDTO requestDTO) {
+        try {
+            Notification notification = groupCommitter.submit(requestDTO)
+                    .get(groupCommitTimeoutMs, TimeUnit.MILLISECONDS);
+            log.info("Notification saved with ID: {}", notification.getId());
+            return notification;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new ServiceOverloadedException("Notification insert queue is full, please retry later", 1);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Notification insert failed", e.getCause());
+        } catch (TimeoutException e) {
+            // The insert may still commit; a retry with the same idempotency key is answered as a duplicate
+            throw new ServiceOverloadedException("Timed out waiting for the notification insert, please retry later",
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(groupCommitTimeoutMs)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the notification insert", e);
+        }
+    }
+
+    /**
+     * Inserts the notifications with JDBC batching, then writes the outbox rows or hands them to Kafka
+     * after commit. Must run in a transaction.
+     */
+    private List<Notification> persistAll(List<Notification> notifications) {
+        List<Notification> saved = notificationRepository.saveAll(notifications);
+        if (outboxEnabled) {
+            outboxService.enqueueAll(saved);
+        } else {
+            kafkaProducerService.sendNotifications(saved);
+        }
+        saved.forEach(notification ->
+                idempotencyIndex.recordAfterCommit(notification.getIdempotencyKey(), notification.getId()));
+        return saved;
+    }
+
+    /**
+     * Runs without a surrounding transaction, like processNotification: validation, the idempotency
+     * lookups and the rate-limit round trip hold no connection, and only the insert opens one.
+     * If another request takes one of the keys first, the insert is repeated item by item and the
+     * conflicting items are reported as duplicates, so the rest of the batch is still accepted.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchNotificationResponseDTO processNotificationBatch(List<NotificationRequestDTO> requestDTOs) {
+        if (requestDTOs == null || requestDTOs.isEmpty()) {
+            throw new IllegalArgumentException("Notification batch must contain at least one request");
+        }
+        if (requestDTOs.size() > maxBatchSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Notification batch of %d requests exceeds the maximum of %d", requestDTOs.size(), maxBatchSize));
+        }
+        log.info("Processing notification batch of {} requests", requestDTOs.size());
+
+        BatchNotificationItemResultDTO[] results = new BatchNotificationItemResultDTO[requestDTOs.size()];
+
+        // Validate and assign idempotency keys; repeated keys inside the batch are duplicates of the first
+        Map<String, Integer> candidateIndexByKey = new LinkedHashMap<>();
+        for (int i = 0; i < requestDTOs.size(); i++) {
+            NotificationRequestDTO requestDTO = requestDTOs.get(i);
+            Optional<String> validationError = requestValidator.validate(requestDTO);
+            if (validationError.isPresent()) {
+                results[i] = buildItemResult(i, requestDTO, null, BatchItemStatus.INVALID, validationError.get());
+                continue;
+            }
+            if (requestDTO.getIdempotencyKey() == null || requestDTO.getIdempotencyKey().isEmpty()) {
+                requestDTO.setIdempotencyKey(generateIdempotencyKey(requestDTO));
+            }
+            Integer firstIndex = candidateIndexByKey.putIfAbsent(requestDTO.getIdempotencyKey(), i);
+            if (firstIndex != null) {
+                results[i] = buildItemResult(i, requestDTO, null, BatchItemStatus.DUPLICATE,
+                        "Duplicate of batch item " + firstIndex);
+            }
+        }
+
+        // Check idempotency keys: recent keys from memory, the rest against the database with IN queries.
+        // The Bloom filter is not consulted: it only knows this node's keys, and a key it misses that another
+        // node inserted would fail the whole batch on the unique constraint instead of being a duplicate.
+        Map<String, String> existingIds = new HashMap<>();
+        List<String> lookupKeys = new ArrayList<>();
+        for (String key : candidateIndexByKey.keySet()) {
+            Optional<String> recentNotificationId = idempotencyIndex.findRecentNotificationId(key);
+            if (recentNotificationId.isPresent()) {
+                existingIds.put(key, recentNotificationId.get());
+            } else {
+                lookupKeys.add(key);
+            }
+        }
+        findExistingByIdempotencyKeys(lookupKeys).forEach((key, notification) -> {
+            existingIds.put(key, notification.getId());
+            idempotencyIndex.record(key, notification.getId());
+        });
+        List<Integer> candidateIndexes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : candidateIndexByKey.entrySet()) {
+            int index = entry.getValue();
+            String existingId = existingIds.get(entry.getKey());
+            if (existingId != null) {
+                results[index] = buildItemResult(index, requestDTOs.get(index), existingId,
+                        BatchItemStatus.DUPLICATE, "Duplicate request");
+            } else {
+                candidateIndexes.add(index);
+            }
+        }
+
+        // Apply rate limits for the whole batch at once
+        List<NotificationRequestDTO> candidates = new ArrayList<>(candidateIndexes.size());
+        candidateIndexes.forEach(index -> candidates.add(requestDTOs.get(index)));
+        List<RateLimitDecision> decisions = candidates.isEmpty()
+                ? List.of() : rateLimitingService.checkRateLimits(candidates);
+
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = 0; i < candidateIndexes.size(); i++) {
+            int index = candidateIndexes.get(i);
+            RateLimitDecision decision = decisions.get(i);
+            if (!decision.isAllowed()) {
+                results[index] = buildItemResult(index, requestDTOs.get(index), null,
+                        BatchItemStatus.RATE_LIMITED, decision.getMessage());
+                continue;
+            }
+            acceptedIndexes.add(index);
+        }
+
+        List<NotificationRequestDTO> accepted = new ArrayList<>(acceptedIndexes.size());
+        acceptedIndexes.forEach(index -> accepted.add(requestDTOs.get(index)));
+        List<BatchNotificationItemResultDTO> inserted = insertBatch(accepted);
+        for (int i = 0; i < acceptedIndexes.size(); i++) {
+            int index = acceptedIndexes.get(i);
+            BatchNotificationItemResultDTO result = inserted.get(i);
+            results[index] = buildItemResult(index, requestDTOs.get(index), result.getId(), result.getStatus(),
+                    result.getMessage());
+        }
+        acceptedIndexes.removeIf(index -> results[index].getStatus() != BatchItemStatus.ACCEPTED);
+
+        int duplicates = 0;
+        int rejected = 0;
+        for (BatchNotificationItemResultDTO result : results) {
+            if (result.getStatus() == BatchItemStatus.DUPLICATE) {
+                duplicates++;
+            } else if (result.getStatus() != BatchItemStatus.ACCEPTED) {
+                rejected++;
+            }
+        }
+        log.info("Notification batch processed: {} accepted, {} duplicates, {} rejected",
+                acceptedIndexes.size(), duplicates, rejected);
+
+        return BatchNotificationResponseDTO.builder()
+                .total(results.length)
+                .accepted(acceptedIndexes.size())
+                .duplicates(duplicates)
+                .rejected(rejected)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Inserts the requests in one transaction, or one transaction each if a key was taken meanwhile
+     *
+     * @return per request, ACCEPTED with the new id or DUPLICATE with the id of the key's owner
+     */
+    private List<BatchNotificationItemResultDTO> insertBatch(List<NotificationRequestDTO> requestDTOs) {
+        if (requestDTOs.isEmpty()) {
+            return List.of();
+        }
+        try {
+            // Entities are created inside the write, so items retried one by one below start clean
+            List<Notification> saved = transactionTemplate.execute(status ->
+                    persistAll(requestDTOs.stream().map(this::convertToEntity).toList()));
+            return saved.stream().map(notification -> insertResult(notification.getId(),
+                    BatchItemStatus.ACCEPTED, "Notification queued successfully")).toList();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch insert of {} notifications hit a taken idempotency key, inserting them one by one",
+                    requestDTOs.size());
+        }
+        List<BatchNotificationItemResultDTO> results = new ArrayList<>(requestDTOs.size());
+        for (NotificationRequestDTO requestDTO : requestDTOs) {
+            try {
+                Notification notification = transactionTemplate.execute(status ->
+                        persistAll(List.of(convertToEntity(requestDTO))).get(0));
+                results.add(insertResult(notification.getId(), BatchItemStatus.ACCEPTED,
+                        "Notification queued successfully"));
+            } catch (DataIntegrityViolationException e) {
+                Notification existing = notificationRepository.findByIdempotencyKey(requestDTO.getIdempotencyKey())
+                        .orElseThrow(() -> e);
+                log.info("Duplicate request with idempotency key {} rejected by the database",
+                        requestDTO.getIdempotencyKey());
+                idempotencyIndex.record(requestDTO.getIdempotencyKey(), existing.getId());
+                results.add(insertResult(existing.getId(), BatchItemStatus.DUPLICATE, "Duplicate request"));
+            }
+        }
+        return results;
+    }
+
+    private static BatchNotificationItemResultDTO insertResult(String id, BatchItemStatus status, String message) {
+        return BatchNotificationItemResultDTO.builder().id(id).status(status).message(message).build();
+    }
+
+    private Map<String, Notification> findExistingByIdempotencyKeys(Collection<String> idempotencyKeys) {
+        Map<String, Notification> existing = new HashMap<>();
+        List<String> keys = new ArrayList<>(idempotencyKeys);
+        for (int from = 0; from < keys.size(); from += lookupChunkSize) {
+            List<String> chunk = keys.subList(from, Math.min(from + lookupChunkSize, keys.size()));
+            notificationRepository.findByIdempotencyKeyIn(chunk)
+                    .forEach(notification -> existing.put(notification.getIdempotencyKey(), notification));
+        }
+        return existing;
+    }
+
+    private BatchNotificationItemResultDTO buildItemResult(int index, NotificationRequestDTO requestDTO, String id,
+                                                           BatchItemStatus status, String message) {
+        return BatchNotificationItemResultDTO.builder()
+                .index(index)
+                .id(id)
+                .idempotencyKey(requestDTO != null ? requestDTO.getIdempotencyKey() : null)
+                .status(status)
+                .message(message)
+                .build();
     }
 
     /**
@@ -112,19 +491,44 @@ public class NotificationServiceImpl implements NotificationService {
                 UUID.randomUUID().toString().substring(0, 8));
     }
 
+    @Override
+    public Optional<Notification> getNotificationByIdempotencyKey(String idempotencyKey) {
+        return notificationRepository.findByIdempotencyKey(idempotencyKey);
+    }
+
     @Override
     public Optional<Notification> getNotificationById(String id) {
-        return notificationRepository.findById(id);
+        // Ids are stored as uuid; anything else cannot match and must not reach the query
+        if (!UuidStringJavaType.isUuid(id)) {
+            return Optional.empty();
+        }
+        CreatedAtRange createdAt = CreatedAtRange.of(id);
+        Optional<Notification> notification =
+                notificationRepository.findByIdAndCreatedAtBetween(id, createdAt.from(), createdAt.to());
+        // Kafka-first notifications can be read before the persister has written their row
+        return notification.isPresent() ? notification : kafkaFirstIngest.findPending(id);
+    }
+
+    @Override
+    public List<DeliveryAttempt> getDeliveryAttempts(String id) {
+        if (!UuidStringJavaType.isUuid(id)) {
+            return List.of();
+        }
+        return attemptRepository.findByNotificationId(id);
     }
 
     @Override
     public List<Notification> getNotificationsByUserId(String userId) {
-        return notificationRepository.findByUserId(userId);
+        return notificationRepository.findByUserIdAndCreatedAtAfter(userId, queryWindowStart());
     }
 
     @Override
     public List<Notification> getNotificationsByCorrelationId(String correlationId) {
-        return notificationRepository.findByCorrelationId(correlationId);
+        return notificationRepository.findByCorrelationIdAndCreatedAtAfter(correlationId, queryWindowStart());
+    }
+
+    private LocalDateTime queryWindowStart() {
+        return LocalDateTime.now().minusDays(queryWindowDays);
     }
 
     private Notification convertToEntity(NotificationRequestDTO dto) {
@@ -0,0 +1,74 @@
+package com.karboncard.assignment.notificationservice.service.impl;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * Tracks how many service nodes are alive, so the local limiter can give each node its share.
+ * Every node scores itself with the current time in a Redis sorted set and drops members whose
+ * heartbeat is older than the TTL. The last known count is kept while Redis is down.
+ */
+public class RateLimitNodeRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitNodeRegistry.class);
+    private static final String NODES_KEY = "rate:nodes";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final long ttlMillis;
+    private final String nodeId;
+    private volatile int nodeCount = 1;
+
+    public RateLimitNodeRegistry(StringRedisTemplate redisTemplate, CircuitBreaker circuitBreaker, long ttlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.ttlMillis = ttlMillis;
+        this.nodeId = hostName() + ":" + UUID.randomUUID();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.rate-limit.failover.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        // Redis is known to be down; do not hold the scheduler thread for the client timeout
+        if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            redisTemplate.opsForZSet().add(NODES_KEY, nodeId, now);
+            redisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - ttlMillis);
+            Long members = redisTemplate.opsForZSet().zCard(NODES_KEY);
+            if (members != null && members > 0) {
+                nodeCount = members.intValue();
+            }
+        } catch (RuntimeException e) {
+            log.debug("Rate limit node heartbeat failed, keeping node count {}: {}", nodeCount, e.getMessage());
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public void deregister() {
+        try {
+            redisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+        } catch (RuntimeException e) {
+            log.debug("Failed to remove rate limit node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
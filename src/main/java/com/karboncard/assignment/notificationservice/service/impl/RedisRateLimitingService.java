@@ -2,15 +2,33 @@ package com.karboncard.assignment.notificationservice.service.impl;
 
 import com.karboncard.assignment.notificationservice.config.RateLimitConfig;
 import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitAlgorithm;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitMode;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitScope;
 import com.karboncard.assignment.notificationservice.service.RateLimitingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class RedisRateLimitingService implements RateLimitingService {
@@ -18,10 +36,16 @@ public class RedisRateLimitingService implements RateLimitingService {
     private static final Logger log = LoggerFactory.getLogger(RedisRateLimitingService.class);
     private static final String USER_RATE_KEY_PREFIX = "rate:user:";
     private static final String TEMPLATE_RATE_KEY_PREFIX = "rate:template:";
+    // Sliding-window and GCRA state uses its own keys so switching algorithms never reads a foreign value
+    private static final Map<RateLimitAlgorithm, String> ALGORITHM_KEY_PREFIX = Map.of(
+            RateLimitAlgorithm.FIXED_WINDOW, "",
+            RateLimitAlgorithm.SLIDING_WINDOW, "sw:",
+            RateLimitAlgorithm.GCRA, "gcra:");
 
     private final RedisTemplate<String, Integer> redisTemplate;
     private final ValueOperations<String, Integer> valueOps;
     private final RateLimitConfig rateLimitConfig;
+    private final RedisScript<List> rateLimitScript;
 
     @Autowired
     public RedisRateLimitingService(RedisTemplate<String, Integer> redisTemplate,
@@ -29,6 +53,10 @@ public class RedisRateLimitingService implements RateLimitingService {
         this.redisTemplate = redisTemplate;
         this.valueOps = redisTemplate.opsForValue();
         this.rateLimitConfig = rateLimitConfig;
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/rate_limit.lua")));
+        script.setResultType(List.class);
+        this.rateLimitScript = script;
     }
 
     // Atomic user rate limit: increments first, checks after
@@ -75,6 +103,206 @@ public class RedisRateLimitingService implements RateLimitingService {
                 userId, count, templateId);
     }
 
+    // Script mode: both limits are checked and updated by one EVALSHA (EVAL on a script cache miss),
+    // each with its configured algorithm
+    @Override
+    public RateLimitDecision checkRateLimits(String userId, String templateId) {
+        if (!useScript()) {
+            return RateLimitingService.super.checkRateLimits(userId, templateId);
+        }
+        List<?> result = redisTemplate.execute(rateLimitScript, scriptKeys(userId, templateId),
+                userAlgorithm().name(), rateLimitConfig.getUserMaxRequests(), userWindowMillis(),
+                templateAlgorithm().name(), rateLimitConfig.getTemplateMaxRequests(),
+                templateWindowMillis());
+        RateLimitDecision decision = toDecision(userId, templateId, result, Instant.now());
+        if (!decision.isAllowed()) {
+            log.warn("Rate limit exceeded for user: {}, template: {}, user count: {}, template count: {}",
+                    userId, templateId, decision.getUserCount(), decision.getTemplateCount());
+        }
+        return decision;
+    }
+
+    // Pipelined batch check: all INCRs go out in one round trip, followed by one round trip
+    // to set the expiry on counters created by this batch. The template counter is incremented
+    // even when the user limit rejects the request, which keeps the pipeline free of branches.
+    @Override
+    public List<RateLimitDecision> checkRateLimits(List<NotificationRequestDTO> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        if (useScript()) {
+            return checkRateLimitsWithScript(requests);
+        }
+
+        List<Object> counts = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (NotificationRequestDTO request : requests) {
+                connection.stringCommands().incr(rawKey(getUserRateKey(request.getUserId())));
+                connection.stringCommands().incr(rawKey(getTemplateRateKey(request.getUserId(), request.getTemplateId())));
+            }
+            return null;
+        });
+
+        Map<String, Duration> newKeys = new LinkedHashMap<>();
+        List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            NotificationRequestDTO request = requests.get(i);
+            String userId = request.getUserId();
+            String templateId = request.getTemplateId();
+            long userCount = ((Number) counts.get(2 * i)).longValue();
+            long templateCount = ((Number) counts.get(2 * i + 1)).longValue();
+
+            if (userCount == 1L) {
+                newKeys.put(getUserRateKey(userId), Duration.ofMinutes(rateLimitConfig.getUserTimeWindowMinutes()));
+            }
+            if (templateCount == 1L) {
+                newKeys.put(getTemplateRateKey(userId, templateId),
+                        Duration.ofMinutes(rateLimitConfig.getTemplateTimeWindowMinutes()));
+            }
+
+            RateLimitDecision decision;
+            if (userCount > rateLimitConfig.getUserMaxRequests()) {
+                decision = RateLimitDecision.rejected(userId, templateId,
+                        String.format("User rate limit exceeded. Maximum %d notifications allowed per %d minutes",
+                                rateLimitConfig.getUserMaxRequests(),
+                                rateLimitConfig.getUserTimeWindowMinutes()));
+            } else if (templateCount > rateLimitConfig.getTemplateMaxRequests()) {
+                decision = RateLimitDecision.rejected(userId, templateId,
+                        String.format("Template rate limit exceeded. Maximum %d '%s' notifications allowed per %d minutes",
+                                rateLimitConfig.getTemplateMaxRequests(),
+                                templateId,
+                                rateLimitConfig.getTemplateTimeWindowMinutes()));
+            } else {
+                decision = RateLimitDecision.allowed(userId, templateId);
+            }
+            decision.setUserCount(userCount);
+            decision.setTemplateCount(templateCount);
+            decisions.add(decision);
+        }
+
+        if (!newKeys.isEmpty()) {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                newKeys.forEach((key, ttl) -> connection.keyCommands().expire(rawKey(key), ttl.getSeconds()));
+                return null;
+            });
+        }
+
+        log.debug("Checked rate limits for batch of {} requests, {} new counters", requests.size(), newKeys.size());
+        return decisions;
+    }
+
+    // One pipelined EVALSHA per request; the script is loaded and the pipeline replayed on NOSCRIPT
+    private List<RateLimitDecision> checkRateLimitsWithScript(List<NotificationRequestDTO> requests) {
+        List<Object> results;
+        try {
+            results = evalShaPipelined(requests);
+        } catch (RuntimeException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            if (cause == null || !cause.contains("NOSCRIPT")) {
+                throw e;
+            }
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.scriptingCommands()
+                    .scriptLoad(rateLimitScript.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+            results = evalShaPipelined(requests);
+        }
+
+        Instant now = Instant.now();
+        List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            NotificationRequestDTO request = requests.get(i);
+            decisions.add(toDecision(request.getUserId(), request.getTemplateId(), (List<?>) results.get(i), now));
+        }
+        log.debug("Checked rate limits for batch of {} requests with script", requests.size());
+        return decisions;
+    }
+
+    private List<Object> evalShaPipelined(List<NotificationRequestDTO> requests) {
+        byte[] userAlgorithm = rawKey(userAlgorithm().name());
+        byte[] userLimit = rawKey(String.valueOf(rateLimitConfig.getUserMaxRequests()));
+        byte[] userWindow = rawKey(String.valueOf(userWindowMillis()));
+        byte[] templateAlgorithm = rawKey(templateAlgorithm().name());
+        byte[] templateLimit = rawKey(String.valueOf(rateLimitConfig.getTemplateMaxRequests()));
+        byte[] templateWindow = rawKey(String.valueOf(templateWindowMillis()));
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (NotificationRequestDTO request : requests) {
+                List<String> keys = scriptKeys(request.getUserId(), request.getTemplateId());
+                connection.scriptingCommands().evalSha(rateLimitScript.getSha1(), ReturnType.MULTI, 2,
+                        rawKey(keys.get(0)), rawKey(keys.get(1)),
+                        userAlgorithm, userLimit, userWindow, templateAlgorithm, templateLimit, templateWindow);
+            }
+            return null;
+        });
+    }
+
+    // Algorithms other than the fixed window only exist as scripts
+    private boolean useScript() {
+        return rateLimitConfig.getMode() == RateLimitMode.SCRIPT
+                || userAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW
+                || templateAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW;
+    }
+
+    private RateLimitAlgorithm userAlgorithm() {
+        RateLimitAlgorithm algorithm = rateLimitConfig.getUserAlgorithm();
+        return algorithm != null ? algorithm : RateLimitAlgorithm.FIXED_WINDOW;
+    }
+
+    private RateLimitAlgorithm templateAlgorithm() {
+        RateLimitAlgorithm algorithm = rateLimitConfig.getTemplateAlgorithm();
+        return algorithm != null ? algorithm : RateLimitAlgorithm.FIXED_WINDOW;
+    }
+
+    private List<String> scriptKeys(String userId, String templateId) {
+        return List.of(
+                ALGORITHM_KEY_PREFIX.get(userAlgorithm()) + getUserRateKey(userId),
+                ALGORITHM_KEY_PREFIX.get(templateAlgorithm()) + getTemplateRateKey(userId, templateId));
+    }
+
+    // Script result: {allowed, user count, template count, user ttl ms, template ttl ms}
+    private RateLimitDecision toDecision(String userId, String templateId, List<?> result, Instant now) {
+        boolean allowed = ((Number) result.get(0)).longValue() == 1L;
+        long userCount = ((Number) result.get(1)).longValue();
+        long templateCount = ((Number) result.get(2)).longValue();
+        Instant userResetAt = now.plusMillis(Math.max(0, ((Number) result.get(3)).longValue()));
+        Instant templateResetAt = now.plusMillis(Math.max(0, ((Number) result.get(4)).longValue()));
+        long userRemaining = Math.max(0, rateLimitConfig.getUserMaxRequests() - userCount);
+        long templateRemaining = Math.max(0, rateLimitConfig.getTemplateMaxRequests() - templateCount);
+
+        // The user limit binds when it has no more room than the template limit
+        boolean userBinding = allowed
+                ? userRemaining <= templateRemaining
+                : userCount >= rateLimitConfig.getUserMaxRequests();
+        RateLimitDecision decision;
+        if (allowed) {
+            decision = RateLimitDecision.allowed(userId, templateId);
+        } else if (userBinding) {
+            decision = RateLimitDecision.rejected(userId, templateId,
+                    String.format("User rate limit exceeded. Maximum %d notifications allowed per %d minutes",
+                            rateLimitConfig.getUserMaxRequests(),
+                            rateLimitConfig.getUserTimeWindowMinutes()));
+            decision.setRejectedBy(RateLimitScope.USER);
+        } else {
+            decision = RateLimitDecision.rejected(userId, templateId,
+                    String.format("Template rate limit exceeded. Maximum %d '%s' notifications allowed per %d minutes",
+                            rateLimitConfig.getTemplateMaxRequests(),
+                            templateId,
+                            rateLimitConfig.getTemplateTimeWindowMinutes()));
+            decision.setRejectedBy(RateLimitScope.TEMPLATE);
+        }
+        decision.setUserCount(userCount);
+        decision.setTemplateCount(templateCount);
+        decision.setMaxAllowed(userBinding ? rateLimitConfig.getUserMaxRequests() : rateLimitConfig.getTemplateMaxRequests());
+        decision.setRemaining(userBinding ? userRemaining : templateRemaining);
+        decision.setResetAt(userBinding ? userResetAt : templateResetAt);
+        return decision;
+    }
+
+    private int userWindowMillis() {
+        return (int) Duration.ofMinutes(rateLimitConfig.getUserTimeWindowMinutes()).toMillis();
+    }
+
+    private int templateWindowMillis() {
+        return (int) Duration.ofMinutes(rateLimitConfig.getTemplateTimeWindowMinutes()).toMillis();
+    }
+
     // These methods are now NO-OPs, since atomic check+increment is in the above methods
     @Override
     public void recordUserNotificationAttempt(String userId) {
@@ -86,6 +314,10 @@ public class RedisRateLimitingService implements RateLimitingService {
         // No longer needed
     }
 
+    private byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
     private String getUserRateKey(String userId) {
         return USER_RATE_KEY_PREFIX + userId;
     }
@@ -0,0 +1,166 @@
+package com.karboncard.assignment.notificationservice.service.ingest;
+
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Group commit: items submitted by concurrent callers are written in batches, one transaction per
+ * batch, so the callers share one commit (and one WAL flush) instead of paying for one each.
+ * A single flusher thread takes the oldest waiting item, waits at most maxWait for more or until the
+ * batch is full, and hands the batch to the writer. When a batch fails its items are retried one by
+ * one, so a bad item (e.g. a duplicate idempotency key) only fails its own caller.
+ *
+ * @param <T> submitted item
+ * @param <R> result of writing one item
+ */
+public class GroupCommitter<T, R> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitter.class);
+
+    private static final long IDLE_POLL_MS = 100;
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    private record Pending<T, R>(T item, CompletableFuture<R> result) {
+    }
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Function<List<T>, List<R>> batchWriter;
+    private final MetricsUtil metricsUtil;
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    /**
+     * @param batchWriter Writes a batch in one transaction and returns one result per item, in order
+     */
+    public GroupCommitter(String name, int maxBatchSize, long maxWaitMicros, int queueCapacity,
+                          Function<List<T>, List<R>> batchWriter, MetricsUtil metricsUtil) {
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.batchWriter = batchWriter;
+        this.metricsUtil = metricsUtil;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        // A platform thread: it holds a JDBC connection for the whole flush
+        this.flusher = Thread.ofPlatform().name(name + "-group-commit").daemon().unstarted(this::run);
+        metricsUtil.registerGauge("notification.group_commit.queued", Map.of("name", name), queue::size);
+    }
+
+    public void start() {
+        flusher.start();
+    }
+
+    /**
+     * @return completes with the item's result once its batch has committed, or exceptionally with
+     * the write error; fails with RejectedExecutionException at once if the queue is full
+     */
+    public CompletableFuture<R> submit(T item) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        if (!running || !queue.offer(new Pending<>(item, result))) {
+            metricsUtil.incrementCounter("notification.group_commit.rejected", Map.of("name", name));
+            result.completeExceptionally(new RejectedExecutionException(name + " group commit queue is full"));
+        }
+        return result;
+    }
+
+    /**
+     * Stops accepting items and flushes the ones already queued
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            flusher.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending<T, R> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new RejectedExecutionException(name + " group commit is closed"));
+        }
+    }
+
+    private void run() {
+        List<Pending<T, R>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<T, R> first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    // Items that are already queued join without waiting
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Pending<T, R> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending<T, R>> batch) {
+        long startTime = System.currentTimeMillis();
+        try {
+            List<R> results = batchWriter.apply(batch.stream().map(Pending::item).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+            metricsUtil.incrementCounter("notification.group_commit.items",
+                    Map.of("name", name, "result", "success"), batch.size());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                metricsUtil.incrementCounter("notification.group_commit.items",
+                        Map.of("name", name, "result", "failure"));
+                return;
+            }
+            log.warn("Group commit of {} {} items failed, writing them one by one: {}", batch.size(), name,
+                    e.getMessage());
+            batch.forEach(this::flushAlone);
+        } finally {
+            metricsUtil.incrementCounter("notification.group_commit.batches", Map.of("name", name));
+            metricsUtil.recordLatency("notification.group_commit.latency", System.currentTimeMillis() - startTime,
+                    Map.of("name", name));
+        }
+    }
+
+    private void flushAlone(Pending<T, R> pending) {
+        try {
+            pending.result().complete(batchWriter.apply(List.of(pending.item())).get(0));
+            metricsUtil.incrementCounter("notification.group_commit.items",
+                    Map.of("name", name, "result", "success"));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+            metricsUtil.incrementCounter("notification.group_commit.items",
+                    Map.of("name", name, "result", "failure"));
+        }
+    }
+}
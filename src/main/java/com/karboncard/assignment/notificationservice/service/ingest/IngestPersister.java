@@ -0,0 +1,172 @@
+package com.karboncard.assignment.notificationservice.service.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.entity.UuidStringJavaType;
+import com.karboncard.assignment.notificationservice.repository.NotificationBulkInsertRepository;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes Kafka-first notifications (see KafkaFirstIngestService) to Postgres, one multi-row INSERT
+ * per poll, then forwards the persisted ones to their channel topics for delivery.
+ * A poll is only acknowledged after the forwards are, so every record is persisted and forwarded at
+ * least once; a redelivered poll skips the rows that exist and forwards them again, which the
+ * delivery deduplication absorbs.
+ * A key taken by a synchronous insert between the INSERT's check and its write fails the whole
+ * statement; the poll is then inserted row by row, so only that row is dropped.
+ * Any other failure propagates, and the listener container retries the poll until it succeeds.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.ingest.kafka-first.enabled", havingValue = "true")
+public class IngestPersister {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestPersister.class);
+
+    private final ObjectMapper objectMapper;
+    private final NotificationBulkInsertRepository bulkInsertRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final MetricsUtil metricsUtil;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.ingest.kafka-first.forward-timeout-ms:30000}")
+    private long forwardTimeoutMs = 30000;
+
+    public IngestPersister(ObjectMapper objectMapper,
+                           NotificationBulkInsertRepository bulkInsertRepository,
+                           KafkaProducerService kafkaProducerService,
+                           MetricsUtil metricsUtil,
+                           PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.metricsUtil = metricsUtil;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Persists one poll of ingest records and forwards them.
+     * Returns once the forwards are acknowledged, so the caller can acknowledge the poll afterwards.
+     *
+     * @param messages The raw Kafka record values
+     * @return the number of notifications persisted and forwarded
+     */
+    public int persist(List<String> messages) {
+        long startTime = System.currentTimeMillis();
+
+        // The first record wins for each idempotency key; the rest of the poll are duplicates
+        Map<String, Notification> byKey = new LinkedHashMap<>();
+        int malformed = 0;
+        for (String message : messages) {
+            try {
+                Notification notification = objectMapper.readValue(message, Notification.class);
+                if (!UuidStringJavaType.isUuid(notification.getId()) || notification.getCreatedAt() == null) {
+                    throw new IllegalArgumentException("Ingest record without a UUID id or createdAt");
+                }
+                String key = notification.getIdempotencyKey() != null
+                        ? notification.getIdempotencyKey() : notification.getId();
+                byKey.putIfAbsent(key, notification);
+            } catch (Exception e) {
+                log.error("Skipping malformed ingest record: {}", message, e);
+                metricsUtil.incrementCounter("notification.ingest.persisted", Map.of("result", "malformed"));
+                malformed++;
+            }
+        }
+        List<Notification> notifications = new ArrayList<>(byKey.values());
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+
+        List<Notification> persisted;
+        try {
+            persisted = transactionTemplate.execute(status -> insert(notifications));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Bulk insert of {} ingest records hit a taken idempotency key, inserting them one by one",
+                    notifications.size());
+            persisted = new ArrayList<>(notifications.size());
+            for (Notification notification : notifications) {
+                persisted.addAll(insertOne(notification));
+            }
+        }
+
+        int duplicates = messages.size() - malformed - persisted.size();
+        if (duplicates > 0) {
+            log.info("Dropped {} of {} ingest records as duplicates of another notification", duplicates,
+                    messages.size());
+            metricsUtil.incrementCounter("notification.ingest.persisted", Map.of("result", "dropped"), duplicates);
+        }
+
+        forward(persisted);
+        metricsUtil.incrementCounter("notification.ingest.persisted", Map.of("result", "success"), persisted.size());
+        metricsUtil.recordLatency("notification.ingest.persist.latency", System.currentTimeMillis() - startTime);
+        return persisted.size();
+    }
+
+    /**
+     * Inserts the notifications in the caller's transaction.
+     *
+     * @return the notifications that are persisted as themselves, inserted now or by an earlier delivery
+     */
+    private List<Notification> insert(List<Notification> notifications) {
+        Set<String> inserted = new HashSet<>(bulkInsertRepository.insertIgnoringDuplicates(notifications));
+        // A skipped row is either this record redelivered or a duplicate of another notification's key
+        List<String> skippedKeys = notifications.stream()
+                .filter(notification -> !inserted.contains(notification.getId()))
+                .map(Notification::getIdempotencyKey)
+                .filter(key -> key != null)
+                .toList();
+        Map<String, String> owners = bulkInsertRepository.findNotificationIdsByIdempotencyKeys(skippedKeys);
+        return notifications.stream()
+                .filter(notification -> inserted.contains(notification.getId())
+                        || notification.getIdempotencyKey() == null
+                        || notification.getId().equals(owners.get(notification.getIdempotencyKey())))
+                .toList();
+    }
+
+    private List<Notification> insertOne(Notification notification) {
+        try {
+            return transactionTemplate.execute(status -> insert(List.of(notification)));
+        } catch (DataIntegrityViolationException e) {
+            // The key was taken by another notification while this row was being inserted
+            log.info("Dropping ingest record {}: idempotency key {} belongs to another notification",
+                    notification.getId(), notification.getIdempotencyKey());
+            return List.of();
+        }
+    }
+
+    private void forward(List<Notification> notifications) {
+        List<CompletableFuture<Boolean>> sends = kafkaProducerService.sendNotifications(notifications);
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(forwardTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Forwarding persisted notifications did not complete", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while forwarding persisted notifications", e);
+        }
+        long failed = sends.stream().filter(send -> !Boolean.TRUE.equals(send.join())).count();
+        if (failed > 0) {
+            // The poll is redelivered; its rows exist now and are forwarded again
+            throw new IllegalStateException(failed + " persisted notifications could not be forwarded");
+        }
+    }
+}
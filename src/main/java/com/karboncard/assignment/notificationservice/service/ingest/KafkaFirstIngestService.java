@@ -0,0 +1,151 @@
+package com.karboncard.assignment.notificationservice.service.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.exception.ServiceOverloadedException;
+import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.entity.UuidStringJavaType;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.UuidV7Generator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Kafka-first ingestion for the types and templates listed under notification.ingest.kafka-first.
+ * The request only waits for the acks=all acknowledgement of the ingest topic instead of a Postgres
+ * commit; IngestPersister writes the rows in large batches and forwards them to the channel topics.
+ * Until its row exists, a notification's status is served from a short-lived Redis entry.
+ * Two requests with the same idempotency key on different nodes are both accepted here; the
+ * persister keeps the first one and drops the other.
+ */
+@Service
+public class KafkaFirstIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaFirstIngestService.class);
+    static final String PENDING_KEY_PREFIX = "ingest:pending:";
+
+    private final KafkaProducerService kafkaProducerService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MetricsUtil metricsUtil;
+    private final boolean enabled;
+    private final String topic;
+    private final Set<NotificationType> types;
+    private final Set<String> templates;
+    private final long sendTimeoutMs;
+    private final Duration pendingTtl;
+
+    public KafkaFirstIngestService(KafkaProducerService kafkaProducerService,
+                                   StringRedisTemplate redisTemplate,
+                                   ObjectMapper objectMapper,
+                                   MetricsUtil metricsUtil,
+                                   @Value("${notification.ingest.kafka-first.enabled:false}") boolean enabled,
+                                   @Value("${notification.ingest.kafka-first.topic:notification-ingest-topic}") String topic,
+                                   @Value("${notification.ingest.kafka-first.types:}") String types,
+                                   @Value("${notification.ingest.kafka-first.templates:}") String templates,
+                                   @Value("${notification.ingest.kafka-first.send-timeout-ms:5000}") long sendTimeoutMs,
+                                   @Value("${notification.ingest.kafka-first.pending-ttl-minutes:10}") long pendingTtlMinutes) {
+        this.kafkaProducerService = kafkaProducerService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.metricsUtil = metricsUtil;
+        this.enabled = enabled;
+        this.topic = topic;
+        this.types = EnumSet.noneOf(NotificationType.class);
+        Arrays.stream(StringUtils.commaDelimitedListToStringArray(types))
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .forEach(type -> this.types.add(NotificationType.valueOf(type)));
+        this.templates = Arrays.stream(StringUtils.commaDelimitedListToStringArray(templates))
+                .map(String::trim)
+                .filter(template -> !template.isEmpty())
+                .collect(Collectors.toSet());
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.pendingTtl = Duration.ofMinutes(pendingTtlMinutes);
+    }
+
+    /**
+     * @return true if the request's type or template is ingested Kafka-first
+     */
+    public boolean handles(NotificationRequestDTO requestDTO) {
+        return enabled && (types.contains(requestDTO.getType()) || templates.contains(requestDTO.getTemplateId()));
+    }
+
+    /**
+     * Assigns the notification its id and produces it to the ingest topic.
+     * Returns once the broker has acknowledged the record, so the notification is durable.
+     *
+     * @throws ServiceOverloadedException if the record could not be handed to Kafka in time
+     */
+    public Notification accept(Notification notification) {
+        notification.setId(UuidV7Generator.generate().toString());
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize notification " + notification.getId(), e);
+        }
+
+        if (!send(notification, payload)) {
+            metricsUtil.incrementCounter("notification.ingest.kafka_first", Map.of("result", "failure"));
+            throw new ServiceOverloadedException("Notification could not be queued, please retry later", 1);
+        }
+        metricsUtil.incrementCounter("notification.ingest.kafka_first", Map.of("result", "accepted"));
+
+        try {
+            redisTemplate.opsForValue().set(PENDING_KEY_PREFIX + notification.getId(), payload, pendingTtl);
+        } catch (RuntimeException e) {
+            // Only status reads before the row is persisted are affected
+            log.warn("Could not cache pending notification {}: {}", notification.getId(), e.getMessage());
+        }
+        return notification;
+    }
+
+    /**
+     * @return the notification as accepted, while its row may not be persisted yet
+     */
+    public Optional<Notification> findPending(String notificationId) {
+        if (!enabled || !UuidStringJavaType.isUuid(notificationId)) {
+            return Optional.empty();
+        }
+        try {
+            String payload = redisTemplate.opsForValue().get(PENDING_KEY_PREFIX + notificationId);
+            return payload == null ? Optional.empty() : Optional.of(objectMapper.readValue(payload, Notification.class));
+        } catch (Exception e) {
+            log.warn("Could not read pending notification {}: {}", notificationId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private boolean send(Notification notification, String payload) {
+        try {
+            // Keyed like the channel topics, so records with the same idempotency key share a partition
+            return Boolean.TRUE.equals(kafkaProducerService.send(topic, notification.getIdempotencyKey(), payload, null)
+                    .get(sendTimeoutMs, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Failed to produce notification {} to {}: {}", notification.getId(), topic, e.toString());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
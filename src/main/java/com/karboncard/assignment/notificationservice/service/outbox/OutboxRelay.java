@@ -0,0 +1,184 @@
+package com.karboncard.assignment.notificationservice.service.outbox;
+
+import com.karboncard.assignment.notificationservice.model.entity.OutboxEvent;
+import com.karboncard.assignment.notificationservice.repository.OutboxEventRepository;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes outbox events to Kafka.
+ * Each batch is claimed with FOR UPDATE SKIP LOCKED and leased in a short transaction, sent
+ * without waiting per record, and marked in one update per outcome once the acks are in. No
+ * transaction or row lock is held while waiting for the broker. Several nodes can run the relay
+ * at once; each one only sees rows the others have neither locked nor leased.
+ * Delivery is at-least-once: if a relay dies after the broker ack but before marking the batch,
+ * the lease expires and another relay republishes it.
+ * Events that fail max-attempts times stay in the table for inspection and are counted in
+ * notification.outbox.exhausted.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final MetricsUtil metricsUtil;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${notification.outbox.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll = 20;
+
+    @Value("${notification.outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    @Value("${notification.outbox.send-timeout-ms:30000}")
+    private long sendTimeoutMs = 30000;
+
+    // Longer than send-timeout-ms, so a live relay always marks its batch before the lease runs out
+    @Value("${notification.outbox.lease-ms:60000}")
+    private long leaseMs = 60000;
+
+    @Value("${notification.outbox.retention-hours:24}")
+    private long retentionHours = 24;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaProducerService kafkaProducerService,
+                       MetricsUtil metricsUtil,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.metricsUtil = metricsUtil;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Drains full batches back to back, up to the per-poll limit, then waits for the next poll
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:100}")
+    public void poll() {
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            if (relayBatch() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims, publishes and marks one batch of outbox events
+     * @return the number of events claimed
+     */
+    public int relayBatch() {
+        List<OutboxEvent> events = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> claimed = outboxEventRepository.claimBatch(batchSize, maxAttempts, now);
+            if (!claimed.isEmpty()) {
+                outboxEventRepository.leaseBatch(claimed.stream().map(OutboxEvent::getId).toList(),
+                        now.plus(Duration.ofMillis(leaseMs)));
+            }
+            return claimed;
+        });
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        long startTime = System.currentTimeMillis();
+
+        // Hand every record to the producer before waiting, so they share producer batches
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            futures.add(kafkaProducerService.send(event.getTopic(), event.getMessageKey(),
+                    event.getPayload(), event.getHeaders()));
+        }
+        awaitAll(futures);
+
+        List<String> dispatchedIds = new ArrayList<>(events.size());
+        List<String> failedIds = new ArrayList<>();
+        List<String> exhaustedIds = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            CompletableFuture<Boolean> future = futures.get(i);
+            boolean acknowledged = future.isDone() && !future.isCompletedExceptionally()
+                    && Boolean.TRUE.equals(future.join());
+            OutboxEvent event = events.get(i);
+            if (acknowledged) {
+                dispatchedIds.add(event.getId());
+            } else {
+                failedIds.add(event.getId());
+                if (event.getAttempts() + 1 >= maxAttempts) {
+                    exhaustedIds.add(event.getId());
+                }
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!dispatchedIds.isEmpty()) {
+                outboxEventRepository.markDispatched(dispatchedIds, LocalDateTime.now());
+            }
+            if (!failedIds.isEmpty()) {
+                outboxEventRepository.markFailed(failedIds, "Kafka send failed or timed out");
+            }
+        });
+        if (failedIds.size() > exhaustedIds.size()) {
+            logger.warn("Failed to relay {} of {} outbox events, they will be retried",
+                    failedIds.size() - exhaustedIds.size(), events.size());
+        }
+        if (!exhaustedIds.isEmpty()) {
+            logger.error("Giving up on {} outbox events after {} attempts, they are left in notification_outbox: {}",
+                    exhaustedIds.size(), maxAttempts, exhaustedIds);
+            metricsUtil.incrementCounter("notification.outbox.exhausted", Map.of(), exhaustedIds.size());
+        }
+
+        metricsUtil.incrementCounter("notification.outbox.relayed", Map.of("status", "success"),
+                dispatchedIds.size());
+        metricsUtil.incrementCounter("notification.outbox.relayed", Map.of("status", "failure"),
+                failedIds.size());
+        metricsUtil.recordLatency("notification.outbox.batch.latency", System.currentTimeMillis() - startTime);
+        logger.debug("Relayed outbox batch of {} events ({} failed)", events.size(), failedIds.size());
+        return events.size();
+    }
+
+    /**
+     * Deletes dispatched events once they are past the retention window
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.cleanup-interval-ms:3600000}")
+    public void purgeDispatched() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        Integer deleted = transactionTemplate.execute(status -> outboxEventRepository.deleteDispatchedBefore(cutoff));
+        if (deleted != null && deleted > 0) {
+            logger.info("Purged {} dispatched outbox events older than {}", deleted, cutoff);
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<Boolean>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Timed out after {} ms waiting for Kafka acknowledgements", sendTimeoutMs);
+        } catch (ExecutionException e) {
+            logger.error("Kafka send failed while relaying outbox batch", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
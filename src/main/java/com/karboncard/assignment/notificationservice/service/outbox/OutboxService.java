@@ -0,0 +1,81 @@
+package com.karboncard.assignment.notificationservice.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.config.KafkaConfig;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.entity.OutboxEvent;
+import com.karboncard.assignment.notificationservice.repository.OutboxEventRepository;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes Kafka records to the outbox table in the caller's transaction, so a notification
+ * is never committed without the record that announces it. {@link OutboxRelay} publishes them.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final KafkaConfig kafkaConfig;
+    private final MetricsUtil metricsUtil;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Notification notification) {
+        enqueueAll(List.of(notification));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            events.add(toEvent(notification, now));
+        }
+        outboxEventRepository.saveAll(events);
+        logger.debug("Enqueued {} outbox events", events.size());
+        metricsUtil.incrementCounter("notification.outbox.enqueued", Map.of(), events.size());
+    }
+
+    private OutboxEvent toEvent(Notification notification, LocalDateTime now) {
+        String topic = kafkaConfig.topicFor(notification.getType());
+        if (topic == null) {
+            throw new IllegalArgumentException("Unknown notification type: " + notification.getType());
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            // Fail the surrounding transaction rather than commit a notification nobody will deliver
+            throw new IllegalStateException("Failed to serialize notification " + notification.getId(), e);
+        }
+
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateId(notification.getId());
+        event.setTopic(topic);
+        event.setMessageKey(notification.getIdempotencyKey() != null ?
+                notification.getIdempotencyKey() :
+                notification.getUserId() + "-" + notification.getId());
+        event.setPayload(payload);
+        event.setCreatedAt(now);
+        event.setAttempts(0);
+        return event;
+    }
+}
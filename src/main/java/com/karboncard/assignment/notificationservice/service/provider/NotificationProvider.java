@@ -4,14 +4,16 @@ import com.karboncard.assignment.notificationservice.model.dto.request.Notificat
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface NotificationProvider {
     /**
      * Sends a notification using the specific provider implementation
      * @param notification The notification entity to be sent
      * @param requestDTO The original request data
-     * @return true if notification was successfully queued, false otherwise
+     * @return future completing with true if notification was successfully queued, false otherwise
      */
-    boolean send(Notification notification, NotificationRequestDTO requestDTO);
+    CompletableFuture<Boolean> send(Notification notification, NotificationRequestDTO requestDTO);
 
     /**
      * Returns the notification type that this provider handles
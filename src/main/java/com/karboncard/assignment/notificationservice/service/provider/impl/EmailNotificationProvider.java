@@ -12,6 +12,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 @Service
@@ -25,7 +26,7 @@ public class EmailNotificationProvider implements NotificationProvider {
     private static final int MAX_SUBJECT_LENGTH = 255;
 
     @Override
-    public boolean send(Notification notification, NotificationRequestDTO requestDTO) {
+    public CompletableFuture<Boolean> send(Notification notification, NotificationRequestDTO requestDTO) {
         log.info("Processing email notification for user {}, template: {}",
                 notification.getUserId(), notification.getTemplateId());
 
@@ -36,7 +37,7 @@ public class EmailNotificationProvider implements NotificationProvider {
             log.error(msg);
             notification.setStatus(NotificationStatus.PERMANENT_FAILURE);
             notification.setErrorMessage(msg);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         String emailAddress = params.get("email").toString();
@@ -47,7 +48,7 @@ public class EmailNotificationProvider implements NotificationProvider {
             log.error(msg);
             notification.setStatus(NotificationStatus.PERMANENT_FAILURE);
             notification.setErrorMessage(msg);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         // Extract subject from templateParams if available
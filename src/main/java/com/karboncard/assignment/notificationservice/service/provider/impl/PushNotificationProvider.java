@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -24,7 +25,7 @@ public class PushNotificationProvider implements NotificationProvider {
     private static final Set<String> SUPPORTED_PLATFORMS = Set.of("IOS", "ANDROID", "WEB");
 
     @Override
-    public boolean send(Notification notification, NotificationRequestDTO requestDTO) {
+    public CompletableFuture<Boolean> send(Notification notification, NotificationRequestDTO requestDTO) {
         log.info("Processing push notification for user {}, template: {}",
                 notification.getUserId(), notification.getTemplateId());
 
@@ -32,14 +33,14 @@ public class PushNotificationProvider implements NotificationProvider {
         Map<String, Object> params = notification.getTemplateParams();
         if (params == null) {
             log.error("Missing templateParams for notification {}", notification.getId());
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         // Validate device token
         String deviceToken = params.containsKey("deviceToken") ? params.get("deviceToken").toString() : null;
         if (deviceToken == null || deviceToken.isEmpty()) {
             log.error("Missing device token for notification {}", notification.getId());
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         // Check platform type
@@ -48,7 +49,7 @@ public class PushNotificationProvider implements NotificationProvider {
 
         if (!SUPPORTED_PLATFORMS.contains(platform.toUpperCase())) {
             log.error("Unsupported platform '{}' for notification {}", platform, notification.getId());
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         // Format platform-specific payload
@@ -12,6 +12,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 @Service
@@ -25,7 +26,7 @@ public class SmsNotificationProvider implements NotificationProvider {
     private static final String PHONE_NUMBER_REGEX = "^\\+?[1-9]\\d{1,14}$";
 
     @Override
-    public boolean send(Notification notification, NotificationRequestDTO requestDTO) {
+    public CompletableFuture<Boolean> send(Notification notification, NotificationRequestDTO requestDTO) {
         log.info("Processing SMS notification for user {}, template: {}",
                 notification.getUserId(), notification.getTemplateId());
 
@@ -36,7 +37,7 @@ public class SmsNotificationProvider implements NotificationProvider {
             log.error(msg);
             notification.setStatus(NotificationStatus.PERMANENT_FAILURE);
             notification.setErrorMessage(msg);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         String phoneNumber = params.get("phoneNumber").toString();
@@ -47,7 +48,7 @@ public class SmsNotificationProvider implements NotificationProvider {
             log.error(msg);
             notification.setStatus(NotificationStatus.PERMANENT_FAILURE);
             notification.setErrorMessage(msg);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         // Check message length if content is provided in templateParams
@@ -0,0 +1,190 @@
+package com.karboncard.assignment.notificationservice.service.retry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.config.KafkaConfig;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterPayload;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.service.DeadLetterQueueService;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.service.status.NotificationStateMachine;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Safety net behind the retry topics: picks up FAILED and RETRYING notifications whose
+ * next_attempt_at has passed, which only happens when the record that should have retried them
+ * was lost (a failed produce, a crashed worker, an expired topic).
+ * Each page is claimed with FOR UPDATE SKIP LOCKED and leased to this node in one short
+ * transaction: retryable rows get a lease that pushes next_attempt_at out, exhausted ones become
+ * PERMANENT_FAILURE. After commit the retryable rows are re-produced to their channel topics in bulk
+ * and the exhausted ones go to the dead letter queue. Several nodes can sweep at once; a row is only
+ * dispatched again after its lease has expired without a worker starting an attempt.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.retry-sweeper.enabled", havingValue = "true")
+public class NotificationRetrySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetrySweeper.class);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationStateMachine stateMachine;
+    private final KafkaProducerService kafkaProducerService;
+    private final DeadLetterQueueService deadLetterQueueService;
+    private final KafkaConfig kafkaConfig;
+    private final ObjectMapper objectMapper;
+    private final MetricsUtil metricsUtil;
+    private final TransactionTemplate transactionTemplate;
+
+    // pid@host, which tells the nodes of a deployment apart
+    private final String leaseOwner = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Value("${notification.retry-sweeper.page-size:500}")
+    private int pageSize = 500;
+
+    @Value("${notification.retry-sweeper.max-pages-per-poll:20}")
+    private int maxPagesPerPoll = 20;
+
+    @Value("${notification.retry-sweeper.lease-ms:300000}")
+    private long leaseMs = 300000;
+
+    @Value("${notification.retry-sweeper.send-timeout-ms:30000}")
+    private long sendTimeoutMs = 30000;
+
+    @Value("${notification.worker.max-attempts:4}")
+    private int maxAttempts = 4;
+
+    @Value("${notification.storage.query-window-days:30}")
+    private int queryWindowDays = 30;
+
+    public NotificationRetrySweeper(NotificationRepository notificationRepository,
+                                    NotificationStateMachine stateMachine,
+                                    KafkaProducerService kafkaProducerService,
+                                    DeadLetterQueueService deadLetterQueueService,
+                                    KafkaConfig kafkaConfig,
+                                    ObjectMapper objectMapper,
+                                    MetricsUtil metricsUtil,
+                                    PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.stateMachine = stateMachine;
+        this.kafkaProducerService = kafkaProducerService;
+        this.deadLetterQueueService = deadLetterQueueService;
+        this.kafkaConfig = kafkaConfig;
+        this.objectMapper = objectMapper;
+        this.metricsUtil = metricsUtil;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Sweeps full pages back to back, up to the per-poll limit, then waits for the next poll
+     */
+    @Scheduled(fixedDelayString = "${notification.retry-sweeper.poll-interval-ms:5000}")
+    public void sweep() {
+        for (int i = 0; i < maxPagesPerPoll; i++) {
+            if (sweepPage() < pageSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims one page of due notifications and dispatches it
+     * @return the number of notifications claimed
+     */
+    public int sweepPage() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdAfter = now.minusDays(queryWindowDays);
+        List<Notification> retryable = new ArrayList<>();
+        List<Notification> exhausted = new ArrayList<>();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            exhausted.addAll(notificationRepository.findFailedNotificationsForDLQ(now, maxAttempts, createdAfter,
+                    pageSize));
+            retryable.addAll(notificationRepository.findRetryableNotifications(now, maxAttempts, createdAfter,
+                    pageSize - exhausted.size()));
+            if (!retryable.isEmpty()) {
+                notificationRepository.leaseNotifications(retryable.stream().map(Notification::getId).toList(),
+                        createdAfter, leaseOwner, now.plus(Duration.ofMillis(leaseMs)));
+            }
+            stateMachine.markExhausted(exhausted.stream().map(Notification::getId).toList());
+        });
+
+        if (!retryable.isEmpty()) {
+            redispatch(retryable);
+        }
+        exhausted.forEach(this::deadLetter);
+        metricsUtil.incrementCounter("notification.retry_sweeper.swept", Map.of("result", "exhausted"),
+                exhausted.size());
+        if (!retryable.isEmpty() || !exhausted.isEmpty()) {
+            logger.info("Swept {} due notifications: {} re-dispatched, {} sent to the dead letter queue",
+                    retryable.size() + exhausted.size(), retryable.size(), exhausted.size());
+        }
+        return retryable.size() + exhausted.size();
+    }
+
+    /**
+     * Produces every record before waiting, so they share producer batches. Records that fail stay
+     * leased and are swept again once the lease expires.
+     */
+    private void redispatch(List<Notification> notifications) {
+        List<CompletableFuture<Boolean>> futures = kafkaProducerService.sendNotifications(notifications);
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Timed out after {} ms waiting for Kafka acknowledgements of swept notifications", sendTimeoutMs);
+        } catch (ExecutionException e) {
+            logger.error("Kafka send failed while re-dispatching swept notifications", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long dispatched = futures.stream()
+                .filter(future -> future.isDone() && !future.isCompletedExceptionally() && Boolean.TRUE.equals(future.join()))
+                .count();
+        metricsUtil.incrementCounter("notification.retry_sweeper.swept", Map.of("result", "redispatched"), dispatched);
+        if (dispatched < notifications.size()) {
+            logger.warn("Failed to re-dispatch {} of {} swept notifications, they are retried after the lease expires",
+                    notifications.size() - dispatched, notifications.size());
+            metricsUtil.incrementCounter("notification.retry_sweeper.swept", Map.of("result", "failed"),
+                    notifications.size() - dispatched);
+        }
+    }
+
+    private void deadLetter(Notification notification) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(notification);
+        } catch (Exception e) {
+            logger.error("Failed to serialize exhausted notification {}", notification.getId(), e);
+            return;
+        }
+        deadLetterQueueService.sendToDLQ(DeadLetterPayload.builder()
+                .originalTopic(kafkaConfig.topicFor(notification.getType()))
+                .originalKey(notification.getIdempotencyKey() != null ? notification.getIdempotencyKey()
+                        : notification.getUserId() + "-" + notification.getId())
+                .originalPayload(payload)
+                .errorReason(notification.getErrorMessage() != null ? notification.getErrorMessage()
+                        : "Exhausted " + notification.getDeliveryAttempts() + " delivery attempts")
+                .timestamp(Instant.now())
+                .build());
+    }
+}
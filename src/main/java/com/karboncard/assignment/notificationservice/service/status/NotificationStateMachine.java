@@ -0,0 +1,246 @@
+package com.karboncard.assignment.notificationservice.service.status;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.util.CreatedAtRange;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delivery status transitions as single conditional UPDATEs.
+ * Each transition names the statuses it may start from, so no row is read first and a late worker
+ * cannot move a row out of a status it did not expect, e.g. turn SENT back into FAILED. The returned
+ * count tells the caller whether the row was in one of those statuses.
+ * It is not a lock. RETRYING may start again, so two workers holding the same record can both win
+ * startAttempt; NotificationDeduplicator's Redis claim is what keeps them from both sending it.
+ * Each UPDATE is bounded to the created_at window of its ids, so it only probes their day partitions.
+ * <pre>
+ * PENDING, FAILED, RETRYING --startAttempt--> RETRYING
+ * RETRYING --markSent--> SENT
+ * RETRYING --markFailed--> FAILED, or PERMANENT_FAILURE once max-attempts is reached
+ * RETRYING --failAttempt--> RETRYING, or PERMANENT_FAILURE on the last attempt
+ * RETRYING --markRejected--> PERMANENT_FAILURE (the provider refused it for good)
+ * FAILED, RETRYING --markExhausted--> PERMANENT_FAILURE
+ * RETRYING --parkAttempt--> FAILED, attempt refunded (provider unavailable)
+ * PENDING, FAILED, RETRYING --park--> FAILED, no attempt counted (provider unavailable)
+ * FAILED, PERMANENT_FAILURE --reopen--> PENDING, attempts reset (dead letter replay)
+ * </pre>
+ * RETRYING may start again, so a record redelivered after a worker crashed mid-attempt is sent.
+ * SENT and PERMANENT_FAILURE are final. failAttempt leaves the row alone until the last attempt,
+ * as the failure itself is kept in notification_attempts.
+ * Rows left FAILED or RETRYING become due for NotificationRetrySweeper after sweep-delay-ms, in case
+ * the record that should retry them never reaches a worker. Parked rows become due after
+ * park-delay-ms instead, roughly when the provider's circuit breaker lets calls through again.
+ */
+@Service
+@Transactional
+public class NotificationStateMachine {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationStateMachine.class);
+
+    static final Set<NotificationStatus> DELIVERABLE =
+            EnumSet.of(NotificationStatus.PENDING, NotificationStatus.FAILED, NotificationStatus.RETRYING);
+    static final Set<NotificationStatus> IN_FLIGHT = EnumSet.of(NotificationStatus.RETRYING);
+    static final Set<NotificationStatus> SWEEPABLE = EnumSet.of(NotificationStatus.FAILED, NotificationStatus.RETRYING);
+    static final Set<NotificationStatus> REOPENABLE =
+            EnumSet.of(NotificationStatus.FAILED, NotificationStatus.PERMANENT_FAILURE);
+
+    private final NotificationRepository notificationRepository;
+    private final MetricsUtil metricsUtil;
+
+    @Value("${notification.worker.max-attempts:4}")
+    private int maxAttempts = 4;
+
+    // Longer than the whole retry-topic chain, so the sweeper only sees rows Kafka has lost
+    @Value("${notification.retry-sweeper.sweep-delay-ms:900000}")
+    private long sweepDelayMs = 900000;
+
+    @Value("${notification.provider.park-delay-ms:60000}")
+    private long parkDelayMs = 60000;
+
+    public NotificationStateMachine(NotificationRepository notificationRepository, MetricsUtil metricsUtil) {
+        this.notificationRepository = notificationRepository;
+        this.metricsUtil = metricsUtil;
+    }
+
+    /**
+     * Counts a delivery attempt and moves the notification to RETRYING
+     *
+     * @return false if the notification is final or does not exist, so it must not be sent
+     */
+    public boolean startAttempt(String notificationId) {
+        return startAttempts(List.of(notificationId)) == 1;
+    }
+
+    public int startAttempts(Collection<String> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        CreatedAtRange range = CreatedAtRange.of(notificationIds);
+        int updated = notificationRepository.startDeliveryAttempts(notificationIds, range.from(), range.to(),
+                DELIVERABLE, NotificationStatus.RETRYING, now, sweepAt(now));
+        return recordTransition(NotificationStatus.RETRYING, notificationIds.size(), updated);
+    }
+
+    /**
+     * @return false if the notification was not in flight, e.g. another worker already finished it
+     */
+    public boolean markSent(String notificationId) {
+        return markSent(List.of(notificationId)) == 1;
+    }
+
+    public int markSent(Collection<String> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        CreatedAtRange range = CreatedAtRange.of(notificationIds);
+        int updated = notificationRepository.transitionStatus(notificationIds, range.from(), range.to(), IN_FLIGHT,
+                NotificationStatus.SENT, LocalDateTime.now());
+        return recordTransition(NotificationStatus.SENT, notificationIds.size(), updated);
+    }
+
+    /**
+     * Records a failed attempt; the row's attempt count decides between FAILED and PERMANENT_FAILURE
+     *
+     * @return false if the notification was not in flight
+     */
+    public boolean markFailed(String notificationId, String errorMessage) {
+        return markFailed(List.of(notificationId), errorMessage) == 1;
+    }
+
+    public int markFailed(Collection<String> notificationIds, String errorMessage) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        CreatedAtRange range = CreatedAtRange.of(notificationIds);
+        int updated = notificationRepository.failDeliveryAttempts(notificationIds, range.from(), range.to(),
+                IN_FLIGHT, maxAttempts, errorMessage, now, sweepAt(now));
+        return recordTransition(NotificationStatus.FAILED, notificationIds.size(), updated);
+    }
+
+    /**
+     * Records a failed attempt whose number the caller knows. Only the last attempt rewrites the
+     * notification row; earlier ones leave it RETRYING, from where the next attempt may start.
+     *
+     * @param attemptNumber The attempt's number as counted by startAttempt, or 0 if unknown
+     * @return the outcome of the attempt, FAILED or PERMANENT_FAILURE
+     */
+    public NotificationStatus failAttempt(String notificationId, int attemptNumber, String errorMessage) {
+        if (attemptNumber <= 0) {
+            // Unknown: the row's attempt count decides, as in markFailed
+            markFailed(notificationId, errorMessage);
+            return NotificationStatus.FAILED;
+        }
+        if (attemptNumber < maxAttempts) {
+            metricsUtil.incrementCounter("notification.status.transition",
+                    Map.of("to", NotificationStatus.FAILED.name(), "result", "deferred"));
+            return NotificationStatus.FAILED;
+        }
+        markFailed(notificationId, errorMessage);
+        return NotificationStatus.PERMANENT_FAILURE;
+    }
+
+    /**
+     * Records an attempt the provider refused for good, e.g. an invalid recipient; no retry follows
+     *
+     * @return false if the notification was not in flight
+     */
+    public boolean markRejected(String notificationId, String errorMessage) {
+        // With no attempts allowed the update always picks PERMANENT_FAILURE
+        CreatedAtRange range = CreatedAtRange.of(notificationId);
+        int updated = notificationRepository.failDeliveryAttempts(List.of(notificationId), range.from(), range.to(),
+                IN_FLIGHT, 0, errorMessage, LocalDateTime.now(), null);
+        return recordTransition(NotificationStatus.PERMANENT_FAILURE, 1, updated) == 1;
+    }
+
+    /**
+     * Gives up on notifications that used all their attempts without reaching a final status
+     */
+    public int markExhausted(Collection<String> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        CreatedAtRange range = CreatedAtRange.of(notificationIds);
+        int updated = notificationRepository.transitionStatus(notificationIds, range.from(), range.to(), SWEEPABLE,
+                NotificationStatus.PERMANENT_FAILURE, LocalDateTime.now());
+        return recordTransition(NotificationStatus.PERMANENT_FAILURE, notificationIds.size(), updated);
+    }
+
+    /**
+     * Hands an in-flight notification whose provider was never called to the retry sweeper,
+     * giving back the attempt startAttempt counted
+     *
+     * @return false if the notification was not in flight
+     */
+    public boolean parkAttempt(String notificationId, String reason) {
+        return park(List.of(notificationId), IN_FLIGHT, 1, reason) == 1;
+    }
+
+    /**
+     * Hands notifications whose provider was never called to the retry sweeper; no attempt was counted
+     */
+    public int park(Collection<String> notificationIds, String reason) {
+        return park(notificationIds, DELIVERABLE, 0, reason);
+    }
+
+    /**
+     * Gives failed notifications a fresh set of attempts, so a replayed record is delivered again.
+     * Sent notifications are never reopened.
+     */
+    public int reopen(Collection<String> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        CreatedAtRange range = CreatedAtRange.of(notificationIds);
+        int updated = notificationRepository.resetDeliveryAttempts(notificationIds, range.from(), range.to(),
+                REOPENABLE, NotificationStatus.PENDING, LocalDateTime.now());
+        return recordTransition(NotificationStatus.PENDING, notificationIds.size(), updated);
+    }
+
+    /**
+     * @return when a notification left FAILED or RETRYING at the given time is due for the sweeper
+     */
+    public LocalDateTime sweepAt(LocalDateTime now) {
+        return now.plus(Duration.ofMillis(sweepDelayMs));
+    }
+
+    private int park(Collection<String> notificationIds, Set<NotificationStatus> fromStatuses, int refundedAttempts,
+                     String reason) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        CreatedAtRange range = CreatedAtRange.of(notificationIds);
+        int updated = notificationRepository.parkDeliveryAttempts(notificationIds, range.from(), range.to(),
+                fromStatuses, NotificationStatus.FAILED, refundedAttempts, reason, now,
+                now.plus(Duration.ofMillis(parkDelayMs)));
+        metricsUtil.incrementCounter("notification.status.parked", Map.of(), updated);
+        return recordTransition(NotificationStatus.FAILED, notificationIds.size(), updated);
+    }
+
+    private int recordTransition(NotificationStatus target, int requested, int updated) {
+        metricsUtil.incrementCounter("notification.status.transition",
+                Map.of("to", target.name(), "result", "applied"), updated);
+        if (updated < requested) {
+            log.debug("{} of {} notifications were not in a status that allows moving to {}",
+                    requested - updated, requested, target);
+            metricsUtil.incrementCounter("notification.status.transition",
+                    Map.of("to", target.name(), "result", "rejected"), requested - updated);
+        }
+        return updated;
+    }
+}
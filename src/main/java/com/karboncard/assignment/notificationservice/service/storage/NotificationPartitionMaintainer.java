@@ -0,0 +1,159 @@
+package com.karboncard.assignment.notificationservice.service.storage;
+
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the day partitions of the notifications table ahead of the clock and applies retention
+ * by dropping whole partitions, which costs the same whatever their size and leaves no dead tuples.
+ * Runs at startup and on a schedule; every node runs it, and an advisory lock lets only one of
+ * them work at a time. Expired idempotency keys, delivery attempts and dead letters are deleted in
+ * small batches afterwards.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.storage.partitioning.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationPartitionMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPartitionMaintainer.class);
+
+    private static final long ADVISORY_LOCK_KEY = 7_410_051_823L;
+    private static final String PARTITIONS_SQL = "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'notifications'::regclass";
+    private static final String PURGE_KEYS_SQL = "DELETE FROM notification_idempotency_keys WHERE ctid = ANY(ARRAY(" +
+            "SELECT ctid FROM notification_idempotency_keys WHERE created_at < ? LIMIT ?))";
+    private static final String PURGE_ATTEMPTS_SQL = "DELETE FROM notification_attempts WHERE ctid = ANY(ARRAY(" +
+            "SELECT ctid FROM notification_attempts WHERE attempted_at < ? LIMIT ?))";
+    private static final String PURGE_DEAD_LETTERS_SQL = "DELETE FROM dead_letters WHERE ctid = ANY(ARRAY(" +
+            "SELECT ctid FROM dead_letters WHERE failed_at < ? LIMIT ?))";
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MetricsUtil metricsUtil;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.storage.partitioning.days-ahead:7}")
+    private int daysAhead = 7;
+
+    @Value("${notification.storage.retention-days:90}")
+    private int retentionDays = 90;
+
+    @Value("${notification.storage.partitioning.key-purge-batch-size:10000}")
+    private int keyPurgeBatchSize = 10000;
+
+    public NotificationPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                           MetricsUtil metricsUtil,
+                                           PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metricsUtil = metricsUtil;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${notification.storage.partitioning.maintenance-cron:0 15 * * * *}")
+    public void maintain() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime cutoff = today.minusDays(retentionDays).atStartOfDay();
+        try {
+            Boolean locked = transactionTemplate.execute(status -> {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)",
+                        Boolean.class, ADVISORY_LOCK_KEY))) {
+                    return false;
+                }
+                createPartitions(today);
+                dropExpiredPartitions(cutoff);
+                return true;
+            });
+            if (Boolean.TRUE.equals(locked)) {
+                purgeExpired(PURGE_KEYS_SQL, "idempotency keys", cutoff);
+                purgeExpired(PURGE_ATTEMPTS_SQL, "delivery attempts", cutoff);
+                purgeExpired(PURGE_DEAD_LETTERS_SQL, "dead letters", cutoff);
+            } else {
+                logger.debug("Partition maintenance is running on another node");
+            }
+        } catch (RuntimeException e) {
+            // Partitions are created days ahead, so a missed run is not urgent
+            logger.error("Notification partition maintenance failed", e);
+        }
+    }
+
+    private void createPartitions(LocalDate today) {
+        int created = 0;
+        for (int day = 0; day <= daysAhead; day++) {
+            LocalDate date = today.plusDays(day);
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT create_notification_partition(?)",
+                    Boolean.class, Date.valueOf(date)))) {
+                logger.info("Created notifications partition for {}", date);
+                created++;
+            }
+        }
+        metricsUtil.incrementCounter("notification.storage.partitions", Map.of("action", "created"), created);
+    }
+
+    private void dropExpiredPartitions(LocalDateTime cutoff) {
+        int dropped = 0;
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(PARTITIONS_SQL);
+        for (Map<String, Object> partition : partitions) {
+            String name = (String) partition.get("name");
+            LocalDateTime upperBound = upperBound((String) partition.get("bound"));
+            // The default partition has no bound and is never dropped
+            if (upperBound == null || upperBound.isAfter(cutoff)) {
+                continue;
+            }
+            jdbcTemplate.execute("DROP TABLE \"" + name.replace("\"", "\"\"") + "\"");
+            logger.info("Dropped notifications partition {} (rows created before {})", name, upperBound);
+            dropped++;
+        }
+        metricsUtil.incrementCounter("notification.storage.partitions", Map.of("action", "dropped"), dropped);
+    }
+
+    private void purgeExpired(String purgeSql, String description, LocalDateTime cutoff) {
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(purgeSql, Timestamp.valueOf(cutoff), keyPurgeBatchSize);
+            purged += deleted;
+        } while (deleted >= keyPurgeBatchSize);
+        if (purged > 0) {
+            logger.info("Purged {} {} older than {}", purged, description, cutoff);
+        }
+    }
+
+    /**
+     * @param boundExpression A partition bound as printed by pg_get_expr
+     * @return the exclusive upper bound, or null for the default partition
+     */
+    static LocalDateTime upperBound(String boundExpression) {
+        if (boundExpression == null) {
+            return null;
+        }
+        Matcher matcher = UPPER_BOUND.matcher(boundExpression);
+        if (!matcher.find()) {
+            return null;
+        }
+        String value = matcher.group(1);
+        // Fractional seconds are never part of a day boundary
+        int fraction = value.indexOf('.');
+        return LocalDateTime.parse(fraction < 0 ? value : value.substring(0, fraction), BOUND_FORMAT);
+    }
+}
@@ -0,0 +1,62 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrent cache bounded by size (LRU eviction per stripe) and by age.
+ * Expired entries are dropped when they are read or pushed out by newer ones.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final StripedLruCache<K, Timestamped<V>> entries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlCache(int maxSize, int stripes, Duration ttl) {
+        this(maxSize, stripes, ttl, System::currentTimeMillis);
+    }
+
+    BoundedTtlCache(int maxSize, int stripes, Duration ttl, LongSupplier clock) {
+        this.entries = new StripedLruCache<>(maxSize, stripes, (key, value) -> evictions.increment());
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public V get(K key) {
+        Timestamped<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() - entry.createdAt() >= ttlMillis) {
+            entries.remove(key);
+            evictions.increment();
+            return null;
+        }
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Timestamped<>(value, clock.getAsLong()));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return entries dropped for size or age since the cache was created
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private record Timestamped<V>(V value, long createdAt) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A created_at window holding the notifications with the given ids, so that statements by id only
+ * probe the day partitions the ids were created in.
+ * A UUIDv7 id carries the millisecond it was generated at, moments after the row's createdAt was set;
+ * ids from before UUIDv7 carry no time and widen the window to every partition.
+ */
+public record CreatedAtRange(LocalDateTime from, LocalDateTime to) {
+
+    // createdAt and the id are taken on the same node while handling one request
+    static final Duration SKEW = Duration.ofMinutes(5);
+
+    public static final CreatedAtRange UNBOUNDED =
+            new CreatedAtRange(LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 0, 0));
+
+    public static CreatedAtRange of(String notificationId) {
+        return of(List.of(notificationId));
+    }
+
+    public static CreatedAtRange of(Collection<String> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return UNBOUNDED;
+        }
+        long earliest = Long.MAX_VALUE;
+        long latest = Long.MIN_VALUE;
+        for (String notificationId : notificationIds) {
+            UUID uuid;
+            try {
+                uuid = UUID.fromString(notificationId);
+            } catch (IllegalArgumentException e) {
+                return UNBOUNDED;
+            }
+            if (uuid.version() != 7) {
+                return UNBOUNDED;
+            }
+            long millis = UuidV7Generator.timestampMillis(uuid);
+            earliest = Math.min(earliest, millis);
+            latest = Math.max(latest, millis);
+        }
+        // createdAt is written in the JVM's zone, like LocalDateTime.now()
+        ZoneId zone = ZoneId.systemDefault();
+        return new CreatedAtRange(
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(earliest), zone).minus(SKEW),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(latest), zone).plus(SKEW));
+    }
+}
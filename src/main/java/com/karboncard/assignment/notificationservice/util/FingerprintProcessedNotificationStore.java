@@ -0,0 +1,175 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps 64-bit fingerprints of processed ids in primitive long arrays instead of id strings.
+ * Each stripe holds two generations of open-addressing tables; new ids go into the current
+ * generation, and when it is full or half the TTL has passed the previous generation is
+ * dropped as a whole and the current one takes its place. An id is therefore kept for at
+ * least half the TTL (unless pushed out by volume) and never longer than the TTL.
+ * Two distinct ids share a fingerprint with probability about n / 2^64, which would make one
+ * of them look processed; for UUIDs at millions of entries that is negligible.
+ */
+public class FingerprintProcessedNotificationStore implements ProcessedNotificationStore {
+
+    private final Segment[] segments;
+    private final int mask;
+    private final LongSupplier clock;
+
+    public FingerprintProcessedNotificationStore(int maxSize, Duration ttl, int stripes) {
+        this(maxSize, ttl, stripes, System::currentTimeMillis);
+    }
+
+    FingerprintProcessedNotificationStore(int maxSize, Duration ttl, int stripes, LongSupplier clock) {
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        // Two generations per segment share the size budget
+        int generationCapacity = Math.max(1, maxSize / count / 2);
+        this.segments = new Segment[count];
+        this.mask = count - 1;
+        this.clock = clock;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(generationCapacity, Math.max(1, ttl.toMillis() / 2), clock.getAsLong());
+        }
+    }
+
+    @Override
+    public boolean contains(String notificationId) {
+        long fingerprint = fingerprint(notificationId);
+        return segmentFor(fingerprint).contains(fingerprint, clock.getAsLong());
+    }
+
+    @Override
+    public void add(String notificationId) {
+        long fingerprint = fingerprint(notificationId);
+        segmentFor(fingerprint).add(fingerprint, clock.getAsLong());
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public long evictionCount() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            evictions += segment.evictions();
+        }
+        return evictions;
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        return segments[(int) (fingerprint >>> 48) & mask];
+    }
+
+    // FNV-1a over the UTF-8 bytes with a murmur3 finalizer; 0 marks an empty slot so it is never returned
+    static long fingerprint(String id) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static final class Segment {
+
+        private final int generationCapacity;
+        private final long generationMillis;
+        private long[] current;
+        private long[] previous;
+        private int currentCount;
+        private int previousCount;
+        private long currentStartedAt;
+        private long evictions;
+
+        private Segment(int generationCapacity, long generationMillis, long now) {
+            this.generationCapacity = generationCapacity;
+            this.generationMillis = generationMillis;
+            // Load factor of at most one half keeps probe sequences short
+            int tableSize = Integer.highestOneBit(Math.max(2, generationCapacity * 2 - 1) << 1);
+            this.current = new long[tableSize];
+            this.previous = new long[tableSize];
+            this.currentStartedAt = now;
+        }
+
+        synchronized boolean contains(long fingerprint, long now) {
+            expire(now);
+            return probe(current, fingerprint) >= 0 || probe(previous, fingerprint) >= 0;
+        }
+
+        synchronized void add(long fingerprint, long now) {
+            expire(now);
+            if (probe(current, fingerprint) >= 0) {
+                return;
+            }
+            if (currentCount >= generationCapacity) {
+                rotate(now);
+            }
+            int slot = slotFor(current, fingerprint);
+            while (current[slot] != 0) {
+                slot = (slot + 1) & (current.length - 1);
+            }
+            current[slot] = fingerprint;
+            currentCount++;
+        }
+
+        synchronized long size() {
+            return currentCount + previousCount;
+        }
+
+        synchronized long evictions() {
+            return evictions;
+        }
+
+        private void expire(long now) {
+            long age = now - currentStartedAt;
+            if (age >= 2 * generationMillis) {
+                rotate(now);
+                rotate(now);
+            } else if (age >= generationMillis) {
+                rotate(now);
+            }
+        }
+
+        // Drops the previous generation and reuses its table for the new current one
+        private void rotate(long now) {
+            evictions += previousCount;
+            long[] recycled = previous;
+            Arrays.fill(recycled, 0L);
+            previous = current;
+            previousCount = currentCount;
+            current = recycled;
+            currentCount = 0;
+            currentStartedAt = now;
+        }
+
+        private static int probe(long[] table, long fingerprint) {
+            int slot = slotFor(table, fingerprint);
+            while (table[slot] != 0) {
+                if (table[slot] == fingerprint) {
+                    return slot;
+                }
+                slot = (slot + 1) & (table.length - 1);
+            }
+            return -1;
+        }
+
+        private static int slotFor(long[] table, long fingerprint) {
+            return (int) (fingerprint ^ (fingerprint >>> 29)) & (table.length - 1);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import java.time.Duration;
+
+/**
+ * Keeps processed ids as strings in a {@link BoundedTtlCache}
+ */
+public class HeapProcessedNotificationStore implements ProcessedNotificationStore {
+
+    private final BoundedTtlCache<String, Boolean> processed;
+
+    public HeapProcessedNotificationStore(int maxSize, Duration ttl, int stripes) {
+        this.processed = new BoundedTtlCache<>(maxSize, stripes, ttl);
+    }
+
+    @Override
+    public boolean contains(String notificationId) {
+        return processed.get(notificationId) != null;
+    }
+
+    @Override
+    public void add(String notificationId) {
+        processed.put(notificationId, Boolean.TRUE);
+    }
+
+    @Override
+    public long size() {
+        return processed.size();
+    }
+
+    @Override
+    public long evictionCount() {
+        return processed.evictionCount();
+    }
+}
@@ -6,13 +6,11 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
 import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
@@ -24,11 +22,23 @@ public class IdempotencyUtil {
 
     private static final Logger log = LoggerFactory.getLogger(IdempotencyUtil.class);
 
-    @Autowired
-    private NotificationRepository notificationRepository;
+    private final NotificationRepository notificationRepository;
+    private final MetricsUtil metricsUtil;
 
-    // In-memory cache for processed notifications
-    private final Map<String, Boolean> processedNotifications = new ConcurrentHashMap<>();
+    // Bounded in-memory record of processed notifications; the database is the source of truth
+    private final ProcessedNotificationStore processedNotifications;
+
+    public IdempotencyUtil(NotificationRepository notificationRepository,
+                           ProcessedNotificationStore processedNotifications,
+                           MetricsUtil metricsUtil) {
+        this.notificationRepository = notificationRepository;
+        this.processedNotifications = processedNotifications;
+        this.metricsUtil = metricsUtil;
+        metricsUtil.registerGauge("notification.idempotency.processed_cache.size", Map.of(),
+                processedNotifications::size);
+        metricsUtil.registerCounter("notification.idempotency.processed_cache.evictions", Map.of(),
+                processedNotifications::evictionCount);
+    }
 
     /**
      * Generates a random idempotency key
@@ -79,14 +89,22 @@ public class IdempotencyUtil {
      */
     public boolean isAlreadyProcessed(String notificationId) {
         // First check in-memory cache for performance
-        if (processedNotifications.containsKey(notificationId)) {
+        if (processedNotifications.contains(notificationId)) {
+            metricsUtil.incrementCounter("notification.idempotency.processed_cache", Map.of("result", "hit"));
             return true;
         }
+        metricsUtil.incrementCounter("notification.idempotency.processed_cache", Map.of("result", "miss"));
 
-        // Check database as fallback (for resilience across service restarts)
-        return notificationRepository.findById(notificationId)
+        // Check database as fallback (for resilience across service restarts and evicted entries)
+        CreatedAtRange createdAt = CreatedAtRange.of(notificationId);
+        boolean processed = notificationRepository.findByIdAndCreatedAtBetween(notificationId, createdAt.from(),
+                        createdAt.to())
                 .map(notification -> notification.getStatus() == NotificationStatus.SENT)
                 .orElse(false);
+        if (processed) {
+            processedNotifications.add(notificationId);
+        }
+        return processed;
     }
 
     /**
@@ -95,7 +113,7 @@ public class IdempotencyUtil {
      * @param notificationId ID of the notification to mark as processed
      */
     public void markAsProcessed(String notificationId) {
-        processedNotifications.put(notificationId, true);
+        processedNotifications.add(notificationId);
         log.debug("Marked notification {} as processed for idempotency", notificationId);
     }
 }
\ No newline at end of file
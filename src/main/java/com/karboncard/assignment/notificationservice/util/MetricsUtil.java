@@ -1,5 +1,7 @@
 package com.karboncard.assignment.notificationservice.util;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Utility class for recording metrics about the notification service.
@@ -33,6 +36,17 @@ public class MetricsUtil {
         meterRegistry.counter(name, convertToTags(tags)).increment();
     }
 
+    /**
+     * Increments a counter metric with tags by the given amount
+     *
+     * @param name The metric name
+     * @param tags A map of tag names and values
+     * @param amount The amount to add
+     */
+    public void incrementCounter(String name, Map<String, String> tags, double amount) {
+        meterRegistry.counter(name, convertToTags(tags)).increment(amount);
+    }
+
     /**
      * Records a latency measurement
      *
@@ -65,6 +79,30 @@ public class MetricsUtil {
         meterRegistry.gauge(name, convertToTags(tags), value);
     }
 
+    /**
+     * Registers a gauge that samples the supplied value on every scrape
+     *
+     * @param name The metric name
+     * @param tags Optional tags for the metric
+     * @param valueSupplier Supplier of the current value
+     */
+    public void registerGauge(String name, Map<String, String> tags, Supplier<Number> valueSupplier) {
+        Gauge.builder(name, valueSupplier).tags(convertToTags(tags)).register(meterRegistry);
+    }
+
+    /**
+     * Registers a counter whose value is read from the supplied monotonic count on every scrape
+     *
+     * @param name The metric name
+     * @param tags Optional tags for the metric
+     * @param countSupplier Supplier of the current total
+     */
+    public void registerCounter(String name, Map<String, String> tags, Supplier<Number> countSupplier) {
+        FunctionCounter.builder(name, countSupplier, supplier -> supplier.get().doubleValue())
+                .tags(convertToTags(tags))
+                .register(meterRegistry);
+    }
+
     /**
      * Converts a map of tag key-values to a list of Tag objects for Micrometer
      */
@@ -0,0 +1,94 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Validates incoming notification requests.
+ * Shared by the single and batch ingestion endpoints so both apply the same rules.
+ */
+@Component
+public class NotificationRequestValidator {
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+    private static final Pattern PHONE_NUMBER_PATTERN = Pattern.compile("^\\+?[1-9]\\d{1,14}$");
+
+    private final Validator validator;
+
+    public NotificationRequestValidator(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Runs bean validation constraints followed by the channel-specific field checks
+     *
+     * @param requestDTO The notification request
+     * @return The first validation error message, or empty if the request is valid
+     */
+    public Optional<String> validate(NotificationRequestDTO requestDTO) {
+        if (requestDTO == null) {
+            return Optional.of("Malformed notification request.");
+        }
+        Set<ConstraintViolation<NotificationRequestDTO>> violations = validator.validate(requestDTO);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<NotificationRequestDTO> violation = violations.iterator().next();
+            return Optional.of(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return validateFields(requestDTO);
+    }
+
+    /**
+     * Checks that the template params carry the recipient field required by the notification type
+     *
+     * @param requestDTO The notification request
+     * @return The first validation error message, or empty if the request is valid
+     */
+    public Optional<String> validateFields(NotificationRequestDTO requestDTO) {
+        if (requestDTO.getType() == null) {
+            return Optional.of("Missing 'type' in request.");
+        }
+        Map<String, Object> templateParams = requestDTO.getTemplateParams();
+        if (templateParams == null) {
+            return Optional.of("Missing 'templateParams' in request.");
+        }
+        NotificationType type = requestDTO.getType();
+        switch (type) {
+            case EMAIL:
+                if (isBlank(templateParams.get("email"))) {
+                    return Optional.of("Missing required field 'email' for EMAIL notification in template_params.");
+                }
+                if (!EMAIL_PATTERN.matcher(templateParams.get("email").toString()).matches()) {
+                    return Optional.of("Invalid email format for EMAIL notification.");
+                }
+                break;
+            case SMS:
+                if (isBlank(templateParams.get("phoneNumber"))) {
+                    return Optional.of("Missing required field 'phoneNumber' for SMS notification in template_params.");
+                }
+                if (!PHONE_NUMBER_PATTERN.matcher(templateParams.get("phoneNumber").toString()).matches()) {
+                    return Optional.of("Invalid phone number format for SMS notification. Must be E.164 format.");
+                }
+                break;
+            case PUSH:
+                if (isBlank(templateParams.get("deviceToken"))) {
+                    return Optional.of("Missing required field 'deviceToken' for PUSH notification in template_params.");
+                }
+                break;
+            default:
+                return Optional.of("Unknown notification type.");
+        }
+        return Optional.empty();
+    }
+
+    private boolean isBlank(Object value) {
+        return value == null || value.toString().isBlank();
+    }
+}
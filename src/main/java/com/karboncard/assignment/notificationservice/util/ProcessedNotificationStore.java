@@ -0,0 +1,33 @@
+package com.karboncard.assignment.notificationservice.util;
+
+/**
+ * Size- and time-bounded set of notification ids that have been delivered.
+ * Used by IdempotencyUtil to avoid a database lookup for recently processed notifications;
+ * an id that is not found may still have been processed and must be checked in the database.
+ */
+public interface ProcessedNotificationStore {
+
+    /**
+     * How processed ids are kept in memory
+     */
+    enum Storage {
+        /** Id strings in a striped LRU with per-entry expiry */
+        HEAP,
+        /** 64-bit fingerprints in primitive open-addressing tables, about 16 bytes per id */
+        FINGERPRINT
+    }
+
+    boolean contains(String notificationId);
+
+    void add(String notificationId);
+
+    /**
+     * @return the number of ids currently held
+     */
+    long size();
+
+    /**
+     * @return ids dropped for size or age since the store was created
+     */
+    long evictionCount();
+}
@@ -0,0 +1,133 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter that grows instead of degrading.
+ * Keys go into the newest stage; once it holds its capacity a new stage twice as large is
+ * added with half the false-positive rate, so the overall rate stays under twice the initial
+ * target however many keys are added (Almeida et al., "Scalable Bloom Filters").
+ * A negative answer is always correct; a positive one is only probable.
+ */
+public class ScalableBloomFilter {
+
+    private final CopyOnWriteArrayList<Stage> stages = new CopyOnWriteArrayList<>();
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        stages.add(new Stage(Math.max(1, initialCapacity), falsePositiveRate));
+    }
+
+    public boolean mightContain(String key) {
+        long[] hash = hash(key);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash[0], hash[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String key) {
+        long[] hash = hash(key);
+        Stage stage = stages.get(stages.size() - 1);
+        if (stage.isFull()) {
+            synchronized (stages) {
+                stage = stages.get(stages.size() - 1);
+                if (stage.isFull()) {
+                    stage = new Stage(stage.capacity * 2, stage.falsePositiveRate / 2);
+                    stages.add(stage);
+                }
+            }
+        }
+        stage.put(hash[0], hash[1]);
+    }
+
+    public long approximateSize() {
+        long size = 0;
+        for (Stage stage : stages) {
+            size += stage.count.get();
+        }
+        return size;
+    }
+
+    public long bitSize() {
+        long bits = 0;
+        for (Stage stage : stages) {
+            bits += stage.bits;
+        }
+        return bits;
+    }
+
+    // Two 64-bit halves of a murmur3-style mix, combined as h1 + i * h2 (Kirsch-Mitzenmacher)
+    private static long[] hash(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long h1 = 0x9E3779B97F4A7C15L;
+        long h2 = 0xC2B2AE3D27D4EB4FL;
+        for (byte b : bytes) {
+            h1 = (h1 ^ b) * 0x100000001B3L;
+            h2 = Long.rotateLeft(h2 ^ b, 31) * 0x9E3779B97F4A7C15L;
+        }
+        return new long[]{fmix(h1 ^ bytes.length), fmix(h2 + h1) | 1L};
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static final class Stage {
+
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bits;
+        private final int hashFunctions;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double ln2 = Math.log(2);
+            this.bits = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2)));
+            this.hashFunctions = Math.max(1, (int) Math.round((double) bits / capacity * ln2));
+            this.words = new AtomicLongArray((int) ((bits + 63) >>> 6));
+        }
+
+        private boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long h1, long h2) {
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, word, word | mask));
+            }
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Bounded map split into independently locked LRU stripes.
+ * Keys hash to a stripe, so threads working on different keys rarely contend,
+ * and each stripe evicts its least recently used entry once it is full.
+ * The eviction listener runs under the stripe lock and must not block.
+ */
+public class StripedLruCache<K, V> {
+
+    private final Stripe<K, V>[] stripes;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    public StripedLruCache(int maxSize, int stripeCount, BiConsumer<K, V> evictionListener) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        int stripeCapacity = Math.max(1, (maxSize + count - 1) / count);
+        this.stripes = new Stripe[count];
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>(stripeCapacity, evictionListener);
+        }
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.computeIfAbsent(key, mappingFunction);
+        }
+    }
+
+    public V put(K key, V value) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.put(key, value);
+        }
+    }
+
+    public V remove(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.remove(key);
+        }
+    }
+
+    public V get(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes every entry and returns them, stripe by stripe
+     */
+    public List<Map.Entry<K, V>> drain() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach((key, value) -> entries.add(Map.entry(key, value)));
+                stripe.clear();
+            }
+        }
+        return entries;
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static final class Stripe<K, V> extends LinkedHashMap<K, V> {
+
+        private final int capacity;
+        private final BiConsumer<K, V> evictionListener;
+
+        private Stripe(int capacity, BiConsumer<K, V> evictionListener) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictionListener = evictionListener;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() <= capacity) {
+                return false;
+            }
+            if (evictionListener != null) {
+                evictionListener.accept(eldest.getKey(), eldest.getValue());
+            }
+            return true;
+        }
+    }
+}
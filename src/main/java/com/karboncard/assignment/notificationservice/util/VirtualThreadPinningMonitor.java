@@ -0,0 +1,79 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams JFR jdk.VirtualThreadPinned events and publishes them as metrics.
+ * A pinned virtual thread blocks its carrier (e.g. waiting inside a synchronized block),
+ * which quietly shrinks the carrier pool back to platform-thread behaviour.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 5;
+
+    private final MetricsUtil metricsUtil;
+    private final Duration threshold;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MetricsUtil metricsUtil, Duration threshold) {
+        this.metricsUtil = metricsUtil;
+        this.threshold = threshold;
+    }
+
+    public void start() {
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+            log.info("Monitoring virtual thread pinning longer than {} ms", threshold.toMillis());
+        } catch (Exception e) {
+            // JFR can be unavailable in some runtimes; pinning metrics are best effort
+            log.warn("Unable to start JFR stream for virtual thread pinning", e);
+            recordingStream = null;
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        long durationMs = event.getDuration().toMillis();
+        String site = pinnedSite(event);
+        metricsUtil.incrementCounter("notification.virtual_thread.pinned", Map.of());
+        metricsUtil.recordLatency("notification.virtual_thread.pinned.duration", durationMs);
+        log.warn("Virtual thread pinned its carrier for {} ms at {}", durationMs, site);
+    }
+
+    private String pinnedSite(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        StringBuilder site = new StringBuilder();
+        for (int i = 0; i < Math.min(LOGGED_FRAMES, frames.size()); i++) {
+            RecordedFrame frame = frames.get(i);
+            if (i > 0) {
+                site.append(" <- ");
+            }
+            site.append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber());
+        }
+        return site.toString();
+    }
+
+    @Override
+    public void close() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
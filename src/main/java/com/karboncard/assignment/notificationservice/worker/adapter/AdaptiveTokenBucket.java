@@ -0,0 +1,97 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket whose refill rate follows AIMD: every successful call adds additiveIncrease / rate,
+ * so the rate grows by about additiveIncrease per second while calls succeed, and a throttle
+ * multiplies it by decreaseFactor. Throttles within decreaseCooldownNanos of the last decrease are
+ * answers to calls sent before it, so they do not decrease the rate again.
+ * The bucket holds up to burstSeconds of tokens at the current rate, and at least one.
+ */
+class AdaptiveTokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final double decreaseFactor;
+    private final double burstSeconds;
+    private final long decreaseCooldownNanos;
+    private final LongSupplier nanoClock;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long lastDecrease;
+
+    AdaptiveTokenBucket(double initialRate, double minRate, double maxRate, double additiveIncrease,
+                        double decreaseFactor, double burstSeconds, long decreaseCooldownNanos, LongSupplier nanoClock) {
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.additiveIncrease = additiveIncrease;
+        this.decreaseFactor = decreaseFactor;
+        this.burstSeconds = burstSeconds;
+        this.decreaseCooldownNanos = decreaseCooldownNanos;
+        this.nanoClock = nanoClock;
+        this.rate = Math.clamp(initialRate, minRate, maxRate);
+        this.lastRefill = nanoClock.getAsLong();
+        this.lastDecrease = lastRefill - decreaseCooldownNanos;
+        this.tokens = capacity();
+    }
+
+    /**
+     * Takes as many of the requested tokens as the bucket holds
+     *
+     * @return the number of tokens taken, between 0 and permits
+     */
+    synchronized int tryAcquire(int permits) {
+        refill();
+        int granted = (int) Math.min(permits, Math.floor(tokens));
+        tokens -= granted;
+        return granted;
+    }
+
+    /**
+     * @return how long until the bucket holds the given number of tokens, capped at its capacity
+     */
+    synchronized long nanosUntilAvailable(int permits) {
+        refill();
+        double missing = Math.min(permits, capacity()) - tokens;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / rate * NANOS_PER_SECOND);
+    }
+
+    synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + additiveIncrease / rate);
+    }
+
+    /**
+     * @return true if the rate was decreased, false within the cooldown of the last decrease
+     */
+    synchronized boolean onThrottle() {
+        long now = nanoClock.getAsLong();
+        if (now - lastDecrease < decreaseCooldownNanos) {
+            return false;
+        }
+        refill();
+        lastDecrease = now;
+        rate = Math.max(minRate, rate * decreaseFactor);
+        tokens = Math.min(tokens, capacity());
+        return true;
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    private double capacity() {
+        return Math.max(1.0, rate * burstSeconds);
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity(), tokens + (now - lastRefill) / NANOS_PER_SECOND * rate);
+        lastRefill = now;
+    }
+}
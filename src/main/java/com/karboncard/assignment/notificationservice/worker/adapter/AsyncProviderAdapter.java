@@ -0,0 +1,23 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non-blocking provider client. send must return as soon as the request is on its way and must not
+ * block the calling thread; the stage completes with the provider's answer. A stage that completes
+ * exceptionally is treated as a transient failure.
+ * Clients that can only block implement ExternalProviderAdapter instead.
+ */
+public interface AsyncProviderAdapter {
+
+    CompletionStage<DeliveryResult> send(Notification notification);
+
+    /**
+     * @return the notification channel this adapter delivers
+     */
+    NotificationType getType();
+}
@@ -0,0 +1,39 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a blocking ExternalProviderAdapter on the given executor, normally one virtual thread per
+ * call, so the caller's thread is free while the provider answers. A false answer is a transient
+ * failure, as it always was for blocking adapters.
+ */
+public class BlockingProviderAdapter implements AsyncProviderAdapter {
+
+    private final ExternalProviderAdapter delegate;
+    private final Executor executor;
+
+    public BlockingProviderAdapter(ExternalProviderAdapter delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletionStage<DeliveryResult> send(Notification notification) {
+        return CompletableFuture.supplyAsync(() -> delegate.sendNotification(notification)
+                ? DeliveryResult.accepted(null)
+                : DeliveryResult.transientFailure(DeliveryAttempt.PROVIDER_REJECTED,
+                        delegate.getType() + " provider returned failure"), executor);
+    }
+
+    @Override
+    public NotificationType getType() {
+        return delegate.getType();
+    }
+}
@@ -1,7 +1,18 @@
 package com.karboncard.assignment.notificationservice.worker.adapter;
 
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
 
+/**
+ * Blocking provider client, for providers without an asynchronous API.
+ * ProviderAdapterRegistry runs it on virtual threads through BlockingProviderAdapter; a channel with
+ * an AsyncProviderAdapter uses that one instead.
+ */
 public interface ExternalProviderAdapter {
     boolean sendNotification(Notification notification);
-}
\ No newline at end of file
+
+    /**
+     * @return the notification channel this adapter delivers
+     */
+    NotificationType getType();
+}
@@ -0,0 +1,123 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces outbound provider calls per channel with an AdaptiveTokenBucket, so the rate settles just
+ * below what the provider accepts for our account. Listeners take a token per record before
+ * delivering it. A listener that finds the bucket empty waits up to max-wait-ms for a token; past
+ * that it pauses its partitions for pauseFor and has the records redelivered, rather than sending
+ * them into the retry topics.
+ * ProviderCallGuard reports successful calls, and throttled or timed-out ones, back to the bucket.
+ */
+@Component
+public class OutboundRateController {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundRateController.class);
+
+    private final Map<NotificationType, AdaptiveTokenBucket> buckets = new EnumMap<>(NotificationType.class);
+    private final MetricsUtil metricsUtil;
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final Duration minPause;
+    private final Duration maxPause;
+
+    public OutboundRateController(MetricsUtil metricsUtil,
+                                  @Value("${notification.provider.rate.enabled:true}") boolean enabled,
+                                  @Value("${notification.provider.rate.initial-per-second:200}") double initialRate,
+                                  @Value("${notification.provider.rate.min-per-second:5}") double minRate,
+                                  @Value("${notification.provider.rate.max-per-second:2000}") double maxRate,
+                                  @Value("${notification.provider.rate.additive-increase:20}") double additiveIncrease,
+                                  @Value("${notification.provider.rate.decrease-factor:0.5}") double decreaseFactor,
+                                  @Value("${notification.provider.rate.burst-seconds:1}") double burstSeconds,
+                                  @Value("${notification.provider.rate.decrease-cooldown-ms:1000}") long decreaseCooldownMs,
+                                  @Value("${notification.provider.rate.max-wait-ms:200}") long maxWaitMs,
+                                  @Value("${notification.provider.rate.min-pause-ms:100}") long minPauseMs,
+                                  @Value("${notification.provider.rate.max-pause-ms:5000}") long maxPauseMs) {
+        this.metricsUtil = metricsUtil;
+        this.enabled = enabled;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.minPause = Duration.ofMillis(minPauseMs);
+        this.maxPause = Duration.ofMillis(maxPauseMs);
+        for (NotificationType type : NotificationType.values()) {
+            AdaptiveTokenBucket bucket = new AdaptiveTokenBucket(initialRate, minRate, maxRate, additiveIncrease,
+                    decreaseFactor, burstSeconds, TimeUnit.MILLISECONDS.toNanos(decreaseCooldownMs), System::nanoTime);
+            buckets.put(type, bucket);
+            metricsUtil.registerGauge("notification.provider.rate.current", Map.of("type", type.name()), bucket::getRate);
+        }
+    }
+
+    public boolean tryAcquire(NotificationType type) {
+        return acquire(type, 1) == 1;
+    }
+
+    /**
+     * Takes up to permits tokens, waiting at most max-wait-ms for the first one
+     *
+     * @return the number of records that may be delivered now; the rest must be redelivered later
+     */
+    public int acquire(NotificationType type, int permits) {
+        if (!enabled || permits == 0) {
+            return permits;
+        }
+        AdaptiveTokenBucket bucket = buckets.get(type);
+        long start = System.nanoTime();
+        int granted = bucket.tryAcquire(permits);
+        if (granted == 0) {
+            long wait = bucket.nanosUntilAvailable(1);
+            if (wait <= maxWaitNanos) {
+                LockSupport.parkNanos(wait);
+                granted = bucket.tryAcquire(permits);
+            }
+        }
+        Map<String, String> tags = Map.of("type", type.name());
+        if (granted > 0) {
+            metricsUtil.recordLatency("notification.provider.rate.queue_wait",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), tags);
+        }
+        if (granted < permits) {
+            metricsUtil.incrementCounter("notification.provider.rate.rejected", tags, permits - granted);
+        }
+        return granted;
+    }
+
+    /**
+     * @return how long a listener should pause before the given number of records can be delivered
+     */
+    public Duration pauseFor(NotificationType type, int permits) {
+        long wait = enabled ? buckets.get(type).nanosUntilAvailable(permits) : 0;
+        Duration pause = Duration.ofNanos(wait);
+        return pause.compareTo(minPause) < 0 ? minPause : pause.compareTo(maxPause) > 0 ? maxPause : pause;
+    }
+
+    public void onSuccess(NotificationType type) {
+        buckets.get(type).onSuccess();
+    }
+
+    /**
+     * Reports a call the provider throttled or did not answer in time
+     */
+    public void onThrottle(NotificationType type) {
+        AdaptiveTokenBucket bucket = buckets.get(type);
+        metricsUtil.incrementCounter("notification.provider.rate.throttled", Map.of("type", type.name()));
+        if (bucket.onThrottle()) {
+            log.warn("{} provider is throttling, outbound rate lowered to {}/s", type,
+                    String.format("%.1f", bucket.getRate()));
+        }
+    }
+
+    double getRate(NotificationType type) {
+        return buckets.get(type).getRate();
+    }
+}
@@ -0,0 +1,42 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The provider adapter of each channel. Asynchronous adapters are used as they are; blocking
+ * adapters are wrapped to run on virtual threads, and are only used for channels without an
+ * asynchronous one.
+ */
+@Component
+public class ProviderAdapterRegistry {
+
+    private final Map<NotificationType, AsyncProviderAdapter> adapters = new EnumMap<>(NotificationType.class);
+    private final ExecutorService blockingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ProviderAdapterRegistry(ObjectProvider<AsyncProviderAdapter> asyncAdapters,
+                                   ObjectProvider<ExternalProviderAdapter> blockingAdapters) {
+        asyncAdapters.orderedStream().forEach(adapter -> adapters.putIfAbsent(adapter.getType(), adapter));
+        blockingAdapters.orderedStream().forEach(adapter -> adapters.putIfAbsent(adapter.getType(),
+                new BlockingProviderAdapter(adapter, blockingExecutor)));
+    }
+
+    /**
+     * @return the channel's adapter, or null if none is registered
+     */
+    public AsyncProviderAdapter get(NotificationType type) {
+        return adapters.get(type);
+    }
+
+    @PreDestroy
+    public void close() {
+        blockingExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,214 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import com.karboncard.assignment.notificationservice.exception.NotificationDeliveryException;
+import com.karboncard.assignment.notificationservice.exception.ProviderUnavailableException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Guards every provider call with an in-flight limit, a circuit breaker, a bulkhead and a time limit
+ * per channel. The breaker, bulkhead and time limit are the resilience4j instances emailProvider,
+ * smsProvider and pushProvider.
+ * Calls are asynchronous. A caller waits only for an in-flight slot, which is freed when the call
+ * answers or times out, so a few threads can keep max-in-flight calls going per channel.
+ * While a breaker is open, or the bulkhead stays full for its max-wait-duration, calls fail fast
+ * with ProviderUnavailableException and the provider is not called. Every provider answer counts
+ * as a healthy call, failures included; exceptions and timeouts count against the breaker.
+ * A call that times out keeps its bulkhead slot until the provider returns, so the bulkhead caps
+ * how many hanging calls can pile up. Accepted calls, and throttled or timed-out ones, are reported
+ * to the OutboundRateController that paces the channel.
+ */
+@Component
+public class ProviderCallGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderCallGuard.class);
+
+    private record Channel(CircuitBreaker circuitBreaker, Bulkhead bulkhead, Semaphore inFlight, Duration timeout) {
+    }
+
+    private final Map<NotificationType, Channel> channels = new EnumMap<>(NotificationType.class);
+    private final MetricsUtil metricsUtil;
+    private final OutboundRateController rateController;
+
+    @Autowired
+    public ProviderCallGuard(ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistry,
+                             ObjectProvider<BulkheadRegistry> bulkheadRegistry,
+                             ObjectProvider<TimeLimiterRegistry> timeLimiterRegistry,
+                             MetricsUtil metricsUtil,
+                             OutboundRateController rateController,
+                             @Value("${notification.provider.max-in-flight:1000}") int maxInFlight) {
+        this(circuitBreakerRegistry.getIfAvailable(CircuitBreakerRegistry::ofDefaults),
+                bulkheadRegistry.getIfAvailable(BulkheadRegistry::ofDefaults),
+                timeLimiterRegistry.getIfAvailable(TimeLimiterRegistry::ofDefaults),
+                metricsUtil, rateController, maxInFlight);
+    }
+
+    ProviderCallGuard(CircuitBreakerRegistry circuitBreakerRegistry,
+                      BulkheadRegistry bulkheadRegistry,
+                      TimeLimiterRegistry timeLimiterRegistry,
+                      MetricsUtil metricsUtil,
+                      OutboundRateController rateController,
+                      int maxInFlight) {
+        this.metricsUtil = metricsUtil;
+        this.rateController = rateController;
+        for (NotificationType type : NotificationType.values()) {
+            String name = instanceName(type);
+            Map<String, String> tags = Map.of("type", type.name());
+
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(name);
+            circuitBreaker.getEventPublisher().onStateTransition(event -> {
+                CircuitBreaker.StateTransition transition = event.getStateTransition();
+                log.warn("{} provider circuit breaker moved from {} to {}", type,
+                        transition.getFromState(), transition.getToState());
+                metricsUtil.incrementCounter("notification.provider.circuit.transition", Map.of("type", type.name(),
+                        "from", transition.getFromState().name(), "to", transition.getToState().name()));
+            });
+            // 0 closed, 1 open, 2 half-open, see CircuitBreaker.State#getOrder
+            metricsUtil.registerGauge("notification.provider.circuit.state", tags, () -> circuitBreaker.getState().getOrder());
+
+            Bulkhead bulkhead = bulkheadRegistry.bulkhead(name);
+            int maxConcurrentCalls = bulkhead.getBulkheadConfig().getMaxConcurrentCalls();
+            metricsUtil.registerGauge("notification.provider.bulkhead.in_use", tags,
+                    () -> maxConcurrentCalls - bulkhead.getMetrics().getAvailableConcurrentCalls());
+            metricsUtil.registerGauge("notification.provider.bulkhead.saturation", tags,
+                    () -> 1.0 - (double) bulkhead.getMetrics().getAvailableConcurrentCalls() / maxConcurrentCalls);
+
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            metricsUtil.registerGauge("notification.provider.inflight", tags,
+                    () -> maxInFlight - inFlight.availablePermits());
+
+            Duration timeout = timeLimiterRegistry.timeLimiter(name).getTimeLimiterConfig().getTimeoutDuration();
+            channels.put(type, new Channel(circuitBreaker, bulkhead, inFlight, timeout));
+        }
+    }
+
+    /**
+     * Starts a provider call. Blocks only while the channel already has max-in-flight calls waiting
+     * for an answer.
+     *
+     * @return the provider's answer. Completes exceptionally with ProviderUnavailableException if the
+     * provider was not called, or with NotificationDeliveryException if the call timed out.
+     */
+    public CompletableFuture<DeliveryResult> sendAsync(AsyncProviderAdapter adapter, Notification notification) {
+        NotificationType type = adapter.getType();
+        Channel channel = channels.get(type);
+        CircuitBreaker circuitBreaker = channel.circuitBreaker();
+        Bulkhead bulkhead = channel.bulkhead();
+        Semaphore inFlight = channel.inFlight();
+
+        long waitStart = System.currentTimeMillis();
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(
+                    new NotificationDeliveryException(type + " provider call was interrupted"));
+        }
+        metricsUtil.recordLatency("notification.provider.inflight.wait", System.currentTimeMillis() - waitStart,
+                Map.of("type", type.name()));
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            inFlight.release();
+            recordCall(type, "circuit_open");
+            return CompletableFuture.failedFuture(
+                    new ProviderUnavailableException(type, type + " provider circuit breaker is open"));
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            inFlight.release();
+            recordCall(type, "bulkhead_full");
+            return CompletableFuture.failedFuture(
+                    new ProviderUnavailableException(type, type + " provider has no free call slots"));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<DeliveryResult> call;
+        try {
+            call = adapter.send(notification).toCompletableFuture();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((result, error) -> bulkhead.onComplete());
+
+        // The copy times out on its own, leaving the call and its bulkhead slot until the provider returns
+        Duration timeout = channel.timeout();
+        return call.copy().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).handle((result, error) -> {
+            inFlight.release();
+            long duration = System.nanoTime() - start;
+            if (error == null) {
+                circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+                recordCall(type, result.getStatus().name().toLowerCase(Locale.ROOT));
+                if (result.isAccepted()) {
+                    rateController.onSuccess(type);
+                } else if (result.getStatus() == DeliveryResult.Status.THROTTLED) {
+                    rateController.onThrottle(type);
+                }
+                return result;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, cause);
+            if (cause instanceof TimeoutException) {
+                recordCall(type, "timeout");
+                rateController.onThrottle(type);
+                throw new NotificationDeliveryException(type + " provider did not answer within "
+                        + timeout.toMillis() + " ms");
+            }
+            recordCall(type, "failure");
+            throw cause instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new NotificationDeliveryException(type + " provider call failed: " + cause);
+        });
+    }
+
+    /**
+     * Calls the provider and waits for its answer, for callers that handle one notification at a time
+     *
+     * @throws ProviderUnavailableException if the provider was not called
+     * @throws NotificationDeliveryException if the call timed out
+     */
+    public DeliveryResult send(AsyncProviderAdapter adapter, Notification notification) {
+        try {
+            return sendAsync(adapter, notification).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState(NotificationType type) {
+        return channels.get(type).circuitBreaker().getState();
+    }
+
+    static String instanceName(NotificationType type) {
+        return type.name().toLowerCase(Locale.ROOT) + "Provider";
+    }
+
+    private void recordCall(NotificationType type, String result) {
+        metricsUtil.incrementCounter("notification.provider.calls", Map.of("type", type.name(), "result", result));
+    }
+}
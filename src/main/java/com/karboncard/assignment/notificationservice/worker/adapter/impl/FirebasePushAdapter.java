@@ -1,16 +1,23 @@
 package com.karboncard.assignment.notificationservice.worker.adapter.impl;
 
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
-import com.karboncard.assignment.notificationservice.worker.adapter.ExternalProviderAdapter;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.worker.adapter.AsyncProviderAdapter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 @Component
 @Slf4j
-public class FirebasePushAdapter implements ExternalProviderAdapter {
+public class FirebasePushAdapter implements AsyncProviderAdapter {
 
     @Override
-    public boolean sendNotification(Notification notification) {
+    public CompletionStage<DeliveryResult> send(Notification notification) {
         // MOCK: No real push notification will be sent.
         String deviceToken = notification.getTemplateParams().containsKey("deviceToken")
                 ? notification.getTemplateParams().get("deviceToken").toString()
@@ -34,8 +41,14 @@ public class FirebasePushAdapter implements ExternalProviderAdapter {
         // Deterministic: fail only if "body" is "FAIL"
         if ("FAIL".equalsIgnoreCase(body)) {
             log.warn("MOCK: Deterministic failure sending Push notification to device {} (notificationId={})", deviceToken, notification.getId());
-            return false;
+            return CompletableFuture.completedFuture(DeliveryResult.transientFailure(
+                    DeliveryAttempt.PROVIDER_REJECTED, "Push provider returned failure"));
         }
-        return true;
+        return CompletableFuture.completedFuture(DeliveryResult.accepted("projects/mock/messages/" + UUID.randomUUID()));
+    }
+
+    @Override
+    public NotificationType getType() {
+        return NotificationType.PUSH;
     }
-}
\ No newline at end of file
+}
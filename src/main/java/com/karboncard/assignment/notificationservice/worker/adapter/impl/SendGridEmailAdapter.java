@@ -1,16 +1,23 @@
 package com.karboncard.assignment.notificationservice.worker.adapter.impl;
 
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
-import com.karboncard.assignment.notificationservice.worker.adapter.ExternalProviderAdapter;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.worker.adapter.AsyncProviderAdapter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 @Component
 @Slf4j
-public class SendGridEmailAdapter implements ExternalProviderAdapter {
+public class SendGridEmailAdapter implements AsyncProviderAdapter {
 
     @Override
-    public boolean sendNotification(Notification notification) {
+    public CompletionStage<DeliveryResult> send(Notification notification) {
         // MOCK: No real email will be sent.
         String emailAddress = notification.getTemplateParams().containsKey("email")
                 ? notification.getTemplateParams().get("email").toString()
@@ -34,8 +41,14 @@ public class SendGridEmailAdapter implements ExternalProviderAdapter {
         // Deterministic: fail only if "content" is "FAIL"
         if ("FAIL".equalsIgnoreCase(content)) {
             log.warn("MOCK: Deterministic failure sending Email to {} (notificationId={})", emailAddress, notification.getId());
-            return false;
+            return CompletableFuture.completedFuture(DeliveryResult.transientFailure(
+                    DeliveryAttempt.PROVIDER_REJECTED, "Email provider returned failure"));
         }
-        return true;
+        return CompletableFuture.completedFuture(DeliveryResult.accepted(UUID.randomUUID().toString()));
+    }
+
+    @Override
+    public NotificationType getType() {
+        return NotificationType.EMAIL;
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,23 @@
 package com.karboncard.assignment.notificationservice.worker.adapter.impl;
 
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
-import com.karboncard.assignment.notificationservice.worker.adapter.ExternalProviderAdapter;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.worker.adapter.AsyncProviderAdapter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 @Component
 @Slf4j
-public class TwilioSmsAdapter implements ExternalProviderAdapter {
+public class TwilioSmsAdapter implements AsyncProviderAdapter {
 
     @Override
-    public boolean sendNotification(Notification notification) {
+    public CompletionStage<DeliveryResult> send(Notification notification) {
         // MOCK: No real SMS will be sent.
         String phoneNumber = notification.getTemplateParams().containsKey("phoneNumber")
                 ? notification.getTemplateParams().get("phoneNumber").toString()
@@ -30,8 +37,14 @@ public class TwilioSmsAdapter implements ExternalProviderAdapter {
         // Deterministic: fail only if message/content is "FAIL"
         if ("FAIL".equalsIgnoreCase(message)) {
             log.warn("MOCK: Deterministic failure sending SMS to {} (notificationId={})", phoneNumber, notification.getId());
-            return false;
+            return CompletableFuture.completedFuture(DeliveryResult.transientFailure(
+                    DeliveryAttempt.PROVIDER_REJECTED, "SMS provider returned failure"));
         }
-        return true;
+        return CompletableFuture.completedFuture(DeliveryResult.accepted("SM" + UUID.randomUUID().toString().replace("-", "")));
+    }
+
+    @Override
+    public NotificationType getType() {
+        return NotificationType.SMS;
     }
-}
\ No newline at end of file
+}
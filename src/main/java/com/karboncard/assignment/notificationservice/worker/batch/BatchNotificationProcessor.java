@@ -0,0 +1,242 @@
+package com.karboncard.assignment.notificationservice.worker.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.exception.ProviderUnavailableException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryOutcome;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.entity.UuidStringJavaType;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.repository.NotificationAttemptRepository;
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.repository.NotificationStatusBatchRepository;
+import com.karboncard.assignment.notificationservice.service.status.NotificationStateMachine;
+import com.karboncard.assignment.notificationservice.util.CreatedAtRange;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.worker.adapter.AsyncProviderAdapter;
+import com.karboncard.assignment.notificationservice.worker.adapter.ProviderAdapterRegistry;
+import com.karboncard.assignment.notificationservice.worker.adapter.ProviderCallGuard;
+import com.karboncard.assignment.notificationservice.worker.dedup.NotificationDeduplicator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivers a whole Kafka poll batch for one channel: one query to load the notifications,
+ * asynchronous provider calls, one batched UPDATE for every outcome and one multi-row INSERT of
+ * the attempts. The calls are started from the listener thread and bounded by the channel's
+ * max-in-flight, so no thread waits on a single provider answer.
+ * The batch's ids are claimed in one pipelined dedup round trip before anything is loaded.
+ * Notifications whose provider is unavailable are parked for the retry sweeper without counting
+ * an attempt.
+ */
+@Component
+@Slf4j
+public class BatchNotificationProcessor {
+
+    private final ObjectMapper objectMapper;
+    private final NotificationRepository notificationRepository;
+    private final NotificationStatusBatchRepository statusBatchRepository;
+    private final NotificationAttemptRepository attemptRepository;
+    private final ProviderAdapterRegistry adapters;
+    private final MetricsUtil metricsUtil;
+    private final NotificationDeduplicator deduplicator;
+    private final ProviderCallGuard providerCallGuard;
+    private final NotificationStateMachine stateMachine;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.worker.max-attempts:4}")
+    private int maxAttempts = 4;
+
+    @Value("${notification.retry-sweeper.sweep-delay-ms:900000}")
+    private long sweepDelayMs = 900000;
+
+    public BatchNotificationProcessor(ObjectMapper objectMapper,
+                                      NotificationRepository notificationRepository,
+                                      NotificationStatusBatchRepository statusBatchRepository,
+                                      NotificationAttemptRepository attemptRepository,
+                                      ProviderAdapterRegistry adapters,
+                                      MetricsUtil metricsUtil,
+                                      NotificationDeduplicator deduplicator,
+                                      ProviderCallGuard providerCallGuard,
+                                      NotificationStateMachine stateMachine,
+                                      PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.notificationRepository = notificationRepository;
+        this.statusBatchRepository = statusBatchRepository;
+        this.attemptRepository = attemptRepository;
+        this.adapters = adapters;
+        this.metricsUtil = metricsUtil;
+        this.deduplicator = deduplicator;
+        this.providerCallGuard = providerCallGuard;
+        this.stateMachine = stateMachine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Processes one poll batch. Returns only after the status updates have committed,
+     * so the caller can acknowledge the batch offsets afterwards.
+     *
+     * @param type The channel of the topic the batch came from
+     * @param messages The raw Kafka record values
+     * @return the number of notifications delivered or failed
+     */
+    public int processBatch(NotificationType type, List<String> messages) {
+        long startTime = System.currentTimeMillis();
+        AsyncProviderAdapter adapter = adapters.get(type);
+        if (adapter == null) {
+            throw new IllegalStateException("No provider adapter registered for " + type);
+        }
+
+        // Redelivered records and duplicates within the poll collapse to one id
+        Set<String> ids = new LinkedHashSet<>();
+        for (String message : messages) {
+            try {
+                Notification notification = objectMapper.readValue(message, Notification.class);
+                if (UuidStringJavaType.isUuid(notification.getId())) {
+                    ids.add(notification.getId());
+                } else if (notification.getId() != null) {
+                    throw new IllegalArgumentException("Notification id is not a UUID: " + notification.getId());
+                }
+            } catch (Exception e) {
+                log.error("Skipping malformed {} notification message: {}", type, message, e);
+                metricsUtil.incrementCounter("notification.worker.batch.malformed", Map.of("type", type.name()));
+            }
+        }
+
+        // Ids claimed by another worker are being or have been delivered there
+        Set<String> claimed = deduplicator.claimAll(ids);
+        if (claimed.size() < ids.size()) {
+            log.info("Skipping {} of {} {} notifications claimed by another worker", ids.size() - claimed.size(),
+                    ids.size(), type);
+        }
+
+        List<DeliveryOutcome> outcomes;
+        Set<String> finished = new HashSet<>();
+        try {
+            List<Notification> pending = new ArrayList<>(claimed.size());
+            CreatedAtRange createdAt = CreatedAtRange.of(claimed);
+            for (Notification notification : notificationRepository.findByIdInAndCreatedAtBetween(claimed,
+                    createdAt.from(), createdAt.to())) {
+                if (notification.getStatus() == NotificationStatus.SENT
+                        || notification.getStatus() == NotificationStatus.PERMANENT_FAILURE) {
+                    log.debug("Notification {} already in final status {}, skipping", notification.getId(),
+                            notification.getStatus());
+                    finished.add(notification.getId());
+                    continue;
+                }
+                pending.add(notification);
+            }
+            if (pending.size() < claimed.size()) {
+                log.info("{} of {} {} notifications were missing or already final", claimed.size() - pending.size(),
+                        claimed.size(), type);
+            }
+
+            Set<String> parked = ConcurrentHashMap.newKeySet();
+            List<CompletableFuture<DeliveryOutcome>> deliveries = new ArrayList<>(pending.size());
+            for (Notification notification : pending) {
+                deliveries.add(deliver(adapter, notification, parked));
+            }
+            outcomes = new ArrayList<>(deliveries.size());
+            for (CompletableFuture<DeliveryOutcome> delivery : deliveries) {
+                DeliveryOutcome outcome = delivery.join();
+                if (outcome != null) {
+                    outcomes.add(outcome);
+                }
+            }
+            if (!parked.isEmpty()) {
+                log.warn("Parked {} {} notifications while the provider is unavailable", parked.size(), type);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                statusBatchRepository.applyOutcomes(outcomes);
+                attemptRepository.insertAll(outcomes.stream().map(DeliveryOutcome::toAttempt).toList());
+                stateMachine.park(parked, type + " provider unavailable");
+            });
+        } catch (RuntimeException e) {
+            deduplicator.releaseAll(claimed);
+            throw e;
+        }
+
+        // Final outcomes keep their claim; FAILED ones are released for the next delivery
+        outcomes.stream()
+                .filter(outcome -> outcome.getStatus() != NotificationStatus.FAILED)
+                .forEach(outcome -> finished.add(outcome.getNotificationId()));
+        deduplicator.completeAll(finished);
+        deduplicator.releaseAll(claimed.stream().filter(id -> !finished.contains(id)).toList());
+
+        long sent = outcomes.stream().filter(outcome -> outcome.getStatus() == NotificationStatus.SENT).count();
+        metricsUtil.incrementCounter("notification.worker.delivered",
+                Map.of("type", type.name(), "status", "success"), sent);
+        metricsUtil.incrementCounter("notification.worker.delivered",
+                Map.of("type", type.name(), "status", "failure"), outcomes.size() - sent);
+        metricsUtil.recordLatency("notification.worker.batch.latency", System.currentTimeMillis() - startTime,
+                Map.of("type", type.name()));
+        log.info("Processed {} batch of {} records: {} sent, {} failed", type, messages.size(), sent,
+                outcomes.size() - sent);
+        return outcomes.size();
+    }
+
+    /**
+     * @return the attempt's outcome, or null if the provider was not called and the id was added to parked
+     */
+    private CompletableFuture<DeliveryOutcome> deliver(AsyncProviderAdapter adapter, Notification notification,
+                                                       Set<String> parked) {
+        LocalDateTime attemptedAt = LocalDateTime.now();
+        int attemptNumber = notification.getDeliveryAttempts() + 1;
+        return providerCallGuard.sendAsync(adapter, notification).handle((result, error) -> {
+            if (error == null) {
+                return outcome(notification, attemptNumber, attemptedAt, result);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof ProviderUnavailableException) {
+                parked.add(notification.getId());
+                return null;
+            }
+            return outcome(notification, attemptNumber, attemptedAt,
+                    DeliveryResult.transientFailure(DeliveryAttempt.errorCode(cause), cause.getMessage()));
+        });
+    }
+
+    private DeliveryOutcome outcome(Notification notification, int attemptNumber, LocalDateTime attemptedAt,
+                                    DeliveryResult result) {
+        if (result.isAccepted()) {
+            return DeliveryOutcome.builder()
+                    .notificationId(notification.getId())
+                    .createdAt(notification.getCreatedAt())
+                    .status(NotificationStatus.SENT)
+                    .attemptNumber(attemptNumber)
+                    .attemptedAt(attemptedAt)
+                    .providerMessageId(result.getProviderMessageId())
+                    .build();
+        }
+        log.error("Failed to deliver notification {}: {}", notification.getId(), result.getErrorMessage());
+        boolean exhausted = result.getStatus() == DeliveryResult.Status.PERMANENT_FAILURE || attemptNumber >= maxAttempts;
+        return DeliveryOutcome.builder()
+                .notificationId(notification.getId())
+                .createdAt(notification.getCreatedAt())
+                .status(exhausted ? NotificationStatus.PERMANENT_FAILURE : NotificationStatus.FAILED)
+                .attemptNumber(attemptNumber)
+                .errorCode(result.getErrorCode())
+                .errorMessage(result.getErrorMessage())
+                .attemptedAt(attemptedAt)
+                .nextAttemptAt(exhausted ? null : attemptedAt.plus(Duration.ofMillis(sweepDelayMs)))
+                .build();
+    }
+}
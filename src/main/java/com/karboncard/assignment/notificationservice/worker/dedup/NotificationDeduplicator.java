@@ -0,0 +1,246 @@
+package com.karboncard.assignment.notificationservice.worker.dedup;
+
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.util.BoundedTtlCache;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.worker.NotificationConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cluster-wide guard against delivering a redelivered Kafka record twice.
+ * Before delivery a worker claims the notification id with SET NX PX; a claim that already exists
+ * means another worker is delivering or has delivered it. Finished ids are re-set with a long TTL
+ * and remembered in a local cache, which answers most redeliveries without Redis; failed ids are
+ * released so their retries can claim them again. A whole poll is claimed in one pipeline.
+ * Redis errors fail open: the records are delivered, as they were before this stage existed.
+ */
+@Component
+public class NotificationDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDeduplicator.class);
+    private static final String KEY_PREFIX = "dedup:notification:";
+    private static final byte[] DONE = "done".getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MetricsUtil metricsUtil;
+    private final RedisScript<Long> releaseScript;
+    private final BoundedTtlCache<String, Boolean> finished;
+    private final boolean enabled;
+    private final long claimTtlMs;
+    private final long doneTtlMs;
+    // Identifies this worker's claims, so a release never drops a claim taken over by another worker
+    private final String owner;
+
+    public NotificationDeduplicator(StringRedisTemplate redisTemplate,
+                                    MetricsUtil metricsUtil,
+                                    @Value("${notification.worker.dedup.enabled:true}") boolean enabled,
+                                    @Value("${notification.worker.dedup.claim-ttl-ms:30000}") long claimTtlMs,
+                                    @Value("${notification.worker.dedup.done-ttl-minutes:1440}") long doneTtlMinutes,
+                                    @Value("${notification.worker.dedup.local-cache-size:100000}") int localCacheSize,
+                                    @Value("${notification.worker.dedup.local-cache-ttl-minutes:10}") long localCacheTtlMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.metricsUtil = metricsUtil;
+        this.enabled = enabled;
+        this.claimTtlMs = claimTtlMs;
+        this.doneTtlMs = Duration.ofMinutes(doneTtlMinutes).toMillis();
+        this.finished = new BoundedTtlCache<>(localCacheSize, 16, Duration.ofMinutes(localCacheTtlMinutes));
+        this.owner = hostName() + ":" + UUID.randomUUID();
+
+        DefaultRedisScript<Long> release = new DefaultRedisScript<>();
+        release.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/dedup_release.lua")));
+        release.setResultType(Long.class);
+        this.releaseScript = release;
+
+        metricsUtil.registerGauge("notification.dedup.local_cache.size", Map.of(), finished::size);
+    }
+
+    /**
+     * Claims, delivers and then completes or releases one notification
+     *
+     * @param notification The notification read from Kafka
+     * @param consumer The channel consumer that delivers it
+     * @return false if the notification was skipped as a duplicate
+     */
+    public boolean process(Notification notification, NotificationConsumer consumer) {
+        String notificationId = notification.getId();
+        if (notificationId != null && !claim(notificationId)) {
+            log.info("Skipping duplicate delivery of notification {}", notificationId);
+            return false;
+        }
+        try {
+            consumer.processNotification(notification);
+        } catch (RuntimeException e) {
+            if (notificationId != null) {
+                release(notificationId);
+            }
+            throw e;
+        }
+        if (notificationId != null) {
+            complete(notificationId);
+        }
+        return true;
+    }
+
+    public boolean claim(String notificationId) {
+        return claimAll(List.of(notificationId)).contains(notificationId);
+    }
+
+    /**
+     * Claims a batch of ids with one pipelined round trip
+     *
+     * @param notificationIds The ids of one poll; repeated ids are claimed once
+     * @return the ids this worker may deliver, in order
+     */
+    public Set<String> claimAll(Collection<String> notificationIds) {
+        Set<String> claimed = new LinkedHashSet<>(notificationIds);
+        if (!enabled || claimed.isEmpty()) {
+            return claimed;
+        }
+
+        List<String> candidates = new ArrayList<>(claimed.size());
+        for (String notificationId : claimed) {
+            if (finished.get(notificationId) == null) {
+                candidates.add(notificationId);
+            }
+        }
+        long localDuplicates = claimed.size() - candidates.size();
+        claimed.retainAll(candidates);
+        if (candidates.isEmpty()) {
+            recordClaims(0, localDuplicates, 0);
+            return claimed;
+        }
+
+        byte[] ownerValue = owner.getBytes(StandardCharsets.UTF_8);
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String notificationId : candidates) {
+                    connection.stringCommands().set(key(notificationId), ownerValue,
+                            Expiration.milliseconds(claimTtlMs), RedisStringCommands.SetOption.ifAbsent());
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Dedup claims failed, delivering {} notifications unchecked: {}", candidates.size(), e.toString());
+            metricsUtil.incrementCounter("notification.dedup.claims",
+                    Map.of("result", "unchecked", "source", "redis"), candidates.size());
+            recordClaims(0, localDuplicates, 0);
+            return claimed;
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            if (!Boolean.TRUE.equals(results.get(i))) {
+                claimed.remove(candidates.get(i));
+            }
+        }
+        recordClaims(claimed.size(), localDuplicates, candidates.size() - claimed.size());
+        return claimed;
+    }
+
+    public void complete(String notificationId) {
+        completeAll(List.of(notificationId));
+    }
+
+    /**
+     * Marks claimed ids as finished, so redeliveries are skipped for the done TTL.
+     * Call for delivered and permanently failed notifications.
+     */
+    public void completeAll(Collection<String> notificationIds) {
+        if (!enabled || notificationIds.isEmpty()) {
+            return;
+        }
+        notificationIds.forEach(notificationId -> finished.put(notificationId, Boolean.TRUE));
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String notificationId : notificationIds) {
+                    connection.stringCommands().set(key(notificationId), DONE,
+                            Expiration.milliseconds(doneTtlMs), RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // The claims expire on their own; only the cluster-wide marker is lost
+            log.warn("Failed to mark {} notifications as delivered: {}", notificationIds.size(), e.toString());
+        }
+    }
+
+    public void release(String notificationId) {
+        releaseAll(List.of(notificationId));
+    }
+
+    /**
+     * Gives up claims of ids that were not delivered, so their retries are not skipped
+     */
+    public void releaseAll(Collection<String> notificationIds) {
+        if (!enabled) {
+            return;
+        }
+        for (String notificationId : notificationIds) {
+            try {
+                redisTemplate.execute(releaseScript, List.of(KEY_PREFIX + notificationId), owner);
+            } catch (RuntimeException e) {
+                log.warn("Failed to release dedup claim of notification {}, it expires in {} ms: {}",
+                        notificationId, claimTtlMs, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Drops the finished markers of ids that are about to be delivered again, e.g. replayed dead letters
+     */
+    public void forgetAll(Collection<String> notificationIds) {
+        if (!enabled || notificationIds.isEmpty()) {
+            return;
+        }
+        notificationIds.forEach(finished::invalidate);
+        try {
+            redisTemplate.delete(notificationIds.stream().map(notificationId -> KEY_PREFIX + notificationId).toList());
+        } catch (RuntimeException e) {
+            log.warn("Failed to clear dedup markers of {} notifications: {}", notificationIds.size(), e.toString());
+        }
+    }
+
+    private void recordClaims(long claimed, long localDuplicates, long redisDuplicates) {
+        metricsUtil.incrementCounter("notification.dedup.claims",
+                Map.of("result", "claimed", "source", "redis"), claimed);
+        metricsUtil.incrementCounter("notification.dedup.claims",
+                Map.of("result", "duplicate", "source", "local"), localDuplicates);
+        metricsUtil.incrementCounter("notification.dedup.claims",
+                Map.of("result", "duplicate", "source", "redis"), redisDuplicates);
+    }
+
+    private static byte[] key(String notificationId) {
+        return (KEY_PREFIX + notificationId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -1,31 +1,78 @@
 package com.karboncard.assignment.notificationservice.worker.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetter;
 import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterPayload;
+import com.karboncard.assignment.notificationservice.repository.DeadLetterRepository;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.UuidV7Generator;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores each poll of the DLQ topic in dead_letters with one multi-row INSERT and acknowledges
+ * the poll once it has committed, so dead letters survive for querying and replay.
+ */
 @Component
 public class DeadLetterQueueConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(DeadLetterQueueConsumer.class);
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final DeadLetterRepository deadLetterRepository;
+    private final MetricsUtil metricsUtil;
+
+    public DeadLetterQueueConsumer(DeadLetterRepository deadLetterRepository, MetricsUtil metricsUtil) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.metricsUtil = metricsUtil;
+    }
 
     @KafkaListener(
             topics = "${app.kafka.dead-letter-topic:notification-dlq}",
-            groupId = "${spring.kafka.consumer.group-id:notification-dlq-consumer-group}"
+            groupId = "${spring.kafka.consumer.group-id:notification-dlq-consumer-group}",
+            containerFactory = "deadLetterKafkaListenerContainerFactory"
     )
-    public void consume(ConsumerRecord<String, String> record) {
-        try {
-            DeadLetterPayload payload = objectMapper.readValue(record.value(), DeadLetterPayload.class);
-            logger.error("Processing DLQ message: {}", payload);
-            // TODO: Optionally persist DLQ payload in DB for audit or alerting
-        } catch (Exception e) {
-            logger.error("Failed to process DLQ message: {}", record.value(), e);
+    public void consume(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        List<DeadLetter> deadLetters = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                DeadLetterPayload payload = objectMapper.readValue(record.value(), DeadLetterPayload.class);
+                deadLetters.add(DeadLetter.builder()
+                        .id(UuidV7Generator.generate().toString())
+                        .sourcePartition(record.partition())
+                        .sourceOffset(record.offset())
+                        .originalTopic(payload.getOriginalTopic())
+                        .originalKey(payload.getOriginalKey())
+                        .originalPayload(payload.getOriginalPayload())
+                        .errorReason(payload.getErrorReason())
+                        .failedAt(payload.getTimestamp() != null
+                                ? LocalDateTime.ofInstant(payload.getTimestamp(), ZoneId.systemDefault())
+                                : LocalDateTime.now())
+                        .build());
+            } catch (Exception e) {
+                logger.error("Failed to parse DLQ message at offset {}: {}", record.offset(), record.value(), e);
+                metricsUtil.incrementCounter("notification.dlq.stored", Map.of("result", "malformed"));
+            }
+        }
+
+        // A failed insert is rethrown; the container's error handler retries the poll until it is stored
+        int inserted = deadLetterRepository.insertAll(deadLetters);
+        metricsUtil.incrementCounter("notification.dlq.stored", Map.of("result", "inserted"), inserted);
+        metricsUtil.incrementCounter("notification.dlq.stored", Map.of("result", "duplicate"),
+                deadLetters.size() - inserted);
+        if (inserted > 0) {
+            logger.info("Stored {} dead letters ({} already stored)", inserted, deadLetters.size() - inserted);
         }
+        acknowledgment.acknowledge();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.karboncard.assignment.notificationservice.worker.impl;
+
+import com.karboncard.assignment.notificationservice.exception.NotificationDeliveryException;
+import com.karboncard.assignment.notificationservice.exception.NotificationNotFoundException;
+import com.karboncard.assignment.notificationservice.exception.ProviderUnavailableException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.service.attempt.DeliveryAttemptLog;
+import com.karboncard.assignment.notificationservice.service.status.NotificationStateMachine;
+import com.karboncard.assignment.notificationservice.util.CreatedAtRange;
+import com.karboncard.assignment.notificationservice.worker.adapter.AsyncProviderAdapter;
+import com.karboncard.assignment.notificationservice.worker.adapter.ProviderCallGuard;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * One delivery attempt of a notification, shared by the per-channel consumers.
+ * Failures are rethrown so the listener's retry topics schedule the next attempt without
+ * blocking the partition. While the provider is unavailable the notification is parked and
+ * ProviderUnavailableException is thrown. A permanent failure ends the notification without a retry.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDeliveryFlow {
+
+    private final ProviderCallGuard providerCallGuard;
+    private final NotificationRepository notificationRepository;
+    private final NotificationStateMachine stateMachine;
+    private final DeliveryAttemptLog attemptLog;
+
+    /**
+     * @param adapter The provider of the notification's channel
+     * @param channel The channel name used in logs and error messages
+     * @param notification The notification read from the topic; its current state is re-read
+     */
+    public void deliver(AsyncProviderAdapter adapter, String channel, Notification notification) {
+        String notificationId = notification.getId();
+        log.info("Processing {} notification: {}", channel, notificationId);
+
+        // Counts the attempt; notifications that are already final are not sent again
+        if (!stateMachine.startAttempt(notificationId)) {
+            log.info("Skipping {} notification {}, it is final or missing", channel, notificationId);
+            return;
+        }
+
+        int attemptNumber = 0;
+        DeliveryResult result;
+        try {
+            CreatedAtRange range = CreatedAtRange.of(notificationId);
+            Notification freshNotification = notificationRepository
+                    .findByIdAndCreatedAtBetween(notificationId, range.from(), range.to())
+                    .orElseThrow(() -> new NotificationNotFoundException(notificationId));
+            attemptNumber = freshNotification.getDeliveryAttempts();
+
+            // Send notification through adapter, guarded by the channel's circuit breaker and bulkhead
+            result = providerCallGuard.send(adapter, freshNotification);
+        } catch (ProviderUnavailableException e) {
+            // The provider was not called, so the attempt is given back and the sweeper retries later
+            stateMachine.parkAttempt(notificationId, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            handleFailure(channel, notificationId, attemptNumber, DeliveryAttempt.errorCode(e), e.getMessage());
+            throw e; // Rethrow so the record moves to the next retry topic
+        }
+
+        switch (result.getStatus()) {
+            case ACCEPTED -> {
+                stateMachine.markSent(notificationId);
+                attemptLog.recordSent(notificationId, attemptNumber, result.getProviderMessageId());
+                log.info("Sent {} notification {}", channel, notificationId);
+            }
+            case PERMANENT_FAILURE -> {
+                // Retrying cannot help, so the record is done without going through the retry topics
+                log.error("Provider rejected {} notification {}: {}", channel, notificationId,
+                        result.getErrorMessage());
+                stateMachine.markRejected(notificationId, result.getErrorMessage());
+                attemptLog.recordFailure(notificationId, attemptNumber, NotificationStatus.PERMANENT_FAILURE,
+                        result.getErrorCode(), result.getErrorMessage());
+            }
+            default -> {
+                handleFailure(channel, notificationId, attemptNumber, result.getErrorCode(), result.getErrorMessage());
+                throw new NotificationDeliveryException(
+                        "Provider returned failure for " + channel + " notification " + notificationId);
+            }
+        }
+    }
+
+    private void handleFailure(String channel, String notificationId, int attemptNumber, String errorCode,
+                               String errorMessage) {
+        log.error("Failed to process {} notification {}: {}", channel, notificationId, errorMessage);
+        NotificationStatus outcome = stateMachine.failAttempt(notificationId, attemptNumber, errorMessage);
+        attemptLog.recordFailure(notificationId, attemptNumber, outcome, errorCode, errorMessage);
+    }
+}
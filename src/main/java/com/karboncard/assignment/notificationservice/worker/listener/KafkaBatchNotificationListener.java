@@ -0,0 +1,64 @@
+package com.karboncard.assignment.notificationservice.worker.listener;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.worker.adapter.OutboundRateController;
+import com.karboncard.assignment.notificationservice.worker.batch.BatchNotificationProcessor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Batch-mode listener (notification.worker.listener-mode=batch). Each poll is handed to
+ * {@link BatchNotificationProcessor} and acknowledged only once its status updates have committed.
+ * Only as many records as the channel's outbound rate allows are processed; the rest of the poll
+ * is nacked, so the container pauses and redelivers it once tokens are available again.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.worker.listener-mode", havingValue = "batch")
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaBatchNotificationListener {
+
+    private final BatchNotificationProcessor batchProcessor;
+    private final OutboundRateController rateController;
+
+    @KafkaListener(topics = "notification-email-topic", groupId = "email-notification-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeEmailNotifications(List<String> messages, Acknowledgment acknowledgment) {
+        log.info("Received batch of {} email notification messages", messages.size());
+        process(NotificationType.EMAIL, messages, acknowledgment);
+    }
+
+    @KafkaListener(topics = "notification-sms-topic", groupId = "sms-notification-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeSmsNotifications(List<String> messages, Acknowledgment acknowledgment) {
+        log.info("Received batch of {} SMS notification messages", messages.size());
+        process(NotificationType.SMS, messages, acknowledgment);
+    }
+
+    @KafkaListener(topics = "notification-push-topic", groupId = "push-notification-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumePushNotifications(List<String> messages, Acknowledgment acknowledgment) {
+        log.info("Received batch of {} push notification messages", messages.size());
+        process(NotificationType.PUSH, messages, acknowledgment);
+    }
+
+    private void process(NotificationType type, List<String> messages, Acknowledgment acknowledgment) {
+        int allowed = rateController.acquire(type, messages.size());
+        if (allowed > 0) {
+            batchProcessor.processBatch(type, messages.subList(0, allowed));
+        }
+        if (allowed < messages.size()) {
+            log.debug("{} outbound rate used up, deferring {} records", type, messages.size() - allowed);
+            // Commits the processed records and redelivers the rest after the pause
+            acknowledgment.nack(allowed, rateController.pauseFor(type, messages.size() - allowed));
+        } else {
+            acknowledgment.acknowledge();
+        }
+    }
+}
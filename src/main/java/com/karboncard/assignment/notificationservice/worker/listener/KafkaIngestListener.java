@@ -0,0 +1,32 @@
+package com.karboncard.assignment.notificationservice.worker.listener;
+
+import com.karboncard.assignment.notificationservice.service.ingest.IngestPersister;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Consumes the Kafka-first ingest topic in large polls and acknowledges each poll once
+ * {@link IngestPersister} has written and forwarded it.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.ingest.kafka-first.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaIngestListener {
+
+    private final IngestPersister persister;
+
+    @KafkaListener(topics = "${notification.ingest.kafka-first.topic:notification-ingest-topic}",
+            groupId = "notification-persister-group", containerFactory = "persisterKafkaListenerContainerFactory")
+    public void consumeIngestRecords(List<String> messages, Acknowledgment acknowledgment) {
+        log.info("Received batch of {} ingest records", messages.size());
+        persister.persist(messages);
+        acknowledgment.acknowledge();
+    }
+}
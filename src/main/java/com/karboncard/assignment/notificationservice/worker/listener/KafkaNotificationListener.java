@@ -2,16 +2,33 @@ package com.karboncard.assignment.notificationservice.worker.listener;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.exception.ProviderUnavailableException;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.worker.NotificationConsumer;
+import com.karboncard.assignment.notificationservice.worker.adapter.OutboundRateController;
+import com.karboncard.assignment.notificationservice.worker.dedup.NotificationDeduplicator;
 import com.karboncard.assignment.notificationservice.worker.impl.EmailNotificationConsumer;
 import com.karboncard.assignment.notificationservice.worker.impl.SmsNotificationConsumer;
 import com.karboncard.assignment.notificationservice.worker.impl.PushNotificationConsumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+/**
+ * Single-record listener. A failed delivery throws, and the retry topics configured in
+ * KafkaRetryTopicConfig take the record off this partition; successful records are acknowledged.
+ * Redelivered records whose notification is being or has been delivered elsewhere are acknowledged
+ * without delivery. Records parked because their provider is unavailable are acknowledged too; the
+ * retry sweeper delivers them once the provider's circuit breaker lets calls through.
+ * While the channel's outbound rate is used up, the record is nacked: the container pauses and
+ * redelivers it once tokens are available again.
+ */
 @Component
+@ConditionalOnProperty(name = "notification.worker.listener-mode", havingValue = "single", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaNotificationListener {
@@ -20,25 +37,45 @@ public class KafkaNotificationListener {
     private final EmailNotificationConsumer emailConsumer;
     private final SmsNotificationConsumer smsConsumer;
     private final PushNotificationConsumer pushConsumer;
+    private final NotificationDeduplicator deduplicator;
+    private final OutboundRateController rateController;
 
     @KafkaListener(topics = "notification-email-topic", groupId = "email-notification-group")
-    public void consumeEmailNotifications(String message) throws JsonProcessingException {
+    public void consumeEmailNotifications(String message, Acknowledgment acknowledgment)
+            throws JsonProcessingException {
         log.info("Received email notification message: {}", message);
         Notification notification = objectMapper.readValue(message, Notification.class);
-        emailConsumer.processNotification(notification);
+        deliver(NotificationType.EMAIL, notification, emailConsumer, acknowledgment);
     }
 
     @KafkaListener(topics = "notification-sms-topic", groupId = "sms-notification-group")
-    public void consumeSmsNotifications(String message) throws JsonProcessingException {
+    public void consumeSmsNotifications(String message, Acknowledgment acknowledgment)
+            throws JsonProcessingException {
         log.info("Received SMS notification message: {}", message);
         Notification notification = objectMapper.readValue(message, Notification.class);
-        smsConsumer.processNotification(notification);
+        deliver(NotificationType.SMS, notification, smsConsumer, acknowledgment);
     }
 
     @KafkaListener(topics = "notification-push-topic", groupId = "push-notification-group")
-    public void consumePushNotifications(String message) throws JsonProcessingException {
+    public void consumePushNotifications(String message, Acknowledgment acknowledgment)
+            throws JsonProcessingException {
         log.info("Received push notification message: {}", message);
         Notification notification = objectMapper.readValue(message, Notification.class);
-        pushConsumer.processNotification(notification);
+        deliver(NotificationType.PUSH, notification, pushConsumer, acknowledgment);
     }
-}
\ No newline at end of file
+
+    private void deliver(NotificationType type, Notification notification, NotificationConsumer consumer,
+                         Acknowledgment acknowledgment) {
+        if (!rateController.tryAcquire(type)) {
+            acknowledgment.nack(rateController.pauseFor(type, 1));
+            return;
+        }
+        try {
+            deduplicator.process(notification, consumer);
+        } catch (ProviderUnavailableException e) {
+            // Not a failed attempt: keep the record out of the retry topics
+            log.warn("Parked notification {}: {}", notification.getId(), e.getMessage());
+        }
+        acknowledgment.acknowledge();
+    }
+}
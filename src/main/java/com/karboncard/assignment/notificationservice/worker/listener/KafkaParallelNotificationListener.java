@@ -0,0 +1,304 @@
+package com.karboncard.assignment.notificationservice.worker.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.worker.NotificationConsumer;
+import com.karboncard.assignment.notificationservice.worker.adapter.OutboundRateController;
+import com.karboncard.assignment.notificationservice.worker.dedup.NotificationDeduplicator;
+import com.karboncard.assignment.notificationservice.worker.impl.EmailNotificationConsumer;
+import com.karboncard.assignment.notificationservice.worker.impl.PushNotificationConsumer;
+import com.karboncard.assignment.notificationservice.worker.impl.SmsNotificationConsumer;
+import com.karboncard.assignment.notificationservice.worker.parallel.KeyOrderedExecutor;
+import com.karboncard.assignment.notificationservice.worker.parallel.PartitionOffsetTracker;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel-mode listener (notification.worker.listener-mode=parallel).
+ * Records of a poll are dispatched to a shared worker pool, ordered per key (userId by default)
+ * so one partition can drive many provider calls at once. Offsets are committed from the consumer
+ * thread up to the lowest record that has not completed, on every poll and when the container is idle.
+ * Each poll is claimed in one pipelined dedup round trip before dispatch; duplicates complete at once.
+ * When a channel's outbound rate is used up, the record's partition is paused and rewound to it,
+ * and resumed on a later poll or idle event once tokens are available again.
+ * The same happens when max-in-flight records are outstanding for longer than max-in-flight-wait-ms.
+ * Only the first such wait of a poll blocks, so the consumer thread is held for at most that long per
+ * poll, far below max.poll.interval.ms.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.worker.listener-mode", havingValue = "parallel")
+@Slf4j
+public class KafkaParallelNotificationListener implements ConsumerAwareRebalanceListener {
+
+    private static final String LISTENER_ID = "parallelNotificationListener";
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, NotificationConsumer> consumersByTopic;
+    private final Map<String, NotificationType> typesByTopic;
+    private final OutboundRateController rateController;
+    // Only touched on the consumer thread
+    private final Map<TopicPartition, Long> pausedUntil = new HashMap<>();
+    private final MetricsUtil metricsUtil;
+    private final NotificationDeduplicator deduplicator;
+    private final PartitionOffsetTracker offsetTracker = new PartitionOffsetTracker();
+    private final ExecutorService workerPool;
+    private final KeyOrderedExecutor keyOrderedExecutor;
+    private final Semaphore inFlightPermits;
+    private final long maxInFlightWaitMs;
+    private final long shutdownTimeoutMs;
+    private final boolean orderByUser;
+
+    public KafkaParallelNotificationListener(ObjectMapper objectMapper,
+                                             EmailNotificationConsumer emailConsumer,
+                                             SmsNotificationConsumer smsConsumer,
+                                             PushNotificationConsumer pushConsumer,
+                                             MetricsUtil metricsUtil,
+                                             NotificationDeduplicator deduplicator,
+                                             OutboundRateController rateController,
+                                             @Value("${spring.kafka.topics.email}") String emailTopic,
+                                             @Value("${spring.kafka.topics.sms}") String smsTopic,
+                                             @Value("${spring.kafka.topics.push}") String pushTopic,
+                                             @Value("${notification.worker.parallel.max-concurrency:256}") int maxConcurrency,
+                                             @Value("${notification.worker.parallel.max-in-flight:5000}") int maxInFlight,
+                                             @Value("${notification.worker.parallel.max-in-flight-wait-ms:1000}") long maxInFlightWaitMs,
+                                             @Value("${notification.worker.parallel.ordering:user}") String ordering,
+                                             @Value("${notification.worker.parallel.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.consumersByTopic = Map.of(emailTopic, emailConsumer, smsTopic, smsConsumer, pushTopic, pushConsumer);
+        this.typesByTopic = Map.of(emailTopic, NotificationType.EMAIL, smsTopic, NotificationType.SMS,
+                pushTopic, NotificationType.PUSH);
+        this.rateController = rateController;
+        this.metricsUtil = metricsUtil;
+        this.deduplicator = deduplicator;
+        this.workerPool = Executors.newFixedThreadPool(maxConcurrency,
+                Thread.ofPlatform().name("parallel-notification-worker-", 0).factory());
+        this.keyOrderedExecutor = new KeyOrderedExecutor(workerPool);
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.maxInFlightWaitMs = maxInFlightWaitMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.orderByUser = !"key".equalsIgnoreCase(ordering);
+        metricsUtil.registerGauge("notification.worker.parallel.inflight", Map.of(),
+                () -> maxInFlight - inFlightPermits.availablePermits());
+        metricsUtil.registerGauge("notification.worker.parallel.active_keys", Map.of(), keyOrderedExecutor::activeKeys);
+    }
+
+    @KafkaListener(id = LISTENER_ID, topics = {"notification-email-topic", "notification-sms-topic",
+            "notification-push-topic"}, groupId = "parallel-notification-group", containerFactory = "parallelKafkaListenerContainerFactory")
+    public void consumeNotifications(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+        log.debug("Dispatching {} notification records", records.size());
+        resumeDue(consumer);
+        List<Notification> notifications = new ArrayList<>(records.size());
+        List<String> ids = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            Notification notification = parse(record);
+            notifications.add(notification);
+            if (notification != null && notification.getId() != null) {
+                ids.add(notification.getId());
+            }
+        }
+
+        // One pipelined claim for the whole poll; a repeated id is dispatched once
+        Set<String> claimed = deduplicator.claimAll(ids);
+        Set<TopicPartition> throttled = new HashSet<>();
+        boolean saturated = false;
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            Notification notification = notifications.get(i);
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            if (throttled.contains(partition)) {
+                // Rewound: delivered again after the pause
+                continue;
+            }
+            if (notification == null) {
+                skip(record);
+            } else if (notification.getId() == null || claimed.contains(notification.getId())) {
+                NotificationType type = typesByTopic.get(record.topic());
+                if (saturated || !acquireInFlightPermit()) {
+                    // Every partition needs the same permits, so the rest of the poll does not wait again
+                    saturated = true;
+                    log.debug("Workers saturated, pausing {} for {} ms", partition, maxInFlightWaitMs);
+                    pause(consumer, partition, record.offset(), maxInFlightWaitMs);
+                    throttled.add(partition);
+                } else if (!rateController.tryAcquire(type)) {
+                    inFlightPermits.release();
+                    long pauseMs = rateController.pauseFor(type, 1).toMillis();
+                    log.debug("{} outbound rate used up, pausing {} for {} ms", type, partition, pauseMs);
+                    pause(consumer, partition, record.offset(), pauseMs);
+                    throttled.add(partition);
+                } else {
+                    claimed.remove(notification.getId());
+                    dispatch(record, notification);
+                }
+            } else {
+                log.debug("Skipping duplicate notification {}", notification.getId());
+                skip(record);
+            }
+        }
+        // Claims of records left for after the pause
+        if (!throttled.isEmpty()) {
+            deduplicator.releaseAll(claimed);
+        }
+        commitCompleted(consumer);
+    }
+
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        // Published on the consumer thread, so committing through the consumer is safe here
+        if (event.getConsumer() != null && event.getListenerId().startsWith(LISTENER_ID)) {
+            resumeDue(event.getConsumer());
+            commitCompleted(event.getConsumer());
+        }
+    }
+
+    /**
+     * Waits up to max-in-flight-wait-ms for a worker slot
+     */
+    private boolean acquireInFlightPermit() {
+        try {
+            return inFlightPermits.tryAcquire(maxInFlightWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void pause(Consumer<?, ?> consumer, TopicPartition partition, long offset, long pauseMs) {
+        consumer.pause(List.of(partition));
+        consumer.seek(partition, offset);
+        pausedUntil.put(partition, System.currentTimeMillis() + pauseMs);
+    }
+
+    private void resumeDue(Consumer<?, ?> consumer) {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<TopicPartition, Long>> paused = pausedUntil.entrySet().iterator();
+        while (paused.hasNext()) {
+            Map.Entry<TopicPartition, Long> entry = paused.next();
+            if (entry.getValue() <= now) {
+                if (consumer.assignment().contains(entry.getKey())) {
+                    consumer.resume(List.of(entry.getKey()));
+                }
+                paused.remove();
+            }
+        }
+    }
+
+    private Notification parse(ConsumerRecord<String, String> record) {
+        try {
+            return objectMapper.readValue(record.value(), Notification.class);
+        } catch (Exception e) {
+            log.error("Skipping malformed record at {}-{}@{}: {}", record.topic(), record.partition(), record.offset(),
+                    record.value(), e);
+            return null;
+        }
+    }
+
+    private void skip(ConsumerRecord<String, String> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        offsetTracker.dispatched(partition, record.offset());
+        offsetTracker.completed(partition, record.offset());
+    }
+
+    /**
+     * Hands the record to the workers; the caller holds an in-flight permit for it, released on completion
+     */
+    private void dispatch(ConsumerRecord<String, String> record, Notification notification) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        NotificationConsumer notificationConsumer = consumersByTopic.get(record.topic());
+
+        offsetTracker.dispatched(partition, record.offset());
+        String orderingKey = orderByUser && notification.getUserId() != null ? notification.getUserId() : record.key();
+        keyOrderedExecutor.submit(orderingKey == null ? partition.toString() : orderingKey,
+                        () -> notificationConsumer.processNotification(notification))
+                .whenComplete((result, ex) -> {
+                    if (notification.getId() != null) {
+                        if (ex == null) {
+                            deduplicator.complete(notification.getId());
+                        } else {
+                            deduplicator.release(notification.getId());
+                        }
+                    }
+                    if (ex != null) {
+                        log.error("Notification {} failed in parallel worker", notification.getId(), ex);
+                        metricsUtil.incrementCounter("notification.worker.parallel.failed",
+                                Map.of("topic", record.topic()));
+                    }
+                    offsetTracker.completed(partition, record.offset());
+                    inFlightPermits.release();
+                });
+    }
+
+    private void commitCompleted(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committableOffsets(consumer.assignment());
+        if (offsets.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(offsets, (committed, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to commit offsets {}", committed, ex);
+            } else {
+                offsetTracker.markCommitted(committed);
+            }
+        });
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Commit whatever finished; unfinished records on these partitions are redelivered to the new owner
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committableOffsets(partitions);
+        if (!offsets.isEmpty()) {
+            try {
+                consumer.commitSync(offsets);
+            } catch (Exception e) {
+                log.warn("Failed to commit offsets on revocation {}", offsets, e);
+            }
+        }
+        offsetTracker.revoke(partitions);
+        partitions.forEach(pausedUntil::remove);
+    }
+
+    /**
+     * Lets in-flight deliveries finish for up to shutdown-timeout-ms, then interrupts the rest.
+     * The container has stopped by now, so their offsets stay uncommitted and the records are
+     * redelivered; deliveries that finish in time are then skipped as done instead of sent again.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                int abandoned = workerPool.shutdownNow().size();
+                log.warn("Parallel workers did not finish within {} ms, interrupted them and dropped {} queued records",
+                        shutdownTimeoutMs, abandoned);
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.karboncard.assignment.notificationservice.worker.listener;
+
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterPayload;
+import com.karboncard.assignment.notificationservice.service.DeadLetterQueueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Final hop of the retry-topic chain: records that exhausted their retries (or failed
+ * with a non-retryable error) are forwarded to the service's dead letter queue topic.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDltHandler {
+
+    static final String DLT_SUFFIX = "-dlt";
+
+    private final DeadLetterQueueService deadLetterQueueService;
+
+    public void handleDlt(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        String originalTopic = record.topic().endsWith(DLT_SUFFIX)
+                ? record.topic().substring(0, record.topic().length() - DLT_SUFFIX.length())
+                : record.topic();
+        String errorReason = headerValue(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE);
+        log.warn("Notification record with key {} exhausted retries on {}: {}", record.key(), originalTopic, errorReason);
+
+        deadLetterQueueService.sendToDLQ(DeadLetterPayload.builder()
+                .originalTopic(originalTopic)
+                .originalKey(record.key())
+                .originalPayload(record.value())
+                .errorReason(errorReason)
+                .timestamp(Instant.now())
+                .build());
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    private String headerValue(ConsumerRecord<String, String> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
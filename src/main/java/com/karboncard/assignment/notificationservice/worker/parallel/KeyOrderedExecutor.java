@@ -0,0 +1,44 @@
+package com.karboncard.assignment.notificationservice.worker.parallel;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on a shared executor while keeping tasks with the same key in submission order.
+ * Each key has a chain of futures; a task starts only after the previous task for its key
+ * finished (successfully or not). Tasks for different keys run concurrently.
+ */
+public class KeyOrderedExecutor {
+
+    private final Executor executor;
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    public KeyOrderedExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Void> submit(String key, Runnable task) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Void>[] submitted = new CompletableFuture[1];
+        tails.compute(key, (k, tail) -> {
+            CompletableFuture<Void> previous = tail == null
+                    ? CompletableFuture.completedFuture(null)
+                    : tail.handle((result, ex) -> null);
+            submitted[0] = previous.thenRunAsync(task, executor);
+            return submitted[0];
+        });
+        CompletableFuture<Void> next = submitted[0];
+        // Drop the chain once its last task is done so idle keys do not accumulate
+        next.whenComplete((result, ex) -> tails.remove(key, next));
+        return next;
+    }
+
+    /**
+     * @return the number of keys with queued or running tasks
+     */
+    public int activeKeys() {
+        return tails.size();
+    }
+}
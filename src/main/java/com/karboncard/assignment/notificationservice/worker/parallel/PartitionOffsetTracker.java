@@ -0,0 +1,86 @@
+package com.karboncard.assignment.notificationservice.worker.parallel;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Tracks records dispatched out of order and computes, per partition, the highest offset
+ * that is safe to commit: everything below the lowest record that has not completed yet.
+ */
+public class PartitionOffsetTracker {
+
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    public void dispatched(TopicPartition partition, long offset) {
+        PartitionState state = partitions.computeIfAbsent(partition, tp -> new PartitionState());
+        state.pending.add(offset);
+        state.highestDispatched = Math.max(state.highestDispatched, offset);
+    }
+
+    public void completed(TopicPartition partition, long offset) {
+        PartitionState state = partitions.get(partition);
+        if (state != null) {
+            state.pending.remove(offset);
+        }
+    }
+
+    /**
+     * @param assigned The partitions owned by the committing consumer
+     * @return offsets (next offset to consume) that advanced since the last commit
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committableOffsets(Collection<TopicPartition> assigned) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : assigned) {
+            PartitionState state = partitions.get(partition);
+            if (state == null) {
+                continue;
+            }
+            long committable = committableOffset(state);
+            if (committable > state.lastCommitted) {
+                offsets.put(partition, new OffsetAndMetadata(committable));
+            }
+        }
+        return offsets;
+    }
+
+    public void markCommitted(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> {
+            PartitionState state = partitions.get(partition);
+            if (state != null) {
+                state.lastCommitted = Math.max(state.lastCommitted, offset.offset());
+            }
+        });
+    }
+
+    /**
+     * Forgets revoked partitions; their unfinished records are redelivered to the new owner
+     */
+    public void revoke(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    public int pendingCount(TopicPartition partition) {
+        PartitionState state = partitions.get(partition);
+        return state == null ? 0 : state.pending.size();
+    }
+
+    private long committableOffset(PartitionState state) {
+        // ceiling instead of first(): completions may empty the set concurrently
+        Long lowestPending = state.pending.ceiling(Long.MIN_VALUE);
+        return lowestPending != null ? lowestPending : state.highestDispatched + 1;
+    }
+
+    private static final class PartitionState {
+        private final NavigableSet<Long> pending = new ConcurrentSkipListSet<>();
+        // Only written on the consumer thread
+        private volatile long highestDispatched = -1;
+        private volatile long lastCommitted = -1;
+    }
+}
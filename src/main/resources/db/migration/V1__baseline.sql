@@ -0,0 +1,43 @@
+-- Schema as it was generated by hibernate ddl-auto before migrations took over.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate), so this
+-- script only runs against empty databases.
+
+CREATE TABLE IF NOT EXISTS notifications (
+    id                VARCHAR(255) NOT NULL,
+    user_id           VARCHAR(255),
+    type              VARCHAR(255),
+    template_id       VARCHAR(255),
+    template_params   JSONB,
+    priority          VARCHAR(255),
+    correlation_id    VARCHAR(255),
+    status            VARCHAR(255),
+    created_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6),
+    last_attempted_at TIMESTAMP(6),
+    delivery_attempts INTEGER      NOT NULL DEFAULT 0,
+    error_message     VARCHAR(255),
+    idempotency_key   VARCHAR(255),
+    version           BIGINT,
+    CONSTRAINT notifications_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_notifications_idempotency_key UNIQUE (idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_id ON notifications (user_id);
+CREATE INDEX IF NOT EXISTS idx_correlation_id ON notifications (correlation_id);
+CREATE INDEX IF NOT EXISTS idx_status ON notifications (status);
+
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id            VARCHAR(255) NOT NULL,
+    aggregate_id  VARCHAR(255),
+    topic         VARCHAR(255),
+    message_key   VARCHAR(255),
+    payload       TEXT,
+    headers       JSONB,
+    created_at    TIMESTAMP(6),
+    dispatched_at TIMESTAMP(6),
+    attempts      INTEGER      NOT NULL DEFAULT 0,
+    last_error    VARCHAR(255),
+    CONSTRAINT notification_outbox_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_dispatched_created ON notification_outbox (dispatched_at, created_at);
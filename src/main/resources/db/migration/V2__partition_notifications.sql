@@ -0,0 +1,100 @@
+-- Converts notifications to daily range partitions on created_at.
+-- The existing table is attached as a single partition holding everything created before the first
+-- daily partition, so no notification rows are copied; retention drops it whole once it has aged out.
+-- Postgres requires the partition key in every unique constraint, so the primary key becomes
+-- (id, created_at) and idempotency keys move to their own table, filled by a trigger.
+
+-- 1. Global uniqueness of idempotency keys
+CREATE TABLE notification_idempotency_keys (
+    idempotency_key VARCHAR(255) NOT NULL,
+    notification_id VARCHAR(255) NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT notification_idempotency_keys_pkey PRIMARY KEY (idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON notification_idempotency_keys (created_at);
+
+-- 2. The current table becomes the legacy partition
+ALTER TABLE notifications RENAME TO notifications_legacy;
+
+UPDATE notifications_legacy SET created_at = COALESCE(updated_at, now()) WHERE created_at IS NULL;
+ALTER TABLE notifications_legacy ALTER COLUMN created_at SET NOT NULL;
+
+INSERT INTO notification_idempotency_keys (idempotency_key, notification_id, created_at)
+SELECT idempotency_key, id, created_at FROM notifications_legacy WHERE idempotency_key IS NOT NULL;
+
+ALTER TABLE notifications_legacy DROP CONSTRAINT IF EXISTS notifications_pkey;
+ALTER TABLE notifications_legacy ADD CONSTRAINT notifications_legacy_pkey PRIMARY KEY (id, created_at);
+-- Replaced by the partitioned indexes below, which are built on the legacy partition when it is attached
+DROP INDEX IF EXISTS idx_user_id;
+DROP INDEX IF EXISTS idx_correlation_id;
+DROP INDEX IF EXISTS idx_status;
+
+-- 3. Partitioned parent
+CREATE TABLE notifications (
+    id                VARCHAR(255) NOT NULL,
+    user_id           VARCHAR(255),
+    type              VARCHAR(255),
+    template_id       VARCHAR(255),
+    template_params   JSONB,
+    priority          VARCHAR(255),
+    correlation_id    VARCHAR(255),
+    status            VARCHAR(255),
+    created_at        TIMESTAMP(6) NOT NULL,
+    updated_at        TIMESTAMP(6),
+    last_attempted_at TIMESTAMP(6),
+    delivery_attempts INTEGER      NOT NULL DEFAULT 0,
+    error_message     VARCHAR(255),
+    idempotency_key   VARCHAR(255),
+    version           BIGINT,
+    CONSTRAINT notifications_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_notifications_user_created ON notifications (user_id, created_at);
+CREATE INDEX idx_notifications_correlation_created ON notifications (correlation_id, created_at);
+CREATE INDEX idx_notifications_status_attempted ON notifications (status, last_attempted_at);
+
+-- Creates the partition for one day; returns false if it already exists.
+-- Called by NotificationPartitionMaintainer to keep partitions ahead of the clock.
+CREATE OR REPLACE FUNCTION create_notification_partition(day DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'notifications_p' || to_char(day, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, day::timestamp, (day + 1)::timestamp);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    first_day DATE := GREATEST(current_date + 1,
+                               (SELECT max(created_at)::date + 1 FROM notifications_legacy));
+BEGIN
+    EXECUTE format('ALTER TABLE notifications ATTACH PARTITION notifications_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   first_day::timestamp);
+    FOR i IN 0..7 LOOP
+        PERFORM create_notification_partition(first_day + i);
+    END LOOP;
+END $$;
+
+-- Catches rows if the maintainer ever falls behind; it should stay empty
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+-- 4. Idempotency keys are recorded with the row; a duplicate key fails the insert with 23505 as before
+CREATE OR REPLACE FUNCTION record_notification_idempotency_key() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.idempotency_key IS NOT NULL THEN
+        INSERT INTO notification_idempotency_keys (idempotency_key, notification_id, created_at)
+        VALUES (NEW.idempotency_key, NEW.id, NEW.created_at);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_notifications_idempotency_key
+    AFTER INSERT ON notifications
+    FOR EACH ROW EXECUTE FUNCTION record_notification_idempotency_key();
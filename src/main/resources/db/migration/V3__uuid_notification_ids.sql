@@ -0,0 +1,10 @@
+-- Stores notification ids as native uuid (16 bytes) instead of varchar (37 bytes).
+-- New ids are UUIDv7 (see UuidV7Generator), so they are time-ordered and primary key inserts append
+-- to the right edge of each partition's index. Existing ids were generated as random UUIDs and
+-- cast as they are.
+-- Changing the column type rewrites every partition and rebuilds its indexes under an exclusive
+-- lock; on large tables run this migration in a maintenance window.
+
+ALTER TABLE notifications ALTER COLUMN id TYPE UUID USING id::uuid;
+
+ALTER TABLE notification_idempotency_keys ALTER COLUMN notification_id TYPE UUID USING notification_id::uuid;
@@ -0,0 +1,19 @@
+-- Append-only history of delivery attempts.
+-- Rows are narrow and never updated, so writing an attempt leaves no dead tuples behind, unlike
+-- rewriting the wide notifications row (template_params included) for every attempt.
+-- No primary key: a retried insert may duplicate an attempt, which readers tolerate, and every
+-- insert only touches the heap and the two indexes below.
+
+CREATE TABLE notification_attempts (
+    notification_id UUID          NOT NULL,
+    attempt_number  INTEGER       NOT NULL,
+    attempted_at    TIMESTAMP(6)  NOT NULL,
+    outcome         VARCHAR(32)   NOT NULL,
+    error_code      VARCHAR(64),
+    error_message   VARCHAR(1000)
+);
+
+CREATE INDEX idx_notification_attempts_notification ON notification_attempts (notification_id, attempt_number);
+
+-- Rows arrive in attempted_at order, so a BRIN index is enough for the retention purge
+CREATE INDEX idx_notification_attempts_attempted_at ON notification_attempts USING BRIN (attempted_at);
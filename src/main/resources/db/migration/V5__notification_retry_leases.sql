@@ -0,0 +1,12 @@
+-- Columns for the retry sweeper (NotificationRetrySweeper).
+-- next_attempt_at is when a FAILED or RETRYING notification should be picked up again if Kafka
+-- has not retried it by then; it is NULL once the notification is final. lease_owner and
+-- lease_expires_at record which node last re-dispatched the row and until when it holds it.
+-- All three are nullable without defaults, so adding them does not rewrite any partition.
+
+ALTER TABLE notifications ADD COLUMN next_attempt_at TIMESTAMP(6);
+ALTER TABLE notifications ADD COLUMN lease_owner VARCHAR(255);
+ALTER TABLE notifications ADD COLUMN lease_expires_at TIMESTAMP(6);
+
+-- Partial: most rows are final and never enter the index
+CREATE INDEX idx_notifications_next_attempt ON notifications (next_attempt_at) WHERE next_attempt_at IS NOT NULL;
@@ -0,0 +1,22 @@
+-- Dead letters consumed from the DLQ topic, kept for querying and replay (DeadLetterController).
+-- Ids are UUIDv7, so ordering by id is ordering by arrival and pages can be read with a keyset.
+-- (source_partition, source_offset) identifies the DLQ record, so a poll redelivered after a crash
+-- inserts nothing twice.
+
+CREATE TABLE dead_letters (
+    id               UUID          NOT NULL,
+    source_partition INTEGER       NOT NULL,
+    source_offset    BIGINT        NOT NULL,
+    original_topic   VARCHAR(255),
+    original_key     VARCHAR(255),
+    original_payload TEXT,
+    error_reason     VARCHAR(1000),
+    failed_at        TIMESTAMP(6)  NOT NULL,
+    replay_count     INTEGER       NOT NULL DEFAULT 0,
+    last_replayed_at TIMESTAMP(6),
+    CONSTRAINT dead_letters_pkey PRIMARY KEY (id),
+    CONSTRAINT dead_letters_source_key UNIQUE (source_partition, source_offset)
+);
+
+CREATE INDEX idx_dead_letters_topic_failed ON dead_letters (original_topic, failed_at);
+CREATE INDEX idx_dead_letters_failed_at ON dead_letters (failed_at);
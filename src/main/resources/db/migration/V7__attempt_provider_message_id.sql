@@ -0,0 +1,4 @@
+-- The provider's id for an accepted message, so delivery receipts and support requests can be
+-- matched to the attempt. Adding a nullable column without a default only changes the catalog.
+
+ALTER TABLE notification_attempts ADD COLUMN provider_message_id VARCHAR(255);
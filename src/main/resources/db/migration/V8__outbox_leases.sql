@@ -0,0 +1,6 @@
+-- Lease for outbox events being relayed (OutboxRelay). The relay claims a batch and sets
+-- lease_expires_at in a short transaction, then waits for Kafka acks without holding row locks;
+-- other relays skip leased rows until the lease expires, e.g. because the claiming node died.
+-- Nullable without a default, so adding it does not rewrite the table.
+
+ALTER TABLE notification_outbox ADD COLUMN lease_expires_at TIMESTAMP(6);
@@ -0,0 +1,7 @@
+-- Drops a delivery claim, but only while it is still held by the caller.
+-- KEYS[1] claim key, ARGV[1] owner token
+-- A claim that expired and was taken by another worker is left alone.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
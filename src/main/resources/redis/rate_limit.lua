@@ -0,0 +1,90 @@
+-- User + template rate limit in a single round trip, with a selectable algorithm per limit.
+-- KEYS[1] user key, KEYS[2] template key
+-- ARGV[1] user algorithm, ARGV[2] user limit, ARGV[3] user window (ms)
+-- ARGV[4] template algorithm, ARGV[5] template limit, ARGV[6] template window (ms)
+-- Algorithms: FIXED_WINDOW (counter string), SLIDING_WINDOW (hash: window index, current, previous),
+-- GCRA (string holding the theoretical arrival time in ms).
+-- Both limits are evaluated before either is updated, so a rejected request consumes no quota.
+-- Returns {allowed (1/0), user used, template used, user reset (ms), template reset (ms)}
+
+-- TIME makes the script non-deterministic; replicate its effects instead of the script (no-op on Redis 7+)
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+-- Each evaluator returns {allowed, used after this request, reset ms, commit function}
+local function fixedWindow(key, limit, window)
+    local count = tonumber(redis.call('GET', key) or '0')
+    local ttl = redis.call('PTTL', key)
+    if ttl < 0 then
+        ttl = window
+    end
+    if count >= limit then
+        return {false, count, ttl, nil}
+    end
+    return {true, count + 1, ttl, function()
+        redis.call('INCR', key)
+        -- Also heals counters that an INCR/EXPIRE client left without a TTL
+        if redis.call('PTTL', key) < 0 then
+            redis.call('PEXPIRE', key, window)
+        end
+    end}
+end
+
+local function slidingWindow(key, limit, window)
+    local index = math.floor(now / window)
+    local stored = redis.call('HMGET', key, 'w', 'c', 'p')
+    local storedIndex = tonumber(stored[1] or '-1')
+    local current, previous = 0, 0
+    if storedIndex == index then
+        current = tonumber(stored[2] or '0')
+        previous = tonumber(stored[3] or '0')
+    elseif storedIndex == index - 1 then
+        previous = tonumber(stored[2] or '0')
+    end
+    -- Weight the previous window by how much of it still overlaps the sliding window
+    local elapsed = now - index * window
+    local estimate = previous * (window - elapsed) / window + current
+    local reset = window - elapsed
+    if estimate + 1 > limit then
+        return {false, math.ceil(estimate), reset, nil}
+    end
+    return {true, math.ceil(estimate + 1), reset, function()
+        redis.call('HSET', key, 'w', index, 'c', current + 1, 'p', previous)
+        redis.call('PEXPIRE', key, window * 2)
+    end}
+end
+
+local function gcra(key, limit, window)
+    local interval = window / limit
+    local tat = tonumber(redis.call('GET', key) or '0')
+    if tat < now then
+        tat = now
+    end
+    local newTat = tat + interval
+    -- A request is allowed while the backlog it creates fits within one window
+    if newTat - now > window then
+        return {false, limit, math.ceil(tat - now), nil}
+    end
+    local used = limit - math.floor((window - (newTat - now)) / interval)
+    return {true, used, math.ceil(newTat - now), function()
+        redis.call('SET', key, string.format('%.0f', newTat), 'PX', math.ceil(newTat - now))
+    end}
+end
+
+local evaluators = {FIXED_WINDOW = fixedWindow, SLIDING_WINDOW = slidingWindow, GCRA = gcra}
+
+local user = evaluators[ARGV[1]](KEYS[1], tonumber(ARGV[2]), tonumber(ARGV[3]))
+local template = evaluators[ARGV[4]](KEYS[2], tonumber(ARGV[5]), tonumber(ARGV[6]))
+
+local allowed = 0
+if user[1] and template[1] then
+    allowed = 1
+    user[4]()
+    template[4]()
+end
+
+return {allowed, user[2], template[2], user[3], template[3]}
@@ -0,0 +1,38 @@
+-- Leases blocks of fixed-window quota for the user and template counters in one round trip.
+-- KEYS[1] user key, KEYS[2] template key
+-- ARGV[1] user limit, ARGV[2] user window (ms), ARGV[3] user tokens wanted
+-- ARGV[4] template limit, ARGV[5] template window (ms), ARGV[6] template tokens wanted
+-- A scope that wants 0 tokens is only read (the caller already holds a local token for it).
+-- Each scope gets min(wanted, room left); nothing is granted unless every scope that asked gets at least one.
+-- Returns {allowed (1/0), user granted, template granted, user count, template count, user ttl ms, template ttl ms}
+
+local function inspect(key, limit, window, wanted)
+    local count = tonumber(redis.call('GET', key) or '0')
+    local ttl = redis.call('PTTL', key)
+    if ttl < 0 then
+        ttl = window
+    end
+    local grant = math.max(0, math.min(wanted, limit - count))
+    return {count = count, ttl = ttl, grant = grant, wanted = wanted, window = window}
+end
+
+local user = inspect(KEYS[1], tonumber(ARGV[1]), tonumber(ARGV[2]), tonumber(ARGV[3]))
+local template = inspect(KEYS[2], tonumber(ARGV[4]), tonumber(ARGV[5]), tonumber(ARGV[6]))
+
+if (user.wanted > 0 and user.grant == 0) or (template.wanted > 0 and template.grant == 0) then
+    return {0, 0, 0, user.count, template.count, user.ttl, template.ttl}
+end
+
+local function commit(key, scope)
+    if scope.grant > 0 then
+        scope.count = redis.call('INCRBY', key, scope.grant)
+        if redis.call('PTTL', key) < 0 then
+            redis.call('PEXPIRE', key, scope.window)
+        end
+    end
+end
+
+commit(KEYS[1], user)
+commit(KEYS[2], template)
+
+return {1, user.grant, template.grant, user.count, template.count, user.ttl, template.ttl}
@@ -0,0 +1,12 @@
+-- Returns unspent leased tokens to a fixed-window counter.
+-- KEYS[1] counter key, ARGV[1] tokens to return
+-- A counter that has already expired started a new window, so there is nothing to give back,
+-- and a counter is never taken below zero.
+if redis.call('PTTL', KEYS[1]) <= 0 then
+    return 0
+end
+local tokens = math.min(tonumber(ARGV[1]), tonumber(redis.call('GET', KEYS[1]) or '0'))
+if tokens <= 0 then
+    return 0
+end
+return redis.call('DECRBY', KEYS[1], tokens)
@@ -0,0 +1,41 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import com.karboncard.assignment.notificationservice.exception.ServiceOverloadedException;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcPermitInterceptorTest {
+
+    private JdbcPermitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new JdbcPermitInterceptor(1, 10, new MetricsUtil(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void preHandle_poolExhausted_rejectsUntilPermitReleased() {
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/api/v1/notifications");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(first, response, null));
+        assertEquals(0, interceptor.getAvailablePermits());
+
+        MockHttpServletRequest second = new MockHttpServletRequest("POST", "/api/v1/notifications");
+        assertThrows(ServiceOverloadedException.class, () -> interceptor.preHandle(second, response, null));
+
+        // The rejected request never held a permit, so completing it must not release one
+        interceptor.afterCompletion(second, response, null, null);
+        assertEquals(0, interceptor.getAvailablePermits());
+
+        interceptor.afterCompletion(first, response, null, null);
+        assertEquals(1, interceptor.getAvailablePermits());
+        assertTrue(interceptor.preHandle(second, response, null));
+    }
+}
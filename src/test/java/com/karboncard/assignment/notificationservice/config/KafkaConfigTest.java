@@ -0,0 +1,89 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class KafkaConfigTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("notification-dlq-topic", 0);
+
+    @Test
+    void deadLetterErrorHandler_retriesAFailedPollUntilItIsStored() {
+        KafkaConfig config = new KafkaConfig();
+        ReflectionTestUtils.setField(config, "deadLetterRetryInitialIntervalMs", 1L);
+        ReflectionTestUtils.setField(config, "deadLetterRetryMaxIntervalMs", 2L);
+        DefaultErrorHandler errorHandler = config.deadLetterErrorHandler();
+        Consumer<String, String> consumer = consumer();
+
+        // The insert keeps failing well past the default handler's ten attempts, then succeeds
+        AtomicInteger attempts = new AtomicInteger();
+        errorHandler.handleBatch(new IllegalStateException("database unavailable"), poll(), consumer, container(),
+                () -> {
+                    if (attempts.incrementAndGet() < 20) {
+                        throw new IllegalStateException("database unavailable");
+                    }
+                });
+
+        assertEquals(20, attempts.get());
+        verify(consumer, never()).seek(any(), anyLong());
+        verify(consumer).resume(Set.of(PARTITION));
+    }
+
+    @Test
+    void batchErrorHandler_seeksAnUnrecoveredPollBackInsteadOfCommittingIt() {
+        KafkaConfig config = new KafkaConfig();
+        ReflectionTestUtils.setField(config, "batchRetryMaxAttempts", 3);
+        ReflectionTestUtils.setField(config, "batchRetryInitialIntervalMs", 1L);
+        ReflectionTestUtils.setField(config, "batchRetryMaxIntervalMs", 2L);
+        DefaultErrorHandler errorHandler = config.batchErrorHandler();
+        Consumer<String, String> consumer = consumer();
+
+        AtomicInteger attempts = new AtomicInteger();
+        // The container treats this as "sought back", not as a failure to skip
+        assertThrows(KafkaException.class, () -> errorHandler.handleBatch(
+                new IllegalStateException("status update failed"), poll(), consumer, container(), () -> {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("status update failed");
+                }));
+
+        assertEquals(3, attempts.get());
+        verify(consumer).seek(PARTITION, 0L);
+        verify(consumer, never()).commitSync(anyMap(), any());
+        verify(consumer, never()).commitSync(anyMap());
+    }
+
+    private static ConsumerRecords<String, String> poll() {
+        return new ConsumerRecords<>(
+                Map.of(PARTITION, List.of(new ConsumerRecord<>(PARTITION.topic(), 0, 0L, "key", "value"))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<String, String> consumer() {
+        Consumer<String, String> consumer = mock(Consumer.class);
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+        when(consumer.poll(any())).thenReturn(ConsumerRecords.empty());
+        return consumer;
+    }
+
+    private static MessageListenerContainer container() {
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(true);
+        return container;
+    }
+}
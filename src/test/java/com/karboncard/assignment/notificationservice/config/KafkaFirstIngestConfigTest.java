@@ -0,0 +1,52 @@
+package com.karboncard.assignment.notificationservice.config;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class KafkaFirstIngestConfigTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void persisterErrorHandler_retriesAFailedPollUntilItSucceeds() {
+        KafkaFirstIngestConfig config = new KafkaFirstIngestConfig();
+        ReflectionTestUtils.setField(config, "persisterRetryInitialIntervalMs", 1L);
+        ReflectionTestUtils.setField(config, "persisterRetryMaxIntervalMs", 2L);
+        DefaultErrorHandler errorHandler = config.persisterErrorHandler();
+
+        TopicPartition partition = new TopicPartition("notification-ingest-topic", 0);
+        ConsumerRecords<String, String> poll = new ConsumerRecords<>(
+                Map.of(partition, List.of(new ConsumerRecord<>(partition.topic(), 0, 0L, "key", "value"))));
+        Consumer<String, String> consumer = mock(Consumer.class);
+        when(consumer.assignment()).thenReturn(Set.of(partition));
+        when(consumer.poll(any())).thenReturn(ConsumerRecords.empty());
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(true);
+
+        // The persist keeps failing well past the default handler's ten attempts, then succeeds
+        AtomicInteger attempts = new AtomicInteger();
+        errorHandler.handleBatch(new IllegalStateException("forward failed"), poll, consumer, container, () -> {
+            if (attempts.incrementAndGet() < 20) {
+                throw new IllegalStateException("forward failed");
+            }
+        });
+
+        assertEquals(20, attempts.get());
+        verify(consumer, never()).seek(any(), anyLong());
+        verify(consumer).resume(Set.of(partition));
+    }
+}
@@ -0,0 +1,102 @@
+package com.karboncard.assignment.notificationservice.controller;
+
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetter;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterQuery;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterReplayJob;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterReplayRequest;
+import com.karboncard.assignment.notificationservice.service.dlq.DeadLetterReplayService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class DeadLetterControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private DeadLetterReplayService replayService;
+
+    @InjectMocks
+    private DeadLetterController deadLetterController;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(deadLetterController).build();
+    }
+
+    @Test
+    void findDeadLetters_passesTheFilters() throws Exception {
+        when(replayService.find(any())).thenReturn(List.of(DeadLetter.builder()
+                .id("0192b7a1-8f00-7000-8000-0000000000a1").originalTopic("sms-topic").build()));
+
+        mockMvc.perform(get("/api/v1/admin/dead-letters")
+                        .param("topic", "sms-topic")
+                        .param("errorReason", "timeout")
+                        .param("from", "2026-10-01T00:00:00")
+                        .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].originalTopic", is("sms-topic")));
+
+        ArgumentCaptor<DeadLetterQuery> query = ArgumentCaptor.forClass(DeadLetterQuery.class);
+        verify(replayService).find(query.capture());
+        assertEquals("timeout", query.getValue().getErrorReason());
+        assertEquals(LocalDateTime.of(2026, 10, 1, 0, 0), query.getValue().getFrom());
+        assertEquals(50, query.getValue().getLimit());
+    }
+
+    @Test
+    void findDeadLetters_rejectsAnInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/dead-letters").param("after", "abc"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(replayService);
+    }
+
+    @Test
+    void replay_acceptsAJob() throws Exception {
+        when(replayService.submit(any())).thenReturn(new DeadLetterReplayJob("job-1", new DeadLetterReplayRequest()));
+
+        mockMvc.perform(post("/api/v1/admin/dead-letters/replay")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"topic\":\"sms-topic\",\"maxLetters\":10}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id", is("job-1")))
+                .andExpect(jsonPath("$.status", is("QUEUED")));
+    }
+
+    @Test
+    void replay_rejectsAnEmptySelection() throws Exception {
+        when(replayService.submit(any())).thenThrow(new IllegalArgumentException("A replay needs ids"));
+
+        mockMvc.perform(post("/api/v1/admin/dead-letters/replay")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("A replay needs ids")));
+    }
+
+    @Test
+    void getReplay_returnsNotFoundForUnknownJobs() throws Exception {
+        when(replayService.getJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/admin/dead-letters/replay/missing"))
+                .andExpect(status().isNotFound());
+    }
+}
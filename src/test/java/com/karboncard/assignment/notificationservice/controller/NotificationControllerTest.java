@@ -2,23 +2,32 @@ package com.karboncard.assignment.notificationservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
 import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.dto.response.BatchNotificationItemResultDTO;
+import com.karboncard.assignment.notificationservice.model.dto.response.BatchNotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.dto.response.NotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.BatchItemStatus;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
 import com.karboncard.assignment.notificationservice.service.NotificationService;
 import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.util.NotificationRequestValidator;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.hamcrest.Matchers.is;
@@ -36,6 +45,13 @@ class NotificationControllerTest {
     @Mock
     private RateLimitingService rateLimitingService;
 
+    @Spy
+    private NotificationRequestValidator requestValidator =
+            new NotificationRequestValidator(Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Spy
+    private ObjectMapper requestMapper = new ObjectMapper();
+
     @InjectMocks
     private NotificationController notificationController;
 
@@ -122,8 +138,52 @@ class NotificationControllerTest {
                 .andExpect(jsonPath("$.status", is("SENT")));
     }
 
+    @Test
+    void getDeliveryAttempts_found() throws Exception {
+        Notification notification = new Notification();
+        notification.setId("notif-789");
+        when(notificationService.getNotificationById("notif-789")).thenReturn(Optional.of(notification));
+        when(notificationService.getDeliveryAttempts("notif-789")).thenReturn(List.of(
+                DeliveryAttempt.builder().notificationId("notif-789").attemptNumber(1)
+                        .attemptedAt(LocalDateTime.now()).outcome(NotificationStatus.FAILED)
+                        .errorCode(DeliveryAttempt.PROVIDER_REJECTED).build(),
+                DeliveryAttempt.builder().notificationId("notif-789").attemptNumber(2)
+                        .attemptedAt(LocalDateTime.now()).outcome(NotificationStatus.SENT).build()));
+
+        mockMvc.perform(get("/api/v1/notifications/notif-789/attempts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].errorCode", is("PROVIDER_REJECTED")))
+                .andExpect(jsonPath("$[1].outcome", is("SENT")));
+    }
+
     // --------- NEGATIVE CASES ----------
 
+    @Test
+    void sendNotification_uniqueConstraintViolation_returnsConflict() throws Exception {
+        NotificationRequestDTO request = NotificationRequestDTO.builder()
+                .userId("u1")
+                .type(NotificationType.EMAIL)
+                .templateId("TEMPLATE1")
+                .templateParams(Map.of("email", "user@example.com"))
+                .idempotencyKey("key-1")
+                .build();
+        Notification existing = new Notification();
+        existing.setId("notif-dup");
+        existing.setStatus(NotificationStatus.PENDING);
+
+        when(notificationService.processNotification(any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+        when(notificationService.getNotificationByIdempotencyKey("key-1")).thenReturn(Optional.of(existing));
+
+        mockMvc.perform(post("/api/v1/notifications")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.id", is("notif-dup")))
+                .andExpect(jsonPath("$.message", is("Duplicate request")));
+    }
+
     @Test
     void sendNotification_missingType() throws Exception {
         // type=null, should fail bean validation and not hit controller, so default error body
@@ -245,4 +305,68 @@ class NotificationControllerTest {
         mockMvc.perform(get("/api/v1/notifications/missing-id"))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getDeliveryAttempts_notFound() throws Exception {
+        when(notificationService.getNotificationById("missing-id")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/notifications/missing-id/attempts"))
+                .andExpect(status().isNotFound());
+        verify(notificationService, never()).getDeliveryAttempts(any());
+    }
+
+    @Test
+    void sendNotificationBatch_json_returnsPerItemStatus() throws Exception {
+        NotificationRequestDTO request = NotificationRequestDTO.builder()
+                .userId("u1")
+                .type(NotificationType.EMAIL)
+                .templateId("TEMPLATE1")
+                .templateParams(Map.of("email", "user@example.com"))
+                .build();
+
+        BatchNotificationResponseDTO response = BatchNotificationResponseDTO.builder()
+                .total(2)
+                .accepted(1)
+                .duplicates(1)
+                .results(List.of(
+                        BatchNotificationItemResultDTO.builder().index(0).id("notif-1")
+                                .status(BatchItemStatus.ACCEPTED).build(),
+                        BatchNotificationItemResultDTO.builder().index(1).id("notif-0")
+                                .status(BatchItemStatus.DUPLICATE).build()))
+                .build();
+
+        when(notificationService.processNotificationBatch(anyList())).thenReturn(response);
+
+        mockMvc.perform(post("/api/v1/notifications/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(request, request))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.results[0].status", is("ACCEPTED")))
+                .andExpect(jsonPath("$.results[1].status", is("DUPLICATE")));
+
+        verify(notificationService).processNotificationBatch(argThat(list -> list.size() == 2));
+    }
+
+    @Test
+    void sendNotificationBatch_ndjson_keepsMalformedLinesAsNull() throws Exception {
+        NotificationRequestDTO request = NotificationRequestDTO.builder()
+                .userId("u1")
+                .type(NotificationType.SMS)
+                .templateId("TEMPLATE1")
+                .templateParams(Map.of("phoneNumber", "+15555550100"))
+                .build();
+        String body = objectMapper.writeValueAsString(request) + "\n{not json}\n\n";
+
+        when(notificationService.processNotificationBatch(anyList()))
+                .thenReturn(BatchNotificationResponseDTO.builder().total(2).results(List.of()).build());
+
+        mockMvc.perform(post("/api/v1/notifications/batch")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isAccepted());
+
+        verify(notificationService).processNotificationBatch(argThat(list ->
+                list.size() == 2 && list.get(0) != null && list.get(1) == null));
+    }
+}
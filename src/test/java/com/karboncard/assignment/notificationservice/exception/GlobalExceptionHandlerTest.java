@@ -2,6 +2,7 @@ package com.karboncard.assignment.notificationservice.exception;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -55,6 +56,19 @@ class GlobalExceptionHandlerTest {
         assertFalse(body.containsKey("maxAllowed"));
     }
 
+    @Test
+    void handleServiceOverloaded_returns503WithRetryAfter() {
+        ServiceOverloadedException ex = new ServiceOverloadedException("Overloaded", 5);
+        WebRequest request = mock(WebRequest.class);
+
+        ResponseEntity<Object> response = handler.handleServiceOverloaded(ex, request);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Map<String, Object> body = (Map<String, Object>) response.getBody();
+        assertEquals("Overloaded", body.get("message"));
+    }
+
     @Test
     void handleMethodArgumentNotValid_populatesValidationErrors() {
         // Mock FieldError
@@ -0,0 +1,84 @@
+package com.karboncard.assignment.notificationservice.repository;
+
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetter;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeadLetterRepositoryTest {
+
+    private static final String ID = "0192b7a1-8f00-7000-8000-000000000001";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private DeadLetterRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        repository = new DeadLetterRepository(jdbcTemplate);
+    }
+
+    @Test
+    void insertAll_skipsRecordsAlreadyStored() {
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).thenReturn(1);
+
+        assertEquals(1, repository.insertAll(List.of(DeadLetter.builder()
+                .id(ID)
+                .sourcePartition(0)
+                .sourceOffset(42)
+                .originalTopic("sms-topic")
+                .failedAt(LocalDateTime.now())
+                .build())));
+
+        verify(jdbcTemplate).update(eq("INSERT INTO dead_letters (id, source_partition, source_offset, "
+                + "original_topic, original_key, original_payload, error_reason, failed_at) VALUES "
+                + "(?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (source_partition, source_offset) DO NOTHING"),
+                any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void find_appliesEveryGivenFilterWithAKeyset() {
+        LocalDateTime from = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+        repository.find(DeadLetterQuery.builder()
+                .topic("sms-topic")
+                .errorReason("50%_off")
+                .from(from)
+                .after(ID)
+                .limit(100)
+                .build());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), args.capture());
+        assertTrue(sql.getValue().endsWith("WHERE TRUE AND original_topic = ? AND error_reason ILIKE ? "
+                + "AND failed_at >= ? AND replay_count = 0 AND id > ? ORDER BY id LIMIT ?"));
+        assertEquals("sms-topic", args.getValue()[0]);
+        assertEquals("%50\\%\\_off%", args.getValue()[1]);
+        assertEquals(UUID.fromString(ID), args.getValue()[3]);
+        assertEquals(100, args.getValue()[4]);
+    }
+
+    @Test
+    void markReplayed_skipsEmptyLists() {
+        assertEquals(0, repository.markReplayed(List.of(), LocalDateTime.now()));
+        assertEquals(List.of(), repository.findByIds(List.of()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,63 @@
+package com.karboncard.assignment.notificationservice.repository;
+
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationAttemptRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private NotificationAttemptRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        repository = new NotificationAttemptRepository(jdbcTemplate);
+    }
+
+    @Test
+    void insertAll_writesOneMultiRowInsertPerChunk() {
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+                .thenReturn(NotificationAttemptRepository.MAX_ROWS_PER_INSERT, 5);
+        List<DeliveryAttempt> attempts = new ArrayList<>();
+        for (int i = 0; i < NotificationAttemptRepository.MAX_ROWS_PER_INSERT + 5; i++) {
+            attempts.add(DeliveryAttempt.builder()
+                    .notificationId("0192b7a1-8f00-7000-8000-000000000001")
+                    .attemptNumber(1)
+                    .attemptedAt(LocalDateTime.now())
+                    .outcome(NotificationStatus.SENT)
+                    .build());
+        }
+
+        assertEquals(attempts.size(), repository.insertAll(attempts));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).update(sql.capture(), any(PreparedStatementSetter.class));
+        assertEquals(NotificationAttemptRepository.insertSql(NotificationAttemptRepository.MAX_ROWS_PER_INSERT),
+                sql.getAllValues().get(0));
+        assertTrue(sql.getAllValues().get(1).endsWith("VALUES (?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?), "
+                + "(?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?)"));
+    }
+
+    @Test
+    void insertAll_skipsEmptyLists() {
+        assertEquals(0, repository.insertAll(List.of()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
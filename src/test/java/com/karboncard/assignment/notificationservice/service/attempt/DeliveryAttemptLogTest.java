@@ -0,0 +1,81 @@
+package com.karboncard.assignment.notificationservice.service.attempt;
+
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.repository.NotificationAttemptRepository;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeliveryAttemptLogTest {
+
+    private static final String ID = "0192b7a1-8f00-7000-8000-000000000001";
+
+    @Mock
+    private NotificationAttemptRepository attemptRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeliveryAttemptLog attemptLog;
+    // insertAll receives a list the log reuses, so copy it when captured
+    private final List<List<DeliveryAttempt>> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(attemptRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<DeliveryAttempt> attempts = invocation.getArgument(0);
+            written.add(List.copyOf(attempts));
+            return attempts.size();
+        });
+        attemptLog = new DeliveryAttemptLog(attemptRepository, new MetricsUtil(meterRegistry), 4, 3);
+    }
+
+    @Test
+    void record_buffersUntilABatchIsFull() {
+        attemptLog.recordSent(ID, 1);
+        attemptLog.recordFailure(ID, 2, NotificationStatus.FAILED, DeliveryAttempt.PROVIDER_REJECTED, "rejected");
+        verifyNoInteractions(attemptRepository);
+
+        attemptLog.recordSent(ID, 3);
+
+        assertEquals(1, written.size());
+        assertEquals(List.of(1, 2, 3), written.get(0).stream().map(DeliveryAttempt::getAttemptNumber).toList());
+        assertEquals("rejected", written.get(0).get(1).getErrorMessage());
+    }
+
+    @Test
+    void flush_writesWhatIsBufferedInBatches() {
+        attemptLog.recordSent(ID, 1);
+        attemptLog.recordSent(ID, 2);
+
+        attemptLog.flush();
+        attemptLog.flush();
+
+        assertEquals(1, written.size());
+        assertEquals(2, written.get(0).size());
+    }
+
+    @Test
+    void failedWrites_areDroppedAndCounted() {
+        when(attemptRepository.insertAll(anyList())).thenThrow(new RuntimeException("database down"));
+
+        attemptLog.recordSent(ID, 1);
+        attemptLog.shutdown();
+        attemptLog.flush();
+
+        verify(attemptRepository, times(1)).insertAll(anyList());
+        assertEquals(1.0, meterRegistry.find("notification.attempts.written").tag("result", "dropped")
+                .counter().count());
+    }
+}
@@ -0,0 +1,145 @@
+package com.karboncard.assignment.notificationservice.service.dlq;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetter;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterQuery;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterReplayJob;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterReplayRequest;
+import com.karboncard.assignment.notificationservice.repository.DeadLetterRepository;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.service.status.NotificationStateMachine;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.worker.dedup.NotificationDeduplicator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeadLetterReplayServiceTest {
+
+    private static final String LETTER_1 = "0192b7a1-8f00-7000-8000-0000000000a1";
+    private static final String LETTER_2 = "0192b7a1-8f00-7000-8000-0000000000a2";
+    private static final String LETTER_3 = "0192b7a1-8f00-7000-8000-0000000000a3";
+    private static final String NOTIFICATION_1 = "0192b7a1-8f00-7000-8000-000000000001";
+    private static final String NOTIFICATION_2 = "0192b7a1-8f00-7000-8000-000000000002";
+
+    @Mock
+    private DeadLetterRepository deadLetterRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private NotificationStateMachine stateMachine;
+
+    @Mock
+    private NotificationDeduplicator deduplicator;
+
+    private DeadLetterReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        replayService = new DeadLetterReplayService(deadLetterRepository, kafkaProducerService, stateMachine,
+                deduplicator, new ObjectMapper(), new MetricsUtil(new SimpleMeterRegistry()),
+                1000, 10, 2, 100000, 1000, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replayService.shutdown();
+    }
+
+    @Test
+    void run_reopensNotificationsAndMarksOnlyAcknowledgedLettersReplayed() {
+        when(deadLetterRepository.findByIds(List.of(LETTER_1, LETTER_2)))
+                .thenReturn(List.of(letter(LETTER_1, NOTIFICATION_1), letter(LETTER_2, NOTIFICATION_2)));
+        when(kafkaProducerService.send(eq("sms-topic"), anyString(), anyString(), anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(true), CompletableFuture.completedFuture(false));
+        DeadLetterReplayJob job = new DeadLetterReplayJob("job-1",
+                DeadLetterReplayRequest.builder().ids(List.of(LETTER_1, LETTER_2)).build());
+
+        replayService.run(job);
+
+        verify(stateMachine).reopen(List.of(NOTIFICATION_1, NOTIFICATION_2));
+        verify(deduplicator).forgetAll(List.of(NOTIFICATION_1, NOTIFICATION_2));
+        verify(kafkaProducerService).send("sms-topic", "key-" + LETTER_1, payload(NOTIFICATION_1),
+                Map.of(DeadLetterReplayService.REPLAY_HEADER, LETTER_1));
+        verify(deadLetterRepository).markReplayed(eq(List.of(LETTER_1)), any());
+        assertEquals(DeadLetterReplayJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getSelected());
+        assertEquals(1, job.getReplayed());
+        assertEquals(1, job.getFailed());
+    }
+
+    @Test
+    void run_pagesThroughTheFilterWithAKeyset() {
+        when(deadLetterRepository.find(any())).thenAnswer(invocation -> {
+            DeadLetterQuery query = invocation.getArgument(0);
+            if (query.getAfter() == null) {
+                return List.of(letter(LETTER_1, NOTIFICATION_1), letter(LETTER_2, NOTIFICATION_2));
+            }
+            return LETTER_2.equals(query.getAfter()) ? List.of(letter(LETTER_3, NOTIFICATION_1)) : List.of();
+        });
+        when(kafkaProducerService.send(anyString(), anyString(), anyString(), anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        DeadLetterReplayJob job = new DeadLetterReplayJob("job-1",
+                DeadLetterReplayRequest.builder().topic("sms-topic").maxLetters(3).build());
+
+        replayService.run(job);
+
+        ArgumentCaptor<DeadLetterQuery> queries = ArgumentCaptor.forClass(DeadLetterQuery.class);
+        verify(deadLetterRepository, times(2)).find(queries.capture());
+        // The query object is reused, so only the last page's limit can be checked
+        assertEquals(1, queries.getValue().getLimit());
+        assertEquals(3, job.getReplayed());
+        verify(kafkaProducerService, times(3)).send(anyString(), anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void submit_rejectsReplayingEverything() {
+        assertThrows(IllegalArgumentException.class, () -> replayService.submit(new DeadLetterReplayRequest()));
+        assertThrows(IllegalArgumentException.class,
+                () -> replayService.submit(DeadLetterReplayRequest.builder().ids(List.of("not-a-uuid")).build()));
+    }
+
+    @Test
+    void submit_runsTheJobInTheBackground() throws Exception {
+        when(deadLetterRepository.find(any())).thenReturn(List.of());
+
+        DeadLetterReplayJob job = replayService.submit(DeadLetterReplayRequest.builder().topic("sms-topic").build());
+
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(DeadLetterReplayJob.Status.COMPLETED, job.getStatus());
+        assertSame(job, replayService.getJob(job.getId()).orElseThrow());
+    }
+
+    private static DeadLetter letter(String id, String notificationId) {
+        return DeadLetter.builder()
+                .id(id)
+                .originalTopic("sms-topic")
+                .originalKey("key-" + id)
+                .originalPayload(payload(notificationId))
+                .errorReason("provider timeout")
+                .failedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static String payload(String notificationId) {
+        return "{\"id\":\"" + notificationId + "\",\"type\":\"SMS\"}";
+    }
+}
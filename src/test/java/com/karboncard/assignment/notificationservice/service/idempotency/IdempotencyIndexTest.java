@@ -0,0 +1,58 @@
+package com.karboncard.assignment.notificationservice.service.idempotency;
+
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyIndexTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(notificationRepository.streamIdempotencyKeysCreatedAfter(any())).thenReturn(Stream.of("key-loaded"));
+        index = new IdempotencyIndex(notificationRepository, new MetricsUtil(new SimpleMeterRegistry()),
+                transactionManager, true, 1000, 0.01, 24, 100, 10);
+        index.rebuild();
+    }
+
+    @Test
+    void rotate_keepsKeysForOneMoreWindow() {
+        index.record("key-recorded", null);
+
+        index.rotate();
+
+        assertTrue(index.mightExist("key-loaded"));
+        assertTrue(index.mightExist("key-recorded"));
+    }
+
+    @Test
+    void rotate_dropsKeysOlderThanTwoWindows() {
+        index.record("key-recorded", null);
+
+        index.rotate();
+        index.record("key-after-rotation", null);
+        index.rotate();
+
+        assertFalse(index.mightExist("key-loaded"));
+        assertFalse(index.mightExist("key-recorded"));
+        assertTrue(index.mightExist("key-after-rotation"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.karboncard.assignment.notificationservice.service.impl;
+
+import com.karboncard.assignment.notificationservice.config.RateLimitConfig;
+import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FailoverRateLimitingServiceTest {
+
+    @Mock
+    private RateLimitingService delegate;
+
+    @Mock
+    private RateLimitConfig rateLimitConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+    private FailoverRateLimitingService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(rateLimitConfig.getUserMaxRequests()).thenReturn(4);
+        when(rateLimitConfig.getUserTimeWindowMinutes()).thenReturn(1);
+        when(rateLimitConfig.getTemplateMaxRequests()).thenReturn(4);
+        when(rateLimitConfig.getTemplateTimeWindowMinutes()).thenReturn(1);
+
+        circuitBreaker = CircuitBreaker.of("redisRateLimit", CircuitBreakerConfig.custom()
+                .slidingWindowSize(2)
+                .minimumNumberOfCalls(2)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        meterRegistry = new SimpleMeterRegistry();
+        // Two live nodes, so each may admit half of the limit locally
+        LocalRateLimitingService local = new LocalRateLimitingService(rateLimitConfig, () -> 2, 100, 1);
+        service = new FailoverRateLimitingService(delegate, local, circuitBreaker, new MetricsUtil(meterRegistry), 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void redisHealthy_usesDelegate() {
+        when(delegate.checkRateLimits("user1", "tmpl")).thenReturn(RateLimitDecision.allowed("user1", "tmpl"));
+
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+
+        verify(delegate).checkRateLimits("user1", "tmpl");
+        assertFalse(service.isDegraded());
+    }
+
+    @Test
+    void redisFailures_openBreakerAndEnforceLocalShare() {
+        when(delegate.checkRateLimits(anyString(), anyString()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+        assertTrue(service.isDegraded());
+
+        // Limit 4 across 2 nodes: the third local request is rejected without touching Redis
+        assertFalse(service.checkRateLimits("user1", "tmpl").isAllowed());
+        verify(delegate, times(2)).checkRateLimits(anyString(), anyString());
+        assertEquals(1.0, meterRegistry.get("notification.ratelimit.mode.switch")
+                .tag("from", "CLOSED").tag("to", "OPEN").counter().count());
+    }
+
+    @Test
+    void slowRedis_fallsBackWithinCallTimeout() {
+        when(delegate.checkRateLimits("user1", "tmpl")).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return RateLimitDecision.allowed("user1", "tmpl");
+        });
+
+        long start = System.nanoTime();
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void redisRejection_isPassedThroughAndCountsAsSuccess() throws Exception {
+        doThrow(new RateLimitExceededException("User rate limit exceeded", "user1", null, 5, 4))
+                .when(delegate).checkUserRateLimit("user1");
+
+        assertThrows(RateLimitExceededException.class, () -> service.checkUserRateLimit("user1"));
+
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+    }
+}
@@ -0,0 +1,97 @@
+package com.karboncard.assignment.notificationservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.config.KafkaConfig;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class KafkaProducerServiceImplTest {
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private KafkaConfig kafkaConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private KafkaProducerServiceImpl kafkaProducerService;
+
+    private Notification notification;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaConfig.getEmailTopic()).thenReturn("email-topic");
+        when(kafkaConfig.getProducerMaxInFlight()).thenReturn(1);
+        when(kafkaConfig.getProducerBackpressureTimeoutMs()).thenReturn(10L);
+
+        meterRegistry = new SimpleMeterRegistry();
+        kafkaProducerService = new KafkaProducerServiceImpl(kafkaTemplate, new ObjectMapper(), kafkaConfig,
+                new MetricsUtil(meterRegistry));
+
+        notification = new Notification();
+        notification.setId("notif-1");
+        notification.setUserId("user-1");
+        notification.setType(NotificationType.EMAIL);
+        notification.setIdempotencyKey("key-1");
+    }
+
+    @Test
+    void sendNotification_acknowledged_completesTrue() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(sendResult()));
+
+        CompletableFuture<Boolean> result = kafkaProducerService.sendNotification(notification);
+
+        assertTrue(result.join());
+        assertEquals(1.0, meterRegistry.counter("notification.kafka.sent",
+                "topic", "email-topic", "status", "success").count());
+    }
+
+    @Test
+    void sendNotification_brokerFailure_completesFalse() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        assertFalse(kafkaProducerService.sendNotification(notification).join());
+    }
+
+    @Test
+    void send_inFlightWindowFull_rejectsWithoutWaitingForBroker() {
+        CompletableFuture<SendResult<String, String>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(pending);
+
+        CompletableFuture<Boolean> first = kafkaProducerService.send("email-topic", "k1", "{}", null);
+        CompletableFuture<Boolean> second = kafkaProducerService.send("email-topic", "k2", "{}", null);
+
+        assertFalse(first.isDone());
+        assertFalse(second.join());
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+
+        // Acknowledging the first record frees the window again
+        pending.complete(sendResult());
+        assertTrue(first.join());
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(sendResult()));
+        assertTrue(kafkaProducerService.send("email-topic", "k3", "{}", null).join());
+    }
+
+    private SendResult<String, String> sendResult() {
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition("email-topic", 0), 0L, 0, 0L, 0, 0);
+        return new SendResult<>(new ProducerRecord<>("email-topic", "key", "value"), metadata);
+    }
+}
@@ -0,0 +1,127 @@
+package com.karboncard.assignment.notificationservice.service.impl;
+
+import com.karboncard.assignment.notificationservice.config.RateLimitConfig;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitAlgorithm;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitScope;
+import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LeasingRateLimitingServiceTest {
+
+    private static final List<String> KEYS = List.of("rate:user:user1", "rate:template:user1:tmpl");
+
+    @Mock
+    private RateLimitingService delegate;
+
+    @Mock
+    private RedisTemplate<String, Integer> redisTemplate;
+
+    @Mock
+    private RateLimitConfig rateLimitConfig;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(rateLimitConfig.getUserMaxRequests()).thenReturn(100);
+        when(rateLimitConfig.getUserTimeWindowMinutes()).thenReturn(1);
+        when(rateLimitConfig.getTemplateMaxRequests()).thenReturn(50);
+        when(rateLimitConfig.getTemplateTimeWindowMinutes()).thenReturn(1);
+    }
+
+    private LeasingRateLimitingService service(int hotKeyThreshold, int maxKeys) {
+        return new LeasingRateLimitingService(delegate, redisTemplate, rateLimitConfig,
+                new MetricsUtil(new SimpleMeterRegistry()), 0.1, 100, hotKeyThreshold, maxKeys, 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void hotKey_leasesBlockAndSpendsItLocally() {
+        LeasingRateLimitingService service = service(1, 100);
+        // Blocks of 10% of each limit: 10 user tokens, 5 template tokens
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq(100), eq(60000), eq(10),
+                eq(50), eq(60000), eq(5)))
+                .thenReturn(List.of(1L, 10L, 5L, 10L, 5L, 60000L, 60000L));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+        }
+
+        // One round trip for five requests; the template block is now spent
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coldKey_takesSingleTokens() {
+        LeasingRateLimitingService service = service(3, 100);
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq(100), eq(60000), eq(1),
+                eq(50), eq(60000), eq(1)))
+                .thenReturn(List.of(1L, 1L, 1L, 1L, 1L, 60000L, 60000L));
+
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), anyList(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejectedByTemplate_keepsLocalUserToken() {
+        LeasingRateLimitingService service = service(1, 100);
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq(100), eq(60000), eq(10),
+                eq(50), eq(60000), eq(5)))
+                .thenReturn(List.of(1L, 10L, 1L, 10L, 50L, 60000L, 30000L));
+        // User has 9 local tokens left, the template counter is full
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq(100), eq(60000), eq(0),
+                eq(50), eq(60000), eq(5)))
+                .thenReturn(List.of(0L, 0L, 0L, 10L, 50L, 59000L, 30000L));
+
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+        RateLimitDecision decision = service.checkRateLimits("user1", "tmpl");
+
+        assertFalse(decision.isAllowed());
+        assertEquals(RateLimitScope.TEMPLATE, decision.getRejectedBy());
+        assertEquals(50, decision.getMaxAllowed());
+        assertNotNull(decision.getResetAt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shutdown_returnsUnspentTokens() {
+        LeasingRateLimitingService service = service(1, 100);
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq(100), eq(60000), eq(10),
+                eq(50), eq(60000), eq(5)))
+                .thenReturn(List.of(1L, 10L, 5L, 10L, 5L, 60000L, 60000L));
+
+        service.checkRateLimits("user1", "tmpl");
+        service.shutdown();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("rate:user:user1")), eq(9));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("rate:template:user1:tmpl")), eq(4));
+    }
+
+    @Test
+    void nonFixedWindowAlgorithm_delegates() {
+        when(rateLimitConfig.getUserAlgorithm()).thenReturn(RateLimitAlgorithm.GCRA);
+        LeasingRateLimitingService service = service(1, 100);
+        when(delegate.checkRateLimits("user1", "tmpl")).thenReturn(RateLimitDecision.allowed("user1", "tmpl"));
+
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+
+        verify(delegate).checkRateLimits("user1", "tmpl");
+        verifyNoInteractions(redisTemplate);
+    }
+}
@@ -0,0 +1,69 @@
+package com.karboncard.assignment.notificationservice.service.impl;
+
+import com.karboncard.assignment.notificationservice.config.RateLimitConfig;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LocalRateLimitingServiceTest {
+
+    @Mock
+    private RateLimitConfig rateLimitConfig;
+
+    private final AtomicInteger nodes = new AtomicInteger(1);
+    private LocalRateLimitingService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(rateLimitConfig.getUserMaxRequests()).thenReturn(10);
+        when(rateLimitConfig.getUserTimeWindowMinutes()).thenReturn(1);
+        when(rateLimitConfig.getTemplateMaxRequests()).thenReturn(2);
+        when(rateLimitConfig.getTemplateTimeWindowMinutes()).thenReturn(5);
+        service = new LocalRateLimitingService(rateLimitConfig, nodes::get, 100, 4);
+    }
+
+    @Test
+    void localShare_splitsLimitAcrossNodesRoundingUp() {
+        nodes.set(3);
+        assertEquals(4, service.localShare(10));
+        assertEquals(1, service.localShare(2));
+        nodes.set(0);
+        assertEquals(10, service.localShare(10));
+    }
+
+    @Test
+    void templateRejection_returnsUserToken() {
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+        assertTrue(service.checkRateLimits("user1", "tmpl").isAllowed());
+
+        RateLimitDecision rejected = service.checkRateLimits("user1", "tmpl");
+
+        assertFalse(rejected.isAllowed());
+        assertEquals(RateLimitScope.TEMPLATE, rejected.getRejectedBy());
+        // Only the two admitted requests count against the user limit
+        RateLimitDecision other = service.checkRateLimits("user1", "other");
+        assertTrue(other.isAllowed());
+        assertEquals(3, other.getUserCount());
+    }
+
+    @Test
+    void userLimit_rejectsOverShare() {
+        nodes.set(5);
+        assertTrue(service.checkRateLimits("user1", "a").isAllowed());
+        assertTrue(service.checkRateLimits("user1", "b").isAllowed());
+
+        RateLimitDecision rejected = service.checkRateLimits("user1", "c");
+
+        assertFalse(rejected.isAllowed());
+        assertEquals(RateLimitScope.USER, rejected.getRejectedBy());
+        assertEquals(2, rejected.getMaxAllowed());
+    }
+}
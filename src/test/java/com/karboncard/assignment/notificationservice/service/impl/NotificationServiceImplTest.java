@@ -2,20 +2,36 @@ package com.karboncard.assignment.notificationservice.service.impl;
 
 import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
 import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.dto.response.BatchNotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.dto.response.NotificationResponseDTO;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.BatchItemStatus;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationPriority;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.repository.NotificationAttemptRepository;
 import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
 import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
 import com.karboncard.assignment.notificationservice.service.RateLimitingService;
+import com.karboncard.assignment.notificationservice.service.idempotency.IdempotencyIndex;
+import com.karboncard.assignment.notificationservice.service.ingest.KafkaFirstIngestService;
+import com.karboncard.assignment.notificationservice.service.outbox.OutboxService;
+import com.karboncard.assignment.notificationservice.util.CreatedAtRange;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.NotificationRequestValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,6 +48,28 @@ class NotificationServiceImplTest {
     @Mock
     private RateLimitingService rateLimitingService;
 
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private IdempotencyIndex idempotencyIndex;
+
+    @Mock
+    private NotificationAttemptRepository attemptRepository;
+
+    @Mock
+    private KafkaFirstIngestService kafkaFirstIngest;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private MetricsUtil metricsUtil = new MetricsUtil(new SimpleMeterRegistry());
+
+    @Spy
+    private NotificationRequestValidator requestValidator =
+            new NotificationRequestValidator(Validation.buildDefaultValidatorFactory().getValidator());
+
     @InjectMocks
     private NotificationServiceImpl notificationService;
 
@@ -40,6 +78,10 @@ class NotificationServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // The combined check delegates to the per-limit checks stubbed in each test
+        when(rateLimitingService.checkRateLimits(anyString(), anyString())).thenCallRealMethod();
+        // The Bloom filter cannot rule keys out unless a test says so
+        when(idempotencyIndex.mightExist(anyString())).thenReturn(true);
         requestDTO = NotificationRequestDTO.builder()
                 .userId("test-user")
                 .type(NotificationType.EMAIL)
@@ -65,7 +107,8 @@ class NotificationServiceImplTest {
         savedNotif.setCreatedAt(LocalDateTime.now());
         when(notificationRepository.save(any(Notification.class))).thenReturn(savedNotif);
 
-        doNothing().when(kafkaProducerService).sendNotification(any(Notification.class));
+        when(kafkaProducerService.sendNotification(any(Notification.class)))
+                .thenReturn(CompletableFuture.completedFuture(true));
 
         NotificationResponseDTO response = notificationService.processNotification(requestDTO);
 
@@ -78,6 +121,26 @@ class NotificationServiceImplTest {
         verify(kafkaProducerService).sendNotification(any(Notification.class));
     }
 
+    // --- Positive test: outbox enabled writes the record instead of sending ---
+    @Test
+    void processNotification_outboxEnabled_enqueuesInsteadOfSending() throws RateLimitExceededException {
+        ReflectionTestUtils.setField(notificationService, "outboxEnabled", true);
+        when(notificationRepository.findByIdempotencyKey(anyString())).thenReturn(Optional.empty());
+
+        Notification savedNotif = new Notification();
+        savedNotif.setId("notif-1");
+        savedNotif.setUserId(requestDTO.getUserId());
+        savedNotif.setType(requestDTO.getType());
+        savedNotif.setStatus(NotificationStatus.PENDING);
+        when(notificationRepository.save(any(Notification.class))).thenReturn(savedNotif);
+
+        NotificationResponseDTO response = notificationService.processNotification(requestDTO);
+
+        assertTrue(response.isSuccess());
+        verify(outboxService).enqueue(savedNotif);
+        verifyNoInteractions(kafkaProducerService);
+    }
+
     // --- Negative test: duplicate request (idempotency) ---
     @Test
     void processNotification_duplicateRequest() throws RateLimitExceededException {
@@ -100,6 +163,36 @@ class NotificationServiceImplTest {
         verify(kafkaProducerService, never()).sendNotification(any());
     }
 
+    // --- Positive test: Bloom filter rules the key out, no SELECT ---
+    @Test
+    void processNotification_bloomFilterMiss_skipsIdempotencyLookup() throws RateLimitExceededException {
+        when(idempotencyIndex.mightExist(anyString())).thenReturn(false);
+        Notification savedNotif = new Notification();
+        savedNotif.setId("notif-1");
+        savedNotif.setIdempotencyKey("key-1");
+        when(notificationRepository.save(any(Notification.class))).thenReturn(savedNotif);
+
+        NotificationResponseDTO response = notificationService.processNotification(requestDTO);
+
+        assertEquals("notif-1", response.getId());
+        verify(notificationRepository, never()).findByIdempotencyKey(anyString());
+        verify(idempotencyIndex).recordAfterCommit("key-1", "notif-1");
+    }
+
+    // --- Negative test: recently accepted key answered from the near cache ---
+    @Test
+    void processNotification_recentKey_duplicateFromCache() throws RateLimitExceededException {
+        requestDTO.setIdempotencyKey("key-1");
+        when(idempotencyIndex.findRecentNotificationId("key-1")).thenReturn(Optional.of("notif-dup"));
+
+        NotificationResponseDTO response = notificationService.processNotification(requestDTO);
+
+        assertEquals("notif-dup", response.getId());
+        assertEquals("Duplicate request", response.getMessage());
+        verifyNoInteractions(notificationRepository);
+        verify(rateLimitingService, never()).checkRateLimits(anyString(), anyString());
+    }
+
     // --- Negative test: user rate limit exceeded ---
     @Test
     void processNotification_userRateLimitExceeded() throws RateLimitExceededException {
@@ -132,28 +225,41 @@ class NotificationServiceImplTest {
     // --- Positive test: getNotificationById found ---
     @Test
     void getNotificationById_found() {
+        String id = "0192a3b4-c5d6-7e8f-9a0b-1c2d3e4f5a6b";
         Notification notif = new Notification();
-        notif.setId("notif-42");
-        when(notificationRepository.findById("notif-42")).thenReturn(Optional.of(notif));
+        notif.setId(id);
+        CreatedAtRange createdAt = CreatedAtRange.of(id);
+        when(notificationRepository.findByIdAndCreatedAtBetween(id, createdAt.from(), createdAt.to()))
+                .thenReturn(Optional.of(notif));
 
-        Optional<Notification> result = notificationService.getNotificationById("notif-42");
+        Optional<Notification> result = notificationService.getNotificationById(id);
         assertThat(result).isPresent();
-        assertThat(result.get().getId()).isEqualTo("notif-42");
+        assertThat(result.get().getId()).isEqualTo(id);
+        assertThat(createdAt).isNotEqualTo(CreatedAtRange.UNBOUNDED);
     }
 
     // --- Negative test: getNotificationById not found ---
     @Test
     void getNotificationById_notFound() {
-        when(notificationRepository.findById("nope")).thenReturn(Optional.empty());
+        when(notificationRepository.findByIdAndCreatedAtBetween(eq("0192a3b4-c5d6-7e8f-9a0b-000000000000"), any(),
+                any())).thenReturn(Optional.empty());
+        Optional<Notification> result = notificationService.getNotificationById("0192a3b4-c5d6-7e8f-9a0b-000000000000");
+        assertThat(result).isNotPresent();
+    }
+
+    // --- Negative test: getNotificationById with an id that is not a UUID ---
+    @Test
+    void getNotificationById_notUuid() {
         Optional<Notification> result = notificationService.getNotificationById("nope");
         assertThat(result).isNotPresent();
+        verify(notificationRepository, never()).findByIdAndCreatedAtBetween(any(), any(), any());
     }
 
     // --- Positive test: getNotificationsByUserId ---
     @Test
     void getNotificationsByUserId() {
         List<Notification> notifs = Collections.singletonList(new Notification());
-        when(notificationRepository.findByUserId("userX")).thenReturn(notifs);
+        when(notificationRepository.findByUserIdAndCreatedAtAfter(eq("userX"), any(LocalDateTime.class))).thenReturn(notifs);
 
         List<Notification> result = notificationService.getNotificationsByUserId("userX");
         assertThat(result).isNotNull();
@@ -164,10 +270,201 @@ class NotificationServiceImplTest {
     @Test
     void getNotificationsByCorrelationId() {
         List<Notification> notifs = Collections.singletonList(new Notification());
-        when(notificationRepository.findByCorrelationId("corrX")).thenReturn(notifs);
+        when(notificationRepository.findByCorrelationIdAndCreatedAtAfter(eq("corrX"), any(LocalDateTime.class)))
+                .thenReturn(notifs);
 
         List<Notification> result = notificationService.getNotificationsByCorrelationId("corrX");
         assertThat(result).isNotNull();
         assertThat(result).hasSize(1);
     }
-}
\ No newline at end of file
+
+    // --- Batch: accepted, duplicate (in batch and in DB), rate limited and invalid items ---
+    @Test
+    void processNotificationBatch_reportsStatusPerItem() {
+        NotificationRequestDTO accepted = copyOf(requestDTO, "key-new");
+        NotificationRequestDTO repeated = copyOf(requestDTO, "key-new");
+        NotificationRequestDTO existing = copyOf(requestDTO, "key-existing");
+        NotificationRequestDTO limited = copyOf(requestDTO, "key-limited");
+        NotificationRequestDTO invalid = copyOf(requestDTO, "key-invalid");
+        invalid.setTemplateParams(Map.of());
+
+        Notification existingNotif = new Notification();
+        existingNotif.setId("notif-existing");
+        existingNotif.setIdempotencyKey("key-existing");
+        when(notificationRepository.findByIdempotencyKeyIn(anyCollection())).thenReturn(List.of(existingNotif));
+        when(rateLimitingService.checkRateLimits(anyList())).thenReturn(List.of(
+                RateLimitDecision.allowed("test-user", "WELCOME"),
+                RateLimitDecision.rejected("test-user", "WELCOME", "User rate limit exceeded")));
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Notification> toSave = invocation.getArgument(0);
+            toSave.forEach(n -> n.setId("notif-" + n.getIdempotencyKey()));
+            return toSave;
+        });
+
+        BatchNotificationResponseDTO response = notificationService.processNotificationBatch(
+                List.of(accepted, repeated, existing, limited, invalid));
+
+        assertEquals(5, response.getTotal());
+        assertEquals(1, response.getAccepted());
+        assertEquals(2, response.getDuplicates());
+        assertEquals(2, response.getRejected());
+        assertEquals(BatchItemStatus.ACCEPTED, response.getResults().get(0).getStatus());
+        assertEquals("notif-key-new", response.getResults().get(0).getId());
+        assertEquals(BatchItemStatus.DUPLICATE, response.getResults().get(1).getStatus());
+        assertEquals(BatchItemStatus.DUPLICATE, response.getResults().get(2).getStatus());
+        assertEquals("notif-existing", response.getResults().get(2).getId());
+        assertEquals(BatchItemStatus.RATE_LIMITED, response.getResults().get(3).getStatus());
+        assertEquals(BatchItemStatus.INVALID, response.getResults().get(4).getStatus());
+
+        verify(notificationRepository, times(1)).findByIdempotencyKeyIn(anyCollection());
+        verify(kafkaProducerService).sendNotifications(argThat(list -> list.size() == 1));
+        verify(notificationRepository, never()).save(any());
+    }
+
+    // --- Batch: a key the Bloom filter rules out but another node inserted is still a duplicate ---
+    @Test
+    void processNotificationBatch_bloomFilterMiss_stillLooksUpKey() {
+        when(idempotencyIndex.mightExist(anyString())).thenReturn(false);
+        Notification existingNotif = new Notification();
+        existingNotif.setId("notif-other-node");
+        existingNotif.setIdempotencyKey("key-other-node");
+        when(notificationRepository.findByIdempotencyKeyIn(anyCollection())).thenReturn(List.of(existingNotif));
+
+        BatchNotificationResponseDTO response = notificationService.processNotificationBatch(
+                List.of(copyOf(requestDTO, "key-other-node")));
+
+        assertEquals(1, response.getDuplicates());
+        assertEquals(BatchItemStatus.DUPLICATE, response.getResults().get(0).getStatus());
+        assertEquals("notif-other-node", response.getResults().get(0).getId());
+        verify(notificationRepository).findByIdempotencyKeyIn(List.of("key-other-node"));
+        verify(notificationRepository, never()).saveAll(argThat(list -> list.iterator().hasNext()));
+    }
+
+    // --- Batch: a key taken between the lookup and the insert only turns that item into a duplicate ---
+    @Test
+    void processNotificationBatch_keyTakenDuringInsert_reportsItemAsDuplicate() {
+        when(notificationRepository.findByIdempotencyKeyIn(anyCollection())).thenReturn(List.of());
+        when(rateLimitingService.checkRateLimits(anyList())).thenReturn(List.of(
+                RateLimitDecision.allowed("test-user", "WELCOME"),
+                RateLimitDecision.allowed("test-user", "WELCOME")));
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Notification> toSave = invocation.getArgument(0);
+            if (toSave.stream().anyMatch(n -> n.getIdempotencyKey().equals("key-raced"))) {
+                throw new DataIntegrityViolationException("uk_notifications_idempotency_key");
+            }
+            toSave.forEach(n -> n.setId("notif-" + n.getIdempotencyKey()));
+            return toSave;
+        });
+        Notification winner = new Notification();
+        winner.setId("notif-winner");
+        winner.setIdempotencyKey("key-raced");
+        when(notificationRepository.findByIdempotencyKey("key-raced")).thenReturn(Optional.of(winner));
+
+        BatchNotificationResponseDTO response = notificationService.processNotificationBatch(
+                List.of(copyOf(requestDTO, "key-fresh"), copyOf(requestDTO, "key-raced")));
+
+        assertEquals(1, response.getAccepted());
+        assertEquals(1, response.getDuplicates());
+        assertEquals(BatchItemStatus.ACCEPTED, response.getResults().get(0).getStatus());
+        assertEquals("notif-key-fresh", response.getResults().get(0).getId());
+        assertEquals(BatchItemStatus.DUPLICATE, response.getResults().get(1).getStatus());
+        assertEquals("notif-winner", response.getResults().get(1).getId());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(kafkaProducerService).sendNotifications(argThat(list -> list.size() == 1));
+    }
+
+    // --- Positive test: concurrent single requests share one group commit ---
+    @Test
+    void processNotification_groupCommit_insertsConcurrentRequestsTogether() throws Exception {
+        ReflectionTestUtils.setField(notificationService, "groupCommitEnabled", true);
+        ReflectionTestUtils.setField(notificationService, "groupCommitMaxWaitMicros", 200_000L);
+        when(notificationRepository.findByIdempotencyKey(anyString())).thenReturn(Optional.empty());
+        doNothing().when(rateLimitingService).checkUserRateLimit(anyString());
+        doNothing().when(rateLimitingService).checkTemplateRateLimit(anyString(), anyString());
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Notification> toSave = invocation.getArgument(0);
+            toSave.forEach(n -> n.setId("notif-" + n.getIdempotencyKey()));
+            return toSave;
+        });
+
+        notificationService.startGroupCommit();
+        try {
+            CompletableFuture<NotificationResponseDTO> first = CompletableFuture.supplyAsync(() ->
+                    processUnchecked(copyOf(requestDTO, "key-1")));
+            CompletableFuture<NotificationResponseDTO> second = CompletableFuture.supplyAsync(() ->
+                    processUnchecked(copyOf(requestDTO, "key-2")));
+
+            assertEquals("notif-key-1", first.get().getId());
+            assertEquals("notif-key-2", second.get().getId());
+        } finally {
+            notificationService.stopGroupCommit();
+        }
+
+        verify(notificationRepository, never()).save(any());
+        verify(notificationRepository, times(1)).saveAll(argThat(list -> ((List<Notification>) list).size() == 2));
+        verify(kafkaProducerService).sendNotifications(argThat(list -> list.size() == 2));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    // --- Positive test: Kafka-first types skip the database write ---
+    @Test
+    void processNotification_kafkaFirst_acceptsWithoutInserting() throws RateLimitExceededException {
+        when(notificationRepository.findByIdempotencyKey(anyString())).thenReturn(Optional.empty());
+        doNothing().when(rateLimitingService).checkUserRateLimit(anyString());
+        doNothing().when(rateLimitingService).checkTemplateRateLimit(anyString(), anyString());
+        when(kafkaFirstIngest.handles(requestDTO)).thenReturn(true);
+        when(kafkaFirstIngest.accept(any(Notification.class))).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            notification.setId("0192b7a1-8f00-7000-8000-000000000001");
+            return notification;
+        });
+
+        NotificationResponseDTO response = notificationService.processNotification(requestDTO);
+
+        assertEquals("0192b7a1-8f00-7000-8000-000000000001", response.getId());
+        assertEquals(NotificationStatus.PENDING, response.getStatus());
+        verify(notificationRepository, never()).save(any());
+        verifyNoInteractions(kafkaProducerService, transactionManager);
+        verify(idempotencyIndex).record(requestDTO.getIdempotencyKey(), "0192b7a1-8f00-7000-8000-000000000001");
+    }
+
+    @Test
+    void getNotificationById_fallsBackToPendingKafkaFirstNotifications() {
+        String id = "0192b7a1-8f00-7000-8000-000000000001";
+        Notification pending = new Notification();
+        pending.setId(id);
+        when(notificationRepository.findByIdAndCreatedAtBetween(eq(id), any(), any())).thenReturn(Optional.empty());
+        when(kafkaFirstIngest.findPending(id)).thenReturn(Optional.of(pending));
+
+        assertEquals(Optional.of(pending), notificationService.getNotificationById(id));
+    }
+
+    // --- Negative test: empty batch ---
+    @Test
+    void processNotificationBatch_empty_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> notificationService.processNotificationBatch(List.of()));
+        verifyNoInteractions(notificationRepository, kafkaProducerService);
+    }
+
+    private NotificationResponseDTO processUnchecked(NotificationRequestDTO request) {
+        try {
+            return notificationService.processNotification(request);
+        } catch (RateLimitExceededException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private NotificationRequestDTO copyOf(NotificationRequestDTO source, String idempotencyKey) {
+        return NotificationRequestDTO.builder()
+                .userId(source.getUserId())
+                .type(source.getType())
+                .templateId(source.getTemplateId())
+                .templateParams(source.getTemplateParams())
+                .priority(source.getPriority())
+                .correlationId(source.getCorrelationId())
+                .idempotencyKey(idempotencyKey)
+                .build();
+    }
+}
@@ -2,13 +2,21 @@ package com.karboncard.assignment.notificationservice.service.impl;
 
 import com.karboncard.assignment.notificationservice.config.RateLimitConfig;
 import com.karboncard.assignment.notificationservice.exception.RateLimitExceededException;
+import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitAlgorithm;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitDecision;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitMode;
+import com.karboncard.assignment.notificationservice.model.ratelimit.RateLimitScope;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import java.time.Duration;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -122,4 +130,94 @@ class RedisRateLimitingServiceTest {
     void recordTemplateNotificationAttempt_noop() {
         assertDoesNotThrow(() -> redisRateLimitingService.recordTemplateNotificationAttempt("user1", "tmpl"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkRateLimits_batch_pipelinesCountersAndRejectsOverLimit() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(1L, 1L, 4L, 2L))
+                .thenReturn(List.of());
+
+        List<RateLimitDecision> decisions = redisRateLimitingService.checkRateLimits(List.of(
+                NotificationRequestDTO.builder().userId("user1").templateId("tmpl").build(),
+                NotificationRequestDTO.builder().userId("user2").templateId("tmpl").build()));
+
+        assertEquals(2, decisions.size());
+        assertTrue(decisions.get(0).isAllowed());
+        assertFalse(decisions.get(1).isAllowed());
+        assertTrue(decisions.get(1).getMessage().contains("User rate limit exceeded"));
+        // One pipeline for the INCRs, one for the expiries of the new counters
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+        verify(valueOps, never()).increment(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkRateLimits_scriptMode_singleRoundTripWithRemainingAndReset() {
+        when(rateLimitConfig.getMode()).thenReturn(RateLimitMode.SCRIPT);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("rate:user:user1", "rate:template:user1:tmpl")),
+                eq("FIXED_WINDOW"), eq(3), eq(600000), eq("FIXED_WINDOW"), eq(2), eq(300000)))
+                .thenReturn(List.of(1L, 1L, 1L, 600000L, 300000L));
+
+        RateLimitDecision decision = redisRateLimitingService.checkRateLimits("user1", "tmpl");
+
+        assertTrue(decision.isAllowed());
+        assertEquals(1, decision.getUserCount());
+        assertEquals(1, decision.getTemplateCount());
+        // Template limit (2) is tighter than the user limit (3)
+        assertEquals(1, decision.getRemaining());
+        assertEquals(2, decision.getMaxAllowed());
+        assertNotNull(decision.getResetAt());
+        verify(valueOps, never()).increment(anyString());
+        verify(redisTemplate, never()).expire(anyString(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkRateLimits_scriptMode_templateLimitRejects() {
+        when(rateLimitConfig.getMode()).thenReturn(RateLimitMode.SCRIPT);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(0L, 2L, 2L, 500000L, 120000L));
+
+        RateLimitDecision decision = redisRateLimitingService.checkRateLimits("user1", "tmpl");
+
+        assertFalse(decision.isAllowed());
+        assertEquals(RateLimitScope.TEMPLATE, decision.getRejectedBy());
+        assertEquals(0, decision.getRemaining());
+        assertTrue(decision.getMessage().contains("Template rate limit exceeded"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkRateLimits_scriptMode_batchEvaluatesInOnePipeline() {
+        when(rateLimitConfig.getMode()).thenReturn(RateLimitMode.SCRIPT);
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(List.of(1L, 1L, 1L, 600000L, 300000L), List.of(0L, 3L, 1L, 1000L, 300000L)));
+
+        List<RateLimitDecision> decisions = redisRateLimitingService.checkRateLimits(List.of(
+                NotificationRequestDTO.builder().userId("user1").templateId("tmpl").build(),
+                NotificationRequestDTO.builder().userId("user2").templateId("tmpl").build()));
+
+        assertTrue(decisions.get(0).isAllowed());
+        assertFalse(decisions.get(1).isAllowed());
+        assertEquals(RateLimitScope.USER, decisions.get(1).getRejectedBy());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkRateLimits_gcraAndSlidingWindow_useScriptWithOwnKeysInCommandsMode() {
+        when(rateLimitConfig.getMode()).thenReturn(RateLimitMode.COMMANDS);
+        when(rateLimitConfig.getUserAlgorithm()).thenReturn(RateLimitAlgorithm.GCRA);
+        when(rateLimitConfig.getTemplateAlgorithm()).thenReturn(RateLimitAlgorithm.SLIDING_WINDOW);
+        when(redisTemplate.execute(any(RedisScript.class),
+                eq(List.of("gcra:rate:user:user1", "sw:rate:template:user1:tmpl")),
+                eq("GCRA"), eq(3), eq(600000), eq("SLIDING_WINDOW"), eq(2), eq(300000)))
+                .thenReturn(List.of(1L, 1L, 1L, 200000L, 300000L));
+
+        RateLimitDecision decision = redisRateLimitingService.checkRateLimits("user1", "tmpl");
+
+        assertTrue(decision.isAllowed());
+        verify(valueOps, never()).increment(anyString());
+    }
+}
@@ -0,0 +1,139 @@
+package com.karboncard.assignment.notificationservice.service.ingest;
+
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitterTest {
+
+    private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    private GroupCommitter<Integer, String> committer;
+
+    @AfterEach
+    void tearDown() {
+        if (committer != null) {
+            committer.close();
+        }
+    }
+
+    @Test
+    void submit_groupsItemsQueuedWithinTheWait() throws Exception {
+        committer = start(10, 200_000, 100, items -> {
+            batches.add(items);
+            return items.stream().map(item -> "row-" + item).toList();
+        });
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(committer.submit(i));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("row-" + i, results.get(i).get());
+        }
+        assertEquals(List.of(List.of(0, 1, 2, 3, 4)), batches);
+    }
+
+    @Test
+    void submit_splitsAtTheMaxBatchSize() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        committer = start(2, 0, 100, items -> {
+            batches.add(items);
+            firstBatchStarted.countDown();
+            await(releaseFirstBatch);
+            return items.stream().map(String::valueOf).toList();
+        });
+
+        CompletableFuture<String> first = committer.submit(0);
+        firstBatchStarted.await();
+        // Queued while the first batch is being written
+        List<CompletableFuture<String>> rest = List.of(committer.submit(1), committer.submit(2), committer.submit(3));
+        releaseFirstBatch.countDown();
+
+        assertEquals("0", first.get());
+        for (CompletableFuture<String> result : rest) {
+            result.get();
+        }
+        assertEquals(List.of(List.of(0), List.of(1, 2), List.of(3)), batches);
+    }
+
+    @Test
+    void failedBatch_isRetriedItemByItem() throws Exception {
+        CountDownLatch allQueued = new CountDownLatch(1);
+        committer = start(10, 0, 100, items -> {
+            await(allQueued);
+            batches.add(items);
+            if (items.contains(2)) {
+                throw new IllegalArgumentException("duplicate key " + 2);
+            }
+            return items.stream().map(String::valueOf).toList();
+        });
+
+        CompletableFuture<String> zero = committer.submit(0);
+        CompletableFuture<String> one = committer.submit(1);
+        CompletableFuture<String> two = committer.submit(2);
+        CompletableFuture<String> three = committer.submit(3);
+        allQueued.countDown();
+
+        assertEquals("0", zero.get());
+        // Item 1 may be in the first batch alone or grouped with the failing item
+        assertEquals("1", one.get());
+        ExecutionException error = assertThrows(ExecutionException.class, two::get);
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertEquals("3", three.get());
+    }
+
+    @Test
+    void submit_rejectsWhenTheQueueIsFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        committer = start(1, 0, 1, items -> {
+            await(release);
+            return items.stream().map(String::valueOf).toList();
+        });
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(committer.submit(i));
+        }
+        release.countDown();
+
+        assertTrue(results.stream().anyMatch(result -> {
+            try {
+                result.join();
+                return false;
+            } catch (Exception e) {
+                return e.getCause() instanceof RejectedExecutionException;
+            }
+        }));
+    }
+
+    private GroupCommitter<Integer, String> start(int maxBatchSize, long maxWaitMicros, int queueCapacity,
+                                                  Function<List<Integer>, List<String>> writer) {
+        GroupCommitter<Integer, String> groupCommitter = new GroupCommitter<>("test", maxBatchSize, maxWaitMicros,
+                queueCapacity, writer, new MetricsUtil(new SimpleMeterRegistry()));
+        groupCommitter.start();
+        return groupCommitter;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.karboncard.assignment.notificationservice.service.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.repository.NotificationBulkInsertRepository;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IngestPersisterTest {
+
+    private static final String N1 = "0192b7a1-8f00-7000-8000-000000000001";
+    private static final String N2 = "0192b7a1-8f00-7000-8000-000000000002";
+    private static final String N3 = "0192b7a1-8f00-7000-8000-000000000003";
+    private static final String N4 = "0192b7a1-8f00-7000-8000-000000000004";
+
+    @Mock
+    private NotificationBulkInsertRepository bulkInsertRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private IngestPersister persister;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        persister = new IngestPersister(objectMapper, bulkInsertRepository, kafkaProducerService,
+                new MetricsUtil(new SimpleMeterRegistry()), transactionManager);
+        when(kafkaProducerService.sendNotifications(anyList())).thenAnswer(invocation -> {
+            List<Notification> notifications = invocation.getArgument(0);
+            return notifications.stream().map(n -> CompletableFuture.completedFuture(true)).toList();
+        });
+    }
+
+    @Test
+    void persist_insertsOnceAndForwardsNewAndRedeliveredRows() throws Exception {
+        // N1 is new, N2 was persisted by an earlier delivery of this poll, N3 lost its key to another
+        // notification, and N4 repeats N1's key within the poll
+        when(bulkInsertRepository.insertIgnoringDuplicates(anyList())).thenReturn(List.of(N1));
+        when(bulkInsertRepository.findNotificationIdsByIdempotencyKeys(List.of("key-2", "key-3")))
+                .thenReturn(Map.of("key-2", N2, "key-3", "0192b7a1-8f00-7000-8000-0000000000ff"));
+
+        int persisted = persister.persist(List.of(message(N1, "key-1"), message(N2, "key-2"),
+                message(N3, "key-3"), message(N4, "key-1"), "not-json"));
+
+        assertEquals(2, persisted);
+        ArgumentCaptor<List<Notification>> inserted = ArgumentCaptor.captor();
+        verify(bulkInsertRepository).insertIgnoringDuplicates(inserted.capture());
+        assertEquals(List.of(N1, N2, N3), inserted.getValue().stream().map(Notification::getId).toList());
+        verify(kafkaProducerService).sendNotifications(argThat(list ->
+                list.stream().map(Notification::getId).toList().equals(List.of(N1, N2))));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void persist_throwsWhenAForwardFails() throws Exception {
+        when(bulkInsertRepository.insertIgnoringDuplicates(anyList())).thenReturn(List.of(N1));
+        when(kafkaProducerService.sendNotifications(anyList()))
+                .thenReturn(List.of(CompletableFuture.completedFuture(false)));
+
+        assertThrows(IllegalStateException.class, () -> persister.persist(List.of(message(N1, "key-1"))));
+    }
+
+    @Test
+    void persist_keyTakenDuringInsert_insertsRowByRowAndDropsOnlyTheConflict() throws Exception {
+        // A synchronous request takes key-2 after the INSERT checked it, failing the whole statement
+        when(bulkInsertRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> {
+            List<Notification> notifications = invocation.getArgument(0);
+            if (notifications.size() > 1 || notifications.get(0).getId().equals(N2)) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            return List.of(notifications.get(0).getId());
+        });
+
+        int persisted = persister.persist(List.of(message(N1, "key-1"), message(N2, "key-2"),
+                message(N3, "key-3")));
+
+        assertEquals(2, persisted);
+        verify(bulkInsertRepository, times(4)).insertIgnoringDuplicates(anyList());
+        verify(kafkaProducerService).sendNotifications(argThat(list ->
+                list.stream().map(Notification::getId).toList().equals(List.of(N1, N3))));
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    private String message(String id, String idempotencyKey) throws Exception {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUserId("u1");
+        notification.setType(NotificationType.SMS);
+        notification.setIdempotencyKey(idempotencyKey);
+        notification.setStatus(NotificationStatus.PENDING);
+        notification.setCreatedAt(LocalDateTime.now());
+        return objectMapper.writeValueAsString(notification);
+    }
+}
@@ -0,0 +1,109 @@
+package com.karboncard.assignment.notificationservice.service.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.exception.ServiceOverloadedException;
+import com.karboncard.assignment.notificationservice.model.dto.request.NotificationRequestDTO;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class KafkaFirstIngestServiceTest {
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private KafkaFirstIngestService ingestService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        ingestService = new KafkaFirstIngestService(kafkaProducerService, redisTemplate, objectMapper,
+                new MetricsUtil(new SimpleMeterRegistry()), true, "ingest-topic", "SMS", "OTP, PROMO", 1000, 10);
+    }
+
+    @Test
+    void handles_matchesConfiguredTypesAndTemplates() {
+        assertTrue(ingestService.handles(request(NotificationType.SMS, "WELCOME")));
+        assertTrue(ingestService.handles(request(NotificationType.EMAIL, "PROMO")));
+        assertFalse(ingestService.handles(request(NotificationType.EMAIL, "WELCOME")));
+    }
+
+    @Test
+    void accept_producesWithAnIdAndCachesThePendingNotification() {
+        when(kafkaProducerService.send(eq("ingest-topic"), eq("key-1"), anyString(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        Notification accepted = ingestService.accept(notification());
+
+        assertEquals(7, java.util.UUID.fromString(accepted.getId()).version());
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(eq(KafkaFirstIngestService.PENDING_KEY_PREFIX + accepted.getId()),
+                payload.capture(), eq(Duration.ofMinutes(10)));
+
+        when(valueOperations.get(KafkaFirstIngestService.PENDING_KEY_PREFIX + accepted.getId()))
+                .thenReturn(payload.getValue());
+        Optional<Notification> pending = ingestService.findPending(accepted.getId());
+        assertTrue(pending.isPresent());
+        assertEquals(NotificationStatus.PENDING, pending.get().getStatus());
+        assertEquals("key-1", pending.get().getIdempotencyKey());
+    }
+
+    @Test
+    void accept_failsWhenKafkaDoesNotAcknowledge() {
+        when(kafkaProducerService.send(anyString(), anyString(), anyString(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(false));
+
+        assertThrows(ServiceOverloadedException.class, () -> ingestService.accept(notification()));
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void findPending_failsOpenOnRedisErrors() {
+        when(valueOperations.get(anyString())).thenThrow(new RuntimeException("redis down"));
+
+        assertTrue(ingestService.findPending("0192b7a1-8f00-7000-8000-000000000001").isEmpty());
+        assertTrue(ingestService.findPending("not-a-uuid").isEmpty());
+    }
+
+    private static NotificationRequestDTO request(NotificationType type, String templateId) {
+        return NotificationRequestDTO.builder().userId("u1").type(type).templateId(templateId).build();
+    }
+
+    private static Notification notification() {
+        Notification notification = new Notification();
+        notification.setUserId("u1");
+        notification.setType(NotificationType.SMS);
+        notification.setTemplateId("OTP");
+        notification.setIdempotencyKey("key-1");
+        notification.setStatus(NotificationStatus.PENDING);
+        notification.setCreatedAt(LocalDateTime.now());
+        return notification;
+    }
+}
@@ -0,0 +1,115 @@
+package com.karboncard.assignment.notificationservice.service.outbox;
+
+import com.karboncard.assignment.notificationservice.model.entity.OutboxEvent;
+import com.karboncard.assignment.notificationservice.repository.OutboxEventRepository;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaProducerService,
+                new MetricsUtil(meterRegistry), transactionManager);
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 2);
+        ReflectionTestUtils.setField(outboxRelay, "sendTimeoutMs", 1000L);
+    }
+
+    @Test
+    void relayBatch_marksAcknowledgedDispatchedAndFailedForRetry() {
+        when(outboxEventRepository.claimBatch(eq(2), eq(10), any()))
+                .thenReturn(List.of(event("e1", "k1"), event("e2", "k2")));
+        when(kafkaProducerService.send(eq("email-topic"), eq("k1"), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        when(kafkaProducerService.send(eq("email-topic"), eq("k2"), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(false));
+
+        assertEquals(2, outboxRelay.relayBatch());
+
+        verify(outboxEventRepository).leaseBatch(eq(List.of("e1", "e2")), any(LocalDateTime.class));
+        verify(outboxEventRepository).markDispatched(eq(List.of("e1")), any(LocalDateTime.class));
+        verify(outboxEventRepository).markFailed(eq(List.of("e2")), anyString());
+        // The claim and the marking commit separately, so no lock is held while waiting for acks
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(0.0, meterRegistry.counter("notification.outbox.exhausted").count());
+    }
+
+    @Test
+    void relayBatch_countsEventsThatRunOutOfAttempts() {
+        OutboxEvent lastAttempt = event("e1", "k1");
+        lastAttempt.setAttempts(9);
+        when(outboxEventRepository.claimBatch(eq(2), eq(10), any()))
+                .thenReturn(List.of(lastAttempt, event("e2", "k2")));
+        when(kafkaProducerService.send(anyString(), anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(false));
+
+        assertEquals(2, outboxRelay.relayBatch());
+
+        verify(outboxEventRepository).markFailed(eq(List.of("e1", "e2")), anyString());
+        assertEquals(1.0, meterRegistry.counter("notification.outbox.exhausted").count());
+    }
+
+    @Test
+    void poll_stopsWhenOutboxIsDrained() {
+        when(outboxEventRepository.claimBatch(eq(2), eq(10), any()))
+                .thenReturn(List.of(event("e1", "k1"), event("e2", "k2")))
+                .thenReturn(List.of(event("e3", "k3")))
+                .thenReturn(List.of());
+        when(kafkaProducerService.send(anyString(), anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        outboxRelay.poll();
+
+        verify(outboxEventRepository, times(2)).claimBatch(eq(2), eq(10), any());
+        verify(kafkaProducerService, times(3)).send(anyString(), anyString(), anyString(), any());
+        verify(outboxEventRepository, never()).markFailed(any(), anyString());
+    }
+
+    @Test
+    void relayBatch_emptyOutbox_sendsNothing() {
+        when(outboxEventRepository.claimBatch(eq(2), eq(10), any())).thenReturn(List.of());
+
+        assertEquals(0, outboxRelay.relayBatch());
+
+        verifyNoInteractions(kafkaProducerService);
+        verify(outboxEventRepository, never()).leaseBatch(any(), any());
+        verify(outboxEventRepository, never()).markDispatched(any(), any());
+    }
+
+    private OutboxEvent event(String id, String key) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setTopic("email-topic");
+        event.setMessageKey(key);
+        event.setPayload("{}");
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+}
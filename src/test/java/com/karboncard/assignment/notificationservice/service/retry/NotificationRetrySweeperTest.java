@@ -0,0 +1,137 @@
+package com.karboncard.assignment.notificationservice.service.retry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.config.KafkaConfig;
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterPayload;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.service.DeadLetterQueueService;
+import com.karboncard.assignment.notificationservice.service.KafkaProducerService;
+import com.karboncard.assignment.notificationservice.service.status.NotificationStateMachine;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationRetrySweeperTest {
+
+    private static final String RETRYABLE = "0192b7a1-8f00-7000-8000-000000000001";
+    private static final String EXHAUSTED = "0192b7a1-8f00-7000-8000-000000000002";
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationStateMachine stateMachine;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private DeadLetterQueueService deadLetterQueueService;
+
+    @Mock
+    private KafkaConfig kafkaConfig;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationRetrySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new NotificationRetrySweeper(notificationRepository, stateMachine, kafkaProducerService,
+                deadLetterQueueService, kafkaConfig, new ObjectMapper().findAndRegisterModules(),
+                new MetricsUtil(meterRegistry), transactionManager);
+        when(kafkaConfig.topicFor(NotificationType.SMS)).thenReturn("sms-topic");
+    }
+
+    @Test
+    void sweepPage_leasesAndRedispatchesRetryableAndDeadLettersExhausted() {
+        when(notificationRepository.findFailedNotificationsForDLQ(any(), eq(4), any(), eq(500)))
+                .thenReturn(List.of(notification(EXHAUSTED, 4)));
+        when(notificationRepository.findRetryableNotifications(any(), eq(4), any(), eq(499)))
+                .thenReturn(List.of(notification(RETRYABLE, 2)));
+        when(kafkaProducerService.sendNotifications(anyList()))
+                .thenReturn(List.of(CompletableFuture.completedFuture(true)));
+
+        assertEquals(2, sweeper.sweepPage());
+
+        ArgumentCaptor<LocalDateTime> createdAfter = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> leaseExpiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(notificationRepository).findRetryableNotifications(any(), anyInt(), createdAfter.capture(), anyInt());
+        verify(notificationRepository).leaseNotifications(eq(List.of(RETRYABLE)), eq(createdAfter.getValue()),
+                anyString(), leaseExpiresAt.capture());
+        assertTrue(leaseExpiresAt.getValue().isAfter(LocalDateTime.now().plusMinutes(4)));
+        verify(stateMachine).markExhausted(List.of(EXHAUSTED));
+        verify(transactionManager).commit(any());
+        verify(kafkaProducerService).sendNotifications(argThat(list -> list.size() == 1
+                && list.get(0).getId().equals(RETRYABLE)));
+
+        ArgumentCaptor<DeadLetterPayload> payload = ArgumentCaptor.forClass(DeadLetterPayload.class);
+        verify(deadLetterQueueService).sendToDLQ(payload.capture());
+        assertEquals("sms-topic", payload.getValue().getOriginalTopic());
+        assertEquals("key-" + EXHAUSTED, payload.getValue().getOriginalKey());
+        assertEquals("provider timeout", payload.getValue().getErrorReason());
+        assertEquals(1.0, swept("redispatched"));
+        assertEquals(1.0, swept("exhausted"));
+    }
+
+    @Test
+    void sweepPage_leavesFailedSendsLeased() {
+        when(notificationRepository.findRetryableNotifications(any(), anyInt(), any(), anyInt()))
+                .thenReturn(List.of(notification(RETRYABLE, 1)));
+        when(kafkaProducerService.sendNotifications(anyList()))
+                .thenReturn(List.of(CompletableFuture.completedFuture(false)));
+
+        assertEquals(1, sweeper.sweepPage());
+
+        assertEquals(1.0, swept("failed"));
+        verify(notificationRepository, never()).startDeliveryAttempts(any(), any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(deadLetterQueueService);
+    }
+
+    @Test
+    void sweep_stopsAtTheFirstPartialPage() {
+        sweeper.sweep();
+
+        verify(notificationRepository, times(1)).findRetryableNotifications(any(), anyInt(), any(), anyInt());
+        verify(notificationRepository, never()).leaseNotifications(any(), any(), any(), any());
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    private static Notification notification(String id, int deliveryAttempts) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUserId("u1");
+        notification.setType(NotificationType.SMS);
+        notification.setIdempotencyKey("key-" + id);
+        notification.setStatus(NotificationStatus.FAILED);
+        notification.setDeliveryAttempts(deliveryAttempts);
+        notification.setErrorMessage("provider timeout");
+        notification.setCreatedAt(LocalDateTime.now().minusHours(1));
+        return notification;
+    }
+
+    private double swept(String result) {
+        var counter = meterRegistry.find("notification.retry_sweeper.swept").tag("result", result).counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+}
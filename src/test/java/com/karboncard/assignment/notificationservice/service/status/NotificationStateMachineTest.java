@@ -0,0 +1,189 @@
+package com.karboncard.assignment.notificationservice.service.status;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.util.UuidV7Generator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationStateMachineTest {
+
+    private static final String ID = "0192b7a1-8f00-7000-8000-000000000001";
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationStateMachine stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        stateMachine = new NotificationStateMachine(notificationRepository, new MetricsUtil(meterRegistry));
+    }
+
+    @Test
+    void startAttempt_winsOnlyWhenTheRowWasDeliverable() {
+        when(notificationRepository.startDeliveryAttempts(eq(List.of(ID)), any(), any(),
+                eq(NotificationStateMachine.DELIVERABLE),
+                eq(NotificationStatus.RETRYING), any(), any())).thenReturn(1, 0);
+
+        assertTrue(stateMachine.startAttempt(ID));
+        assertFalse(stateMachine.startAttempt(ID));
+
+        assertEquals(1.0, transitions("RETRYING", "applied"));
+        assertEquals(1.0, transitions("RETRYING", "rejected"));
+    }
+
+    @Test
+    void markSent_onlyMovesInFlightNotifications() {
+        when(notificationRepository.transitionStatus(anyCollection(), any(), any(),
+                eq(NotificationStateMachine.IN_FLIGHT), eq(NotificationStatus.SENT), any())).thenReturn(2);
+
+        assertEquals(2, stateMachine.markSent(List.of(ID, "0192b7a1-8f00-7000-8000-000000000002",
+                "0192b7a1-8f00-7000-8000-000000000003")));
+
+        assertEquals(2.0, transitions("SENT", "applied"));
+        assertEquals(1.0, transitions("SENT", "rejected"));
+    }
+
+    @Test
+    void markFailed_passesMaxAttemptsToTheUpdate() {
+        when(notificationRepository.failDeliveryAttempts(eq(List.of(ID)), any(), any(),
+                eq(NotificationStateMachine.IN_FLIGHT), eq(4), eq("timeout"), any(), any())).thenReturn(1);
+
+        assertTrue(stateMachine.markFailed(ID, "timeout"));
+    }
+
+    @Test
+    void failAttempt_onlyWritesTheRowOnTheLastAttempt() {
+        assertEquals(NotificationStatus.FAILED, stateMachine.failAttempt(ID, 2, "timeout"));
+        verifyNoInteractions(notificationRepository);
+        assertEquals(1.0, transitions("FAILED", "deferred"));
+
+        when(notificationRepository.failDeliveryAttempts(eq(List.of(ID)), any(), any(),
+                eq(NotificationStateMachine.IN_FLIGHT), eq(4), eq("timeout"), any(), any())).thenReturn(1);
+        assertEquals(NotificationStatus.PERMANENT_FAILURE, stateMachine.failAttempt(ID, 4, "timeout"));
+        assertEquals(NotificationStatus.FAILED, stateMachine.failAttempt(ID, 0, "timeout"));
+        verify(notificationRepository, times(2))
+                .failDeliveryAttempts(any(), any(), any(), any(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void startAttempt_schedulesTheSweepAfterTheRetryChain() {
+        when(notificationRepository.startDeliveryAttempts(anyCollection(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(1);
+
+        stateMachine.startAttempt(ID);
+
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> sweepAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(notificationRepository).startDeliveryAttempts(any(), any(), any(), any(), any(), now.capture(),
+                sweepAt.capture());
+        assertEquals(Duration.ofMinutes(15), Duration.between(now.getValue(), sweepAt.getValue()));
+    }
+
+    @Test
+    void markRejected_failsPermanentlyWhateverTheAttemptCount() {
+        when(notificationRepository.failDeliveryAttempts(eq(List.of(ID)), any(), any(),
+                eq(NotificationStateMachine.IN_FLIGHT), eq(0), eq("invalid number"), any(), isNull())).thenReturn(1);
+
+        assertTrue(stateMachine.markRejected(ID, "invalid number"));
+        assertEquals(1.0, transitions("PERMANENT_FAILURE", "applied"));
+    }
+
+    @Test
+    void markExhausted_onlyMovesSweepableNotifications() {
+        when(notificationRepository.transitionStatus(eq(List.of(ID)), any(), any(),
+                eq(NotificationStateMachine.SWEEPABLE), eq(NotificationStatus.PERMANENT_FAILURE), any())).thenReturn(1);
+
+        assertEquals(1, stateMachine.markExhausted(List.of(ID)));
+        assertEquals(1.0, transitions("PERMANENT_FAILURE", "applied"));
+    }
+
+    @Test
+    void reopen_resetsFailedNotificationsToPending() {
+        when(notificationRepository.resetDeliveryAttempts(eq(List.of(ID)), any(), any(),
+                eq(NotificationStateMachine.REOPENABLE), eq(NotificationStatus.PENDING), any())).thenReturn(1);
+
+        assertEquals(1, stateMachine.reopen(List.of(ID)));
+        assertFalse(NotificationStateMachine.REOPENABLE.contains(NotificationStatus.SENT));
+    }
+
+    @Test
+    void parkAttempt_refundsTheAttemptAndSchedulesTheSweepAfterTheParkDelay() {
+        when(notificationRepository.parkDeliveryAttempts(eq(List.of(ID)), any(), any(),
+                eq(NotificationStateMachine.IN_FLIGHT),
+                eq(NotificationStatus.FAILED), eq(1), eq("circuit open"), any(), any())).thenReturn(1);
+
+        assertTrue(stateMachine.parkAttempt(ID, "circuit open"));
+
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> retryAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(notificationRepository).parkDeliveryAttempts(any(), any(), any(), any(), any(), anyInt(), any(),
+                now.capture(), retryAt.capture());
+        assertEquals(Duration.ofMinutes(1), Duration.between(now.getValue(), retryAt.getValue()));
+    }
+
+    @Test
+    void park_doesNotRefundAttemptsThatWereNeverCounted() {
+        when(notificationRepository.parkDeliveryAttempts(eq(List.of(ID)), any(), any(),
+                eq(NotificationStateMachine.DELIVERABLE),
+                eq(NotificationStatus.FAILED), eq(0), any(), any(), any())).thenReturn(1);
+
+        assertEquals(1, stateMachine.park(List.of(ID), "circuit open"));
+        assertEquals(1.0, meterRegistry.counter("notification.status.parked").count());
+    }
+
+    @Test
+    void startAttempt_boundsTheUpdateToTheIdsPartitions() {
+        when(notificationRepository.startDeliveryAttempts(anyCollection(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(1);
+
+        stateMachine.startAttempt(ID);
+
+        ArgumentCaptor<LocalDateTime> createdFrom = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> createdTo = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(notificationRepository).startDeliveryAttempts(any(), createdFrom.capture(), createdTo.capture(),
+                any(), any(), any(), any());
+        LocalDateTime createdAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(UuidV7Generator.timestampMillis(UUID.fromString(ID))), ZoneId.systemDefault());
+        assertTrue(createdFrom.getValue().isBefore(createdAt) && createdTo.getValue().isAfter(createdAt));
+        assertTrue(Duration.between(createdFrom.getValue(), createdTo.getValue()).compareTo(Duration.ofHours(1)) < 0);
+    }
+
+    @Test
+    void emptyBatches_skipTheDatabase() {
+        assertEquals(0, stateMachine.startAttempts(List.of()));
+        assertEquals(0, stateMachine.markSent(List.of()));
+        assertEquals(0, stateMachine.markFailed(List.of(), "error"));
+        assertEquals(0, stateMachine.markExhausted(List.of()));
+        assertEquals(0, stateMachine.reopen(List.of()));
+        assertEquals(0, stateMachine.park(List.of(), "error"));
+
+        verifyNoInteractions(notificationRepository);
+    }
+
+    private double transitions(String to, String result) {
+        var counter = meterRegistry.find("notification.status.transition").tag("to", to).tag("result", result)
+                .counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+}
@@ -0,0 +1,93 @@
+package com.karboncard.assignment.notificationservice.service.storage;
+
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationPartitionMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        maintainer = new NotificationPartitionMaintainer(jdbcTemplate, new MetricsUtil(new SimpleMeterRegistry()),
+                transactionManager);
+    }
+
+    @Test
+    void upperBound_readsDailyAndLegacyBounds() {
+        assertEquals(LocalDateTime.of(2026, 10, 19, 0, 0), NotificationPartitionMaintainer.upperBound(
+                "FOR VALUES FROM ('2026-10-18 00:00:00') TO ('2026-10-19 00:00:00')"));
+        assertEquals(LocalDateTime.of(2026, 1, 2, 0, 0), NotificationPartitionMaintainer.upperBound(
+                "FOR VALUES FROM (MINVALUE) TO ('2026-01-02 00:00:00')"));
+        assertNull(NotificationPartitionMaintainer.upperBound("DEFAULT"));
+    }
+
+    @Test
+    void maintain_createsPartitionsAheadAndDropsOnlyExpiredOnes() {
+        LocalDate today = LocalDate.now();
+        when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class), any()))
+                .thenReturn(true);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT create_notification_partition"), eq(Boolean.class), any()))
+                .thenReturn(false);
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(
+                partition("notifications_legacy", "FOR VALUES FROM (MINVALUE) TO ('" + bound(today.minusDays(200)) + "')"),
+                partition("notifications_p_old", "FOR VALUES FROM ('" + bound(today.minusDays(91)) + "') TO ('"
+                        + bound(today.minusDays(90)) + "')"),
+                partition("notifications_p_kept", "FOR VALUES FROM ('" + bound(today.minusDays(90)) + "') TO ('"
+                        + bound(today.minusDays(89)) + "')"),
+                partition("notifications_default", "DEFAULT")));
+
+        maintainer.maintain();
+
+        // Today plus seven days ahead
+        verify(jdbcTemplate, times(8)).queryForObject(startsWith("SELECT create_notification_partition"),
+                eq(Boolean.class), any());
+        verify(jdbcTemplate).execute("DROP TABLE \"notifications_legacy\"");
+        verify(jdbcTemplate).execute("DROP TABLE \"notifications_p_old\"");
+        verify(jdbcTemplate, times(2)).execute(startsWith("DROP TABLE"));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM notification_idempotency_keys"), any(), eq(10000));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM notification_attempts"), any(), eq(10000));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM dead_letters"), any(), eq(10000));
+    }
+
+    @Test
+    void maintain_skipsWhenAnotherNodeHoldsTheLock() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class), any()))
+                .thenReturn(false);
+
+        maintainer.maintain();
+
+        verify(jdbcTemplate, never()).queryForList(anyString());
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    private static Map<String, Object> partition(String name, String bound) {
+        return Map.of("name", name, "bound", bound);
+    }
+
+    private static String bound(LocalDate date) {
+        return date + " 00:00:00";
+    }
+}
@@ -0,0 +1,37 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CreatedAtRangeTest {
+
+    @Test
+    void of_coversTheCreationTimesOfUuidV7Ids() throws InterruptedException {
+        LocalDateTime firstCreatedAt = LocalDateTime.now();
+        String first = UuidV7Generator.generate().toString();
+        Thread.sleep(20);
+        String second = UuidV7Generator.generate().toString();
+        LocalDateTime secondCreatedAt = LocalDateTime.now();
+
+        CreatedAtRange range = CreatedAtRange.of(List.of(second, first));
+
+        assertTrue(range.from().isBefore(firstCreatedAt));
+        assertTrue(range.to().isAfter(secondCreatedAt));
+        assertTrue(Duration.between(range.from(), range.to()).compareTo(Duration.ofMinutes(11)) < 0);
+    }
+
+    @Test
+    void of_isUnboundedForIdsWithoutATimestamp() {
+        String v7 = UuidV7Generator.generate().toString();
+
+        assertEquals(CreatedAtRange.UNBOUNDED, CreatedAtRange.of(List.of(v7, UUID.randomUUID().toString())));
+        assertEquals(CreatedAtRange.UNBOUNDED, CreatedAtRange.of("notif-1"));
+        assertEquals(CreatedAtRange.UNBOUNDED, CreatedAtRange.of(List.of()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintProcessedNotificationStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void addedIds_areFoundUntilTheirGenerationIsDropped() {
+        FingerprintProcessedNotificationStore store =
+                new FingerprintProcessedNotificationStore(1000, Duration.ofMinutes(10), 1, now::get);
+        String id = UUID.randomUUID().toString();
+        store.add(id);
+
+        assertTrue(store.contains(id));
+        assertFalse(store.contains(UUID.randomUUID().toString()));
+
+        // Still held after one rotation (half the TTL), gone once the TTL has passed
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+        assertTrue(store.contains(id));
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+        assertFalse(store.contains(id));
+        assertEquals(1, store.evictionCount());
+    }
+
+    @Test
+    void sizeIsBounded() {
+        FingerprintProcessedNotificationStore store =
+                new FingerprintProcessedNotificationStore(100, Duration.ofHours(1), 1, now::get);
+        for (int i = 0; i < 1000; i++) {
+            store.add("notif-" + i);
+        }
+
+        assertTrue(store.size() <= 100);
+        assertTrue(store.contains("notif-999"));
+        assertFalse(store.contains("notif-0"));
+        assertEquals(1000 - store.size(), store.evictionCount());
+    }
+}
@@ -3,9 +3,12 @@ package com.karboncard.assignment.notificationservice.util;
 import com.karboncard.assignment.notificationservice.model.entity.Notification;
 import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
 import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,12 +19,16 @@ class IdempotencyUtilTest {
     @Mock
     private NotificationRepository notificationRepository;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private IdempotencyUtil idempotencyUtil;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyUtil = new IdempotencyUtil(notificationRepository,
+                new HeapProcessedNotificationStore(2, Duration.ofMinutes(10), 1), new MetricsUtil(meterRegistry));
     }
 
     @Test
@@ -71,7 +78,7 @@ class IdempotencyUtilTest {
 
         assertTrue(idempotencyUtil.isAlreadyProcessed(notificationId));
         // Should NOT call the repository if found in cache
-        verify(notificationRepository, never()).findById(any());
+        verify(notificationRepository, never()).findByIdAndCreatedAtBetween(any(), any(), any());
     }
 
     @Test
@@ -80,10 +87,11 @@ class IdempotencyUtilTest {
         Notification notification = new Notification();
         notification.setStatus(NotificationStatus.SENT);
 
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(notification));
+        when(notificationRepository.findByIdAndCreatedAtBetween(eq(notificationId), any(), any()))
+                .thenReturn(Optional.of(notification));
 
         assertTrue(idempotencyUtil.isAlreadyProcessed(notificationId));
-        verify(notificationRepository).findById(notificationId);
+        verify(notificationRepository).findByIdAndCreatedAtBetween(eq(notificationId), any(), any());
     }
 
     @Test
@@ -92,19 +100,21 @@ class IdempotencyUtilTest {
         Notification notification = new Notification();
         notification.setStatus(NotificationStatus.PENDING);
 
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(notification));
+        when(notificationRepository.findByIdAndCreatedAtBetween(eq(notificationId), any(), any()))
+                .thenReturn(Optional.of(notification));
 
         assertFalse(idempotencyUtil.isAlreadyProcessed(notificationId));
-        verify(notificationRepository).findById(notificationId);
+        verify(notificationRepository).findByIdAndCreatedAtBetween(eq(notificationId), any(), any());
     }
 
     @Test
     void isAlreadyProcessed_returnsFalse_whenNotInCacheOrDb() {
         String notificationId = "notif-4";
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.empty());
+        when(notificationRepository.findByIdAndCreatedAtBetween(eq(notificationId), any(), any()))
+                .thenReturn(Optional.empty());
 
         assertFalse(idempotencyUtil.isAlreadyProcessed(notificationId));
-        verify(notificationRepository).findById(notificationId);
+        verify(notificationRepository).findByIdAndCreatedAtBetween(eq(notificationId), any(), any());
     }
 
     @Test
@@ -114,4 +124,33 @@ class IdempotencyUtilTest {
 
         assertTrue(idempotencyUtil.isAlreadyProcessed(notificationId));
     }
-}
\ No newline at end of file
+
+    @Test
+    void isAlreadyProcessed_sentInDb_isCachedForNextCheck() {
+        Notification notification = new Notification();
+        notification.setStatus(NotificationStatus.SENT);
+        when(notificationRepository.findByIdAndCreatedAtBetween(eq("notif-6"), any(), any()))
+                .thenReturn(Optional.of(notification));
+
+        assertTrue(idempotencyUtil.isAlreadyProcessed("notif-6"));
+        assertTrue(idempotencyUtil.isAlreadyProcessed("notif-6"));
+
+        verify(notificationRepository, times(1)).findByIdAndCreatedAtBetween(eq("notif-6"), any(), any());
+        assertEquals(1.0, meterRegistry.get("notification.idempotency.processed_cache")
+                .tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void markAsProcessed_beyondMaxSize_evictsOldestAndFallsBackToDb() {
+        idempotencyUtil.markAsProcessed("notif-a");
+        idempotencyUtil.markAsProcessed("notif-b");
+        idempotencyUtil.markAsProcessed("notif-c");
+        when(notificationRepository.findByIdAndCreatedAtBetween(eq("notif-a"), any(), any()))
+                .thenReturn(Optional.empty());
+
+        assertFalse(idempotencyUtil.isAlreadyProcessed("notif-a"));
+        assertTrue(idempotencyUtil.isAlreadyProcessed("notif-c"));
+        assertEquals(1.0, meterRegistry.get("notification.idempotency.processed_cache.evictions")
+                .functionCounter().count());
+    }
+}
@@ -0,0 +1,40 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void addedKeys_alwaysReported() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("key-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("key-" + i));
+        }
+        assertEquals(10_000, filter.approximateSize());
+    }
+
+    @Test
+    void growsPastCapacity_keepingFalsePositivesLow() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        long initialBits = filter.bitSize();
+        for (int i = 0; i < 20_000; i++) {
+            filter.put("key-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 20_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(filter.bitSize() > initialBits);
+        // Bounded by twice the initial rate
+        assertTrue(falsePositives < 400, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,69 @@
+package com.karboncard.assignment.notificationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void generate_setsVersionVariantAndCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7Generator.generate();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long timestamp = UuidV7Generator.timestampMillis(uuid);
+        // The counter may carry into the next millisecond
+        assertTrue(timestamp >= before && timestamp <= after + 1, "timestamp " + timestamp);
+    }
+
+    @Test
+    void generate_isStrictlyIncreasingInStringAndByteOrder() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(UuidV7Generator.generate());
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            // Postgres compares uuids byte by byte, which matches the unsigned order of the high bits
+            assertTrue(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(),
+                    ids.get(i).getMostSignificantBits()) < 0, "out of order at " + i);
+            assertTrue(ids.get(i - 1).toString().compareTo(ids.get(i).toString()) < 0);
+        }
+    }
+
+    @Test
+    void generate_isUniqueAcrossThreads() throws InterruptedException {
+        Set<UUID> ids = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(UuidV7Generator.generate());
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        executor.shutdown();
+
+        assertEquals(160_000, ids.size());
+    }
+
+    @Test
+    void timestampMillis_rejectsOtherVersions() {
+        assertThrows(IllegalArgumentException.class, () -> UuidV7Generator.timestampMillis(UUID.randomUUID()));
+    }
+}
@@ -0,0 +1,62 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveTokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    private AdaptiveTokenBucket bucket(double initialRate) {
+        return new AdaptiveTokenBucket(initialRate, 5, 1000, 10, 0.5, 1, TimeUnit.SECONDS.toNanos(1), clock::get);
+    }
+
+    @Test
+    void tryAcquire_grantsWhatTheBucketHoldsAndRefillsAtTheRate() {
+        AdaptiveTokenBucket bucket = bucket(100);
+
+        assertEquals(100, bucket.tryAcquire(150));
+        assertEquals(0, bucket.tryAcquire(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), bucket.nanosUntilAvailable(1));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(25, bucket.tryAcquire(100));
+
+        // Never more than burst-seconds of tokens
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(100, bucket.tryAcquire(1000));
+    }
+
+    @Test
+    void onSuccess_growsTheRateByAboutTheAdditiveIncreasePerSecond() {
+        AdaptiveTokenBucket bucket = bucket(100);
+
+        // One second of successful calls at the current rate
+        for (int i = 0; i < 100; i++) {
+            bucket.onSuccess();
+        }
+
+        assertEquals(110, bucket.getRate(), 0.5);
+    }
+
+    @Test
+    void onThrottle_halvesTheRateOncePerCooldownAndStopsAtTheMinimum() {
+        AdaptiveTokenBucket bucket = bucket(100);
+
+        assertTrue(bucket.onThrottle());
+        assertFalse(bucket.onThrottle());
+        assertEquals(50, bucket.getRate());
+        // The bucket shrinks with the rate
+        assertEquals(50, bucket.tryAcquire(100));
+
+        for (int i = 0; i < 10; i++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            bucket.onThrottle();
+        }
+        assertEquals(5, bucket.getRate());
+    }
+}
@@ -0,0 +1,65 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundRateControllerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OutboundRateController controller(boolean enabled) {
+        return new OutboundRateController(new MetricsUtil(meterRegistry), enabled, 10, 1, 100, 5, 0.5, 1, 1000,
+                0, 100, 5000);
+    }
+
+    @Test
+    void acquire_grantsPartOfABatchAndCountsTheRest() {
+        OutboundRateController controller = controller(true);
+
+        assertEquals(10, controller.acquire(NotificationType.SMS, 25));
+        assertFalse(controller.tryAcquire(NotificationType.SMS));
+        // Each channel has its own bucket
+        assertTrue(controller.tryAcquire(NotificationType.EMAIL));
+
+        assertEquals(16.0, meterRegistry.get("notification.provider.rate.rejected").tag("type", "SMS")
+                .counter().count());
+        assertEquals(10.0, meterRegistry.get("notification.provider.rate.current").tag("type", "SMS")
+                .gauge().value());
+    }
+
+    @Test
+    void pauseFor_isClampedBetweenTheMinimumAndMaximumPause() {
+        OutboundRateController controller = controller(true);
+        controller.acquire(NotificationType.PUSH, 10);
+
+        Duration pause = controller.pauseFor(NotificationType.PUSH, 5);
+        assertTrue(pause.toMillis() > 400 && pause.toMillis() <= 500, "pause " + pause);
+        assertEquals(Duration.ofMillis(100), controller.pauseFor(NotificationType.EMAIL, 1));
+    }
+
+    @Test
+    void onThrottle_lowersTheChannelRate() {
+        OutboundRateController controller = controller(true);
+
+        controller.onThrottle(NotificationType.SMS);
+
+        assertEquals(5.0, controller.getRate(NotificationType.SMS));
+        assertEquals(10.0, controller.getRate(NotificationType.EMAIL));
+        assertEquals(1.0, meterRegistry.get("notification.provider.rate.throttled").tag("type", "SMS")
+                .counter().count());
+    }
+
+    @Test
+    void disabled_grantsEverything() {
+        OutboundRateController controller = controller(false);
+
+        assertEquals(1000, controller.acquire(NotificationType.SMS, 1000));
+        assertNull(meterRegistry.find("notification.provider.rate.rejected").counter());
+    }
+}
@@ -0,0 +1,188 @@
+package com.karboncard.assignment.notificationservice.worker.adapter;
+
+import com.karboncard.assignment.notificationservice.exception.NotificationDeliveryException;
+import com.karboncard.assignment.notificationservice.exception.ProviderUnavailableException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProviderCallGuardTest {
+
+    @Mock
+    private AsyncProviderAdapter smsAdapter;
+
+    @Mock
+    private OutboundRateController rateController;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProviderCallGuard guard;
+    private final Notification notification = new Notification();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(smsAdapter.getType()).thenReturn(NotificationType.SMS);
+        guard = guard(1, 2);
+    }
+
+    @Test
+    void send_returnsTheProviderAnswerAndCountsFailedAnswersAsHealthy() {
+        when(smsAdapter.send(notification)).thenReturn(
+                CompletableFuture.completedFuture(DeliveryResult.accepted("SM1")),
+                CompletableFuture.completedFuture(DeliveryResult.transientFailure("PROVIDER_REJECTED", "busy")),
+                CompletableFuture.completedFuture(DeliveryResult.permanentFailure("INVALID", "bad number")));
+
+        assertEquals("SM1", guard.send(smsAdapter, notification).getProviderMessageId());
+        assertEquals(DeliveryResult.Status.TRANSIENT_FAILURE, guard.send(smsAdapter, notification).getStatus());
+        assertEquals(DeliveryResult.Status.PERMANENT_FAILURE, guard.send(smsAdapter, notification).getStatus());
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState(NotificationType.SMS));
+        assertEquals(1.0, calls("accepted"));
+        assertEquals(1.0, calls("transient_failure"));
+        assertEquals(0.0, inFlight());
+        verify(rateController, times(1)).onSuccess(NotificationType.SMS);
+        verify(rateController, never()).onThrottle(any());
+    }
+
+    @Test
+    void send_reportsThrottledAndTimedOutCallsToTheRateController() {
+        when(smsAdapter.send(notification)).thenReturn(
+                CompletableFuture.completedFuture(DeliveryResult.throttled("HTTP_429", "Too Many Requests")),
+                new CompletableFuture<>());
+
+        assertEquals(DeliveryResult.Status.THROTTLED, guard.send(smsAdapter, notification).getStatus());
+        assertThrows(NotificationDeliveryException.class, () -> guard.send(smsAdapter, notification));
+
+        verify(rateController, times(2)).onThrottle(NotificationType.SMS);
+        verify(rateController, never()).onSuccess(any());
+    }
+
+    @Test
+    void send_failsFastWithoutCallingTheProviderOnceTheBreakerOpens() {
+        when(smsAdapter.send(notification)).thenReturn(CompletableFuture.failedFuture(new RuntimeException("down")));
+
+        assertThrows(RuntimeException.class, () -> guard.send(smsAdapter, notification));
+        assertThrows(RuntimeException.class, () -> guard.send(smsAdapter, notification));
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState(NotificationType.SMS));
+
+        ProviderUnavailableException e = assertThrows(ProviderUnavailableException.class,
+                () -> guard.send(smsAdapter, notification));
+        assertEquals(NotificationType.SMS, e.getType());
+        verify(smsAdapter, times(2)).send(notification);
+        assertEquals(2.0, calls("failure"));
+        assertEquals(1.0, calls("circuit_open"));
+        assertEquals(1.0, meterRegistry.get("notification.provider.circuit.state").tag("type", "SMS").gauge().value());
+        // Other channels keep their own breaker
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState(NotificationType.EMAIL));
+    }
+
+    @Test
+    void send_timesOutAndKeepsTheBulkheadSlotUntilTheProviderAnswers() {
+        CompletableFuture<DeliveryResult> hanging = new CompletableFuture<>();
+        when(smsAdapter.send(notification)).thenReturn(hanging,
+                CompletableFuture.completedFuture(DeliveryResult.accepted("SM2")));
+
+        assertThrows(NotificationDeliveryException.class, () -> guard.send(smsAdapter, notification));
+        assertEquals(1.0, calls("timeout"));
+        // The in-flight slot is free again, the bulkhead slot is not
+        assertEquals(0.0, inFlight());
+        assertEquals(1.0, meterRegistry.get("notification.provider.bulkhead.saturation").tag("type", "SMS")
+                .gauge().value());
+        assertThrows(ProviderUnavailableException.class, () -> guard.send(smsAdapter, notification));
+        assertEquals(1.0, calls("bulkhead_full"));
+
+        hanging.complete(DeliveryResult.accepted("SM1"));
+        assertEquals("SM2", guard.send(smsAdapter, notification).getProviderMessageId());
+    }
+
+    @Test
+    void sendAsync_keepsAtMostMaxInFlightCallsOpen() throws Exception {
+        guard = guard(10, 2);
+        List<CompletableFuture<DeliveryResult>> answers = new ArrayList<>();
+        when(smsAdapter.send(notification)).thenAnswer(invocation -> {
+            CompletableFuture<DeliveryResult> answer = new CompletableFuture<>();
+            answers.add(answer);
+            return answer;
+        });
+
+        CompletableFuture<DeliveryResult> first = guard.sendAsync(smsAdapter, notification);
+        CompletableFuture<DeliveryResult> second = guard.sendAsync(smsAdapter, notification);
+        assertEquals(2.0, inFlight());
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<CompletableFuture<DeliveryResult>> third =
+                    CompletableFuture.supplyAsync(() -> guard.sendAsync(smsAdapter, notification), caller);
+            Thread.sleep(100);
+            // The third caller waits for a slot
+            assertFalse(third.isDone());
+            assertEquals(2, answers.size());
+
+            answers.get(0).complete(DeliveryResult.accepted("SM1"));
+            CompletableFuture<DeliveryResult> started = third.get(5, TimeUnit.SECONDS);
+            assertEquals(3, answers.size());
+            answers.get(1).complete(DeliveryResult.accepted("SM2"));
+            answers.get(2).complete(DeliveryResult.accepted("SM3"));
+
+            assertEquals("SM1", first.get().getProviderMessageId());
+            assertEquals("SM2", second.get().getProviderMessageId());
+            assertEquals("SM3", started.get().getProviderMessageId());
+            assertEquals(0.0, inFlight());
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    private ProviderCallGuard guard(int maxConcurrentCalls, int maxInFlight) {
+        meterRegistry = new SimpleMeterRegistry();
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(2)
+                .minimumNumberOfCalls(2)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TimeLimiterRegistry timeLimiters = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+                .timeoutDuration(Duration.ofMillis(200))
+                .build());
+        return new ProviderCallGuard(circuitBreakers, bulkheads, timeLimiters, new MetricsUtil(meterRegistry),
+                rateController, maxInFlight);
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("notification.provider.inflight").tag("type", "SMS").gauge().value();
+    }
+
+    private double calls(String result) {
+        var counter = meterRegistry.find("notification.provider.calls").tag("type", "SMS").tag("result", result)
+                .counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+}
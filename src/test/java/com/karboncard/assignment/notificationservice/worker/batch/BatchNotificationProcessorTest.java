@@ -0,0 +1,214 @@
+package com.karboncard.assignment.notificationservice.worker.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karboncard.assignment.notificationservice.exception.ProviderUnavailableException;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryAttempt;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryOutcome;
+import com.karboncard.assignment.notificationservice.model.delivery.DeliveryResult;
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationStatus;
+import com.karboncard.assignment.notificationservice.model.enums.NotificationType;
+import com.karboncard.assignment.notificationservice.repository.NotificationAttemptRepository;
+import com.karboncard.assignment.notificationservice.repository.NotificationRepository;
+import com.karboncard.assignment.notificationservice.repository.NotificationStatusBatchRepository;
+import com.karboncard.assignment.notificationservice.service.status.NotificationStateMachine;
+import com.karboncard.assignment.notificationservice.util.CreatedAtRange;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.worker.adapter.AsyncProviderAdapter;
+import com.karboncard.assignment.notificationservice.worker.adapter.ProviderAdapterRegistry;
+import com.karboncard.assignment.notificationservice.worker.adapter.ProviderCallGuard;
+import com.karboncard.assignment.notificationservice.worker.dedup.NotificationDeduplicator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BatchNotificationProcessorTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationStatusBatchRepository statusBatchRepository;
+
+    @Mock
+    private NotificationAttemptRepository attemptRepository;
+
+    @Mock
+    private AsyncProviderAdapter emailAdapter;
+
+    @Mock
+    private ProviderAdapterRegistry adapters;
+
+    @Mock
+    private NotificationDeduplicator deduplicator;
+
+    @Mock
+    private ProviderCallGuard providerCallGuard;
+
+    @Mock
+    private NotificationStateMachine stateMachine;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<DeliveryOutcome>> outcomesCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<DeliveryAttempt>> attemptsCaptor;
+
+    private static final String N1 = "0192a3b4-0000-7000-8000-000000000001";
+    private static final String N2 = "0192a3b4-0000-7000-8000-000000000002";
+    private static final String N3 = "0192a3b4-0000-7000-8000-000000000003";
+
+    private BatchNotificationProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(emailAdapter.getType()).thenReturn(NotificationType.EMAIL);
+        when(adapters.get(NotificationType.EMAIL)).thenReturn(emailAdapter);
+        when(providerCallGuard.sendAsync(any(), any())).thenAnswer(invocation ->
+                invocation.<AsyncProviderAdapter>getArgument(0).send(invocation.getArgument(1)).toCompletableFuture());
+        when(deduplicator.claimAll(any())).thenAnswer(invocation -> new LinkedHashSet<String>(invocation.getArgument(0)));
+        processor = new BatchNotificationProcessor(new ObjectMapper(), notificationRepository, statusBatchRepository,
+                attemptRepository, adapters, new MetricsUtil(new SimpleMeterRegistry()), deduplicator,
+                providerCallGuard, stateMachine, transactionManager);
+    }
+
+    @Test
+    void processBatch_loadsOnceAndWritesAllOutcomesInOneBatch() {
+        Notification ok = notification(N1, NotificationStatus.PENDING, 0);
+        Notification failing = notification(N2, NotificationStatus.FAILED, 3);
+        Notification alreadySent = notification(N3, NotificationStatus.SENT, 1);
+        when(notificationRepository.findByIdInAndCreatedAtBetween(any(), any(), any()))
+                .thenReturn(List.of(ok, failing, alreadySent));
+        when(emailAdapter.send(ok)).thenReturn(accepted("msg-1"));
+        when(emailAdapter.send(failing)).thenReturn(rejected());
+
+        int processed = processor.processBatch(NotificationType.EMAIL,
+                List.of(message(N1), message(N2), message(N3), message(N1), "not-json", message("not-a-uuid")));
+
+        assertEquals(2, processed);
+        CreatedAtRange createdAt = CreatedAtRange.of(Set.of(N1, N2, N3));
+        verify(notificationRepository, times(1)).findByIdInAndCreatedAtBetween(Set.of(N1, N2, N3), createdAt.from(),
+                createdAt.to());
+        verify(emailAdapter, never()).send(alreadySent);
+        verify(statusBatchRepository, times(1)).applyOutcomes(outcomesCaptor.capture());
+        verify(transactionManager).commit(any());
+
+        Map<String, NotificationStatus> statuses = outcomesCaptor.getValue().stream()
+                .collect(Collectors.toMap(DeliveryOutcome::getNotificationId, DeliveryOutcome::getStatus));
+        assertEquals(NotificationStatus.SENT, statuses.get(N1));
+        // Fourth attempt fails permanently
+        assertEquals(NotificationStatus.PERMANENT_FAILURE, statuses.get(N2));
+        verify(deduplicator).completeAll(Set.of(N1, N2, N3));
+
+        verify(attemptRepository, times(1)).insertAll(attemptsCaptor.capture());
+        Map<String, DeliveryAttempt> attempts = attemptsCaptor.getValue().stream()
+                .collect(Collectors.toMap(DeliveryAttempt::getNotificationId, attempt -> attempt));
+        assertEquals(2, attempts.size());
+        assertEquals(1, attempts.get(N1).getAttemptNumber());
+        assertNull(attempts.get(N1).getErrorCode());
+        assertEquals("msg-1", attempts.get(N1).getProviderMessageId());
+        assertEquals(4, attempts.get(N2).getAttemptNumber());
+        assertEquals(DeliveryAttempt.PROVIDER_REJECTED, attempts.get(N2).getErrorCode());
+    }
+
+    @Test
+    void processBatch_skipsIdsClaimedElsewhereAndReleasesRetryableFailures() {
+        Notification ok = notification(N1, NotificationStatus.PENDING, 0);
+        Notification failing = notification(N2, NotificationStatus.PENDING, 0);
+        doReturn(new LinkedHashSet<>(List.of(N1, N2))).when(deduplicator).claimAll(any());
+        when(notificationRepository.findByIdInAndCreatedAtBetween(any(), any(), any()))
+                .thenReturn(List.of(ok, failing));
+        when(emailAdapter.send(ok)).thenReturn(accepted("msg-1"));
+        when(emailAdapter.send(failing)).thenReturn(rejected());
+
+        int processed = processor.processBatch(NotificationType.EMAIL,
+                List.of(message(N1), message(N2), message(N3)));
+
+        assertEquals(2, processed);
+        verify(notificationRepository).findByIdInAndCreatedAtBetween(eq(Set.of(N1, N2)), any(), any());
+        verify(deduplicator).completeAll(Set.of(N1));
+        verify(deduplicator).releaseAll(List.of(N2));
+    }
+
+    @Test
+    void processBatch_parksNotificationsWhoseProviderIsUnavailable() {
+        Notification ok = notification(N1, NotificationStatus.PENDING, 0);
+        Notification parked = notification(N2, NotificationStatus.PENDING, 2);
+        when(notificationRepository.findByIdInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of(ok, parked));
+        when(emailAdapter.send(ok)).thenReturn(accepted("msg-1"));
+        doReturn(CompletableFuture.failedFuture(
+                new ProviderUnavailableException(NotificationType.EMAIL, "circuit breaker is open")))
+                .when(providerCallGuard).sendAsync(emailAdapter, parked);
+
+        int processed = processor.processBatch(NotificationType.EMAIL, List.of(message(N1), message(N2)));
+
+        assertEquals(1, processed);
+        verify(stateMachine).park(Set.of(N2), "EMAIL provider unavailable");
+        verify(statusBatchRepository).applyOutcomes(outcomesCaptor.capture());
+        assertEquals(List.of(N1), outcomesCaptor.getValue().stream().map(DeliveryOutcome::getNotificationId).toList());
+        verify(attemptRepository).insertAll(attemptsCaptor.capture());
+        assertEquals(1, attemptsCaptor.getValue().size());
+        verify(deduplicator).completeAll(Set.of(N1));
+        verify(deduplicator).releaseAll(List.of(N2));
+    }
+
+    @Test
+    void processBatch_failsPermanentFailuresAtOnceAndRecordsCallErrors() {
+        Notification invalid = notification(N1, NotificationStatus.PENDING, 0);
+        Notification timedOut = notification(N2, NotificationStatus.PENDING, 0);
+        when(notificationRepository.findByIdInAndCreatedAtBetween(any(), any(), any()))
+                .thenReturn(List.of(invalid, timedOut));
+        when(emailAdapter.send(invalid)).thenReturn(CompletableFuture.completedFuture(
+                DeliveryResult.permanentFailure("INVALID_RECIPIENT", "no such mailbox")));
+        when(emailAdapter.send(timedOut))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("timeout")));
+
+        processor.processBatch(NotificationType.EMAIL, List.of(message(N1), message(N2)));
+
+        verify(statusBatchRepository).applyOutcomes(outcomesCaptor.capture());
+        Map<String, DeliveryOutcome> outcomes = outcomesCaptor.getValue().stream()
+                .collect(Collectors.toMap(DeliveryOutcome::getNotificationId, outcome -> outcome));
+        assertEquals(NotificationStatus.PERMANENT_FAILURE, outcomes.get(N1).getStatus());
+        assertEquals("INVALID_RECIPIENT", outcomes.get(N1).getErrorCode());
+        assertNull(outcomes.get(N1).getNextAttemptAt());
+        assertEquals(NotificationStatus.FAILED, outcomes.get(N2).getStatus());
+        assertEquals("IllegalStateException", outcomes.get(N2).getErrorCode());
+        verify(deduplicator).completeAll(Set.of(N1));
+        verify(deduplicator).releaseAll(List.of(N2));
+    }
+
+    private static CompletableFuture<DeliveryResult> accepted(String providerMessageId) {
+        return CompletableFuture.completedFuture(DeliveryResult.accepted(providerMessageId));
+    }
+
+    private static CompletableFuture<DeliveryResult> rejected() {
+        return CompletableFuture.completedFuture(
+                DeliveryResult.transientFailure(DeliveryAttempt.PROVIDER_REJECTED, "EMAIL provider returned failure"));
+    }
+
+    private static String message(String id) {
+        return "{\"id\":\"" + id + "\"}";
+    }
+
+    private Notification notification(String id, NotificationStatus status, int attempts) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setType(NotificationType.EMAIL);
+        notification.setStatus(status);
+        notification.setDeliveryAttempts(attempts);
+        return notification;
+    }
+}
@@ -0,0 +1,108 @@
+package com.karboncard.assignment.notificationservice.worker.dedup;
+
+import com.karboncard.assignment.notificationservice.model.entity.Notification;
+import com.karboncard.assignment.notificationservice.util.MetricsUtil;
+import com.karboncard.assignment.notificationservice.worker.NotificationConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationDeduplicatorTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private NotificationConsumer consumer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        deduplicator = new NotificationDeduplicator(redisTemplate, new MetricsUtil(meterRegistry),
+                true, 30000, 1440, 1000, 10);
+    }
+
+    @Test
+    void claimAll_pipelinesDistinctIdsAndKeepsOnlyGrantedClaims() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Arrays.asList(true, false, true));
+
+        Set<String> claimed = deduplicator.claimAll(List.of("n1", "n2", "n1", "n3"));
+
+        assertEquals(List.of("n1", "n3"), List.copyOf(claimed));
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        assertEquals(1.0, meterRegistry.get("notification.dedup.claims")
+                .tags("result", "duplicate", "source", "redis").counter().count());
+        assertEquals(2.0, meterRegistry.get("notification.dedup.claims")
+                .tags("result", "claimed", "source", "redis").counter().count());
+    }
+
+    @Test
+    void claimAll_answersCompletedIdsFromLocalCache() {
+        deduplicator.complete("n1");
+        clearInvocations(redisTemplate);
+
+        Set<String> claimed = deduplicator.claimAll(List.of("n1"));
+
+        assertTrue(claimed.isEmpty());
+        verifyNoInteractions(redisTemplate);
+        assertEquals(1.0, meterRegistry.get("notification.dedup.claims")
+                .tags("result", "duplicate", "source", "local").counter().count());
+    }
+
+    @Test
+    void claimAll_failsOpenWhenRedisIsDown() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertEquals(Set.of("n1", "n2"), deduplicator.claimAll(List.of("n1", "n2")));
+    }
+
+    @Test
+    void process_skipsDuplicatesAndReleasesFailedDeliveries() {
+        Notification notification = new Notification();
+        notification.setId("n1");
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(false));
+
+        assertFalse(deduplicator.process(notification, consumer));
+        verify(consumer, never()).processNotification(any());
+
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(true));
+        doThrow(new IllegalStateException("provider down")).when(consumer).processNotification(notification);
+
+        assertThrows(IllegalStateException.class, () -> deduplicator.process(notification, consumer));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("dedup:notification:n1")), anyString());
+    }
+
+    @Test
+    void disabled_claimsEverythingWithoutRedis() {
+        NotificationDeduplicator disabled = new NotificationDeduplicator(redisTemplate,
+                new MetricsUtil(new SimpleMeterRegistry()), false, 30000, 1440, 1000, 10);
+
+        assertEquals(Set.of("n1"), disabled.claimAll(List.of("n1")));
+        disabled.completeAll(List.of("n1"));
+        disabled.releaseAll(List.of("n1"));
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+    }
+}
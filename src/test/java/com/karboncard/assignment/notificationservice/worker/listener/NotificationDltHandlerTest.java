@@ -0,0 +1,51 @@
+package com.karboncard.assignment.notificationservice.worker.listener;
+
+import com.karboncard.assignment.notificationservice.model.dlq.DeadLetterPayload;
+import com.karboncard.assignment.notificationservice.service.DeadLetterQueueService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NotificationDltHandlerTest {
+
+    @Mock
+    private DeadLetterQueueService deadLetterQueueService;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @InjectMocks
+    private NotificationDltHandler dltHandler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void handleDlt_forwardsToDeadLetterQueueAndAcknowledges() {
+        ConsumerRecord<String, String> record =
+                new ConsumerRecord<>("notification-email-topic-dlt", 0, 7L, "key-1", "{\"id\":\"n1\"}");
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+                "Email provider returned failure".getBytes(StandardCharsets.UTF_8));
+
+        dltHandler.handleDlt(record, acknowledgment);
+
+        ArgumentCaptor<DeadLetterPayload> captor = ArgumentCaptor.forClass(DeadLetterPayload.class);
+        verify(deadLetterQueueService).sendToDLQ(captor.capture());
+        DeadLetterPayload payload = captor.getValue();
+        assertEquals("notification-email-topic", payload.getOriginalTopic());
+        assertEquals("key-1", payload.getOriginalKey());
+        assertEquals("{\"id\":\"n1\"}", payload.getOriginalPayload());
+        assertEquals("Email provider returned failure", payload.getErrorReason());
+        verify(acknowledgment).acknowledge();
+    }
+}
@@ -0,0 +1,65 @@
+package com.karboncard.assignment.notificationservice.worker.parallel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyOrderedExecutorTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor(pool);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void submit_sameKeyRunsInOrderWhileOtherKeysProceed() throws Exception {
+        CountDownLatch blockUserA = new CountDownLatch(1);
+        List<String> executed = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> a1 = executor.submit("user-a", () -> {
+            await(blockUserA);
+            executed.add("a1");
+        });
+        CompletableFuture<Void> a2 = executor.submit("user-a", () -> executed.add("a2"));
+        CompletableFuture<Void> b1 = executor.submit("user-b", () -> executed.add("b1"));
+
+        // user-b is not held up by the blocked user-a task
+        b1.get(1, TimeUnit.SECONDS);
+        assertFalse(a2.isDone());
+
+        blockUserA.countDown();
+        CompletableFuture.allOf(a1, a2).get(1, TimeUnit.SECONDS);
+        assertTrue(executed.indexOf("a1") < executed.indexOf("a2"));
+    }
+
+    @Test
+    void submit_failedTaskDoesNotBlockLaterTasksForKey() throws Exception {
+        CompletableFuture<Void> failing = executor.submit("user-a", () -> {
+            throw new IllegalStateException("provider down");
+        });
+        CompletableFuture<Void> next = executor.submit("user-a", () -> { });
+
+        next.get(1, TimeUnit.SECONDS);
+        assertTrue(failing.isCompletedExceptionally());
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.karboncard.assignment.notificationservice.worker.parallel;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionOffsetTrackerTest {
+
+    private final TopicPartition partition = new TopicPartition("notification-email-topic", 0);
+    private final PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+
+    @Test
+    void committableOffsets_stopAtLowestIncompleteRecord() {
+        tracker.dispatched(partition, 10);
+        tracker.dispatched(partition, 11);
+        tracker.dispatched(partition, 12);
+
+        tracker.completed(partition, 11);
+        tracker.completed(partition, 12);
+        assertEquals(10, tracker.committableOffsets(List.of(partition)).get(partition).offset());
+
+        tracker.completed(partition, 10);
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.committableOffsets(List.of(partition));
+        assertEquals(13, offsets.get(partition).offset());
+
+        tracker.markCommitted(offsets);
+        assertTrue(tracker.committableOffsets(List.of(partition)).isEmpty());
+    }
+
+    @Test
+    void revoke_forgetsPartition() {
+        tracker.dispatched(partition, 5);
+        tracker.revoke(List.of(partition));
+
+        assertEquals(0, tracker.pendingCount(partition));
+        assertTrue(tracker.committableOffsets(List.of(partition)).isEmpty());
+    }
+}